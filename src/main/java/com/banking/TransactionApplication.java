@@ -3,11 +3,13 @@ package com.banking;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 /**
  * This is a simple banking transaction application
  */
 @SpringBootApplication
 @EnableCaching
+@EnableScheduling
 public class TransactionApplication {
 
     public static void main(String[] args) {
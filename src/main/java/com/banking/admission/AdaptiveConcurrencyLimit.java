@@ -0,0 +1,133 @@
+package com.banking.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit adjusted by AIMD on the observed latency, with a bounded wait queue. </br>
+ * Admission is one CAS on the in-flight count while under the limit. Over the limit a request waits in the queue
+ * for at most maxQueueWaitMs, and is rejected at once when the queue is full. </br>
+ * Each request served within the latency target while the limit was in use adds 1/limit (about +1 per window of
+ * requests), a slower or failed request multiplies the limit by the backoff ratio, at most once per latency target
+ * so one burst of slow requests does not collapse it. </br>
+ * Note: queued requests are not served in strict order, a new request can take a permit released meanwhile.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    public enum Outcome { ADMITTED, QUEUE_FULL, TIMEOUT }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxQueueWaitNanos;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(System.nanoTime());
+    private volatile double limit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    public AdaptiveConcurrencyLimit(AdmissionProperties.Limit settings) {
+        if (settings.getMinLimit() < 1 || settings.getMinLimit() > settings.getMaxLimit()) {
+            throw new IllegalStateException("Admission limit needs 1 <= min-limit <= max-limit");
+        }
+        this.minLimit = settings.getMinLimit();
+        this.maxLimit = settings.getMaxLimit();
+        this.maxQueue = settings.getMaxQueue();
+        this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(settings.getMaxQueueWaitMs());
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(settings.getLatencyTargetMs());
+        this.backoffRatio = settings.getBackoffRatio();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, settings.getInitialLimit()));
+    }
+
+    public Outcome acquire() {
+        if (tryAcquire()) {
+            return Outcome.ADMITTED;
+        }
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            return Outcome.QUEUE_FULL;
+        }
+        lock.lock();
+        try {
+            long remaining = maxQueueWaitNanos;
+            while (!tryAcquire()) {
+                if (remaining <= 0) {
+                    return Outcome.TIMEOUT;
+                }
+                remaining = permitReleased.awaitNanos(remaining);
+            }
+            return Outcome.ADMITTED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Outcome.TIMEOUT;
+        } finally {
+            lock.unlock();
+            queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * Release the permit of an admitted request and adjust the limit with its latency.
+     */
+    public void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        adjust(latencyNanos, failed, inFlightBefore);
+        if (queued.get() > 0) {
+            lock.lock();
+            try {
+                permitReleased.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void adjust(long latencyNanos, boolean failed, int inFlightBefore) {
+        if (failed || latencyNanos > latencyTargetNanos) {
+            long now = System.nanoTime();
+            long last = lastDecreaseNanos.get();
+            if (now - last > latencyTargetNanos && lastDecreaseNanos.compareAndSet(last, now)) {
+                synchronized (this) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                }
+            }
+        } else if (inFlightBefore >= (int) limit / 2) {
+            //only grow a limit that is in use, an idle service says nothing about the capacity
+            synchronized (this) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        }
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+}
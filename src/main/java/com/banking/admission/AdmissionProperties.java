@@ -0,0 +1,135 @@
+package com.banking.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Admission control settings bound from app.admission.* </br>
+ * <pre>
+ * app.admission.enabled=true
+ * app.admission.reads.max-limit=64
+ * app.admission.writes.latency-target-ms=100
+ * </pre>
+ * Reads and writes have their own limit, so a burst of writes waiting for connections does not starve the reads.
+ */
+@ConfigurationProperties(prefix = "app.admission")
+public class AdmissionProperties {
+
+    private boolean enabled;
+    private int retryAfterSeconds = 1;
+    private Limit reads = new Limit(32, 4, 128, 100, 50, 50);
+    private Limit writes = new Limit(16, 2, 64, 50, 100, 150);
+
+    /**
+     * Concurrency limit of one class of requests. The limit moves between minLimit and maxLimit: +1 per window of
+     * requests served under latencyTargetMs, times backoffRatio when a request is slower or fails.
+     */
+    public static class Limit {
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+        private int maxQueue;
+        private long maxQueueWaitMs;
+        private long latencyTargetMs;
+        private double backoffRatio = 0.9;
+
+        public Limit() {
+        }
+
+        Limit(int initialLimit, int minLimit, int maxLimit, int maxQueue, long maxQueueWaitMs, long latencyTargetMs) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.maxQueue = maxQueue;
+            this.maxQueueWaitMs = maxQueueWaitMs;
+            this.latencyTargetMs = latencyTargetMs;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+
+        public void setMaxQueue(int maxQueue) {
+            this.maxQueue = maxQueue;
+        }
+
+        public long getMaxQueueWaitMs() {
+            return maxQueueWaitMs;
+        }
+
+        public void setMaxQueueWaitMs(long maxQueueWaitMs) {
+            this.maxQueueWaitMs = maxQueueWaitMs;
+        }
+
+        public long getLatencyTargetMs() {
+            return latencyTargetMs;
+        }
+
+        public void setLatencyTargetMs(long latencyTargetMs) {
+            this.latencyTargetMs = latencyTargetMs;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public Limit getReads() {
+        return reads;
+    }
+
+    public void setReads(Limit reads) {
+        this.reads = reads;
+    }
+
+    public Limit getWrites() {
+        return writes;
+    }
+
+    public void setWrites(Limit writes) {
+        this.writes = writes;
+    }
+}
@@ -0,0 +1,357 @@
+package com.banking.balance;
+
+import com.banking.model.Transaction;
+import com.banking.repository.AccountBalanceRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.storage.compact.CompactEncoding;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory balances of the accounts, per currency, for the balance endpoint: a read is a map lookup instead of a
+ * sum over the transactions of the account. </br>
+ * Maintenance: {@link com.banking.service.impl.TransactionServiceImpl} records the {@link Posting} of a transaction
+ * before and after each create, update and delete, the ledger reverses the old one and applies the new one after
+ * commit. Each balance is a {@link BalanceCell}, updated with one CAS: no lock, accounts do not contend. A hot
+ * account, whose CAS keeps failing under concurrent postings, is promoted to striped counters folded on read, so
+ * its throughput grows with the cores instead of collapsing on one cache line. </br>
+ * Checkpoint: every app.balance.checkpoint-interval-ms and at shutdown the balances are saved to account_balances
+ * with the watermark of the transactions they cover. It is only taken when no balance change is in flight, so it
+ * matches its watermark exactly. At startup the checkpoint is restored when the DB is the same or only has new
+ * transactions since (replayed), otherwise the balances are summed from the DB in one pass. </br>
+ * Note: changes made by other instances are not seen until a restart, run one writer instance with the ledger.
+ * Enabled with app.balance.enabled, for the jpa engine without sharding.
+ */
+@Component
+@ConditionalOnExpression("${app.balance.enabled:false} and '${app.storage.engine:jpa}' == 'jpa' and !${app.sharding.enabled:false}")
+public class AccountBalanceLedger implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountBalanceLedger.class);
+
+    @Autowired
+    private AccountBalanceRepository accountBalanceRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.balance.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    @Value("${app.balance.quiesce-attempts:20}")
+    private int quiesceAttempts;
+
+    @Value("${app.balance.hot-account.contention-threshold:64}")
+    private int contentionThreshold;
+
+    @Value("${app.balance.hot-account.window-ms:1000}")
+    private long contentionWindowMs;
+
+    //hot accounts with their own metrics, bounds the metric cardinality
+    @Value("${app.balance.hot-account.max-tracked:100}")
+    private int maxTrackedHotAccounts;
+
+    //account number -> currency -> balance
+    private volatile Map<String, Map<String, BalanceCell>> accounts = new ConcurrentHashMap<>();
+
+    //balance changes registered and completed, equal when none is in flight
+    private final LongAdder started = new LongAdder();
+    private final LongAdder finished = new LongAdder();
+
+    private volatile boolean ready;
+
+    private TransactionTemplate transactionTemplate;
+
+    private HotAccountPolicy hotAccountPolicy;
+    private final AtomicInteger hotAccounts = new AtomicInteger();
+
+    private Counter checkpointsWritten;
+    private Counter checkpointsSkipped;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        hotAccountPolicy = new HotAccountPolicy(contentionThreshold, contentionWindowMs);
+        Gauge.builder("transaction.balance.accounts", this, ledger -> ledger.accounts.size()).register(meterRegistry);
+        Gauge.builder("transaction.balance.hot_accounts", hotAccounts, AtomicInteger::get).register(meterRegistry);
+        FunctionCounter.builder("transaction.balance.cas_retries", hotAccountPolicy, HotAccountPolicy::getCasRetries)
+                .register(meterRegistry);
+        checkpointsWritten = Counter.builder("transaction.balance.checkpoints").tag("result", "written").register(meterRegistry);
+        checkpointsSkipped = Counter.builder("transaction.balance.checkpoints").tag("result", "skipped").register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    /**
+     * Load the balances from the checkpoint or the DB. The result is only kept when no balance change ran
+     * meanwhile, otherwise it is loaded again. Until then the balance endpoint sums from the DB.
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        ready = false;
+        try {
+            for (int attempt = 0; attempt < quiesceAttempts; attempt++) {
+                long changes = quiescentChanges();
+                if (changes < 0) {
+                    pause();
+                    continue;
+                }
+                accounts = load();
+                ready = true;
+                //a change registered after this check commits after the load, the ledger applies it
+                if (started.sum() == changes) {
+                    logger.info("Account balance ledger ready, {} accounts in {} ms", accounts.size(), System.currentTimeMillis() - start);
+                    return;
+                }
+                ready = false;
+            }
+            logger.error("Account balance ledger not loaded, balance changes kept running for {} attempts", quiesceAttempts);
+        } catch (Exception e) {
+            //not fatal, the balance endpoint keeps summing from the DB
+            ready = false;
+            logger.error("Failed to load the account balance ledger after {} ms, error: {}", System.currentTimeMillis() - start, e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.balance.checkpoint-interval-ms:60000}", fixedDelayString = "${app.balance.checkpoint-interval-ms:60000}")
+    public void scheduledCheckpoint() {
+        checkpoint();
+    }
+
+    @PreDestroy
+    public void checkpointAtShutdown() {
+        checkpoint();
+    }
+
+    /**
+     * Save the balances and the watermark they match, in a window without balance changes. Skipped when the
+     * writes never pause, the previous checkpoint stays.
+     */
+    public synchronized boolean checkpoint() {
+        if (!ready) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            for (int attempt = 0; attempt < quiesceAttempts; attempt++) {
+                long changes = quiescentChanges();
+                if (changes < 0) {
+                    pause();
+                    continue;
+                }
+                AccountBalanceRepository.Watermark watermark = accountBalanceRepository.currentWatermark();
+                List<AccountBalanceRepository.Balance> balances = balances();
+                if (started.sum() != changes) {
+                    continue;
+                }
+                transactionTemplate.executeWithoutResult(status -> accountBalanceRepository.saveCheckpoint(balances, watermark));
+                checkpointsWritten.increment();
+                logger.info("Account balance checkpoint written, {} balances, {} transactions in {} ms",
+                        balances.size(), watermark.transactionCount(), System.currentTimeMillis() - start);
+                return true;
+            }
+            checkpointsSkipped.increment();
+            logger.info("Account balance checkpoint skipped, balance changes kept running for {} attempts", quiesceAttempts);
+        } catch (RuntimeException e) {
+            checkpointsSkipped.increment();
+            logger.error("Failed to write the account balance checkpoint, error: {}", e.getMessage(), e);
+        }
+        return false;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reverse the posting of a transaction before the change and apply the one after it, once the DB transaction
+     * commits. Either may be null (create, delete, FAILED transactions).
+     */
+    public void record(Posting reversed, Posting posted) {
+        if (Objects.equals(reversed, posted)) {
+            return;
+        }
+        started.increment();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                apply(reversed, posted);
+            } finally {
+                finished.increment();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    apply(reversed, posted);
+                } catch (RuntimeException e) {
+                    //the data is committed, the balance is corrected by the next rebuild
+                    logger.error("Failed to apply balance change after commit, account {}, error: {}",
+                            posted != null ? posted.accountNumber() : reversed.accountNumber(), e.getMessage(), e);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                finished.increment();
+            }
+        });
+    }
+
+    /**
+     * Balances of an account by currency, empty while the ledger is not ready. An account without transactions
+     * has no balances.
+     */
+    public Optional<Map<String, BigDecimal>> findBalances(String accountNumber) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        Map<String, BigDecimal> balances = new TreeMap<>();
+        Map<String, BalanceCell> cells = accounts.get(accountNumber);
+        if (cells != null) {
+            cells.forEach((currency, cell) -> balances.put(currency, CompactEncoding.decodeAmount(cell.get())));
+        }
+        return Optional.of(balances);
+    }
+
+    private void apply(Posting reversed, Posting posted) {
+        if (!ready) {
+            //the load in progress covers it, or is redone
+            return;
+        }
+        if (reversed != null) {
+            post(reversed.accountNumber(), reversed.currency(), -reversed.amount());
+        }
+        if (posted != null) {
+            post(posted.accountNumber(), posted.currency(), posted.amount());
+        }
+    }
+
+    private void post(String accountNumber, String currency, long amount) {
+        BalanceCell cell = cell(accounts, accountNumber, currency);
+        if (cell.add(amount)) {
+            int hot = hotAccounts.incrementAndGet();
+            logger.info("Account {} is hot in {}, balance moved to striped counters, {} hot accounts", accountNumber, currency, hot);
+            if (hot <= maxTrackedHotAccounts) {
+                FunctionCounter.builder("transaction.balance.hot_account.cas_retries", cell, BalanceCell::getCasRetries)
+                        .tag("account", accountNumber).tag("currency", currency).register(meterRegistry);
+            }
+        }
+    }
+
+    /**
+     * Restore the checkpoint when nothing but new transactions happened since: same latest update, and the row
+     * count grew by the rows above the checkpoint max id, which are replayed. Otherwise sum from the DB.
+     */
+    private Map<String, Map<String, BalanceCell>> load() {
+        Map<String, Map<String, BalanceCell>> loaded = new ConcurrentHashMap<>();
+        Optional<AccountBalanceRepository.Watermark> checkpoint = accountBalanceRepository.findCheckpoint();
+        if (checkpoint.isPresent()) {
+            AccountBalanceRepository.Watermark saved = checkpoint.get();
+            AccountBalanceRepository.Watermark current = accountBalanceRepository.currentWatermark();
+            long created = current.transactionCount() - saved.transactionCount();
+            if (Objects.equals(current.maxUpdatedAt(), saved.maxUpdatedAt()) && created >= 0
+                    && accountBalanceRepository.countAfter(saved.maxTransactionId()) == created) {
+                accountBalanceRepository.findCheckpointBalances()
+                        .forEach(balance -> cell(loaded, balance.accountNumber(), balance.currency()).add(balance.amount()));
+                long replayed = replayAfter(loaded, saved.maxTransactionId());
+                logger.info("Account balances restored from checkpoint, {} transactions replayed", replayed);
+                return loaded;
+            }
+            logger.info("Account balance checkpoint is stale, transactions changed since, summing from the DB");
+        }
+        accountBalanceRepository.sumAll()
+                .forEach(balance -> cell(loaded, balance.accountNumber(), balance.currency()).add(balance.amount()));
+        return loaded;
+    }
+
+    private long replayAfter(Map<String, Map<String, BalanceCell>> loaded, long afterId) {
+        long replayed = 0;
+        long lastId = afterId;
+        while (true) {
+            List<Transaction> batch = transactionRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, rebuildBatchSize));
+            for (Transaction transaction : batch) {
+                Posting posting = Posting.of(transaction);
+                if (posting != null) {
+                    cell(loaded, posting.accountNumber(), posting.currency()).add(posting.amount());
+                }
+            }
+            replayed += batch.size();
+            if (batch.size() < rebuildBatchSize) {
+                return replayed;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    private List<AccountBalanceRepository.Balance> balances() {
+        List<AccountBalanceRepository.Balance> balances = new ArrayList<>();
+        accounts.forEach((accountNumber, cells) -> cells.forEach((currency, cell) ->
+                balances.add(new AccountBalanceRepository.Balance(accountNumber, currency, cell.get()))));
+        return balances;
+    }
+
+    /**
+     * Number of balance changes registered so far when none is in flight, -1 otherwise.
+     */
+    private long quiescentChanges() {
+        long changes = started.sum();
+        return finished.sum() == changes ? changes : -1;
+    }
+
+    private BalanceCell cell(Map<String, Map<String, BalanceCell>> accounts, String accountNumber, String currency) {
+        Map<String, BalanceCell> cells = accounts.get(accountNumber);
+        if (cells == null) {
+            cells = accounts.computeIfAbsent(accountNumber, key -> new ConcurrentHashMap<>());
+        }
+        BalanceCell cell = cells.get(currency);
+        return cell != null ? cell : cells.computeIfAbsent(currency, key -> new BalanceCell(0, hotAccountPolicy));
+    }
+
+    private static void pause() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.banking.balance;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Balance of one account in one currency, in minor units. </br>
+ * A cell starts as one AtomicLong updated by CAS. When the CAS keeps failing, many threads post to the account
+ * at once (a hot account, see {@link HotAccountPolicy}), and the cell is promoted: from then on adds go to a
+ * LongAdder, whose stripes spread the threads over several cache lines instead of serializing them on one. A read
+ * folds the base and the stripes together. Adds still in flight on the base when the cell is promoted land in the
+ * base, nothing is lost. </br>
+ * Note: the sum is exact when no add runs concurrently (checkpoints), a promoted cell stays promoted.
+ */
+class BalanceCell {
+
+    private final AtomicLong base;
+    private volatile LongAdder stripes;
+
+    private final HotAccountPolicy policy;
+    private final LongAdder casRetries = new LongAdder();
+    private final AtomicInteger windowRetries = new AtomicInteger();
+    private volatile long windowStart = System.nanoTime();
+
+    BalanceCell(long amount, HotAccountPolicy policy) {
+        this.base = new AtomicLong(amount);
+        this.policy = policy;
+    }
+
+    /**
+     * Returns true when this add promoted the cell.
+     */
+    boolean add(long delta) {
+        LongAdder adder = stripes;
+        if (adder != null) {
+            adder.add(delta);
+            return false;
+        }
+        long current = base.get();
+        if (base.compareAndSet(current, current + delta)) {
+            return false;
+        }
+        boolean promoted = contended() && promote();
+        adder = stripes;
+        if (adder != null) {
+            adder.add(delta);
+        } else {
+            base.addAndGet(delta);
+        }
+        return promoted;
+    }
+
+    long get() {
+        LongAdder adder = stripes;
+        return adder == null ? base.get() : base.get() + adder.sum();
+    }
+
+    boolean isPromoted() {
+        return stripes != null;
+    }
+
+    long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    /**
+     * Count a failed CAS, true when the cell is hot.
+     */
+    private boolean contended() {
+        casRetries.increment();
+        policy.casRetried();
+        long now = System.nanoTime();
+        if (now - windowStart > policy.getWindowNanos()) {
+            //approximate under races, only the order of magnitude matters
+            windowStart = now;
+            windowRetries.set(0);
+        }
+        return windowRetries.incrementAndGet() >= policy.getContentionThreshold();
+    }
+
+    private synchronized boolean promote() {
+        if (stripes != null) {
+            return false;
+        }
+        stripes = new LongAdder();
+        return true;
+    }
+}
@@ -0,0 +1,39 @@
+package com.banking.balance;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * When a {@link BalanceCell} is hot: at least contentionThreshold failed CAS within windowMs. Also counts the
+ * failed CAS of all the cells, for the metrics.
+ */
+class HotAccountPolicy {
+
+    private final int contentionThreshold;
+    private final long windowNanos;
+    private final LongAdder casRetries = new LongAdder();
+
+    HotAccountPolicy(int contentionThreshold, long windowMs) {
+        if (contentionThreshold < 1) {
+            throw new IllegalStateException("app.balance.hot-account.contention-threshold must be >= 1");
+        }
+        this.contentionThreshold = contentionThreshold;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+    }
+
+    int getContentionThreshold() {
+        return contentionThreshold;
+    }
+
+    long getWindowNanos() {
+        return windowNanos;
+    }
+
+    void casRetried() {
+        casRetries.increment();
+    }
+
+    long getCasRetries() {
+        return casRetries.sum();
+    }
+}
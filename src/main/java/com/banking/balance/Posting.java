@@ -0,0 +1,26 @@
+package com.banking.balance;
+
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.model.Transaction;
+import com.banking.storage.compact.CompactEncoding;
+
+/**
+ * Effect of one transaction on the balance of its account: signed minor units in its currency, credits positive.
+ * Taken from the transaction before and after a change, so the ledger can reverse the old effect and apply the
+ * new one.
+ */
+public record Posting(String accountNumber, String currency, long amount) {
+
+    /**
+     * The posting of a transaction, null when it does not count (FAILED).
+     */
+    public static Posting of(Transaction transaction) {
+        if (transaction == null || transaction.getStatus() == TransactionStatus.FAILED) {
+            return null;
+        }
+        long amount = CompactEncoding.encodeAmount(transaction.getAmount());
+        return new Posting(transaction.getAccountNumber(), transaction.getCurrency(),
+                transaction.getDebitCredit() == DebitCredit.DEBIT ? -amount : amount);
+    }
+}
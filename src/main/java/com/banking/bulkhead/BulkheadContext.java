@@ -0,0 +1,25 @@
+package com.banking.bulkhead;
+
+/**
+ * The workload of the request the current thread serves, read by {@link WorkloadRoutingDataSource} when a
+ * connection is taken. Set and cleared by the bulkhead interceptor.
+ */
+public final class BulkheadContext {
+
+    private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    private BulkheadContext() {
+    }
+
+    public static Workload current() {
+        return CURRENT.get();
+    }
+
+    public static void set(Workload workload) {
+        CURRENT.set(workload);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
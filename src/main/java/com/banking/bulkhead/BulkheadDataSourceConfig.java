@@ -0,0 +1,75 @@
+package com.banking.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Connection pool partitions of the bulkheads, replaces the auto-configured DataSource when app.bulkhead.enabled=true.
+ * </br>
+ * One Hikari pool per {@link Workload} on the spring.datasource.* database, JPA and JdbcTemplate see a
+ * {@link WorkloadRoutingDataSource} over them. Pool metrics are published per pool name (hikaricp.connections.*,
+ * pool=bulkhead-read|write|bulk). </br>
+ * Note: not combined with the read/write split or sharding, which bring their own pools. The thread bulkheads
+ * still apply there.
+ */
+@Configuration
+@ConditionalOnExpression("${app.bulkhead.enabled:false} and !${app.datasource.routing.enabled:false} and !${app.sharding.enabled:false}")
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadDataSourceConfig {
+
+    @Autowired
+    private BulkheadProperties properties;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource readDataSource() {
+        return createPool(Workload.READ);
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource writeDataSource() {
+        return createPool(Workload.WRITE);
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource bulkDataSource() {
+        return createPool(Workload.BULK);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource readDataSource, HikariDataSource writeDataSource,
+                                 HikariDataSource bulkDataSource) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Workload.READ, readDataSource);
+        targets.put(Workload.WRITE, writeDataSource);
+        targets.put(Workload.BULK, bulkDataSource);
+
+        WorkloadRoutingDataSource routingDataSource = new WorkloadRoutingDataSource();
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(bulkDataSource);
+        routingDataSource.afterPropertiesSet();
+        return routingDataSource;
+    }
+
+    private HikariDataSource createPool(Workload workload) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        int poolSize = properties.partition(workload).getPoolSize();
+        dataSource.setPoolName("bulkhead-" + workload.tag());
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setMinimumIdle(Math.min(2, poolSize));
+        return dataSource;
+    }
+}
@@ -0,0 +1,114 @@
+package com.banking.bulkhead;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Bulkhead settings bound from app.bulkhead.* </br>
+ * <pre>
+ * app.bulkhead.enabled=true
+ * app.bulkhead.bulk.max-concurrent=8
+ * app.bulkhead.bulk.pool-size=4
+ * </pre>
+ * Each workload has its own partition of the servlet threads (max-concurrent) and of the DB connections
+ * (pool-size). The pool sizes together replace spring.datasource.hikari.maximum-pool-size.
+ */
+@ConfigurationProperties(prefix = "app.bulkhead")
+public class BulkheadProperties {
+
+    private boolean enabled;
+    private int retryAfterSeconds = 1;
+    private Partition read = new Partition(100, 50, 8);
+    private Partition write = new Partition(100, 100, 8);
+    private Partition bulk = new Partition(8, 100, 4);
+
+    /**
+     * Partition of one workload: at most maxConcurrent requests, waiting up to maxWaitMs for a slot, over a pool
+     * of poolSize connections.
+     */
+    public static class Partition {
+        private int maxConcurrent;
+        private long maxWaitMs;
+        private int poolSize;
+
+        public Partition() {
+        }
+
+        Partition(int maxConcurrent, long maxWaitMs, int poolSize) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxWaitMs = maxWaitMs;
+            this.poolSize = poolSize;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public long getMaxWaitMs() {
+            return maxWaitMs;
+        }
+
+        public void setMaxWaitMs(long maxWaitMs) {
+            this.maxWaitMs = maxWaitMs;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+    }
+
+    public Partition partition(Workload workload) {
+        return switch (workload) {
+            case READ -> read;
+            case WRITE -> write;
+            case BULK -> bulk;
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public Partition getRead() {
+        return read;
+    }
+
+    public void setRead(Partition read) {
+        this.read = read;
+    }
+
+    public Partition getWrite() {
+        return write;
+    }
+
+    public void setWrite(Partition write) {
+        this.write = write;
+    }
+
+    public Partition getBulk() {
+        return bulk;
+    }
+
+    public void setBulk(Partition bulk) {
+        this.bulk = bulk;
+    }
+}
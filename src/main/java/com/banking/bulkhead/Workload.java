@@ -0,0 +1,18 @@
+package com.banking.bulkhead;
+
+/**
+ * Classes of requests isolated from each other by the bulkheads, each with its own concurrency cap and its own
+ * connection pool.
+ */
+public enum Workload {
+    /** Single-row lookups by id or trade number. */
+    READ,
+    /** Creates, updates and deletes. */
+    WRITE,
+    /** Listings and other multi-row reads. */
+    BULK;
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
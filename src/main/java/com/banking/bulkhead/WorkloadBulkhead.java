@@ -0,0 +1,66 @@
+package com.banking.bulkhead;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrency cap of one {@link Workload}: at most maxConcurrent requests run at once, on the servlet threads,
+ * a request over it waits up to maxWaitMs for a slot. So a burst of one workload holds at most maxConcurrent
+ * threads, and at most the connections of its own pool.
+ */
+public class WorkloadBulkhead {
+
+    private final Workload workload;
+    private final int maxConcurrent;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+
+    public WorkloadBulkhead(Workload workload, BulkheadProperties.Partition settings) {
+        if (settings.getMaxConcurrent() < 1) {
+            throw new IllegalStateException("Bulkhead " + workload.tag() + " needs max-concurrent >= 1");
+        }
+        this.workload = workload;
+        this.maxConcurrent = settings.getMaxConcurrent();
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(settings.getMaxWaitMs());
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    public boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        try {
+            return maxWaitNanos > 0 && permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public Workload getWorkload() {
+        return workload;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Share of the slots in use, 1 when the bulkhead is full.
+     */
+    public double getSaturation() {
+        return (double) getActive() / maxConcurrent;
+    }
+}
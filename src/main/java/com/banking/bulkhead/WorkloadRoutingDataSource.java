@@ -0,0 +1,17 @@
+package com.banking.bulkhead;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Routes connections to the pool of the workload in the {@link BulkheadContext}. Work outside a request
+ * (schedulers, warm-up, schema initialization) has no workload and uses the bulk pool, so it never takes the
+ * connections of the single-row reads and writes.
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Workload workload = BulkheadContext.current();
+        return workload != null ? workload : Workload.BULK;
+    }
+}
@@ -0,0 +1,62 @@
+package com.banking.cache;
+
+import com.banking.config.AppCacheProperties;
+import com.banking.config.CacheConfig;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint /actuator/cachestats, exposing Caffeine statistics and the resolved settings of each cache. </br>
+ * The built-in /actuator/caches endpoint only lists the cache names.
+ */
+@Component
+@Endpoint(id = "cachestats")
+public class CacheStatsEndpoint {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private AppCacheProperties cacheProperties;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> cacheStats() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        for (String cacheName : cacheManager.getCacheNames()) {
+            if (!(cacheManager.getCache(cacheName) instanceof CaffeineCache caffeineCache)) {
+                continue;
+            }
+            CacheStats stats = caffeineCache.getNativeCache().stats();
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("estimatedSize", caffeineCache.getNativeCache().estimatedSize());
+            details.put("hitCount", stats.hitCount());
+            details.put("missCount", stats.missCount());
+            details.put("hitRatio", stats.hitRate());
+            details.put("loadSuccessCount", stats.loadSuccessCount());
+            details.put("loadFailureCount", stats.loadFailureCount());
+            details.put("averageLoadPenaltyMillis", stats.averageLoadPenalty() / 1_000_000.0);
+            details.put("evictionCount", stats.evictionCount());
+            details.put("evictionWeight", stats.evictionWeight());
+            details.put("spec", describeSpec(cacheName));
+            result.put(cacheName, details);
+        }
+        return result;
+    }
+
+    private String describeSpec(String cacheName) {
+        if (CacheConfig.MISSING_TRANSACTION_BY_ID.equals(cacheName) || CacheConfig.MISSING_TRANSACTION_BY_TRADE_NO.equals(cacheName)) {
+            AppCacheProperties.Negative negative = cacheProperties.getNegative();
+            return "maximumSize " + negative.getMaximumSize() + ", expireAfterWriteSeconds " + negative.getExpireAfterWriteSeconds();
+        }
+        return cacheProperties.resolve(cacheName).toString();
+    }
+}
@@ -0,0 +1,245 @@
+package com.banking.cache;
+
+import com.banking.config.CacheConfig;
+import com.banking.model.Transaction;
+import com.banking.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Preloads the transaction caches before the application accepts traffic. </br>
+ * Runs as an ApplicationRunner, so the readiness state only switches to ACCEPTING_TRAFFIC after the warm-up,
+ * and {@link CacheWarmupHealthIndicator} reports DOWN until it completes. </br>
+ * The keys come from the hot-key snapshot written at the last shutdown if there is one,
+ * otherwise the most recent transactions are loaded. </br>
+ * After a failover, the instance taking over runs it again through POST /actuator/cachewarmup
+ * ({@link CacheWarmupEndpoint}): readiness goes back to REFUSING_TRAFFIC until the caches are loaded. The snapshot
+ * is also written every app.cache.warmup.snapshot-interval-ms, so a peer sharing the file finds the keys of an
+ * instance that crashed without a shutdown. </br>
+ * Note: opt-in with app.cache.warmup.enabled.
+ */
+@Component
+public class CacheWarmer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmer.class);
+
+    public enum State { PENDING, WARMING, COMPLETED, FAILED, DISABLED }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.cache.warmup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.cache.warmup.size:10000}")
+    private int warmupSize;
+
+    @Value("${app.cache.warmup.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.cache.warmup.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.cache.warmup.timeout-seconds:120}")
+    private int timeoutSeconds;
+
+    @Value("${app.cache.warmup.snapshot-file:}")
+    private String snapshotFile;
+
+    private volatile State state = State.PENDING;
+    private volatile int loadedCount;
+    private volatile long durationMillis;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            state = State.DISABLED;
+            return;
+        }
+        warmUp();
+    }
+
+    /**
+     * Load the hot keys into both transaction caches. Can be called again, e.g. after a failover.
+     */
+    public synchronized void warmUp() {
+        state = State.WARMING;
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            AtomicInteger loaded = new AtomicInteger(0);
+            List<Long> snapshotIds = readSnapshot();
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            if (!snapshotIds.isEmpty()) {
+                logger.info("Warming up caches from hot-key snapshot, {} ids", snapshotIds.size());
+                for (int i = 0; i < snapshotIds.size(); i += batchSize) {
+                    List<Long> chunk = snapshotIds.subList(i, Math.min(i + batchSize, snapshotIds.size()));
+                    futures.add(CompletableFuture.runAsync(
+                            () -> loaded.addAndGet(putAll(transactionRepository.findAllById(chunk))), executor));
+                }
+            } else {
+                logger.info("Warming up caches with the latest {} transactions", warmupSize);
+                int pages = (warmupSize + batchSize - 1) / batchSize;
+                for (int page = 0; page < pages; page++) {
+                    PageRequest pageRequest = PageRequest.of(page, batchSize, Sort.by("id").descending());
+                    futures.add(CompletableFuture.runAsync(
+                            () -> loaded.addAndGet(putAll(transactionRepository.findAllBy(pageRequest).getContent())), executor));
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(timeoutSeconds, TimeUnit.SECONDS);
+
+            loadedCount = loaded.get();
+            durationMillis = System.currentTimeMillis() - start;
+            state = State.COMPLETED;
+            logger.info("Cache warm-up completed, {} transactions loaded in {} ms", loadedCount, durationMillis);
+        } catch (Exception e) {
+            //a cold cache is not fatal, the application still serves from DB
+            durationMillis = System.currentTimeMillis() - start;
+            state = State.FAILED;
+            logger.error("Cache warm-up failed after {} ms, error: {}", durationMillis, e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int putAll(List<Transaction> transactions) {
+        Cache byId = cacheManager.getCache(CacheConfig.TRANSACTION_BY_ID);
+        Cache byTradeNo = cacheManager.getCache(CacheConfig.TRANSACTION_BY_TRADE_NO);
+        for (Transaction transaction : transactions) {
+            byId.put(transaction.getId(), transaction);
+            byTradeNo.put(transaction.getTradeNo(), transaction);
+        }
+        return transactions.size();
+    }
+
+    /**
+     * Warm up again on an instance taking over the traffic of a failed peer, out of the load balancer meanwhile.
+     * Returns the state of the warm-up, DISABLED when app.cache.warmup.enabled is off.
+     */
+    public State warmUpAfterFailover() {
+        if (!enabled) {
+            return State.DISABLED;
+        }
+        logger.info("Warming up caches after failover, refusing traffic until done");
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        try {
+            warmUp();
+        } finally {
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+        return state;
+    }
+
+    @Scheduled(initialDelayString = "${app.cache.warmup.snapshot-interval-ms:300000}", fixedDelayString = "${app.cache.warmup.snapshot-interval-ms:300000}")
+    public void scheduledSnapshot() {
+        writeSnapshot();
+    }
+
+    /**
+     * Write the ids of the hottest entries, so the next start (or the peer taking over) can load them.
+     */
+    @PreDestroy
+    public void writeSnapshot() {
+        if (!enabled || snapshotFile.isBlank()) {
+            return;
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Object value : hottest(CacheConfig.TRANSACTION_BY_ID)) {
+            if (value instanceof Transaction transaction) {
+                ids.add(transaction.getId());
+            }
+        }
+        for (Object value : hottest(CacheConfig.TRANSACTION_BY_TRADE_NO)) {
+            if (value instanceof Transaction transaction) {
+                ids.add(transaction.getId());
+            }
+        }
+        try {
+            Path path = Paths.get(snapshotFile);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            List<String> lines = ids.stream().limit(warmupSize).map(String::valueOf).toList();
+            Files.write(path, lines, StandardCharsets.UTF_8);
+            logger.info("Hot-key snapshot written to {}, {} ids", path, lines.size());
+        } catch (IOException e) {
+            logger.error("Failed to write hot-key snapshot {}, error: {}", snapshotFile, e.getMessage(), e);
+        }
+    }
+
+    private Collection<Object> hottest(String cacheName) {
+        if (!(cacheManager.getCache(cacheName) instanceof CaffeineCache caffeineCache)) {
+            return List.of();
+        }
+        Map<Object, Object> hottest = caffeineCache.getNativeCache().policy().eviction()
+                .map(eviction -> eviction.hottest(warmupSize))
+                .orElseGet(() -> caffeineCache.getNativeCache().asMap());
+        return hottest.values();
+    }
+
+    private List<Long> readSnapshot() {
+        if (snapshotFile.isBlank() || !Files.isReadable(Paths.get(snapshotFile))) {
+            return List.of();
+        }
+        try {
+            return Files.readAllLines(Paths.get(snapshotFile), StandardCharsets.UTF_8).stream()
+                    .filter(line -> !line.isBlank())
+                    .map(line -> Long.valueOf(line.trim()))
+                    .limit(warmupSize)
+                    .toList();
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Ignoring unreadable hot-key snapshot {}, error: {}", snapshotFile, e.getMessage());
+            return List.of();
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getLoadedCount() {
+        return loadedCount;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+}
@@ -0,0 +1,38 @@
+package com.banking.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint /actuator/cachewarmup: GET returns the state of the last cache warm-up, POST runs it again. </br>
+ * Note: the failover script (or the orchestrator hook) POSTs to the instance taking over the traffic of a failed
+ * peer, it refuses traffic until its caches are loaded.
+ */
+@Component
+@Endpoint(id = "cachewarmup")
+public class CacheWarmupEndpoint {
+
+    @Autowired
+    private CacheWarmer cacheWarmer;
+
+    @ReadOperation
+    public Map<String, Object> warmupState() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("state", cacheWarmer.getState());
+        result.put("loaded", cacheWarmer.getLoadedCount());
+        result.put("durationMillis", cacheWarmer.getDurationMillis());
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> warmUp() {
+        cacheWarmer.warmUpAfterFailover();
+        return warmupState();
+    }
+}
@@ -0,0 +1,31 @@
+package com.banking.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports DOWN while the cache warm-up is pending or running. </br>
+ * A failed warm-up is reported UP, the caches are cold but the service is usable.
+ */
+@Component
+public class CacheWarmupHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private CacheWarmer cacheWarmer;
+
+    @Override
+    public Health health() {
+        CacheWarmer.State state = cacheWarmer.getState();
+        Health.Builder builder = switch (state) {
+            case PENDING, WARMING -> Health.down();
+            case COMPLETED, FAILED, DISABLED -> Health.up();
+        };
+        return builder
+                .withDetail("state", state)
+                .withDetail("loaded", cacheWarmer.getLoadedCount())
+                .withDetail("durationMillis", cacheWarmer.getDurationMillis())
+                .build();
+    }
+}
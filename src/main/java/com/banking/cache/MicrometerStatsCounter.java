@@ -0,0 +1,86 @@
+package com.banking.cache;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caffeine stats counter which also publishes the details the Spring Boot cache binder does not have. </br>
+ * - transaction.cache.evictions{cache, cause}: evictions by removal cause </br>
+ * - transaction.cache.load.duration{cache, result}: load latency with percentile histogram </br>
+ * The hit/miss/size meters (cache.gets, cache.size...) are still published by Spring Boot from {@link #snapshot()}.
+ */
+public class MicrometerStatsCounter implements StatsCounter {
+
+    private final StatsCounter delegate = new ConcurrentStatsCounter();
+    private final Map<RemovalCause, Counter> evictions = new EnumMap<>(RemovalCause.class);
+    private final Timer loadSuccess;
+    private final Timer loadFailure;
+
+    public MicrometerStatsCounter(String cacheName, MeterRegistry meterRegistry) {
+        for (RemovalCause cause : RemovalCause.values()) {
+            if (cause.wasEvicted()) {
+                evictions.put(cause, Counter.builder("transaction.cache.evictions")
+                        .description("Cache evictions by cause")
+                        .tag("cache", cacheName)
+                        .tag("cause", cause.name())
+                        .register(meterRegistry));
+            }
+        }
+        this.loadSuccess = loadTimer(cacheName, "success", meterRegistry);
+        this.loadFailure = loadTimer(cacheName, "failure", meterRegistry);
+    }
+
+    static Timer loadTimer(String cacheName, String result, MeterRegistry meterRegistry) {
+        return Timer.builder("transaction.cache.load.duration")
+                .description("Time to load a cache entry from the database")
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void recordHits(int count) {
+        delegate.recordHits(count);
+    }
+
+    @Override
+    public void recordMisses(int count) {
+        delegate.recordMisses(count);
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+        delegate.recordLoadSuccess(loadTime);
+        loadSuccess.record(loadTime, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+        delegate.recordLoadFailure(loadTime);
+        loadFailure.record(loadTime, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordEviction(int weight, RemovalCause cause) {
+        delegate.recordEviction(weight, cause);
+        Counter counter = evictions.get(cause);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return delegate.snapshot();
+    }
+}
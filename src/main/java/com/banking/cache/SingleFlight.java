@@ -0,0 +1,86 @@
+package com.banking.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing for cache misses. </br>
+ * The first caller of a key runs the loader, concurrent callers of the same key wait for its result instead of
+ * loading again. The key is released as soon as the load finishes, so this is not a cache by itself. </br>
+ * Counters: transaction.cache.loads{cache, outcome=leader|collapsed} </br>
+ * The leader loads are timed in transaction.cache.load.duration{cache, result}.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter leaderLoads;
+    private final Counter collapsedLoads;
+    private final Timer loadSuccess;
+    private final Timer loadFailure;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.leaderLoads = Counter.builder("transaction.cache.loads")
+                .description("Loads executed against the database")
+                .tag("cache", name)
+                .tag("outcome", "leader")
+                .register(meterRegistry);
+        this.collapsedLoads = Counter.builder("transaction.cache.loads")
+                .description("Loads collapsed into an in-flight load of the same key")
+                .tag("cache", name)
+                .tag("outcome", "collapsed")
+                .register(meterRegistry);
+        this.loadSuccess = MicrometerStatsCounter.loadTimer(name, "success", meterRegistry);
+        this.loadFailure = MicrometerStatsCounter.loadTimer(name, "failure", meterRegistry);
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            collapsedLoads.increment();
+            return await(existing);
+        }
+
+        leaderLoads.increment();
+        long start = System.nanoTime();
+        try {
+            V value = loader.get();
+            loadSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            created.complete(value);
+            return value;
+        } catch (Throwable e) {
+            //an Error as well, a waiter on a future never completed would block forever
+            loadFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
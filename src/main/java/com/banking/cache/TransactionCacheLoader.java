@@ -0,0 +1,79 @@
+package com.banking.cache;
+
+import com.banking.config.CacheConfig;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Caffeine loader of a transaction cache with refresh-ahead (refreshAfterWrite). </br>
+ * A miss loads through {@link TransactionLoader}. Once an entry is older than the refresh interval, the next read
+ * still returns it and triggers an asynchronous reload on the bounded refresh executor. A reload finding no row
+ * removes the entry, a rejected or failed reload keeps it until the next read or its expiry. </br>
+ * Counters: transaction.cache.refreshes{cache, result=success|removed|failure|rejected}
+ */
+public class TransactionCacheLoader implements CacheLoader<Object, Object> {
+
+    private final boolean byId;
+    private final ObjectProvider<TransactionLoader> transactionLoader;
+    private final Executor refreshExecutor;
+    private final Counter refreshSuccess;
+    private final Counter refreshRemoved;
+    private final Counter refreshFailure;
+    private final Counter refreshRejected;
+
+    //the loader is looked up lazily, it depends on the cache manager this loader is part of
+    public TransactionCacheLoader(String cacheName, ObjectProvider<TransactionLoader> transactionLoader,
+                                  Executor refreshExecutor, MeterRegistry meterRegistry) {
+        this.byId = CacheConfig.TRANSACTION_BY_ID.equals(cacheName);
+        this.transactionLoader = transactionLoader;
+        this.refreshExecutor = refreshExecutor;
+        this.refreshSuccess = refreshCounter(cacheName, "success", meterRegistry);
+        this.refreshRemoved = refreshCounter(cacheName, "removed", meterRegistry);
+        this.refreshFailure = refreshCounter(cacheName, "failure", meterRegistry);
+        this.refreshRejected = refreshCounter(cacheName, "rejected", meterRegistry);
+    }
+
+    private static Counter refreshCounter(String cacheName, String result, MeterRegistry meterRegistry) {
+        return Counter.builder("transaction.cache.refreshes")
+                .description("Refresh-ahead reloads")
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Object load(Object key) {
+        TransactionLoader loader = transactionLoader.getObject();
+        return (byId ? loader.loadById((Long) key) : loader.loadByTradeNo((String) key)).orElse(null);
+    }
+
+    @Override
+    public Object reload(Object key, Object oldValue) {
+        try {
+            TransactionLoader loader = transactionLoader.getObject();
+            Object value = (byId ? loader.reloadById((Long) key) : loader.reloadByTradeNo((String) key)).orElse(null);
+            (value != null ? refreshSuccess : refreshRemoved).increment();
+            return value;
+        } catch (RuntimeException e) {
+            refreshFailure.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Object> asyncReload(Object key, Object oldValue, Executor executor) {
+        try {
+            return CompletableFuture.supplyAsync(() -> reload(key, oldValue), refreshExecutor);
+        } catch (RejectedExecutionException e) {
+            //the refresh pool is saturated, keep serving the current value
+            refreshRejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.banking.cache;
+
+import com.banking.cache.invalidation.CacheInvalidationBroadcaster;
+import com.banking.cache.invalidation.InvalidationMessage;
+import com.banking.cache.offheap.OffHeapTransactionStore;
+import com.banking.config.CacheConfig;
+import com.banking.model.Transaction;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Single place for the programmatic maintenance of the transaction caches. </br>
+ * Every local eviction is also published through the {@link CacheInvalidationBroadcaster},
+ * and invalidations received from peers are applied here without being published again. </br>
+ * When the off-heap tier is enabled, it is kept consistent here as well. </br>
+ * Evictions and write-through puts are deferred until the surrounding DB transaction commits (run immediately
+ * when there is none), so a concurrent reader cannot put pre-commit data back into the cache,
+ * and a rolled back change never touches it.
+ */
+@Component
+public class TransactionCaches {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionCaches.class);
+
+    private static final int MISSING_GENERATION_SLOTS = 1024;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CacheInvalidationBroadcaster broadcaster;
+
+    @Autowired
+    private ObjectProvider<OffHeapTransactionStore> offHeapStore;
+
+    //generations of the not-found keys by key hash, moved on by every forget, see rememberMissing
+    private final AtomicLongArray missingGenerations = new AtomicLongArray(MISSING_GENERATION_SLOTS);
+
+    @PostConstruct
+    void subscribe() {
+        broadcaster.subscribe(this::applyRemote);
+    }
+
+    /**
+     * After commit, evict a transaction from both caches, locally and on the peers.
+     */
+    public void evict(Long id, String tradeNo) {
+        afterCommit(() -> {
+            evictAndPublish(CacheConfig.TRANSACTION_BY_ID, id);
+            evictAndPublish(CacheConfig.TRANSACTION_BY_TRADE_NO, tradeNo);
+        });
+    }
+
+    /**
+     * After commit, write the saved transaction into both local caches. The peers evict their copies.
+     */
+    public void put(Transaction transaction) {
+        afterCommit(() -> {
+            for (String cacheName : new String[]{CacheConfig.TRANSACTION_BY_ID, CacheConfig.TRANSACTION_BY_TRADE_NO}) {
+                Object key = CacheConfig.TRANSACTION_BY_ID.equals(cacheName) ? transaction.getId() : transaction.getTradeNo();
+                //drop the off-heap copy, it is older than the new value
+                evictLocal(cacheName, key);
+                Cache cache = cacheManager.getCache(cacheName);
+                if (cache != null) {
+                    cache.put(key, transaction);
+                }
+                broadcaster.publish(cacheName, key);
+            }
+        });
+    }
+
+    /**
+     * Look up the off-heap tier, checked after the heap cache and before the DB.
+     */
+    public Optional<Transaction> secondTierById(Long id) {
+        OffHeapTransactionStore store = offHeapStore.getIfAvailable();
+        return store != null ? store.getById(id) : Optional.empty();
+    }
+
+    public Optional<Transaction> secondTierByTradeNo(String tradeNo) {
+        OffHeapTransactionStore store = offHeapStore.getIfAvailable();
+        return store != null ? store.getByTradeNo(tradeNo) : Optional.empty();
+    }
+
+    public boolean isKnownMissing(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        return cache != null && cache.get(key) != null;
+    }
+
+    /**
+     * Generation of a not-found key, read before the DB lookup and passed to {@link #rememberMissing}.
+     */
+    public long missingGeneration(Object key) {
+        return missingGenerations.get(missingSlot(key));
+    }
+
+    /**
+     * Remember a not-found key, unless it was forgotten since the lookup started (generation moved on): the key
+     * was created meanwhile, the miss is stale. Not published, each instance learns its own misses. </br>
+     * Note: a forget between the put and the check below is undone here, one after the check evicts the put.
+     */
+    public void rememberMissing(String cacheName, Object key, long generation) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null || missingGeneration(key) != generation) {
+            return;
+        }
+        cache.put(key, Boolean.TRUE);
+        if (missingGeneration(key) != generation) {
+            cache.evict(key);
+        }
+    }
+
+    /**
+     * After commit, forget the not-found keys of a created transaction, locally and on the peers.
+     */
+    public void forgetMissing(Long id, String tradeNo) {
+        afterCommit(() -> {
+            evictAndPublish(CacheConfig.MISSING_TRANSACTION_BY_ID, id);
+            evictAndPublish(CacheConfig.MISSING_TRANSACTION_BY_TRADE_NO, tradeNo);
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    //the data is committed, a cache failure must not fail the request
+                    logger.error("Failed to maintain transaction caches after commit, error: {}", e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    private void evictAndPublish(String cacheName, Object key) {
+        if (key == null) {
+            return;
+        }
+        evictLocal(cacheName, key);
+        broadcaster.publish(cacheName, key);
+    }
+
+    private void evictLocal(String cacheName, Object key) {
+        //before the eviction, a lookup that started earlier must not remember the key again
+        if (CacheConfig.MISSING_TRANSACTION_BY_ID.equals(cacheName) || CacheConfig.MISSING_TRANSACTION_BY_TRADE_NO.equals(cacheName)) {
+            missingGenerations.incrementAndGet(missingSlot(key));
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+        OffHeapTransactionStore store = offHeapStore.getIfAvailable();
+        if (store != null && CacheConfig.TRANSACTION_BY_ID.equals(cacheName)) {
+            store.removeById((Long) key);
+        } else if (store != null && CacheConfig.TRANSACTION_BY_TRADE_NO.equals(cacheName)) {
+            store.removeByTradeNo((String) key);
+        }
+    }
+
+    private static int missingSlot(Object key) {
+        return Math.floorMod(key.hashCode(), MISSING_GENERATION_SLOTS);
+    }
+
+    private void applyRemote(InvalidationMessage message) {
+        evictLocal(message.cacheName(), message.key());
+        logger.debug("Applied invalidation from node {}, cache {}, key {}", message.nodeId(), message.cacheName(), message.key());
+    }
+}
@@ -0,0 +1,93 @@
+package com.banking.cache;
+
+import com.banking.config.CacheConfig;
+import com.banking.model.Transaction;
+import com.banking.repository.TransactionArchiveRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.sharding.ShardContext;
+import com.banking.sharding.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Loads transactions on a heap cache miss, used by the service and by the Caffeine cache loaders. </br>
+ * Order: negative cache, then the off-heap tier, then the DB (hot table, then archive). Concurrent loads of the same
+ * key share one load (single-flight), and keys not found in the DB are remembered in the negative cache, unless
+ * the key was created while the lookup ran.
+ */
+@Component
+public class TransactionLoader {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchiveRepository transactionArchiveRepository;
+
+    @Autowired
+    private TransactionCaches transactionCaches;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    //only with sharding, refresh-ahead reloads run outside of the request and need the shard set
+    @Autowired(required = false)
+    private ShardRouter shardRouter;
+
+    private SingleFlight<Long, Optional<Transaction>> loadsById;
+    private SingleFlight<String, Optional<Transaction>> loadsByTradeNo;
+
+    @PostConstruct
+    void initSingleFlight() {
+        loadsById = new SingleFlight<>(CacheConfig.TRANSACTION_BY_ID, meterRegistry);
+        loadsByTradeNo = new SingleFlight<>(CacheConfig.TRANSACTION_BY_TRADE_NO, meterRegistry);
+    }
+
+    public Optional<Transaction> loadById(Long id) {
+        if (transactionCaches.isKnownMissing(CacheConfig.MISSING_TRANSACTION_BY_ID, id)) {
+            return Optional.empty();
+        }
+        long generation = transactionCaches.missingGeneration(id);
+        Optional<Transaction> transaction = loadsById.load(id,
+                () -> transactionCaches.secondTierById(id).or(() -> reloadById(id)));
+        if (transaction.isEmpty()) {
+            transactionCaches.rememberMissing(CacheConfig.MISSING_TRANSACTION_BY_ID, id, generation);
+        }
+        return transaction;
+    }
+
+    public Optional<Transaction> loadByTradeNo(String tradeNo) {
+        if (transactionCaches.isKnownMissing(CacheConfig.MISSING_TRANSACTION_BY_TRADE_NO, tradeNo)) {
+            return Optional.empty();
+        }
+        long generation = transactionCaches.missingGeneration(tradeNo);
+        Optional<Transaction> transaction = loadsByTradeNo.load(tradeNo,
+                () -> transactionCaches.secondTierByTradeNo(tradeNo).or(() -> reloadByTradeNo(tradeNo)));
+        if (transaction.isEmpty()) {
+            transactionCaches.rememberMissing(CacheConfig.MISSING_TRANSACTION_BY_TRADE_NO, tradeNo, generation);
+        }
+        return transaction;
+    }
+
+    /**
+     * Reload straight from the DB, used by refresh-ahead. The off-heap copy may be as old as the heap entry.
+     */
+    public Optional<Transaction> reloadById(Long id) {
+        if (shardRouter != null && ShardContext.current() == null) {
+            return ShardContext.callOn(shardRouter.shardForId(id), () -> reloadById(id));
+        }
+        return transactionRepository.findById(id).or(() -> transactionArchiveRepository.findById(id));
+    }
+
+    public Optional<Transaction> reloadByTradeNo(String tradeNo) {
+        if (shardRouter != null && ShardContext.current() == null) {
+            return shardRouter.shardForTradeNo(tradeNo)
+                    .flatMap(shard -> ShardContext.callOn(shard, () -> reloadByTradeNo(tradeNo)));
+        }
+        return transactionRepository.findByTradeNo(tradeNo).or(() -> transactionArchiveRepository.findByTradeNo(tradeNo));
+    }
+}
@@ -0,0 +1,35 @@
+package com.banking.cache;
+
+import com.banking.model.Transaction;
+import com.github.benmanes.caffeine.cache.Weigher;
+
+/**
+ * Estimates the heap size of a cached transaction in bytes, used when a cache is bounded by maximum-weight-bytes. </br>
+ * Note: this is an estimate (object headers, references and compact Latin-1 strings), not a measurement.
+ */
+public class TransactionWeigher implements Weigher<Object, Object> {
+
+    //Transaction object, Long id, BigDecimal, two LocalDateTime, enum references, cache node and key
+    private static final int FIXED_OVERHEAD = 64 + 16 + 40 + 2 * 24 + 96;
+    private static final int STRING_OVERHEAD = 40;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        if (!(value instanceof Transaction transaction)) {
+            return FIXED_OVERHEAD;
+        }
+        return FIXED_OVERHEAD
+                + sizeOf(transaction.getTradeNo())
+                + sizeOf(transaction.getAccountNumber())
+                + sizeOf(transaction.getAccountName())
+                + sizeOf(transaction.getPayeeAccount())
+                + sizeOf(transaction.getPayeeName())
+                + sizeOf(transaction.getCurrency())
+                + sizeOf(transaction.getDescription())
+                + (key instanceof String keyString ? sizeOf(keyString) : 16);
+    }
+
+    private static int sizeOf(String value) {
+        return value == null ? 0 : STRING_OVERHEAD + value.length();
+    }
+}
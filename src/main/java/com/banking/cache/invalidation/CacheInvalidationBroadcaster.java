@@ -0,0 +1,21 @@
+package com.banking.cache.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts local cache evictions to the other instances of the service. </br>
+ * Each instance keeps its own Caffeine near-cache, peers apply the received invalidations to theirs.
+ * The transport is selected with app.cache.invalidation.transport (none, multicast).
+ */
+public interface CacheInvalidationBroadcaster {
+
+    /**
+     * Publish the eviction of a key to the peers. Must not throw, a failed broadcast only costs freshness.
+     */
+    void publish(String cacheName, Object key);
+
+    /**
+     * Register the callback applying invalidations received from peers.
+     */
+    void subscribe(Consumer<InvalidationMessage> listener);
+}
@@ -0,0 +1,26 @@
+package com.banking.cache.invalidation;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A cache invalidation exchanged between instances. </br>
+ * Wire format (UTF-8): nodeId|cacheName|keyType|key, keyType is L for Long keys (ids) and S for String keys (trade numbers).
+ */
+public record InvalidationMessage(String nodeId, String cacheName, Object key) {
+
+    private static final String SEPARATOR = "|";
+
+    public byte[] encode() {
+        String keyType = key instanceof Long ? "L" : "S";
+        return String.join(SEPARATOR, nodeId, cacheName, keyType, String.valueOf(key)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static InvalidationMessage decode(byte[] data, int length) {
+        String[] parts = new String(data, 0, length, StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Malformed invalidation message");
+        }
+        Object key = "L".equals(parts[2]) ? Long.valueOf(parts[3]) : parts[3];
+        return new InvalidationMessage(parts[0], parts[1], key);
+    }
+}
@@ -0,0 +1,22 @@
+package com.banking.cache.invalidation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Default broadcaster for a single instance, nothing to publish.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cache.invalidation.transport", havingValue = "none", matchIfMissing = true)
+public class LocalOnlyInvalidationBroadcaster implements CacheInvalidationBroadcaster {
+
+    @Override
+    public void publish(String cacheName, Object key) {
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> listener) {
+    }
+}
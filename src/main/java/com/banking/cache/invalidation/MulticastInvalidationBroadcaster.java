@@ -0,0 +1,139 @@
+package com.banking.cache.invalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * UDP multicast transport, works on a plain LAN without any external service. </br>
+ * Note: UDP may drop packets, so a peer can miss an invalidation. The cache TTLs remain the upper bound of staleness,
+ * the broadcast only makes the common case fresh.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cache.invalidation.transport", havingValue = "multicast")
+public class MulticastInvalidationBroadcaster implements CacheInvalidationBroadcaster, SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(MulticastInvalidationBroadcaster.class);
+
+    private static final int MAX_PACKET_SIZE = 512;
+
+    @Value("${app.cache.invalidation.multicast.group:239.255.27.1}")
+    private String group;
+
+    @Value("${app.cache.invalidation.multicast.port:4446}")
+    private int port;
+
+    @Value("${app.cache.invalidation.multicast.ttl:1}")
+    private int timeToLive;
+
+    @Value("${app.cache.invalidation.multicast.interface:}")
+    private String interfaceName;
+
+    @Value("${app.cache.invalidation.node-id:}")
+    private String configuredNodeId;
+
+    private final CopyOnWriteArrayList<Consumer<InvalidationMessage>> listeners = new CopyOnWriteArrayList<>();
+
+    private String nodeId;
+    private InetAddress groupAddress;
+    private MulticastSocket socket;
+    private Thread receiver;
+    private volatile boolean running;
+
+    @Override
+    public void publish(String cacheName, Object key) {
+        if (!running) {
+            return;
+        }
+        try {
+            byte[] data = new InvalidationMessage(nodeId, cacheName, key).encode();
+            socket.send(new DatagramPacket(data, data.length, groupAddress, port));
+        } catch (IOException e) {
+            logger.warn("Failed to broadcast invalidation, cache {}, key {}, error: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void start() {
+        try {
+            nodeId = configuredNodeId.isBlank() ? UUID.randomUUID().toString() : configuredNodeId;
+            groupAddress = InetAddress.getByName(group);
+            NetworkInterface networkInterface = interfaceName.isBlank() ? null : NetworkInterface.getByName(interfaceName);
+            socket = new MulticastSocket(port);
+            socket.setTimeToLive(timeToLive);
+            if (networkInterface != null) {
+                socket.setNetworkInterface(networkInterface);
+            }
+            socket.joinGroup(new InetSocketAddress(groupAddress, port), networkInterface);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to join invalidation multicast group " + group + ":" + port, e);
+        }
+
+        running = true;
+        receiver = new Thread(this::receive, "cache-invalidation-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+        logger.info("Cache invalidation multicast started, node {}, group {}:{}", nodeId, group, port);
+    }
+
+    private void receive() {
+        byte[] buffer = new byte[MAX_PACKET_SIZE];
+        while (running) {
+            try {
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                socket.receive(packet);
+                deliver(InvalidationMessage.decode(packet.getData(), packet.getLength()));
+            } catch (IOException e) {
+                if (running) {
+                    logger.warn("Failed to receive invalidation, error: {}", e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Ignoring invalid invalidation message, error: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Hand a received invalidation to the listeners. The group loops the messages of this node back, they are skipped.
+     */
+    void deliver(InvalidationMessage message) {
+        if (nodeId.equals(message.nodeId())) {
+            return;
+        }
+        for (Consumer<InvalidationMessage> listener : listeners) {
+            listener.accept(message);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (socket != null) {
+            socket.close();
+        }
+        logger.info("Cache invalidation multicast stopped, node {}", nodeId);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,130 @@
+package com.banking.cache.offheap;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-size open-addressing hash index long -> long, stored in a direct ByteBuffer so the GC never scans it. </br>
+ * Linear probing with backward-shift deletion (no tombstones). Values must be non-negative, -1 means absent. </br>
+ * Note: not thread-safe, the owner guards it with a read/write lock.
+ */
+class OffHeapLongIndex {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int SLOT_BYTES = 16;
+
+    //a direct buffer holds at most 2GB, 2^26 slots of 16 bytes is 1GB
+    static final int MAX_SLOTS = 1 << 26;
+
+    private final ByteBuffer table;
+    private final int mask;
+    private int size;
+
+    OffHeapLongIndex(long maxEntries) {
+        long wanted = Math.max(16L, (long) (maxEntries / 0.75) + 1);
+        if (wanted > MAX_SLOTS) {
+            throw new IllegalArgumentException("Off-heap index supports at most " + (long) (MAX_SLOTS * 0.75) + " entries");
+        }
+        int slots = Integer.highestOneBit((int) wanted - 1) << 1;
+        this.table = ByteBuffer.allocateDirect(slots * SLOT_BYTES);
+        this.mask = slots - 1;
+        for (int i = 0; i < slots; i++) {
+            table.putLong(i * SLOT_BYTES, EMPTY);
+        }
+    }
+
+    long get(long key) {
+        int i = slot(key);
+        while (true) {
+            long k = keyAt(i);
+            if (k == EMPTY) {
+                return -1L;
+            }
+            if (k == key) {
+                return valueAt(i);
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    void put(long key, long value) {
+        int i = slot(key);
+        while (true) {
+            long k = keyAt(i);
+            if (k == EMPTY) {
+                set(i, key, value);
+                size++;
+                return;
+            }
+            if (k == key) {
+                set(i, key, value);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Remove the key only if it still maps to the expected value.
+     */
+    void remove(long key, long expectedValue) {
+        int i = slot(key);
+        while (true) {
+            long k = keyAt(i);
+            if (k == EMPTY) {
+                return;
+            }
+            if (k == key) {
+                if (valueAt(i) == expectedValue) {
+                    removeAt(i);
+                }
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private void removeAt(int gap) {
+        int j = gap;
+        while (true) {
+            j = (j + 1) & mask;
+            long k = keyAt(j);
+            if (k == EMPTY) {
+                break;
+            }
+            //move the entry back into the gap if the gap lies between its home slot and its current slot
+            int home = slot(k);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                set(gap, k, valueAt(j));
+                gap = j;
+            }
+        }
+        table.putLong(gap * SLOT_BYTES, EMPTY);
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long capacityBytes() {
+        return table.capacity();
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private long keyAt(int i) {
+        return table.getLong(i * SLOT_BYTES);
+    }
+
+    private long valueAt(int i) {
+        return table.getLong(i * SLOT_BYTES + 8);
+    }
+
+    private void set(int i, long key, long value) {
+        table.putLong(i * SLOT_BYTES, key);
+        table.putLong(i * SLOT_BYTES + 8, value);
+    }
+}
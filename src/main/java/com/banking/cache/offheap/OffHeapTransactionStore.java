@@ -0,0 +1,332 @@
+package com.banking.cache.offheap;
+
+import com.banking.codec.TransactionCodec;
+import com.banking.config.AppCacheProperties;
+import com.banking.config.CacheConfig;
+import com.banking.model.Transaction;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Off-heap second cache tier, below the on-heap Caffeine caches. </br>
+ * Transactions evicted from the heap tier are encoded with {@link TransactionCodec} and appended to fixed-size slabs,
+ * either direct ByteBuffers or regions of a memory-mapped file (app.cache.offheap.file). Two off-heap hash indexes map
+ * the id and the trade number to the record address, so neither the records nor the indexes are visible to the GC. </br>
+ * Slabs are used as a ring: when the last slab is full, the oldest slab is recycled and its entries dropped (FIFO).
+ * A replaced or removed record stays as dead space until its slab is recycled. </br>
+ * A record expires after the expire-after-write of the transaction-by-id heap cache, counted from its demotion, so a
+ * copy which missed an invalidation (a dropped multicast message) is not served for longer than the heap TTL allows. </br>
+ * Note: direct buffers count against -XX:MaxDirectMemorySize, use the file mode for capacities larger than that.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cache.offheap.enabled", havingValue = "true")
+public class OffHeapTransactionStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapTransactionStore.class);
+
+    //length (4) | expiry deadline, System.nanoTime (8)
+    private static final int RECORD_HEADER = 12;
+    private static final int EXPIRES_AT_OFFSET = 4;
+
+    @Value("${app.cache.offheap.capacity-mb:1024}")
+    private long capacityMb;
+
+    @Value("${app.cache.offheap.slab-size-mb:64}")
+    private int slabSizeMb;
+
+    @Value("${app.cache.offheap.max-entries:10000000}")
+    private long maxEntries;
+
+    @Value("${app.cache.offheap.file:}")
+    private String file;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AppCacheProperties cacheProperties;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ByteBuffer scratch = ByteBuffer.allocate(TransactionCodec.MAX_ENCODED_SIZE);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    private ByteBuffer[] slabs;
+    private int[] slabLimits;
+    private int slabSize;
+    private int currentSlab;
+    private long usedBytes;
+    private long recycledSlabs;
+    private OffHeapLongIndex byId;
+    private OffHeapLongIndex byTradeNo;
+    private FileChannel channel;
+    //0 when the heap cache does not expire
+    private long expireAfterWriteNanos;
+
+    @PostConstruct
+    void init() throws IOException {
+        expireAfterWriteNanos = TimeUnit.MINUTES.toNanos(cacheProperties.resolve(CacheConfig.TRANSACTION_BY_ID).getExpireAfterWriteMinutes());
+        slabSize = slabSizeMb * 1024 * 1024;
+        int slabCount = (int) Math.max(2, capacityMb / slabSizeMb);
+        slabs = new ByteBuffer[slabCount];
+        slabLimits = new int[slabCount];
+        byId = new OffHeapLongIndex(maxEntries);
+        byTradeNo = new OffHeapLongIndex(maxEntries);
+        if (!file.isBlank()) {
+            Path path = Paths.get(file);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            //the content does not survive a restart, the file is only a paging target
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        Gauge.builder("transaction.cache.offheap.entries", this, OffHeapTransactionStore::size).register(meterRegistry);
+        Gauge.builder("transaction.cache.offheap.used.bytes", this, OffHeapTransactionStore::usedBytes).register(meterRegistry);
+        FunctionCounter.builder("transaction.cache.offheap.gets", hits, LongAdder::sum).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("transaction.cache.offheap.gets", misses, LongAdder::sum).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("transaction.cache.offheap.gets", expirations, LongAdder::sum).tag("result", "expired").register(meterRegistry);
+        logger.info("Off-heap transaction store initialized, {} slabs of {} MB, max entries {}, file {}",
+                slabCount, slabSizeMb, maxEntries, file.isBlank() ? "none (direct memory)" : file);
+    }
+
+    /**
+     * Store a transaction, replacing the previous version. Returns false if it cannot be encoded.
+     */
+    public boolean put(Transaction transaction) {
+        if (transaction.getId() == null || transaction.getTradeNo() == null) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            scratch.clear();
+            try {
+                TransactionCodec.encode(transaction, scratch);
+            } catch (BufferOverflowException | IllegalArgumentException e) {
+                logger.debug("Transaction {} not stored off-heap, error: {}", transaction.getId(), e.getMessage());
+                return false;
+            }
+            scratch.flip();
+            int length = scratch.remaining();
+
+            removeByIdLocked(transaction.getId());
+            while (byId.size() >= maxEntries) {
+                advanceSlab();
+            }
+            if (slabLimits[currentSlab] + RECORD_HEADER + length > slabSize) {
+                advanceSlab();
+            }
+            ByteBuffer slab = slab(currentSlab);
+            int offset = slabLimits[currentSlab];
+            slab.putInt(offset, length);
+            slab.putLong(offset + EXPIRES_AT_OFFSET, System.nanoTime() + expireAfterWriteNanos);
+            slab.put(offset + RECORD_HEADER, scratch, 0, length);
+            slabLimits[currentSlab] = offset + RECORD_HEADER + length;
+            usedBytes += RECORD_HEADER + length;
+
+            long address = address(currentSlab, offset);
+            byId.put(transaction.getId(), address);
+            byTradeNo.put(TransactionCodec.tradeNoToLong(transaction.getTradeNo()), address);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Transaction> getById(long id) {
+        long address;
+        lock.readLock().lock();
+        try {
+            address = byId.get(id);
+            if (!expired(address)) {
+                return read(address);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        expire(address);
+        return Optional.empty();
+    }
+
+    public Optional<Transaction> getByTradeNo(String tradeNo) {
+        long address;
+        lock.readLock().lock();
+        try {
+            address = byTradeNo.get(TransactionCodec.tradeNoToLong(tradeNo));
+            if (!expired(address)) {
+                return read(address);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        expire(address);
+        return Optional.empty();
+    }
+
+    public void removeById(long id) {
+        lock.writeLock().lock();
+        try {
+            removeByIdLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeByTradeNo(String tradeNo) {
+        lock.writeLock().lock();
+        try {
+            long address = byTradeNo.get(TransactionCodec.tradeNoToLong(tradeNo));
+            if (address >= 0) {
+                removeByIdLocked(recordLong(address, TransactionCodec.ID_OFFSET));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long usedBytes() {
+        lock.readLock().lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Optional<Transaction> read(long address) {
+        if (address < 0) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        int offset = offset(address);
+        ByteBuffer view = slabs[slabIndex(address)].duplicate();
+        int length = view.getInt(offset);
+        view.limit(offset + RECORD_HEADER + length);
+        view.position(offset + RECORD_HEADER);
+        return Optional.of(TransactionCodec.decode(view));
+    }
+
+    private boolean expired(long address) {
+        return address >= 0 && expireAfterWriteNanos > 0
+                && System.nanoTime() - slabs[slabIndex(address)].getLong(offset(address) + EXPIRES_AT_OFFSET) >= 0;
+    }
+
+    /**
+     * Drop an expired record, unless it was replaced or its slab recycled since it was read.
+     */
+    private void expire(long address) {
+        expirations.increment();
+        lock.writeLock().lock();
+        try {
+            long id = recordLong(address, TransactionCodec.ID_OFFSET);
+            if (byId.get(id) == address && expired(address)) {
+                removeByIdLocked(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeByIdLocked(long id) {
+        long address = byId.get(id);
+        if (address < 0) {
+            return;
+        }
+        byId.remove(id, address);
+        byTradeNo.remove(recordLong(address, TransactionCodec.TRADE_NO_OFFSET), address);
+    }
+
+    /**
+     * Move to the next slab of the ring, dropping the entries still indexed in it.
+     */
+    private void advanceSlab() {
+        currentSlab = (currentSlab + 1) % slabs.length;
+        if (slabLimits[currentSlab] == 0) {
+            return;
+        }
+        ByteBuffer slab = slabs[currentSlab];
+        int position = 0;
+        while (position < slabLimits[currentSlab]) {
+            int length = slab.getInt(position);
+            long address = address(currentSlab, position);
+            byId.remove(slab.getLong(position + RECORD_HEADER + TransactionCodec.ID_OFFSET), address);
+            byTradeNo.remove(slab.getLong(position + RECORD_HEADER + TransactionCodec.TRADE_NO_OFFSET), address);
+            position += RECORD_HEADER + length;
+        }
+        usedBytes -= slabLimits[currentSlab];
+        slabLimits[currentSlab] = 0;
+        recycledSlabs++;
+        logger.debug("Recycled off-heap slab {}, {} slabs recycled in total", currentSlab, recycledSlabs);
+    }
+
+    private ByteBuffer slab(int index) {
+        if (slabs[index] == null) {
+            try {
+                slabs[index] = channel != null
+                        ? channel.map(FileChannel.MapMode.READ_WRITE, (long) index * slabSize, slabSize)
+                        : ByteBuffer.allocateDirect(slabSize);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to map off-heap slab " + index, e);
+            }
+        }
+        return slabs[index];
+    }
+
+    private long recordLong(long address, int fieldOffset) {
+        return slabs[slabIndex(address)].getLong(offset(address) + RECORD_HEADER + fieldOffset);
+    }
+
+    private static long address(int slab, int offset) {
+        return ((long) slab << 32) | offset;
+    }
+
+    private static int slabIndex(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        slabs = new ByteBuffer[slabs.length];
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.banking.codec;
+
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.enums.TransactionType;
+import com.banking.model.Transaction;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact binary encoding of a transaction, used wherever transactions are kept outside the Java heap. </br>
+ * Layout: id (8) | tradeNo as number (8) | status, type, debitCredit ordinals (1 each) | amount (scale 1, length 1, unscaled bytes)
+ * | createdAt, updatedAt (epoch second 8, nano 4) | accountNumber, accountName, payeeAccount, payeeName, currency, description
+ * (length 2, UTF-8 bytes) | transferRef as number (8). </br>
+ * transferRef was appended later: it is read only when the record has bytes left, so older records decode with
+ * a null transferRef. Decoding needs a buffer limited to the record. </br>
+ * Null is -1 for numbers, ordinals and lengths, Long.MIN_VALUE for timestamps. </br>
+ * Note: enums are stored by ordinal, new constants must be appended at the end of the enums.
+ */
+public final class TransactionCodec {
+
+    //description is at most 500 characters, so a record always fits
+    public static final int MAX_ENCODED_SIZE = 8192;
+
+    //fixed position of the keys, readable without decoding the whole record
+    public static final int ID_OFFSET = 0;
+    public static final int TRADE_NO_OFFSET = 8;
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    private TransactionCodec() {
+    }
+
+    public static void encode(Transaction transaction, ByteBuffer buffer) {
+        buffer.putLong(transaction.getId() != null ? transaction.getId() : -1L);
+        buffer.putLong(tradeNoToLong(transaction.getTradeNo()));
+        putEnum(buffer, transaction.getStatus());
+        putEnum(buffer, transaction.getType());
+        putEnum(buffer, transaction.getDebitCredit());
+        putDecimal(buffer, transaction.getAmount());
+        putTime(buffer, transaction.getCreatedAt());
+        putTime(buffer, transaction.getUpdatedAt());
+        putString(buffer, transaction.getAccountNumber());
+        putString(buffer, transaction.getAccountName());
+        putString(buffer, transaction.getPayeeAccount());
+        putString(buffer, transaction.getPayeeName());
+        putString(buffer, transaction.getCurrency());
+        putString(buffer, transaction.getDescription());
+        buffer.putLong(tradeNoToLong(transaction.getTransferRef()));
+    }
+
+    public static Transaction decode(ByteBuffer buffer) {
+        Transaction transaction = new Transaction();
+        long id = buffer.getLong();
+        transaction.setId(id >= 0 ? id : null);
+        transaction.setTradeNo(longToTradeNo(buffer.getLong()));
+        transaction.setStatus(getEnum(buffer, TransactionStatus.values()));
+        transaction.setType(getEnum(buffer, TransactionType.values()));
+        transaction.setDebitCredit(getEnum(buffer, DebitCredit.values()));
+        transaction.setAmount(getDecimal(buffer));
+        transaction.setCreatedAt(getTime(buffer));
+        transaction.setUpdatedAt(getTime(buffer));
+        transaction.setAccountNumber(getString(buffer));
+        transaction.setAccountName(getString(buffer));
+        transaction.setPayeeAccount(getString(buffer));
+        transaction.setPayeeName(getString(buffer));
+        transaction.setCurrency(getString(buffer));
+        transaction.setDescription(getString(buffer));
+        if (buffer.remaining() >= Long.BYTES) {
+            transaction.setTransferRef(longToTradeNo(buffer.getLong()));
+        }
+        return transaction;
+    }
+
+    /**
+     * The 18-digit trade number as a number, it always fits in a long. -1 for null.
+     */
+    public static long tradeNoToLong(String tradeNo) {
+        if (tradeNo == null) {
+            return -1L;
+        }
+        if (tradeNo.length() != 18) {
+            throw new IllegalArgumentException("Trade number must be 18 digits: " + tradeNo);
+        }
+        return Long.parseLong(tradeNo);
+    }
+
+    public static String longToTradeNo(long value) {
+        return value >= 0 ? String.format("%018d", value) : null;
+    }
+
+    private static void putEnum(ByteBuffer buffer, Enum<?> value) {
+        buffer.put(value != null ? (byte) value.ordinal() : (byte) -1);
+    }
+
+    private static <E extends Enum<E>> E getEnum(ByteBuffer buffer, E[] values) {
+        byte ordinal = buffer.get();
+        return ordinal >= 0 ? values[ordinal] : null;
+    }
+
+    private static void putDecimal(ByteBuffer buffer, BigDecimal value) {
+        if (value == null) {
+            buffer.put((byte) -1);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        buffer.put((byte) value.scale());
+        buffer.put((byte) unscaled.length);
+        buffer.put(unscaled);
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer buffer) {
+        byte scale = buffer.get();
+        if (scale == -1) {
+            return null;
+        }
+        byte[] unscaled = new byte[buffer.get()];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static void putTime(ByteBuffer buffer, LocalDateTime value) {
+        if (value == null) {
+            buffer.putLong(NULL_TIME);
+            return;
+        }
+        buffer.putLong(value.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(value.getNano());
+    }
+
+    private static LocalDateTime getTime(ByteBuffer buffer) {
+        long epochSecond = buffer.getLong();
+        if (epochSecond == NULL_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(epochSecond, buffer.getInt(), ZoneOffset.UTC);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
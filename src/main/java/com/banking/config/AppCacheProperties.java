@@ -0,0 +1,172 @@
+package com.banking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache settings bound from app.cache.* </br>
+ * The top level values are the defaults of every cache, app.cache.specs.[cache name].* overrides them per cache, e.g.
+ * <pre>
+ * app.cache.specs.transaction-by-tradeno.maximum-size=20000
+ * app.cache.specs.transaction-by-id.maximum-weight-bytes=67108864
+ * </pre>
+ * When maximum-weight-bytes is set, the cache is bounded by the estimated entry size instead of the entry count.
+ */
+@ConfigurationProperties(prefix = "app.cache")
+public class AppCacheProperties {
+
+    private int initialCapacity = 200;
+    private long maximumSize = 10000;
+    private int expireAfterWriteMinutes = 30;
+    private int expireAfterAccessMinutes = 10;
+    private int refreshAfterWriteMinutes = 0;
+    private Refresh refresh = new Refresh();
+    private Negative negative = new Negative();
+    private Map<String, Spec> specs = new HashMap<>();
+
+    /**
+     * Resolve the settings of a cache, falling back to the defaults for anything not overridden.
+     */
+    public Spec resolve(String cacheName) {
+        Spec override = specs.getOrDefault(cacheName, new Spec());
+        Spec resolved = new Spec();
+        resolved.setInitialCapacity(override.getInitialCapacity() != null ? override.getInitialCapacity() : initialCapacity);
+        resolved.setMaximumSize(override.getMaximumSize() != null ? override.getMaximumSize() : maximumSize);
+        resolved.setMaximumWeightBytes(override.getMaximumWeightBytes());
+        resolved.setExpireAfterWriteMinutes(override.getExpireAfterWriteMinutes() != null ? override.getExpireAfterWriteMinutes() : expireAfterWriteMinutes);
+        resolved.setExpireAfterAccessMinutes(override.getExpireAfterAccessMinutes() != null ? override.getExpireAfterAccessMinutes() : expireAfterAccessMinutes);
+        resolved.setRefreshAfterWriteMinutes(override.getRefreshAfterWriteMinutes() != null ? override.getRefreshAfterWriteMinutes() : refreshAfterWriteMinutes);
+        return resolved;
+    }
+
+    public int getInitialCapacity() {
+        return initialCapacity;
+    }
+
+    public void setInitialCapacity(int initialCapacity) {
+        this.initialCapacity = initialCapacity;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public int getExpireAfterWriteMinutes() {
+        return expireAfterWriteMinutes;
+    }
+
+    public void setExpireAfterWriteMinutes(int expireAfterWriteMinutes) {
+        this.expireAfterWriteMinutes = expireAfterWriteMinutes;
+    }
+
+    public int getExpireAfterAccessMinutes() {
+        return expireAfterAccessMinutes;
+    }
+
+    public void setExpireAfterAccessMinutes(int expireAfterAccessMinutes) {
+        this.expireAfterAccessMinutes = expireAfterAccessMinutes;
+    }
+
+    public int getRefreshAfterWriteMinutes() {
+        return refreshAfterWriteMinutes;
+    }
+
+    public void setRefreshAfterWriteMinutes(int refreshAfterWriteMinutes) {
+        this.refreshAfterWriteMinutes = refreshAfterWriteMinutes;
+    }
+
+    public Refresh getRefresh() {
+        return refresh;
+    }
+
+    public void setRefresh(Refresh refresh) {
+        this.refresh = refresh;
+    }
+
+    public Negative getNegative() {
+        return negative;
+    }
+
+    public void setNegative(Negative negative) {
+        this.negative = negative;
+    }
+
+    public Map<String, Spec> getSpecs() {
+        return specs;
+    }
+
+    public void setSpecs(Map<String, Spec> specs) {
+        this.specs = specs;
+    }
+
+    /**
+     * Per cache settings, null means not overridden.
+     */
+    public static class Spec {
+        private Integer initialCapacity;
+        private Long maximumSize;
+        private Long maximumWeightBytes;
+        private Integer expireAfterWriteMinutes;
+        private Integer expireAfterAccessMinutes;
+        private Integer refreshAfterWriteMinutes;
+
+        public Integer getInitialCapacity() { return initialCapacity; }
+        public void setInitialCapacity(Integer initialCapacity) { this.initialCapacity = initialCapacity; }
+
+        public Long getMaximumSize() { return maximumSize; }
+        public void setMaximumSize(Long maximumSize) { this.maximumSize = maximumSize; }
+
+        public Long getMaximumWeightBytes() { return maximumWeightBytes; }
+        public void setMaximumWeightBytes(Long maximumWeightBytes) { this.maximumWeightBytes = maximumWeightBytes; }
+
+        public Integer getExpireAfterWriteMinutes() { return expireAfterWriteMinutes; }
+        public void setExpireAfterWriteMinutes(Integer expireAfterWriteMinutes) { this.expireAfterWriteMinutes = expireAfterWriteMinutes; }
+
+        public Integer getExpireAfterAccessMinutes() { return expireAfterAccessMinutes; }
+        public void setExpireAfterAccessMinutes(Integer expireAfterAccessMinutes) { this.expireAfterAccessMinutes = expireAfterAccessMinutes; }
+
+        public Integer getRefreshAfterWriteMinutes() { return refreshAfterWriteMinutes; }
+        public void setRefreshAfterWriteMinutes(Integer refreshAfterWriteMinutes) { this.refreshAfterWriteMinutes = refreshAfterWriteMinutes; }
+
+        @Override
+        public String toString() {
+            return "initialCapacity " + initialCapacity + ", maximumSize " + maximumSize + ", maximumWeightBytes " + maximumWeightBytes
+                    + ", expireAfterWriteMinutes " + expireAfterWriteMinutes + ", expireAfterAccessMinutes " + expireAfterAccessMinutes
+                    + ", refreshAfterWriteMinutes " + refreshAfterWriteMinutes;
+        }
+    }
+
+    /**
+     * Settings of the executor running the refresh-ahead reloads.
+     */
+    public static class Refresh {
+        private int threads = 2;
+        private int queueCapacity = 1000;
+
+        public int getThreads() { return threads; }
+        public void setThreads(int threads) { this.threads = threads; }
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+    }
+
+    /**
+     * Settings of the negative (not-found) caches.
+     */
+    public static class Negative {
+        private long maximumSize = 10000;
+        private int expireAfterWriteSeconds = 5;
+
+        public long getMaximumSize() { return maximumSize; }
+        public void setMaximumSize(long maximumSize) { this.maximumSize = maximumSize; }
+
+        public int getExpireAfterWriteSeconds() { return expireAfterWriteSeconds; }
+        public void setExpireAfterWriteSeconds(int expireAfterWriteSeconds) { this.expireAfterWriteSeconds = expireAfterWriteSeconds; }
+    }
+}
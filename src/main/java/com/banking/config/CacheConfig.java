@@ -1,55 +1,154 @@
 package com.banking.config;
 
+import com.banking.cache.MicrometerStatsCounter;
+import com.banking.cache.TransactionCacheLoader;
+import com.banking.cache.TransactionLoader;
+import com.banking.cache.TransactionWeigher;
+import com.banking.cache.offheap.OffHeapTransactionStore;
+import com.banking.model.Transaction;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Cache Configuration Class </br>
  * I use Caffeine as the caching provider here since it is single node application, and it's a simple demo. </br>
- * Note: If in distribution environment, we need to use Hazelcast or Redis as the caching provider.
+ * Note: If in distribution environment, we need to use Hazelcast or Redis as the caching provider,
+ * or keep Caffeine as a near-cache per instance and enable the invalidation bus (app.cache.invalidation.transport). </br>
+ * Each cache can be sized separately (see {@link AppCacheProperties}), and all caches record statistics,
+ * which are published to Micrometer and the /actuator/cachestats endpoint. </br>
+ * A transaction cache with refresh-after-write-minutes is built as a loading cache with refresh-ahead.
  */
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(AppCacheProperties.class)
 public class CacheConfig {
     
     private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
-    
-    @Value("${app.cache.initial-capacity:200}")
-    private int initialCapacity;
-    
-    @Value("${app.cache.maximum-size:10000}")
-    private int maximumSize;
-    
-    @Value("${app.cache.expire-after-write-minutes:30}")
-    private int expireAfterWriteMinutes;
-    
-    @Value("${app.cache.expire-after-access-minutes:10}")
-    private int expireAfterAccessMinutes;
+
+    public static final String TRANSACTION_BY_ID = "transaction-by-id";
+    public static final String TRANSACTION_BY_TRADE_NO = "transaction-by-tradeno";
+
+    //negative caches, remember the keys which were not found in DB for a short time
+    public static final String MISSING_TRANSACTION_BY_ID = "missing-transaction-by-id";
+    public static final String MISSING_TRANSACTION_BY_TRADE_NO = "missing-transaction-by-tradeno";
+
+    @Autowired
+    private AppCacheProperties cacheProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<OffHeapTransactionStore> offHeapStore;
+
+    @Autowired
+    private ObjectProvider<TransactionLoader> transactionLoader;
+
+    /**
+     * Bounded pool for the refresh-ahead reloads, a full queue rejects the refresh instead of blocking the reader.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService cacheRefreshExecutor() {
+        AppCacheProperties.Refresh refresh = cacheProperties.getRefresh();
+        return new ThreadPoolExecutor(refresh.getThreads(), refresh.getThreads(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(refresh.getQueueCapacity()),
+                new CustomizableThreadFactory("cache-refresh-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
 
     @Bean
     public CacheManager cacheManager() {
         logger.info("Initializing cache manager..");
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCaffeine(caffeineCacheBuilder());
+        //fallback for caches created on demand
+        cacheManager.setCaffeine(caffeineCacheBuilder(null).recordStats());
+        //registered up front, so that the Spring Boot cache metrics binder sees them at startup
+        for (String cacheName : List.of(TRANSACTION_BY_ID, TRANSACTION_BY_TRADE_NO)) {
+            Caffeine<Object, Object> builder = caffeineCacheBuilder(cacheName)
+                    .recordStats(() -> new MicrometerStatsCounter(cacheName, meterRegistry));
+            if (TRANSACTION_BY_ID.equals(cacheName)) {
+                offHeapStore.ifAvailable(store -> builder.evictionListener(offHeapDemotion(store)));
+            }
+            int refreshMinutes = cacheProperties.resolve(cacheName).getRefreshAfterWriteMinutes();
+            if (refreshMinutes > 0) {
+                builder.refreshAfterWrite(refreshMinutes, TimeUnit.MINUTES);
+                cacheManager.registerCustomCache(cacheName, builder.build(
+                        new TransactionCacheLoader(cacheName, transactionLoader, cacheRefreshExecutor(), meterRegistry)));
+            } else {
+                cacheManager.registerCustomCache(cacheName, builder.build());
+            }
+        }
+        for (String cacheName : List.of(MISSING_TRANSACTION_BY_ID, MISSING_TRANSACTION_BY_TRADE_NO)) {
+            cacheManager.registerCustomCache(cacheName, negativeCacheBuilder()
+                    .recordStats(() -> new MicrometerStatsCounter(cacheName, meterRegistry))
+                    .build());
+        }
         return cacheManager;
     }
 
-    private Caffeine<Object, Object> caffeineCacheBuilder() {
-        logger.info("Building Caffeine cache with parameters: initialCapacity {}, maximumSize {}, expireAfterWriteMinutes {}, expireAfterAccessMinutes {}", initialCapacity, maximumSize, expireAfterWriteMinutes, expireAfterAccessMinutes);
+    /**
+     * Demote the entries evicted for size to the off-heap tier, it is indexed by both id and trade number. </br>
+     * Note: expired entries are dropped, not demoted, the heap TTL is what bounds the age of an entry which missed
+     * an invalidation.
+     */
+    static RemovalListener<Object, Object> offHeapDemotion(OffHeapTransactionStore store) {
+        return (key, value, cause) -> {
+            if (cause == RemovalCause.SIZE && value instanceof Transaction transaction) {
+                store.put(transaction);
+            }
+        };
+    }
+
+    private Caffeine<Object, Object> caffeineCacheBuilder(String cacheName) {
+        AppCacheProperties.Spec spec = cacheProperties.resolve(cacheName);
+        logger.info("Building Caffeine cache {} with parameters: {}", cacheName != null ? cacheName : "default", spec);
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .initialCapacity(spec.getInitialCapacity());
+        if (spec.getMaximumWeightBytes() != null) {
+            builder.maximumWeight(spec.getMaximumWeightBytes())
+                    .weigher(new TransactionWeigher());
+        } else {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+        if (spec.getExpireAfterWriteMinutes() > 0) {
+            builder.expireAfterWrite(spec.getExpireAfterWriteMinutes(), TimeUnit.MINUTES);
+        }
+        if (spec.getExpireAfterAccessMinutes() > 0) {
+            builder.expireAfterAccess(spec.getExpireAfterAccessMinutes(), TimeUnit.MINUTES);
+        }
+        return builder;
+    }
+
+    /**
+     * Negative cache builder </br>
+     * Note: the TTL must be short, a missed key may be created by another request at any time.
+     * createTransaction also evicts the key once the transaction is saved.
+     */
+    private Caffeine<Object, Object> negativeCacheBuilder() {
+        AppCacheProperties.Negative negative = cacheProperties.getNegative();
+        logger.info("Building negative Caffeine cache with parameters: maximumSize {}, expireAfterWriteSeconds {}", negative.getMaximumSize(), negative.getExpireAfterWriteSeconds());
         return Caffeine.newBuilder()
-                .initialCapacity(initialCapacity)
-                .maximumSize(maximumSize)
-                .expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
-                .expireAfterAccess(expireAfterAccessMinutes, TimeUnit.MINUTES);
+                .maximumSize(negative.getMaximumSize())
+                .expireAfterWrite(negative.getExpireAfterWriteSeconds(), TimeUnit.SECONDS);
     }
-} 
\ No newline at end of file
+}
@@ -1,6 +1,9 @@
 package com.banking.config;
 
+import com.banking.interceptor.AdmissionControlInterceptor;
+import com.banking.interceptor.BulkheadInterceptor;
 import com.banking.interceptor.LogInterceptor;
+import com.banking.interceptor.ReadYourWritesInterceptor;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
@@ -15,12 +18,38 @@ public class WebConfig implements WebMvcConfigurer {
     //To print base request and response info and to record the time consumed
     private LogInterceptor logInterceptor;
 
+    //only with the read/write split (app.datasource.routing.enabled)
+    @Autowired(required = false)
+    private ReadYourWritesInterceptor readYourWritesInterceptor;
+
+    //only with admission control (app.admission.enabled)
+    @Autowired(required = false)
+    private AdmissionControlInterceptor admissionControlInterceptor;
+
+    //only with bulkheads (app.bulkhead.enabled)
+    @Autowired(required = false)
+    private BulkheadInterceptor bulkheadInterceptor;
+
     //Note: since no need to verify user,  so I did not add the UserInterceptor here.
     //If we need to auth user, we can add and do the related auth logic there. Or use spring security is another choice.
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(logInterceptor)
-                .addPathPatterns("/transaction/**");
+                .addPathPatterns("/transaction/**", "/account/**", "/reconciliation/**");
+        //after the log interceptor, so shed requests are still logged
+        if (admissionControlInterceptor != null) {
+            registry.addInterceptor(admissionControlInterceptor)
+                    .addPathPatterns("/transaction/**", "/account/**");
+        }
+        //reconciliation is not admission controlled, a run of minutes would skew the latency target, the bulk bulkhead bounds it
+        if (bulkheadInterceptor != null) {
+            registry.addInterceptor(bulkheadInterceptor)
+                    .addPathPatterns("/transaction/**", "/account/**", "/reconciliation/**");
+        }
+        if (readYourWritesInterceptor != null) {
+            registry.addInterceptor(readYourWritesInterceptor)
+                    .addPathPatterns("/transaction/**");
+        }
     }
 } 
\ No newline at end of file
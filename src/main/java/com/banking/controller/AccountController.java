@@ -0,0 +1,89 @@
+package com.banking.controller;
+
+import com.banking.balance.AccountBalanceLedger;
+import com.banking.bulkhead.Bulkhead;
+import com.banking.bulkhead.Workload;
+import com.banking.dto.AccountBalance;
+import com.banking.repository.AccountBalanceRepository;
+import com.banking.storage.compact.CompactEncoding;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Account Controller </br>
+ * Account balances, served by the {@link AccountBalanceLedger}. While the ledger loads, the balance is summed
+ * from the transactions of the account.
+ */
+@RestController
+@RequestMapping("/account")
+@Validated
+@Tag(name = "Accounts", description = "Account balances")
+@ConditionalOnExpression("${app.balance.enabled:false} and '${app.storage.engine:jpa}' == 'jpa' and !${app.sharding.enabled:false}")
+public class AccountController {
+    private static final Logger logger = LoggerFactory.getLogger(AccountController.class);
+
+    @Autowired
+    private AccountBalanceLedger accountBalanceLedger;
+
+    @Autowired
+    private AccountBalanceRepository accountBalanceRepository;
+
+    /**
+     * Get account balance
+     */
+    @GetMapping("/{accountNumber}/balance")
+    @Bulkhead(Workload.READ)
+    @Operation(
+        summary = "Query Account Balance",
+        description = "Balance of an account by currency: credits minus debits of its transactions, failed ones excluded"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Query successful",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = AccountBalance.class),
+                examples = @ExampleObject(value = "{\"accountNumber\": \"1234567890123456\", \"balances\": {\"CNY\": 1500.00}}")
+            )
+        ),
+        @ApiResponse(responseCode = "400", description = "Invalid account number")
+    })
+    public ResponseEntity<AccountBalance> getBalance(
+            @Parameter(description = "Account number, 10-20 digits", required = true, example = "1234567890123456")
+            @PathVariable
+            @Pattern(regexp = "^\\d{10,20}$", message = "Account number must be 10 to 20 digits")
+            String accountNumber) {
+
+        logger.info("Querying balance of account {}", accountNumber);
+        Map<String, BigDecimal> balances = accountBalanceLedger.findBalances(accountNumber)
+                .orElseGet(() -> sumFromDatabase(accountNumber));
+        return ResponseEntity.ok(new AccountBalance(accountNumber, balances));
+    }
+
+    private Map<String, BigDecimal> sumFromDatabase(String accountNumber) {
+        Map<String, BigDecimal> balances = new TreeMap<>();
+        accountBalanceRepository.sumByAccount(accountNumber)
+                .forEach(balance -> balances.put(balance.currency(), CompactEncoding.decodeAmount(balance.amount())));
+        return balances;
+    }
+}
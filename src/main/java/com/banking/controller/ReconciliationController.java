@@ -0,0 +1,93 @@
+package com.banking.controller;
+
+import com.banking.bulkhead.Bulkhead;
+import com.banking.bulkhead.Workload;
+import com.banking.dto.ReconciliationReport;
+import com.banking.reconciliation.ReconciliationJob;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+/**
+ * Reconciliation Controller </br>
+ * Runs the end-of-day reconciliation of a business date on demand, and returns its report. The scheduled run
+ * reconciles the previous day.
+ */
+@RestController
+@RequestMapping("/reconciliation")
+@Validated
+@Tag(name = "Reconciliation", description = "End-of-day reconciliation")
+@ConditionalOnExpression("${app.reconciliation.enabled:false} and '${app.storage.engine:jpa}' == 'jpa' and !${app.sharding.enabled:false}")
+public class ReconciliationController {
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationController.class);
+
+    @Autowired
+    private ReconciliationJob reconciliationJob;
+
+    /**
+     * Reconcile a business date
+     */
+    @PostMapping("/{date}")
+    @Bulkhead(Workload.BULK)
+    @Operation(
+        summary = "Reconcile a Business Date",
+        description = "Sum the debits and credits of the day per account and currency, compare the balances and the transfers, "
+                + "and replace the report of the date. Runs to completion before returning"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Reconciliation done",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReconciliationReport.class))
+        ),
+        @ApiResponse(responseCode = "400", description = "Invalid or future date")
+    })
+    public ResponseEntity<ReconciliationReport> reconcile(
+            @Parameter(description = "Business date, ISO format", required = true, example = "2025-06-30")
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+
+        logger.info("Reconciling business date {}", date);
+        return ResponseEntity.ok(reconciliationJob.reconcile(date));
+    }
+
+    /**
+     * Get the report of a business date
+     */
+    @GetMapping("/{date}")
+    @Bulkhead(Workload.READ)
+    @Operation(
+        summary = "Query Reconciliation Report",
+        description = "Report of the last reconciliation of a business date, with its discrepancies"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Query successful",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReconciliationReport.class))
+        ),
+        @ApiResponse(responseCode = "404", description = "The date was not reconciled")
+    })
+    public ResponseEntity<ReconciliationReport> getReport(
+            @Parameter(description = "Business date, ISO format", required = true, example = "2025-06-30")
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+
+        logger.info("Querying reconciliation report of {}", date);
+        return reconciliationJob.findReport(date)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,71 @@
+package com.banking.controller;
+
+import com.banking.bulkhead.Bulkhead;
+import com.banking.bulkhead.Workload;
+import com.banking.service.TradeNumberService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Trade Number Controller </br>
+ * Hands out server-allocated trade numbers, unique across instances and restarts, to use when creating transactions.
+ */
+@RestController
+@Bulkhead(Workload.WRITE)
+@RequestMapping("/transaction/trade-numbers")
+@Validated
+@Tag(name = "Trade Numbers", description = "Allocation of unique trade numbers")
+public class TradeNumberController {
+    private static final Logger logger = LoggerFactory.getLogger(TradeNumberController.class);
+
+    @Autowired
+    private TradeNumberService tradeNumberService;
+
+    /**
+     * Allocate trade numbers
+     */
+    @PostMapping
+    @Operation(
+        summary = "Allocate Trade Numbers",
+        description = "Allocate unique 18-digit trade numbers for new transactions"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Trade numbers allocated",
+            content = @Content(
+                mediaType = "application/json",
+                array = @ArraySchema(schema = @Schema(implementation = String.class)),
+                examples = @ExampleObject(value = "[\"900000000000010001\", \"900000000000010002\"]")
+            )
+        ),
+        @ApiResponse(responseCode = "400", description = "Invalid count")
+    })
+    public ResponseEntity<List<String>> allocateTradeNumbers(
+            @Parameter(description = "Number of trade numbers, 1 to 1000", example = "10")
+            @RequestParam(defaultValue = "1")
+            @Min(value = 1, message = "Count must be at least 1")
+            @Max(value = 1000, message = "Count must be at most 1000") int count) {
+
+        logger.info("Allocating {} trade numbers", count);
+        return ResponseEntity.ok(tradeNumberService.allocate(count));
+    }
+}
@@ -1,10 +1,15 @@
 package com.banking.controller;
 
+import com.banking.bulkhead.Bulkhead;
+import com.banking.bulkhead.Workload;
 import com.banking.dto.PagedResult;
+import com.banking.dto.TransferRequest;
 import com.banking.model.Transaction;
+import com.banking.readmodel.TransactionReadModel;
 import com.banking.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -21,6 +26,8 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Transaction Management Controller </br>
@@ -38,10 +45,15 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
 
+    //CQRS read model, only when app.read-model.enabled
+    @Autowired(required = false)
+    private TransactionReadModel transactionReadModel;
+
     /**
      * Create a new transaction
      */
     @PostMapping
+    @Bulkhead(Workload.WRITE)
     @Operation(
         summary = " Create New Transaction",
         description = "Create a new banking transaction"
@@ -73,10 +85,89 @@ public class TransactionController {
         return ResponseEntity.status(HttpStatus.CREATED).body(savedTransaction);
     }
 
+    /**
+     * Create both legs of an internal transfer
+     */
+    @PostMapping("/transfer")
+    @Bulkhead(Workload.WRITE)
+    @Operation(
+        summary = "Create Transfer",
+        description = "Post an internal transfer as a TRANSFER_OUT (DEBIT) and a TRANSFER_IN (CREDIT) transaction in one commit, "
+                + "linked by the trade number of the TRANSFER_OUT leg"
+    )
+    @ApiResponses(value = {
+        @ApiResponse( responseCode = "201", description = "Transfer created successfully, the TRANSFER_OUT and the TRANSFER_IN leg",
+                content = @Content(
+                mediaType = "application/json",
+                array = @ArraySchema(schema = @Schema(implementation = Transaction.class))
+            )
+        ),
+        @ApiResponse( responseCode = "400", description = "Invalid request parameters",
+            content = @Content(
+                mediaType = "application/json",
+                examples = @ExampleObject(
+                    value = "{\"error\": \"Validation failed\", \"message\": \"Invalid request parameter\"}"
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error"
+        )
+    })
+    public ResponseEntity<List<Transaction>> createTransfer(
+            @Valid @RequestBody TransferRequest transfer) {
+        logger.info("Creating transfer, trade numbers {} and {}", transfer.getOutTradeNo(), transfer.getInTradeNo());
+        List<Transaction> legs = transactionService.createTransfer(transfer);
+        return ResponseEntity.status(HttpStatus.CREATED).body(legs);
+    }
+
+    /**
+     * Get both legs of a transfer
+     */
+    @GetMapping("/transfer/{transferRef}")
+    @Bulkhead(Workload.READ)
+    @Operation(
+        summary = "Query Transfer by reference",
+        description = "Query both legs of a transfer by its reference, the trade number of the TRANSFER_OUT leg"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Query successful",
+            content = @Content(
+                mediaType = "application/json",
+                array = @ArraySchema(schema = @Schema(implementation = Transaction.class))
+            )
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Transfer not found"
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid transfer reference format"
+        )
+    })
+    public ResponseEntity<List<Transaction>> getTransfer(
+            @Parameter(
+                description = "Transfer reference, 18 digits",
+                required = true,
+                example = "123456789012345654"
+            )
+            @PathVariable
+            @Pattern(regexp = "^\\d{18}$", message = "Transfer reference must be 18 digits")
+            String transferRef) {
+
+        logger.info("Querying transfer by reference {}", transferRef);
+        return ResponseEntity.ok(transactionService.getTransfer(transferRef));
+    }
+
     /**
      * Get transaction by ID
      */
     @GetMapping("/{id}")
+    @Bulkhead(Workload.READ)
     @Operation(
         summary = "Query Transaction by ID", 
         description = "Query transaction record detail by ID"
@@ -110,7 +201,9 @@ public class TransactionController {
             @PathVariable @Min(value = 1, message = "Transaction ID must be positive") Long id) {
 
         logger.info("Querying transaction by ID {}", id);
-        Transaction transaction = transactionService.getTransactionById(id);
+        Transaction transaction = readModel()
+                .flatMap(readModel -> readModel.findById(id))
+                .orElseGet(() -> transactionService.getTransactionById(id));
         return ResponseEntity.ok(transaction);
     }
 
@@ -118,6 +211,7 @@ public class TransactionController {
      * Get transaction by TradeNo
      */
     @GetMapping("/by-trade-no/{tradeNo}")
+    @Bulkhead(Workload.READ)
     @Operation(
         summary = "Query Transaction by trade number",
         description = "Query transaction detail by 18-digit trade number - business interface"
@@ -163,7 +257,9 @@ public class TransactionController {
             String tradeNo) {
 
         logger.info("Querying transaction by tradeNo: {}", tradeNo);
-        Transaction transaction = transactionService.getTransactionByTradeNo(tradeNo);
+        Transaction transaction = readModel()
+                .flatMap(readModel -> readModel.findByTradeNo(tradeNo))
+                .orElseGet(() -> transactionService.getTransactionByTradeNo(tradeNo));
         return ResponseEntity.ok(transaction);
     }
 
@@ -171,6 +267,7 @@ public class TransactionController {
      * Update transaction
      */
     @PutMapping("/{id}")
+    @Bulkhead(Workload.WRITE)
     @Operation(
         summary = "Update Transaction Information", 
         description = "Update existing transaction record information by transaction ID."
@@ -244,6 +341,7 @@ public class TransactionController {
      * Update transaction by TradeNo
      */
     @PutMapping("/by-trade-no/{tradeNo}")
+    @Bulkhead(Workload.WRITE)
     @Operation(
         summary = "Update Transaction by trade number",
         description = "Update transaction information by 18-digit trade number."
@@ -313,6 +411,7 @@ public class TransactionController {
      * Delete transaction
      */
     @DeleteMapping("/{id}")
+    @Bulkhead(Workload.WRITE)
     @Operation(
         summary = "Delete Transaction by ID",
         description = "Delete transaction record by ID"
@@ -352,6 +451,7 @@ public class TransactionController {
      * Delete transaction by TradeNo
      */
     @DeleteMapping("/by-trade-no/{tradeNo}")
+    @Bulkhead(Workload.WRITE)
     @Operation(
         summary = "Delete Transaction by trade number",
         description = "Delete transaction record by 18-digit trade number"
@@ -393,6 +493,7 @@ public class TransactionController {
      * Get all transactions with pagination
      */
     @GetMapping
+    @Bulkhead(Workload.BULK)
     @Operation(
         summary = "Query transaction list with pagination",
         description = "Get paginated list of all transaction records. Sorted by creation time in descending order"
@@ -431,7 +532,16 @@ public class TransactionController {
             @RequestParam(defaultValue = "20") @Min(value = 1) @Max(value = 100) int size) {
         
         logger.info("Fetching transactions, page: {}, size: {}", page, size);
-        PagedResult<Transaction> result = transactionService.getTransactions(page, size);
+        PagedResult<Transaction> result = readModel()
+                .map(readModel -> readModel.findPage(page, size))
+                .orElseGet(() -> transactionService.getTransactions(page, size));
         return ResponseEntity.ok(result);
     }
+
+    /**
+     * The read model once it is rebuilt. A miss falls back to the service, archived transactions are not in it.
+     */
+    private Optional<TransactionReadModel> readModel() {
+        return Optional.ofNullable(transactionReadModel).filter(TransactionReadModel::isReady);
+    }
 } 
\ No newline at end of file
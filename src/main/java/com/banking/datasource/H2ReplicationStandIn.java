@@ -0,0 +1,118 @@
+package com.banking.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replication stand-in for local testing with H2 instances, enabled by the replica-local profile. </br>
+ * Copies the schema of the primary once (SCRIPT NODATA), then on a fixed delay replaces the content of the
+ * configured tables on every replica, in one replica transaction per table. The interval is the replication lag. </br>
+ * Note: a full copy per run, only meant for test volumes. Real replicas use the database's own replication.
+ */
+@Component
+@ConditionalOnProperty(name = "app.datasource.routing.replication-stand-in.enabled", havingValue = "true")
+public class H2ReplicationStandIn {
+
+    private static final Logger logger = LoggerFactory.getLogger(H2ReplicationStandIn.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private ReplicaHealthChecker replicaHealthChecker;
+
+    @Autowired
+    private RoutingDataSourceProperties properties;
+
+    private volatile boolean schemaCopied;
+
+    @Scheduled(initialDelayString = "${app.datasource.routing.replication-stand-in.interval-ms:1000}",
+            fixedDelayString = "${app.datasource.routing.replication-stand-in.interval-ms:1000}")
+    public void replicate() {
+        try {
+            if (!schemaCopied) {
+                copySchema();
+                schemaCopied = true;
+            }
+            for (Map.Entry<String, HikariDataSource> replica : replicaHealthChecker.getReplicas().entrySet()) {
+                for (String table : properties.getReplicationStandIn().getTables()) {
+                    copyTable(table, replica.getValue());
+                }
+            }
+        } catch (SQLException e) {
+            //e.g. a table created on the primary after the schema copy, copy the schema again next time
+            schemaCopied = false;
+            logger.warn("Replication stand-in failed, schema copied again on the next run, error: {}", e.getMessage());
+        }
+    }
+
+    private void copySchema() throws SQLException {
+        List<String> statements = new ArrayList<>();
+        try (Connection connection = primaryDataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SCRIPT NODATA")) {
+            while (resultSet.next()) {
+                statements.add(resultSet.getString(1));
+            }
+        }
+        for (Map.Entry<String, HikariDataSource> replica : replicaHealthChecker.getReplicas().entrySet()) {
+            try (Connection connection = replica.getValue().getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+                for (String sql : statements) {
+                    statement.execute(sql);
+                }
+            }
+            logger.info("Replication stand-in copied the schema to {}, {} statements", replica.getKey(), statements.size());
+        }
+    }
+
+    private void copyTable(String table, HikariDataSource replica) throws SQLException {
+        try (Connection source = primaryDataSource.getConnection();
+             Statement select = source.createStatement();
+             ResultSet rows = select.executeQuery("SELECT * FROM " + table);
+             Connection target = replica.getConnection()) {
+            int columns = rows.getMetaData().getColumnCount();
+            String insert = "INSERT INTO " + table + " VALUES (" + "?, ".repeat(columns - 1) + "?)";
+            target.setAutoCommit(false);
+            try (Statement delete = target.createStatement();
+                 PreparedStatement statement = target.prepareStatement(insert)) {
+                delete.executeUpdate("DELETE FROM " + table);
+                int pending = 0;
+                while (rows.next()) {
+                    for (int i = 1; i <= columns; i++) {
+                        statement.setObject(i, rows.getObject(i));
+                    }
+                    statement.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                statement.executeBatch();
+                target.commit();
+            } catch (SQLException e) {
+                target.rollback();
+                throw e;
+            } finally {
+                target.setAutoCommit(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.banking.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes read-only transactions to a healthy replica (round robin) and everything else to the primary. </br>
+ * Falls back to the primary when no replica is healthy, or when the client has just written (read-your-writes). </br>
+ * Note: must be wrapped in a LazyConnectionDataSourceProxy, the read-only flag of the transaction is only set
+ * after the transaction manager has asked for the connection.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final ReplicaHealthChecker replicaHealthChecker;
+
+    public ReadWriteRoutingDataSource(ReplicaHealthChecker replicaHealthChecker) {
+        this.replicaHealthChecker = replicaHealthChecker;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadYourWritesContext.isPrimaryRequired()) {
+            return PRIMARY;
+        }
+        String replica = replicaHealthChecker.nextHealthyReplica();
+        return replica != null ? replica : PRIMARY;
+    }
+}
@@ -0,0 +1,117 @@
+package com.banking.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Owns the replica pools and decides which replicas may serve reads. </br>
+ * A replica is healthy when it answers a validation query and its replication lag, measured as the distance between
+ * the highest transaction id of the primary and of the replica, is within app.datasource.routing.max-lag-rows. </br>
+ * Until the first check has passed no replica is used, reads go to the primary.
+ */
+public class ReplicaHealthChecker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaHealthChecker.class);
+
+    private static final String MAX_ID_QUERY = "SELECT COALESCE(MAX(id), 0) FROM transactions";
+
+    private final HikariDataSource primary;
+    private final Map<String, HikariDataSource> replicas;
+    private final long maxLagRows;
+    private final Map<String, String> status = new ConcurrentHashMap<>();
+    private final AtomicInteger cursor = new AtomicInteger();
+    private volatile String[] healthy = new String[0];
+
+    public ReplicaHealthChecker(HikariDataSource primary, Map<String, HikariDataSource> replicas, long maxLagRows) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLagRows = maxLagRows;
+        replicas.keySet().forEach(name -> status.put(name, "UNKNOWN"));
+    }
+
+    /**
+     * The next healthy replica in round robin, or null if there is none.
+     */
+    public String nextHealthyReplica() {
+        String[] candidates = healthy;
+        if (candidates.length == 0) {
+            return null;
+        }
+        return candidates[Math.floorMod(cursor.getAndIncrement(), candidates.length)];
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.routing.health-check-interval-ms:2000}")
+    public void check() {
+        long primaryMaxId;
+        try {
+            primaryMaxId = maxId(primary);
+        } catch (SQLException e) {
+            //the schema may not exist yet at startup, only liveness is checked then
+            primaryMaxId = -1;
+        }
+
+        List<String> nowHealthy = new ArrayList<>();
+        for (Map.Entry<String, HikariDataSource> replica : replicas.entrySet()) {
+            String name = replica.getKey();
+            String state;
+            try {
+                long lag = primaryMaxId >= 0 ? primaryMaxId - maxId(replica.getValue()) : 0;
+                state = lag <= maxLagRows ? "UP" : "LAGGING (" + lag + " rows)";
+            } catch (SQLException e) {
+                state = "DOWN (" + e.getMessage() + ")";
+            }
+            if (state.equals("UP")) {
+                nowHealthy.add(name);
+            }
+            String previous = status.put(name, state);
+            if (!state.equals(previous)) {
+                if (state.equals("UP")) {
+                    logger.info("Replica {} is serving reads", name);
+                } else {
+                    logger.warn("Replica {} removed from reads, state {}", name, state);
+                }
+            }
+        }
+        healthy = nowHealthy.toArray(new String[0]);
+    }
+
+    public Map<String, String> getStatus() {
+        return new LinkedHashMap<>(status);
+    }
+
+    public Map<String, HikariDataSource> getReplicas() {
+        return replicas;
+    }
+
+    public int getHealthyCount() {
+        return healthy.length;
+    }
+
+    public void close() {
+        replicas.values().forEach(HikariDataSource::close);
+    }
+
+    private static long maxId(HikariDataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(2);
+            try (ResultSet resultSet = statement.executeQuery(MAX_ID_QUERY)) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.banking.datasource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Replica states for /actuator/health. </br>
+ * Always UP: without a healthy replica the reads go to the primary, the service is degraded but usable.
+ */
+@Component
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class ReplicaHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private ReplicaHealthChecker replicaHealthChecker;
+
+    @Override
+    public Health health() {
+        return Health.up()
+                .withDetail("healthyReplicas", replicaHealthChecker.getHealthyCount())
+                .withDetail("replicas", replicaHealthChecker.getStatus())
+                .build();
+    }
+}
@@ -0,0 +1,157 @@
+package com.banking.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read/write routing settings bound from app.datasource.routing.* </br>
+ * <pre>
+ * app.datasource.routing.enabled=true
+ * app.datasource.routing.primary.url=jdbc:h2:mem:banking_primary;DB_CLOSE_DELAY=-1
+ * app.datasource.routing.replicas[0].url=jdbc:h2:mem:banking_replica1;DB_CLOSE_DELAY=-1
+ * </pre>
+ * Each node gets its own Hikari pool, so reads no longer compete with writes for the primary connections.
+ */
+@ConfigurationProperties(prefix = "app.datasource.routing")
+public class RoutingDataSourceProperties {
+
+    private boolean enabled;
+    private Node primary = new Node();
+    private List<Node> replicas = new ArrayList<>();
+    private long healthCheckIntervalMs = 2000;
+    private long maxLagRows = 1000;
+    private long readYourWritesWindowMs = 3000;
+    private ReplicationStandIn replicationStandIn = new ReplicationStandIn();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Node getPrimary() {
+        return primary;
+    }
+
+    public void setPrimary(Node primary) {
+        this.primary = primary;
+    }
+
+    public List<Node> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<Node> replicas) {
+        this.replicas = replicas;
+    }
+
+    public long getHealthCheckIntervalMs() {
+        return healthCheckIntervalMs;
+    }
+
+    public void setHealthCheckIntervalMs(long healthCheckIntervalMs) {
+        this.healthCheckIntervalMs = healthCheckIntervalMs;
+    }
+
+    public long getMaxLagRows() {
+        return maxLagRows;
+    }
+
+    public void setMaxLagRows(long maxLagRows) {
+        this.maxLagRows = maxLagRows;
+    }
+
+    public long getReadYourWritesWindowMs() {
+        return readYourWritesWindowMs;
+    }
+
+    public void setReadYourWritesWindowMs(long readYourWritesWindowMs) {
+        this.readYourWritesWindowMs = readYourWritesWindowMs;
+    }
+
+    public ReplicationStandIn getReplicationStandIn() {
+        return replicationStandIn;
+    }
+
+    public void setReplicationStandIn(ReplicationStandIn replicationStandIn) {
+        this.replicationStandIn = replicationStandIn;
+    }
+
+    public static class Node {
+
+        private String url;
+        private String username = "sa";
+        private String password = "";
+        private int maximumPoolSize = 10;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+    }
+
+    /**
+     * Local testing only: copies the primary tables to the replicas on a fixed delay.
+     */
+    public static class ReplicationStandIn {
+
+        private boolean enabled;
+        private long intervalMs = 1000;
+        private List<String> tables = new ArrayList<>(List.of("transactions", "transactions_archive"));
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getIntervalMs() {
+            return intervalMs;
+        }
+
+        public void setIntervalMs(long intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+
+        public List<String> getTables() {
+            return tables;
+        }
+
+        public void setTables(List<String> tables) {
+            this.tables = tables;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.banking.dto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Balances of an account, by currency: credits minus debits of its transactions, FAILED ones excluded.
+ */
+public class AccountBalance {
+    private String accountNumber;
+    private Map<String, BigDecimal> balances;
+
+    public AccountBalance(String accountNumber, Map<String, BigDecimal> balances) {
+        this.accountNumber = accountNumber;
+        this.balances = balances;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public Map<String, BigDecimal> getBalances() {
+        return balances;
+    }
+
+    public void setBalances(Map<String, BigDecimal> balances) {
+        this.balances = balances;
+    }
+}
@@ -0,0 +1,103 @@
+package com.banking.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Summary of the end-of-day reconciliation of a business date, with its discrepancies (at most the report limit).
+ */
+public class ReconciliationReport {
+    private LocalDate businessDate;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private int partitions;
+    private long transactions;
+    private long accounts;
+    private long discrepancyCount;
+    private List<Discrepancy> discrepancies;
+
+    /**
+     * Account and currency are empty for a transfer, the reference (transfer reference) for an account.
+     */
+    public record Discrepancy(String kind, String accountNumber, String currency, String reference,
+                              BigDecimal expected, BigDecimal actual) {
+    }
+
+    public ReconciliationReport(LocalDate businessDate, LocalDateTime startedAt, LocalDateTime finishedAt, int partitions,
+                                long transactions, long accounts, long discrepancyCount, List<Discrepancy> discrepancies) {
+        this.businessDate = businessDate;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.partitions = partitions;
+        this.transactions = transactions;
+        this.accounts = accounts;
+        this.discrepancyCount = discrepancyCount;
+        this.discrepancies = discrepancies;
+    }
+
+    public LocalDate getBusinessDate() {
+        return businessDate;
+    }
+
+    public void setBusinessDate(LocalDate businessDate) {
+        this.businessDate = businessDate;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    public long getTransactions() {
+        return transactions;
+    }
+
+    public void setTransactions(long transactions) {
+        this.transactions = transactions;
+    }
+
+    public long getAccounts() {
+        return accounts;
+    }
+
+    public void setAccounts(long accounts) {
+        this.accounts = accounts;
+    }
+
+    public long getDiscrepancyCount() {
+        return discrepancyCount;
+    }
+
+    public void setDiscrepancyCount(long discrepancyCount) {
+        this.discrepancyCount = discrepancyCount;
+    }
+
+    public List<Discrepancy> getDiscrepancies() {
+        return discrepancies;
+    }
+
+    public void setDiscrepancies(List<Discrepancy> discrepancies) {
+        this.discrepancies = discrepancies;
+    }
+}
@@ -0,0 +1,184 @@
+package com.banking.dto;
+
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionType;
+import com.banking.model.Transaction;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+
+/**
+ * Internal transfer between two accounts, posted as two transactions in one commit: a TRANSFER_OUT / DEBIT leg on
+ * the account and a TRANSFER_IN / CREDIT leg on the payee account. </br>
+ * Both legs carry the trade number of the OUT leg as transfer reference.
+ */
+@Schema(description = "Internal transfer, posted as a TRANSFER_OUT and a TRANSFER_IN transaction")
+public class TransferRequest {
+
+    @NotBlank(message = "Trade number of the TRANSFER_OUT leg is required")
+    @Pattern(regexp = "^\\d{18}$", message = "Invalid trade number format")
+    @Schema(description = "18-digit trade number of the TRANSFER_OUT leg, also the transfer reference", example = "123456789012345654", required = true)
+    private String outTradeNo;
+
+    @NotBlank(message = "Trade number of the TRANSFER_IN leg is required")
+    @Pattern(regexp = "^\\d{18}$", message = "Invalid trade number format")
+    @Schema(description = "18-digit trade number of the TRANSFER_IN leg", example = "123456789012345655", required = true)
+    private String inTradeNo;
+
+    @NotBlank(message = "Account number is required")
+    @Size(min = 10, max = 20, message = "Account number must be between 10 and 20 characters")
+    @Pattern(regexp = "^[0-9]+$", message = "Account number can only contain digits")
+    @Schema(description = "Debited account number, 10-20 digits", example = "1234567890123456", required = true)
+    private String accountNumber;
+
+    @NotBlank(message = "Account name is required")
+    @Size(min = 2, max = 100, message = "Account name must be between 2 and 100 characters")
+    @Pattern(regexp = "^[\\p{L} ]+$", message = "Account name can only contain letters and spaces")
+    @Schema(description = "Debited account name, letters and spaces only", example = "John Doe", required = true)
+    private String accountName;
+
+    @NotBlank(message = "Payee account is required")
+    @Size(min = 10, max = 20, message = "Payee account must be between 10 and 20 characters")
+    @Pattern(regexp = "^[0-9]+$", message = "Payee account can only contain digits")
+    @Schema(description = "Credited account number, 10-20 digits", example = "9876543210987654", required = true)
+    private String payeeAccount;
+
+    //account name of the TRANSFER_IN leg, so validated like one
+    @NotBlank(message = "Payee name is required")
+    @Size(min = 2, max = 100, message = "Payee name must be between 2 and 100 characters")
+    @Pattern(regexp = "^[\\p{L} ]+$", message = "Payee name can only contain letters and spaces")
+    @Schema(description = "Credited account name, letters and spaces only", example = "Jane Smith", required = true)
+    private String payeeName;
+
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.01", message = "Amount must be equal or greater than 0.01")
+    @Digits(integer = 19, fraction = 2, message = "Amount can have maximum 17 integer digits and 2 decimal places")
+    @Schema(description = "Transfer amount, must be greater than 0", example = "500.00", required = true)
+    private BigDecimal amount;
+
+    @NotBlank(message = "Currency is required")
+    @Size(min = 3, max = 3, message = "Currency is not valid")
+    @Pattern(regexp = "^[A-Z]{3}$", message = "Currency must be a valid ISO currency code")
+    @Schema(description = "Currency code, ISO standard", example = "CNY", required = true)
+    private String currency;
+
+    @Size(max = 500, message = "Description cannot exceed 500 characters")
+    @Schema(description = "Description of both legs, max 500 characters", example = "Savings transfer")
+    private String description;
+
+    /**
+     * A transfer needs two accounts and two trade numbers, the field constraints cannot express it.
+     */
+    public void checkLegs() {
+        if (accountNumber.equals(payeeAccount)) {
+            throw new IllegalArgumentException("Transfer account and payee account must be different");
+        }
+        if (outTradeNo.equals(inTradeNo)) {
+            throw new IllegalArgumentException("Transfer legs must have different trade numbers");
+        }
+    }
+
+    /**
+     * The TRANSFER_OUT / DEBIT leg, on the debited account.
+     */
+    public Transaction toOutLeg() {
+        Transaction leg = new Transaction(accountNumber, accountName, payeeAccount, amount, TransactionType.TRANSFER_OUT, description);
+        leg.setTradeNo(outTradeNo);
+        leg.setPayeeName(payeeName);
+        leg.setCurrency(currency);
+        leg.setDebitCredit(DebitCredit.DEBIT);
+        leg.setTransferRef(outTradeNo);
+        return leg;
+    }
+
+    /**
+     * The TRANSFER_IN / CREDIT leg, on the credited account, its payee is the debited account.
+     */
+    public Transaction toInLeg() {
+        Transaction leg = new Transaction(payeeAccount, payeeName, accountNumber, amount, TransactionType.TRANSFER_IN, description);
+        leg.setTradeNo(inTradeNo);
+        leg.setPayeeName(accountName);
+        leg.setCurrency(currency);
+        leg.setDebitCredit(DebitCredit.CREDIT);
+        leg.setTransferRef(outTradeNo);
+        return leg;
+    }
+
+    public String getOutTradeNo() {
+        return outTradeNo;
+    }
+
+    public void setOutTradeNo(String outTradeNo) {
+        this.outTradeNo = outTradeNo;
+    }
+
+    public String getInTradeNo() {
+        return inTradeNo;
+    }
+
+    public void setInTradeNo(String inTradeNo) {
+        this.inTradeNo = inTradeNo;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public String getAccountName() {
+        return accountName;
+    }
+
+    public void setAccountName(String accountName) {
+        this.accountName = accountName;
+    }
+
+    public String getPayeeAccount() {
+        return payeeAccount;
+    }
+
+    public void setPayeeAccount(String payeeAccount) {
+        this.payeeAccount = payeeAccount;
+    }
+
+    public String getPayeeName() {
+        return payeeName;
+    }
+
+    public void setPayeeName(String payeeName) {
+        this.payeeName = payeeName;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+}
@@ -0,0 +1,18 @@
+package com.banking.exception;
+
+/**
+ * Exception thrown when a client or an account exceeds its rate limit, answered with 429 and Retry-After.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public RateLimitExceededException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
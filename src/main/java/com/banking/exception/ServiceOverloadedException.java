@@ -0,0 +1,18 @@
+package com.banking.exception;
+
+/**
+ * Exception thrown when a request is shed by the admission control, answered with 429 and Retry-After.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
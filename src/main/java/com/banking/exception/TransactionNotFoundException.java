@@ -1,8 +1,13 @@
 package com.banking.exception;
 
+/**
+ * Exception thrown when a transaction does not exist. </br>
+ * Note: not-found is an expected business result (clients probe and retry trade numbers),
+ * so the message-only constructor skips the stack trace, which is the expensive part of throwing.
+ */
 public class TransactionNotFoundException extends RuntimeException {
     public TransactionNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
     
     public TransactionNotFoundException(String message, Throwable cause) {
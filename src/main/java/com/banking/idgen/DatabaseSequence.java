@@ -0,0 +1,63 @@
+package com.banking.idgen;
+
+import com.banking.sharding.ShardContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A database sequence used as a block source by {@link HiLoIdGenerator}. </br>
+ * Note: plain connections on the directory shard, a block must not join the business transaction of the caller
+ * (a rolled back transaction would otherwise not return its block anyway, sequences are not transactional).
+ */
+public class DatabaseSequence {
+
+    private final DataSource dataSource;
+    private final String name;
+
+    public DatabaseSequence(DataSource dataSource, String name) {
+        this.dataSource = dataSource;
+        this.name = name;
+    }
+
+    /**
+     * Create the sequence if it does not exist, starting at the value returned by the query (a single number),
+     * or at 1 when the query fails, e.g. because its table does not exist yet.
+     */
+    public void create(String startQuery) {
+        ShardContext.runOn(0, () -> {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                long start = 1;
+                if (startQuery != null) {
+                    try (ResultSet resultSet = statement.executeQuery(startQuery)) {
+                        if (resultSet.next()) {
+                            start = Math.max(1, resultSet.getLong(1));
+                        }
+                    } catch (SQLException e) {
+                        //nothing allocated yet
+                    }
+                }
+                statement.execute("CREATE SEQUENCE IF NOT EXISTS " + name + " START WITH " + start);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to create the sequence " + name + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    public long next() {
+        return ShardContext.callOn(0, () -> {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT NEXT VALUE FOR " + name)) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to allocate a block from " + name + ": " + e.getMessage(), e);
+            }
+        });
+    }
+}
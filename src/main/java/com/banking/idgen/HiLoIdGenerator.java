@@ -0,0 +1,64 @@
+package com.banking.idgen;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Pooled hi/lo ids: a block of app.id.hilo.block-size ids is taken from a database sequence (the hi value),
+ * the ids of the block are then handed out in process with one atomic increment. Only the thread that finds
+ * the block used up takes the next one. The shard is in the low app.id.shard-bits bits. </br>
+ * Note: ids are ordered per instance, across instances only by block.
+ */
+public class HiLoIdGenerator implements IdGenerator {
+
+    private final LongSupplier blockSource;
+    private final int blockSize;
+    private final int shardBits;
+    private volatile Block block = new Block(0, 0);
+
+    public HiLoIdGenerator(LongSupplier blockSource, int blockSize, int shardBits) {
+        this.blockSource = blockSource;
+        this.blockSize = blockSize;
+        this.shardBits = shardBits;
+    }
+
+    @Override
+    public long nextId(int shard) {
+        while (true) {
+            Block current = block;
+            long value = current.next.getAndIncrement();
+            if (value < current.end) {
+                return (value << shardBits) | shard;
+            }
+            refill(current);
+        }
+    }
+
+    @Override
+    public int shardOf(long id) {
+        return (int) (id & ((1L << shardBits) - 1));
+    }
+
+    @Override
+    public int maxShards() {
+        return 1 << shardBits;
+    }
+
+    private synchronized void refill(Block exhausted) {
+        if (block == exhausted) {
+            long hi = blockSource.getAsLong();
+            block = new Block(hi * blockSize, (hi + 1) * blockSize);
+        }
+    }
+
+    private static final class Block {
+
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.banking.idgen;
+
+/**
+ * Application-side transaction id generator, replacing the database identity so inserts need no round trip
+ * for the id and can be batched. </br>
+ * Ids are unique across instances and roughly ordered by creation time. With sharding, the id also encodes
+ * the shard of the transaction.
+ */
+public interface IdGenerator {
+
+    /**
+     * A new id, encoding the shard (0 when not sharded).
+     */
+    long nextId(int shard);
+
+    /**
+     * The shard encoded in an id returned by {@link #nextId(int)}.
+     */
+    int shardOf(long id);
+
+    /**
+     * The number of shards that can be encoded.
+     */
+    int maxShards();
+}
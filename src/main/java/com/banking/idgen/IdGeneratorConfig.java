@@ -0,0 +1,64 @@
+package com.banking.idgen;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Transaction id generation, app.id.strategy: </br>
+ * - snowflake (default): time-ordered ids, the node id is app.id.node-id or, when it is -1, leased in the database </br>
+ * - hilo: blocks of app.id.hilo.block-size ids from the transaction_id_blocks sequence </br>
+ * Note: the database objects are in the directory shard when sharding is enabled.
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    @Value("${app.id.strategy:snowflake}")
+    private String strategy;
+
+    @Value("${app.id.node-id:-1}")
+    private int nodeId;
+
+    @Value("${app.id.shard-bits:0}")
+    private int shardBits;
+
+    @Value("${app.id.lease-seconds:30}")
+    private long leaseSeconds;
+
+    @Value("${app.id.hilo.block-size:1000}")
+    private int blockSize;
+
+    @Bean(destroyMethod = "release")
+    public NodeIdLease nodeIdLease(DataSource dataSource) {
+        return new NodeIdLease(dataSource, leaseSeconds * 1000);
+    }
+
+    @Bean
+    public IdGenerator idGenerator(DataSource dataSource, NodeIdLease nodeIdLease) {
+        IdGenerator idGenerator;
+        if ("hilo".equalsIgnoreCase(strategy)) {
+            DatabaseSequence blocks = new DatabaseSequence(dataSource, "transaction_id_blocks");
+            //start above the existing ids, e.g. those generated by the database identity before
+            blocks.create("SELECT (COALESCE(MAX(id), 0) / " + (1L << shardBits) + ") / " + blockSize + " + 1 FROM transactions");
+            idGenerator = new HiLoIdGenerator(blocks::next, blockSize, shardBits);
+            logger.info("Hi/lo id generator, block size {}, shard bits {}", blockSize, shardBits);
+        } else {
+            int node = nodeId >= 0 ? nodeId : nodeIdLease.claim(SnowflakeIdGenerator.maxNodes(shardBits));
+            SnowflakeIdGenerator snowflake = new SnowflakeIdGenerator(node, shardBits);
+            //a fixed node id has no lease, its generator has no deadline
+            if (nodeId < 0) {
+                nodeIdLease.attach(snowflake);
+            }
+            idGenerator = snowflake;
+            logger.info("Snowflake id generator, node id {}, shard bits {}", node, shardBits);
+        }
+        IdGenerators.install(idGenerator);
+        return idGenerator;
+    }
+}
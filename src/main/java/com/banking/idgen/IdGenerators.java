@@ -0,0 +1,24 @@
+package com.banking.idgen;
+
+/**
+ * Static access to the id generator bean for {@link TransactionIdGenerator}, which Hibernate creates itself.
+ */
+public final class IdGenerators {
+
+    private static volatile IdGenerator current;
+
+    private IdGenerators() {
+    }
+
+    static void install(IdGenerator idGenerator) {
+        current = idGenerator;
+    }
+
+    public static IdGenerator current() {
+        IdGenerator idGenerator = current;
+        if (idGenerator == null) {
+            throw new IllegalStateException("Id generator is not initialized yet");
+        }
+        return idGenerator;
+    }
+}
@@ -0,0 +1,177 @@
+package com.banking.idgen;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leases a Snowflake node id in the id_node_leases table, so that instances sharing a database never use the same
+ * node id. A lease is renewed on a fixed delay and expires after app.id.lease-seconds without renewal; an instance
+ * that cannot renew in time stops its generator rather than risk duplicate ids: every successful renewal moves the
+ * generator's deadline to app.id.lease-seconds after the renewal started, so generation stops at the lease expiry
+ * whatever keeps the renewals from succeeding (database errors, a stalled scheduler), and resumes with the next
+ * successful renewal. </br>
+ * Note: plain connections on purpose, the lease must not join the business transaction of the calling thread.
+ * Lease times use the database clock, instances may have skewed clocks.
+ */
+public class NodeIdLease {
+
+    private static final Logger logger = LoggerFactory.getLogger(NodeIdLease.class);
+
+    private final DataSource dataSource;
+    private final long leaseMillis;
+    private final String owner;
+    private volatile int nodeId = -1;
+    private volatile SnowflakeIdGenerator generator;
+    //System.nanoTime() when the last successful claim or renewal started, at or before the database time it used
+    private volatile long lastRenewedNanos;
+
+    public NodeIdLease(DataSource dataSource, long leaseMillis) {
+        this.dataSource = dataSource;
+        this.leaseMillis = leaseMillis;
+        this.owner = ownerName();
+    }
+
+    /**
+     * Claim the first node id that is free or whose lease has expired.
+     */
+    public int claim(int maxNodes) {
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS id_node_leases (node_id INT PRIMARY KEY, owner VARCHAR(200) NOT NULL, leased_until TIMESTAMP NOT NULL)");
+            }
+            for (int candidate = 0; candidate < maxNodes; candidate++) {
+                long started = System.nanoTime();
+                if (insertLease(connection, candidate) || takeExpiredLease(connection, candidate)) {
+                    nodeId = candidate;
+                    lastRenewedNanos = started;
+                    logger.info("Leased id generator node id {} for {}", candidate, owner);
+                    return candidate;
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to lease an id generator node id: " + e.getMessage(), e);
+        }
+        throw new IllegalStateException("No free id generator node id, all " + maxNodes + " are leased");
+    }
+
+    /**
+     * Bound the generator by the lease claimed before, ignored when no node id was claimed.
+     */
+    void attach(SnowflakeIdGenerator generator) {
+        if (nodeId < 0) {
+            return;
+        }
+        this.generator = generator;
+        generator.leaseUntil(lastRenewedNanos + TimeUnit.MILLISECONDS.toNanos(leaseMillis));
+    }
+
+    @Scheduled(fixedDelayString = "${app.id.lease-renew-ms:10000}")
+    public void renew() {
+        if (nodeId < 0) {
+            return;
+        }
+        long started = System.nanoTime();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "UPDATE id_node_leases SET leased_until = DATEADD(MILLISECOND, ?, CURRENT_TIMESTAMP) WHERE node_id = ? AND owner = ?")) {
+            statement.setLong(1, leaseMillis);
+            statement.setInt(2, nodeId);
+            statement.setString(3, owner);
+            if (statement.executeUpdate() == 0) {
+                if (generator != null) {
+                    generator.disable("node id " + nodeId + " lease lost");
+                }
+                logger.error("Id generator node id {} lease lost, generator disabled", nodeId);
+                return;
+            }
+            lastRenewedNanos = started;
+            if (generator != null) {
+                generator.leaseUntil(started + TimeUnit.MILLISECONDS.toNanos(leaseMillis));
+            }
+        } catch (SQLException e) {
+            if (isExpired()) {
+                //the generator stopped at its deadline, it resumes with the next successful renewal
+                logger.error("Id generator node id {} lease expired without renewal, no ids until it is renewed, error: {}", nodeId, e.getMessage());
+            } else {
+                //the lease is still valid until it expires, the next renewal may succeed
+                logger.warn("Failed to renew the id generator node id {} lease, error: {}", nodeId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Whether the lease has run out since the last successful renewal, by the local clock.
+     */
+    public boolean isExpired() {
+        return nodeId >= 0 && System.nanoTime() - lastRenewedNanos >= TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+    }
+
+    /**
+     * Release on shutdown, the node id becomes free once the clock is past the ids this instance may have
+     * generated ahead of it.
+     */
+    public void release() {
+        if (nodeId < 0) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "UPDATE id_node_leases SET leased_until = DATEADD(MILLISECOND, ?, CURRENT_TIMESTAMP) WHERE node_id = ? AND owner = ?")) {
+            statement.setLong(1, SnowflakeIdGenerator.MAX_DRIFT_MILLIS);
+            statement.setInt(2, nodeId);
+            statement.setString(3, owner);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            logger.warn("Failed to release the id generator node id {}, it frees up when the lease expires, error: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private boolean insertLease(Connection connection, int candidate) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO id_node_leases (node_id, owner, leased_until) VALUES (?, ?, DATEADD(MILLISECOND, ?, CURRENT_TIMESTAMP))")) {
+            statement.setInt(1, candidate);
+            statement.setString(2, owner);
+            statement.setLong(3, leaseMillis);
+            return statement.executeUpdate() == 1;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            return false;
+        } catch (SQLException e) {
+            //H2 reports duplicate keys with SQL state 23505, not always as the subclass above
+            if ("23505".equals(e.getSQLState())) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private boolean takeExpiredLease(Connection connection, int candidate) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE id_node_leases SET owner = ?, leased_until = DATEADD(MILLISECOND, ?, CURRENT_TIMESTAMP) WHERE node_id = ? AND leased_until < CURRENT_TIMESTAMP")) {
+            statement.setString(1, owner);
+            statement.setLong(2, leaseMillis);
+            statement.setInt(3, candidate);
+            return statement.executeUpdate() == 1;
+        }
+    }
+
+    private static String ownerName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "/" + ProcessHandle.current().pid() + "/" + System.currentTimeMillis();
+    }
+}
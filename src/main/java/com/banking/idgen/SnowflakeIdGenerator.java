@@ -0,0 +1,108 @@
+package com.banking.idgen;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered ids: milliseconds since 2024-01-01 (41 bits) | worker (10 bits) | sequence (12 bits). </br>
+ * The worker is the shard (app.id.shard-bits high bits) and the node id (the remaining bits). The last timestamp
+ * and sequence are packed in one AtomicLong updated by CAS, so callers never block. When the 4096 ids of a
+ * millisecond are used up, or the clock moves back a little, the generator continues on the next millisecond
+ * ahead of the clock, up to {@link #MAX_DRIFT_MILLIS}. </br>
+ * Note: two instances must never run with the same node id, see {@link NodeIdLease}. A leased node id is only used
+ * until the lease deadline, a fixed node id (app.id.node-id) has none.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    public static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    public static final int WORKER_BITS = 10;
+    public static final long MAX_DRIFT_MILLIS = 5000;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final int nodeId;
+    private final int nodeBits;
+    private final int shardBits;
+    //timestamp << SEQUENCE_BITS | sequence of the last id
+    private final AtomicLong state = new AtomicLong();
+    private volatile String disabledReason;
+    //System.nanoTime() deadline of the node id lease, only checked once a lease is attached
+    private volatile boolean leased;
+    private volatile long leaseDeadlineNanos;
+
+    public SnowflakeIdGenerator(int nodeId, int shardBits) {
+        if (shardBits < 0 || shardBits >= WORKER_BITS) {
+            throw new IllegalArgumentException("Shard bits must be between 0 and " + (WORKER_BITS - 1) + ": " + shardBits);
+        }
+        this.nodeBits = WORKER_BITS - shardBits;
+        if (nodeId < 0 || nodeId >= maxNodes(shardBits)) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + (maxNodes(shardBits) - 1) + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.shardBits = shardBits;
+    }
+
+    public static int maxNodes(int shardBits) {
+        return 1 << (WORKER_BITS - shardBits);
+    }
+
+    @Override
+    public long nextId(int shard) {
+        if (disabledReason != null) {
+            throw new IllegalStateException("Id generator disabled: " + disabledReason);
+        }
+        if (leased && System.nanoTime() - leaseDeadlineNanos >= 0) {
+            throw new IllegalStateException("Id generator node id " + nodeId + " lease expired, waiting for its renewal");
+        }
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH;
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = current + 1;
+            } else {
+                next = (lastTimestamp + 1) << SEQUENCE_BITS;
+            }
+            if ((next >>> SEQUENCE_BITS) - now > MAX_DRIFT_MILLIS) {
+                throw new IllegalStateException("Clock moved backwards by more than " + MAX_DRIFT_MILLIS + " ms, refusing to generate ids");
+            }
+            if (state.compareAndSet(current, next)) {
+                long worker = ((long) shard << nodeBits) | nodeId;
+                return ((next >>> SEQUENCE_BITS) << (WORKER_BITS + SEQUENCE_BITS)) | (worker << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    @Override
+    public int shardOf(long id) {
+        return (int) ((id >>> (SEQUENCE_BITS + nodeBits)) & ((1L << shardBits) - 1));
+    }
+
+    @Override
+    public int maxShards() {
+        return 1 << shardBits;
+    }
+
+    /**
+     * Stop handing out ids, e.g. when the node id lease is lost and another instance may take the node id.
+     */
+    public void disable(String reason) {
+        this.disabledReason = reason;
+    }
+
+    /**
+     * Move the lease deadline, called by {@link NodeIdLease} on every successful renewal.
+     */
+    void leaseUntil(long deadlineNanos) {
+        this.leaseDeadlineNanos = deadlineNanos;
+        this.leased = true;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,30 @@
+package com.banking.idgen;
+
+import com.banking.model.Transaction;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Transaction ids as JSON strings, enabled with app.id.json-string. </br>
+ * Snowflake ids are above 2^53, a client that parses JSON numbers as doubles (JavaScript) reads a different id.
+ * Off by default, the id stays a JSON number for the existing clients. Requests are not affected, the id is read-only.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.id.json-string", havingValue = "true")
+public class StringIdJsonConfig {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer stringIdCustomizer() {
+        return builder -> builder.mixIn(Transaction.class, StringIdMixIn.class);
+    }
+
+    abstract static class StringIdMixIn {
+
+        @JsonSerialize(using = ToStringSerializer.class)
+        private Long id;
+    }
+}
@@ -0,0 +1,24 @@
+package com.banking.idgen;
+
+import com.banking.sharding.ShardContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+
+/**
+ * Hibernate side of {@link GeneratedTransactionId}, takes the id from the application id generator.
+ * The shard is the one of the current {@link ShardContext}.
+ */
+public class TransactionIdGenerator implements IdentifierGenerator {
+
+    public TransactionIdGenerator(GeneratedTransactionId config, Member member, CustomIdGeneratorCreationContext context) {
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        Integer shard = ShardContext.current();
+        return IdGenerators.current().nextId(shard != null ? shard : 0);
+    }
+}
@@ -0,0 +1,102 @@
+package com.banking.interceptor;
+
+import com.banking.admission.AdaptiveConcurrencyLimit;
+import com.banking.admission.AdmissionProperties;
+import com.banking.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Admission control in front of the transaction endpoints. </br>
+ * Reads (GET, HEAD) and writes have their own {@link AdaptiveConcurrencyLimit}, sized from the latency of the
+ * requests they admit. A request over the limit waits briefly in a bounded queue, then is shed with 429 and
+ * Retry-After instead of piling up on a Tomcat thread waiting for a DB connection. </br>
+ * Metrics: transaction.admission.limit, .in_flight, .queued (gauges) and transaction.admission.shed (counter),
+ * tagged with class=read|write, the counter also with reason=queue_full|timeout.
+ */
+@Component
+@ConditionalOnProperty(name = "app.admission.enabled", havingValue = "true")
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlInterceptor.class);
+
+    private static final String START_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".start";
+
+    @Autowired
+    private AdmissionProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private AdaptiveConcurrencyLimit readLimit;
+    private AdaptiveConcurrencyLimit writeLimit;
+    private final Map<AdaptiveConcurrencyLimit.Outcome, Counter> readsShed = new EnumMap<>(AdaptiveConcurrencyLimit.Outcome.class);
+    private final Map<AdaptiveConcurrencyLimit.Outcome, Counter> writesShed = new EnumMap<>(AdaptiveConcurrencyLimit.Outcome.class);
+
+    @PostConstruct
+    void init() {
+        readLimit = register("read", new AdaptiveConcurrencyLimit(properties.getReads()), readsShed);
+        writeLimit = register("write", new AdaptiveConcurrencyLimit(properties.getWrites()), writesShed);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        boolean read = isRead(request);
+        AdaptiveConcurrencyLimit limit = read ? readLimit : writeLimit;
+        AdaptiveConcurrencyLimit.Outcome outcome = limit.acquire();
+        if (outcome != AdaptiveConcurrencyLimit.Outcome.ADMITTED) {
+            (read ? readsShed : writesShed).get(outcome).increment();
+            logger.warn("Shedding {} {}, {}, limit {}, in flight {}", request.getMethod(), request.getRequestURI(),
+                    outcome, (int) limit.getLimit(), limit.getInFlight());
+            throw new ServiceOverloadedException("Service is overloaded, retry later", properties.getRetryAfterSeconds());
+        }
+        //the latency of the service, without the time spent in the queue
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start == null) {
+            //shed in preHandle, it holds no permit
+            return;
+        }
+        boolean failed = ex != null || response.getStatus() >= 500;
+        (isRead(request) ? readLimit : writeLimit).release(System.nanoTime() - (Long) start, failed);
+    }
+
+    private AdaptiveConcurrencyLimit register(String requestClass, AdaptiveConcurrencyLimit limit,
+                                              Map<AdaptiveConcurrencyLimit.Outcome, Counter> shed) {
+        Gauge.builder("transaction.admission.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .tag("class", requestClass).register(meterRegistry);
+        Gauge.builder("transaction.admission.in_flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .tag("class", requestClass).register(meterRegistry);
+        Gauge.builder("transaction.admission.queued", limit, AdaptiveConcurrencyLimit::getQueued)
+                .tag("class", requestClass).register(meterRegistry);
+        shed.put(AdaptiveConcurrencyLimit.Outcome.QUEUE_FULL, Counter.builder("transaction.admission.shed")
+                .tag("class", requestClass).tag("reason", "queue_full").register(meterRegistry));
+        shed.put(AdaptiveConcurrencyLimit.Outcome.TIMEOUT, Counter.builder("transaction.admission.shed")
+                .tag("class", requestClass).tag("reason", "timeout").register(meterRegistry));
+        return limit;
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+    }
+}
@@ -0,0 +1,110 @@
+package com.banking.interceptor;
+
+import com.banking.bulkhead.Bulkhead;
+import com.banking.bulkhead.BulkheadContext;
+import com.banking.bulkhead.BulkheadProperties;
+import com.banking.bulkhead.Workload;
+import com.banking.bulkhead.WorkloadBulkhead;
+import com.banking.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Bulkheads between the workloads of the transaction endpoints, declared with {@link Bulkhead} on the handlers. </br>
+ * A request takes a slot of its {@link WorkloadBulkhead} and marks the thread with its workload, so its DB work
+ * runs on the connection pool of the workload. A full bulkhead sheds with 429 and Retry-After: a burst of listings
+ * fills the bulk partition only, creates keep their threads and connections. </br>
+ * Metrics: transaction.bulkhead.active, .waiting, .saturation (gauges) and transaction.bulkhead.rejected (counter),
+ * tagged with workload=read|write|bulk.
+ */
+@Component
+@ConditionalOnProperty(name = "app.bulkhead.enabled", havingValue = "true")
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkheadInterceptor.class);
+
+    private static final String BULKHEAD_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".bulkhead";
+
+    @Autowired
+    private BulkheadProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Workload, WorkloadBulkhead> bulkheads = new EnumMap<>(Workload.class);
+    private final Map<Workload, Counter> rejected = new EnumMap<>(Workload.class);
+
+    @PostConstruct
+    void init() {
+        for (Workload workload : Workload.values()) {
+            WorkloadBulkhead bulkhead = new WorkloadBulkhead(workload, properties.partition(workload));
+            bulkheads.put(workload, bulkhead);
+            Gauge.builder("transaction.bulkhead.active", bulkhead, WorkloadBulkhead::getActive)
+                    .tag("workload", workload.tag()).register(meterRegistry);
+            Gauge.builder("transaction.bulkhead.waiting", bulkhead, WorkloadBulkhead::getWaiting)
+                    .tag("workload", workload.tag()).register(meterRegistry);
+            Gauge.builder("transaction.bulkhead.saturation", bulkhead, WorkloadBulkhead::getSaturation)
+                    .tag("workload", workload.tag()).register(meterRegistry);
+            rejected.put(workload, Counter.builder("transaction.bulkhead.rejected")
+                    .tag("workload", workload.tag()).register(meterRegistry));
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Workload workload = workload(handler);
+        if (workload == null) {
+            return true;
+        }
+        WorkloadBulkhead bulkhead = bulkheads.get(workload);
+        if (!bulkhead.tryAcquire()) {
+            rejected.get(workload).increment();
+            logger.warn("Bulkhead {} full, rejecting {} {}, active {}", workload.tag(), request.getMethod(),
+                    request.getRequestURI(), bulkhead.getActive());
+            throw new ServiceOverloadedException("Service is overloaded, retry later", properties.getRetryAfterSeconds());
+        }
+        request.setAttribute(BULKHEAD_ATTRIBUTE, bulkhead);
+        BulkheadContext.set(workload);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object bulkhead = request.getAttribute(BULKHEAD_ATTRIBUTE);
+        if (bulkhead == null) {
+            //not a bulkhead handler, or rejected in preHandle
+            return;
+        }
+        request.removeAttribute(BULKHEAD_ATTRIBUTE);
+        BulkheadContext.clear();
+        ((WorkloadBulkhead) bulkhead).release();
+    }
+
+    private static Workload workload(Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return null;
+        }
+        Bulkhead bulkhead = handlerMethod.getMethodAnnotation(Bulkhead.class);
+        if (bulkhead == null) {
+            bulkhead = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), Bulkhead.class);
+        }
+        return bulkhead != null ? bulkhead.value() : null;
+    }
+}
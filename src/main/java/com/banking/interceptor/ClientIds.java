@@ -0,0 +1,19 @@
+package com.banking.interceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Identity of the calling client: the X-Client-Id header, or the remote address when the header is missing.
+ */
+public final class ClientIds {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private ClientIds() {
+    }
+
+    public static String of(HttpServletRequest request) {
+        String clientId = request.getHeader(CLIENT_ID_HEADER);
+        return clientId != null && !clientId.isBlank() ? clientId : request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,60 @@
+package com.banking.interceptor;
+
+import com.banking.datasource.ReadYourWritesContext;
+import com.banking.datasource.RoutingDataSourceProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Read-your-writes guard of the read/write split. </br>
+ * After a successful write, the reads of the same client are served by the primary for
+ * app.datasource.routing.read-your-writes-window-ms, longer than the usual replica lag. </br>
+ * The client is the X-Client-Id header, or the remote address when the header is missing (see {@link ClientIds}).
+ */
+@Component
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private RoutingDataSourceProperties properties;
+
+    //bounded, an entry only lives for the window
+    private Cache<String, Boolean> recentWriters;
+
+    @PostConstruct
+    void init() {
+        recentWriters = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(properties.getReadYourWritesWindowMs()))
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (isRead(request) && recentWriters.getIfPresent(ClientIds.of(request)) != null) {
+            ReadYourWritesContext.requirePrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReadYourWritesContext.clear();
+        if (!isRead(request) && ex == null && response.getStatus() < 400) {
+            recentWriters.put(ClientIds.of(request), Boolean.TRUE);
+        }
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+    }
+}
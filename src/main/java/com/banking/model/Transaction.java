@@ -3,6 +3,7 @@ package com.banking.model;
 import com.banking.enums.DebitCredit;
 import com.banking.enums.TransactionStatus;
 import com.banking.enums.TransactionType;
+import com.banking.idgen.GeneratedTransactionId;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
@@ -24,15 +25,17 @@ import io.swagger.v3.oas.annotations.media.Schema;
 @Table(name = "transactions", indexes = {
     @Index(name = "idx_account_timestamp", columnList = "account_number, created_at"),
     @Index(name = "idx_status_timestamp", columnList = "status, created_at"),
+    @Index(name = "idx_updated_at", columnList = "updated_at"),
+    @Index(name = "idx_transfer_ref", columnList = "transfer_ref"),
     @Index(name = "idx_trade_no", columnList = "trade_no", unique = true)
 })
 @Schema(description = "Bank transaction entity")
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedTransactionId
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     @Column(name = "id", nullable = false)
-    @Schema(description = "Transaction ID, auto-generated by system", example = "1", accessMode = Schema.AccessMode.READ_ONLY)
+    @Schema(description = "Transaction ID, generated by the system, roughly ordered by creation time", example = "1", accessMode = Schema.AccessMode.READ_ONLY)
     private Long id;
 
     @NotBlank(message = "Trade number is required")
@@ -115,6 +118,12 @@ public class Transaction {
     @Schema(description = "Transaction description, max 500 characters", example = "Salary transfer")
     private String description;
 
+    @Column(name = "transfer_ref")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Schema(description = "Reference shared by the two legs of a transfer (the trade number of its TRANSFER_OUT leg), empty otherwise",
+            example = "123456789012345654", accessMode = Schema.AccessMode.READ_ONLY)
+    private String transferRef;
+
     public Transaction() {
     }
 
@@ -251,6 +260,14 @@ public class Transaction {
         this.debitCredit = debitCredit;
     }
 
+    public String getTransferRef() {
+        return transferRef;
+    }
+
+    public void setTransferRef(String transferRef) {
+        this.transferRef = transferRef;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -282,6 +299,7 @@ public class Transaction {
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
                 ", description='" + description + '\'' +
+                ", transferRef='" + transferRef + '\'' +
                 '}';
     }
 }
\ No newline at end of file
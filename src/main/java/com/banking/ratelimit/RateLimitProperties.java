@@ -0,0 +1,108 @@
+package com.banking.ratelimit;
+
+import com.banking.enums.TransactionType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Rate limit settings bound from app.rate-limit.* </br>
+ * <pre>
+ * app.rate-limit.enabled=true
+ * app.rate-limit.client.rate-per-second=200
+ * app.rate-limit.account.rate-per-second=5
+ * app.rate-limit.account-types.payment.rate-per-second=20
+ * </pre>
+ * account-types overrides the account limit for one transaction type, each type has its own bucket per account.
+ */
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled;
+    private long maxKeys = 100_000;
+    private long idleExpireSeconds = 600;
+    private Limit client = new Limit(200, 400);
+    private Limit account = new Limit(5, 10);
+    private Map<TransactionType, Limit> accountTypes = new EnumMap<>(TransactionType.class);
+
+    /**
+     * Sustained rate and burst (bucket size) of one key.
+     */
+    public static class Limit {
+        private double ratePerSecond;
+        private int burst;
+
+        public Limit() {
+        }
+
+        Limit(double ratePerSecond, int burst) {
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+
+        public double getRatePerSecond() {
+            return ratePerSecond;
+        }
+
+        public void setRatePerSecond(double ratePerSecond) {
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(long maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public long getIdleExpireSeconds() {
+        return idleExpireSeconds;
+    }
+
+    public void setIdleExpireSeconds(long idleExpireSeconds) {
+        this.idleExpireSeconds = idleExpireSeconds;
+    }
+
+    public Limit getClient() {
+        return client;
+    }
+
+    public void setClient(Limit client) {
+        this.client = client;
+    }
+
+    public Limit getAccount() {
+        return account;
+    }
+
+    public void setAccount(Limit account) {
+        this.account = account;
+    }
+
+    public Map<TransactionType, Limit> getAccountTypes() {
+        return accountTypes;
+    }
+
+    public void setAccountTypes(Map<TransactionType, Limit> accountTypes) {
+        this.accountTypes = accountTypes;
+    }
+}
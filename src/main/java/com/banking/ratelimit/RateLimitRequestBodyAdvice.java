@@ -0,0 +1,52 @@
+package com.banking.ratelimit;
+
+import com.banking.controller.TransactionController;
+import com.banking.dto.TransferRequest;
+import com.banking.enums.TransactionType;
+import com.banking.interceptor.ClientIds;
+import com.banking.model.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Applies the {@link TransactionRateLimiter} to the endpoints of {@link TransactionController} that take a
+ * transaction body (create and updates), as soon as the body is read: the account and the type of the transaction
+ * are only known from the body, and a rejected request never reaches the service. </br>
+ * A transfer counts as one TRANSFER_OUT of the debited account.
+ */
+@ControllerAdvice(assignableTypes = TransactionController.class)
+@ConditionalOnProperty(name = "app.rate-limit.enabled", havingValue = "true")
+public class RateLimitRequestBodyAdvice extends RequestBodyAdviceAdapter {
+
+    @Autowired
+    private TransactionRateLimiter transactionRateLimiter;
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return Transaction.class.equals(targetType) || TransferRequest.class.equals(targetType);
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        String clientId = ClientIds.of(attributes.getRequest());
+        if (body instanceof TransferRequest transfer) {
+            transactionRateLimiter.acquire(clientId, transfer.getAccountNumber(), TransactionType.TRANSFER_OUT);
+        } else {
+            Transaction transaction = (Transaction) body;
+            transactionRateLimiter.acquire(clientId, transaction.getAccountNumber(), transaction.getType());
+        }
+        return body;
+    }
+}
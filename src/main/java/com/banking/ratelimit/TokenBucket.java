@@ -0,0 +1,31 @@
+package com.banking.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. </br>
+ * The bucket is kept as the time at which it would be full again (the GCRA form of a token bucket), so the refill
+ * and the take are one CAS on a single long: a request is allowed when that time is at most burst - 1 intervals
+ * ahead of now, and moves it one interval further. No timer refills the bucket, time does.
+ */
+final class TokenBucket {
+
+    private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Take a token. Returns 0 when allowed, otherwise the nanoseconds until the next token.
+     */
+    long tryAcquire(long nowNanos, long intervalNanos, long burstToleranceNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long base = Math.max(current, nowNanos);
+            long ahead = base - nowNanos;
+            if (ahead > burstToleranceNanos) {
+                return ahead - burstToleranceNanos;
+            }
+            if (fullAt.compareAndSet(current, base + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.banking.ratelimit;
+
+import com.banking.enums.TransactionType;
+import com.banking.exception.RateLimitExceededException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client and per-account rate limits of the transaction writes (create and update). </br>
+ * Every client and every account + transaction type has a {@link TokenBucket}, kept in bounded Caffeine maps:
+ * an idle key expires after app.rate-limit.idle-expire-seconds, and the least used keys are evicted above
+ * app.rate-limit.max-keys (an evicted key restarts with a full bucket). The hot path is one map lookup and one CAS
+ * per bucket, no lock. </br>
+ * Metrics: transaction.rate_limit.rejected (by scope=client|account), transaction.rate_limit.keys.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.enabled", havingValue = "true")
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class TransactionRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionRateLimiter.class);
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, TokenBucket> clientBuckets;
+    private Cache<AccountKey, TokenBucket> accountBuckets;
+
+    private Rate clientRate;
+    private final Map<TransactionType, Rate> accountRates = new EnumMap<>(TransactionType.class);
+
+    private Counter clientRejected;
+    private Counter accountRejected;
+
+    private record AccountKey(String accountNumber, TransactionType type) {
+    }
+
+    /**
+     * A limit in the units of the bucket: nanoseconds per token, and how far ahead a burst may go.
+     */
+    private record Rate(long intervalNanos, long burstToleranceNanos) {
+        static Rate of(RateLimitProperties.Limit limit) {
+            if (limit.getRatePerSecond() <= 0 || limit.getBurst() < 1) {
+                throw new IllegalStateException("Rate limit needs rate-per-second > 0 and burst >= 1");
+            }
+            long interval = (long) (TimeUnit.SECONDS.toNanos(1) / limit.getRatePerSecond());
+            return new Rate(interval, interval * (limit.getBurst() - 1));
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        clientBuckets = newBuckets();
+        accountBuckets = newBuckets();
+        clientRate = Rate.of(properties.getClient());
+        for (TransactionType type : TransactionType.values()) {
+            accountRates.put(type, Rate.of(properties.getAccountTypes().getOrDefault(type, properties.getAccount())));
+        }
+        clientRejected = Counter.builder("transaction.rate_limit.rejected").tag("scope", "client").register(meterRegistry);
+        accountRejected = Counter.builder("transaction.rate_limit.rejected").tag("scope", "account").register(meterRegistry);
+        Gauge.builder("transaction.rate_limit.keys", this, limiter -> limiter.clientBuckets.estimatedSize() + limiter.accountBuckets.estimatedSize())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Take a token from the client bucket, then from the bucket of the account and type of the transaction.
+     * Throws {@link RateLimitExceededException} when one of them is empty.
+     */
+    public void acquire(String clientId, String accountNumber, TransactionType type) {
+        long now = System.nanoTime();
+        long waitNanos = clientBuckets.get(clientId, key -> new TokenBucket())
+                .tryAcquire(now, clientRate.intervalNanos(), clientRate.burstToleranceNanos());
+        if (waitNanos > 0) {
+            clientRejected.increment();
+            logger.warn("Rate limit exceeded by client {}", clientId);
+            throw new RateLimitExceededException("Too many requests from client " + clientId, retryAfterSeconds(waitNanos));
+        }
+        //an invalid body has no account or type, bean validation rejects it next
+        if (accountNumber == null || type == null) {
+            return;
+        }
+        Rate rate = accountRates.get(type);
+        waitNanos = accountBuckets.get(new AccountKey(accountNumber, type), key -> new TokenBucket())
+                .tryAcquire(now, rate.intervalNanos(), rate.burstToleranceNanos());
+        if (waitNanos > 0) {
+            accountRejected.increment();
+            logger.warn("Rate limit exceeded for account {}, type {}, client {}", accountNumber, type, clientId);
+            throw new RateLimitExceededException("Too many " + type.getDescription() + " transactions for account " + accountNumber,
+                    retryAfterSeconds(waitNanos));
+        }
+    }
+
+    private <K> Cache<K, TokenBucket> newBuckets() {
+        return Caffeine.newBuilder()
+                .maximumSize(properties.getMaxKeys())
+                .expireAfterAccess(Duration.ofSeconds(properties.getIdleExpireSeconds()))
+                .build();
+    }
+
+    private static int retryAfterSeconds(long waitNanos) {
+        return (int) Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,95 @@
+package com.banking.readmodel;
+
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.enums.TransactionType;
+import com.banking.model.Transaction;
+import com.banking.storage.compact.CompactEncoding;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Immutable, compact form of a transaction in the read model: trade number, amount, enums and timestamps are
+ * primitives (same encodings as the compact storage mapping), so a row is one small object plus its strings. </br>
+ * Timestamps are nanoseconds of the local date-time read as UTC, which keeps their order.
+ */
+record ReadModelRow(long id, long tradeNo, String accountNumber, String accountName, String payeeAccount,
+                    String payeeName, long amount, String currency, byte status, byte type, byte debitCredit,
+                    long createdAt, long updatedAt, String description, long transferRef) {
+
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    static final long NO_REF = -1L;
+
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final DebitCredit[] DEBIT_CREDITS = DebitCredit.values();
+
+    static ReadModelRow of(Transaction transaction) {
+        return new ReadModelRow(
+                transaction.getId(),
+                CompactEncoding.encodeTradeNo(transaction.getTradeNo()),
+                transaction.getAccountNumber(),
+                transaction.getAccountName(),
+                transaction.getPayeeAccount(),
+                transaction.getPayeeName(),
+                CompactEncoding.encodeAmount(transaction.getAmount()),
+                transaction.getCurrency(),
+                (byte) transaction.getStatus().ordinal(),
+                (byte) transaction.getType().ordinal(),
+                (byte) transaction.getDebitCredit().ordinal(),
+                toNanos(transaction.getCreatedAt()),
+                toNanos(transaction.getUpdatedAt()),
+                transaction.getDescription(),
+                transaction.getTransferRef() == null ? NO_REF : CompactEncoding.encodeTradeNo(transaction.getTransferRef()));
+    }
+
+    TransactionStatus transactionStatus() {
+        return STATUSES[status];
+    }
+
+    /**
+     * Version of the row, a later update has a later updatedAt.
+     */
+    long version() {
+        return updatedAt == NO_TIME ? createdAt : updatedAt;
+    }
+
+    /**
+     * A new detached entity for the response, the row itself is shared between readers.
+     */
+    Transaction toTransaction() {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTradeNo(CompactEncoding.decodeTradeNo(tradeNo));
+        transaction.setAccountNumber(accountNumber);
+        transaction.setAccountName(accountName);
+        transaction.setPayeeAccount(payeeAccount);
+        transaction.setPayeeName(payeeName);
+        transaction.setAmount(CompactEncoding.decodeAmount(amount));
+        transaction.setCurrency(currency);
+        transaction.setStatus(STATUSES[status]);
+        transaction.setType(TYPES[type]);
+        transaction.setDebitCredit(DEBIT_CREDITS[debitCredit]);
+        transaction.setCreatedAt(toDateTime(createdAt));
+        transaction.setUpdatedAt(toDateTime(updatedAt));
+        transaction.setDescription(description);
+        transaction.setTransferRef(transferRef == NO_REF ? null : CompactEncoding.decodeTradeNo(transferRef));
+        return transaction;
+    }
+
+    static long toNanos(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return NO_TIME;
+        }
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano();
+    }
+
+    static LocalDateTime toDateTime(long nanos) {
+        if (nanos == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,216 @@
+package com.banking.readmodel;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshot of the {@link TransactionReadModel} on disk, so a restarted node restores its read model from a file
+ * instead of reading the whole table. </br>
+ * Written every app.read-model.snapshot.interval-ms and at shutdown, to a temporary file moved over the previous
+ * one. Format: magic | version | written at (ms) | since (row time) | max id | row count | rows | CRC32 of all
+ * the bytes before it. At startup the file is memory-mapped, checked (checksum, age) and handed to the read model,
+ * which replays the delta from the DB and validates the result, see {@link TransactionReadModel#rebuild()}. </br>
+ * Note: since is the snapshot start minus app.read-model.snapshot.clock-skew-ms, so changes of transactions that
+ * were still running, and clocks of other instances, are covered by the replay. A snapshot is limited to 2 GB.
+ */
+@Component
+@ConditionalOnExpression("${app.read-model.enabled:false} and ${app.read-model.snapshot.enabled:false} and '${app.storage.engine:jpa}' == 'jpa'")
+public class ReadModelSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadModelSnapshot.class);
+
+    private static final int MAGIC = 0x524D534E;
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8 + 8;
+    private static final int CHECKSUM_SIZE = 8;
+
+    @Autowired
+    private TransactionReadModel transactionReadModel;
+
+    @Value("${app.read-model.snapshot.file:./data/read-model.snapshot}")
+    private String file;
+
+    @Value("${app.read-model.snapshot.max-age-minutes:60}")
+    private long maxAgeMinutes;
+
+    @Value("${app.read-model.snapshot.clock-skew-ms:5000}")
+    private long clockSkewMillis;
+
+    /**
+     * Header of a checked snapshot, rows is the mapped row section.
+     */
+    record Header(long writtenAtMillis, long since, long maxId, long rowCount, ByteBuffer rows) {
+    }
+
+    @Scheduled(initialDelayString = "${app.read-model.snapshot.interval-ms:300000}", fixedDelayString = "${app.read-model.snapshot.interval-ms:300000}")
+    public void scheduledWrite() {
+        write();
+    }
+
+    @PreDestroy
+    public void writeAtShutdown() {
+        write();
+    }
+
+    /**
+     * Write the rows of the model, skipped while it is not ready (a partial model must not be restored).
+     */
+    public synchronized void write() {
+        if (!transactionReadModel.isReady()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long since = ReadModelRow.toNanos(LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(clockSkewMillis)));
+        Path path = Paths.get(file);
+        Path temporary = Paths.get(file + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            AtomicLong maxId = new AtomicLong(Long.MIN_VALUE);
+            AtomicLong rowCount = new AtomicLong();
+            try (OutputStream out = Files.newOutputStream(temporary);
+                 DataOutputStream rows = new DataOutputStream(new BufferedOutputStream(out, 1 << 16))) {
+                //the header is written once the row count and max id are known
+                rows.write(new byte[HEADER_SIZE]);
+                transactionReadModel.forEachRow(row -> {
+                    try {
+                        writeRow(rows, row);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    maxId.accumulateAndGet(row.id(), Math::max);
+                    rowCount.incrementAndGet();
+                });
+                rows.flush();
+            }
+            //header, then the checksum of header and rows read back through a mapping
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                        .putInt(MAGIC).putInt(VERSION).putLong(start).putLong(since).putLong(maxId.get()).putLong(rowCount.get())
+                        .flip();
+                channel.write(header, 0);
+                MappedByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                CRC32 checksum = new CRC32();
+                checksum.update(content);
+                channel.write(ByteBuffer.allocate(CHECKSUM_SIZE).putLong(checksum.getValue()).flip(), channel.size());
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Read model snapshot written to {}, {} rows, {} KB in {} ms",
+                    path, rowCount.get(), Files.size(path) / 1024, System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to write read model snapshot {}, error: {}", path, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Map and check the snapshot file. Empty when there is none, or it is corrupt or too old.
+     */
+    Optional<Header> open() {
+        Path path = Paths.get(file);
+        if (!Files.isReadable(path)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + CHECKSUM_SIZE || size > Integer.MAX_VALUE) {
+                logger.warn("Ignoring read model snapshot {}, unexpected size {}", path, size);
+                return Optional.empty();
+            }
+            //the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size - CHECKSUM_SIZE));
+            if (crc.getValue() != buffer.getLong((int) size - CHECKSUM_SIZE)) {
+                logger.warn("Ignoring read model snapshot {}, checksum mismatch", path);
+                return Optional.empty();
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                logger.warn("Ignoring read model snapshot {}, unknown format", path);
+                return Optional.empty();
+            }
+            Header header = new Header(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong(),
+                    buffer.slice(HEADER_SIZE, (int) size - HEADER_SIZE - CHECKSUM_SIZE));
+            long ageMinutes = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis() - header.writtenAtMillis());
+            if (ageMinutes > maxAgeMinutes) {
+                logger.info("Ignoring read model snapshot {}, written {} minutes ago", path, ageMinutes);
+                return Optional.empty();
+            }
+            return Optional.of(header);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable read model snapshot {}, error: {}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    static ReadModelRow readRow(ByteBuffer buffer) {
+        return new ReadModelRow(buffer.getLong(), buffer.getLong(), readString(buffer), readString(buffer), readString(buffer),
+                readString(buffer), buffer.getLong(), readString(buffer), buffer.get(), buffer.get(), buffer.get(),
+                buffer.getLong(), buffer.getLong(), readString(buffer), buffer.getLong());
+    }
+
+    private static void writeRow(DataOutputStream out, ReadModelRow row) throws IOException {
+        out.writeLong(row.id());
+        out.writeLong(row.tradeNo());
+        writeString(out, row.accountNumber());
+        writeString(out, row.accountName());
+        writeString(out, row.payeeAccount());
+        writeString(out, row.payeeName());
+        out.writeLong(row.amount());
+        writeString(out, row.currency());
+        out.writeByte(row.status());
+        out.writeByte(row.type());
+        out.writeByte(row.debitCredit());
+        out.writeLong(row.createdAt());
+        out.writeLong(row.updatedAt());
+        writeString(out, row.description());
+        out.writeLong(row.transferRef());
+    }
+
+    //int length, a description is not bounded by the 32767 bytes of a short
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
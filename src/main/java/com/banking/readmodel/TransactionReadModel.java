@@ -0,0 +1,475 @@
+package com.banking.readmodel;
+
+import com.banking.cache.invalidation.CacheInvalidationBroadcaster;
+import com.banking.cache.invalidation.InvalidationMessage;
+import com.banking.config.CacheConfig;
+import com.banking.dto.PagedResult;
+import com.banking.enums.TransactionStatus;
+import com.banking.model.Transaction;
+import com.banking.repository.TransactionRepository;
+import com.banking.sharding.ShardContext;
+import com.banking.sharding.ShardRouter;
+import com.banking.storage.compact.CompactEncoding;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * In-memory read model (CQRS) of the live transactions, for the query endpoints: reads are lock-free lookups in
+ * concurrent maps, without JPA, a DB connection or a cache load. </br>
+ * Indexes: id, trade number, creation time (the list endpoint), account + time and status + time, like the
+ * indexes of the transactions table. Rows are kept in the compact {@link ReadModelRow} form. </br>
+ * Maintenance: {@link com.banking.service.impl.TransactionServiceImpl} applies its changes after commit, the
+ * archiver removes archived rows, and changes made by other instances arrive with their cache invalidations and
+ * are reloaded from the DB. A row is only replaced by a newer version (updatedAt), so late callbacks do no harm;
+ * a removed row leaves a versioned tombstone for app.read-model.tombstone-ttl-ms, so a late upsert or peer refresh
+ * does not bring it back.
+ * The model is restored from its {@link ReadModelSnapshot} at startup, or rebuilt from the DB, before the
+ * application accepts traffic. </br>
+ * Note: archived transactions are not in the model, a miss by id or trade number falls back to the service.
+ * Enabled with app.read-model.enabled, for the jpa engine only. Memory grows with the hot table, size the heap for it.
+ */
+@Component
+@ConditionalOnExpression("${app.read-model.enabled:false} and '${app.storage.engine:jpa}' == 'jpa'")
+public class TransactionReadModel implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionReadModel.class);
+
+    //newest first, like the list endpoint
+    private static final Comparator<TimeKey> NEWEST_FIRST = Comparator.comparingLong(TimeKey::createdAt)
+            .thenComparingLong(TimeKey::id).reversed();
+
+    private static final Comparator<AccountKey> BY_ACCOUNT_NEWEST_FIRST = Comparator.comparing(AccountKey::accountNumber)
+            .thenComparing(Comparator.comparingLong(AccountKey::createdAt).thenComparingLong(AccountKey::id).reversed());
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheInvalidationBroadcaster broadcaster;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ObjectProvider<ReadModelSnapshot> readModelSnapshot;
+
+    @Value("${app.read-model.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    @Value("${app.read-model.tombstone-ttl-ms:60000}")
+    private long tombstoneTtlMs;
+
+    private final Map<Long, ReadModelRow> rows = new ConcurrentHashMap<>();
+    private final Map<Long, Long> idsByTradeNo = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<TimeKey> byTime = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+    private final ConcurrentSkipListSet<AccountKey> byAccount = new ConcurrentSkipListSet<>(BY_ACCOUNT_NEWEST_FIRST);
+    private final Map<TransactionStatus, ConcurrentSkipListSet<TimeKey>> byStatus = new EnumMap<>(TransactionStatus.class);
+
+    //removed rows by id, in expiry order for the pruning
+    private final Map<Long, Tombstone> tombstones = new ConcurrentHashMap<>();
+    private final Queue<Tombstone> tombstoneExpiry = new ConcurrentLinkedQueue<>();
+
+    //ids removed while the rebuild runs, the rebuild must not bring them back
+    private final Set<Long> removedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+    private volatile boolean ready;
+
+    private final ExecutorService peerRefresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "read-model-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        for (TransactionStatus status : TransactionStatus.values()) {
+            byStatus.put(status, new ConcurrentSkipListSet<>(NEWEST_FIRST));
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        broadcaster.subscribe(this::refreshFromPeer);
+        Gauge.builder("transaction.read_model.rows", rows, Map::size).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        peerRefresher.shutdownNow();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    /**
+     * Restore the model from the snapshot if there is a valid one, otherwise load all the transactions of the hot
+     * table by id ranges. Changes applied meanwhile are kept.
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        ready = false;
+        rebuilding = true;
+        try {
+            ReadModelSnapshot snapshot = readModelSnapshot.getIfAvailable();
+            Optional<ReadModelSnapshot.Header> header = snapshot != null ? snapshot.open() : Optional.empty();
+            if (header.isPresent() && restore(header.get())) {
+                ready = true;
+                logger.info("Read model restored from snapshot, {} transactions in {} ms", rows.size(), System.currentTimeMillis() - start);
+                return;
+            }
+            long loaded = sumOverShards(() -> loadAfter(Long.MIN_VALUE));
+            ready = true;
+            logger.info("Read model rebuilt, {} transactions loaded in {} ms", loaded, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            //not fatal, the query endpoints keep reading through the service
+            logger.error("Failed to rebuild the read model after {} ms, error: {}", System.currentTimeMillis() - start, e.getMessage(), e);
+        } finally {
+            rebuilding = false;
+            removedDuringRebuild.clear();
+        }
+    }
+
+    /**
+     * Load the snapshot rows, then replay what changed in the DB since: ids above the snapshot max id, and rows
+     * created or updated after its since time (idx_status_timestamp, idx_updated_at). </br>
+     * Deletes and archiving since the snapshot cannot be replayed, they show as a row count different from the DB,
+     * and the snapshot is dropped. A DB behind the snapshot (restored backup) is detected by its max id.
+     */
+    private boolean restore(ReadModelSnapshot.Header header) {
+        long dbMaxId = maxOverShards(() -> Optional.ofNullable(onPrimary(transactionRepository::findMaxId)).orElse(Long.MIN_VALUE));
+        if (dbMaxId < header.maxId()) {
+            logger.warn("Ignoring read model snapshot, max id {} is above the DB max id {}", header.maxId(), dbMaxId);
+            return false;
+        }
+        ByteBuffer buffer = header.rows();
+        try {
+            for (long i = 0; i < header.rowCount(); i++) {
+                load(ReadModelSnapshot.readRow(buffer));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring read model snapshot, failed to read its rows, error: {}", e.getMessage());
+            clear();
+            return false;
+        }
+        LocalDateTime since = ReadModelRow.toDateTime(header.since());
+        long replayed = sumOverShards(() -> {
+            long count = loadAfter(header.maxId());
+            List<Transaction> changed = new ArrayList<>(onPrimary(() -> transactionRepository.findByUpdatedAtAfter(since)));
+            for (TransactionStatus status : TransactionStatus.values()) {
+                changed.addAll(onPrimary(() -> transactionRepository.findByStatusAndCreatedAtAfter(status, since)));
+            }
+            changed.forEach(transaction -> load(ReadModelRow.of(transaction)));
+            return count + changed.size();
+        });
+        long dbCount = sumOverShards(() -> onPrimary(() -> transactionRepository.count()));
+        if (dbCount != rows.size()) {
+            logger.warn("Ignoring read model snapshot, {} rows after replaying {} changes but the DB has {}", rows.size(), replayed, dbCount);
+            clear();
+            return false;
+        }
+        logger.info("Read model snapshot of {} rows validated, {} changes replayed", header.rowCount(), replayed);
+        return true;
+    }
+
+    /**
+     * Load the transactions with an id above the given one, by id ranges, on the current shard.
+     */
+    private long loadAfter(long afterId) {
+        long loaded = 0;
+        long lastId = afterId;
+        while (true) {
+            long fromId = lastId;
+            List<Transaction> chunk = onPrimary(() ->
+                    transactionRepository.findByIdGreaterThanOrderByIdAsc(fromId, PageRequest.of(0, rebuildBatchSize)));
+            chunk.forEach(transaction -> load(ReadModelRow.of(transaction)));
+            loaded += chunk.size();
+            if (chunk.size() < rebuildBatchSize) {
+                return loaded;
+            }
+            lastId = chunk.get(chunk.size() - 1).getId();
+        }
+    }
+
+    //on the primary, a lagging replica would leave rows out
+    private <T> T onPrimary(Supplier<T> query) {
+        return transactionTemplate.execute(status -> query.get());
+    }
+
+    private long sumOverShards(Supplier<Long> action) {
+        if (shardRouter == null) {
+            return action.get();
+        }
+        long sum = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            sum += ShardContext.callOn(shard, action);
+        }
+        return sum;
+    }
+
+    private long maxOverShards(Supplier<Long> action) {
+        if (shardRouter == null) {
+            return action.get();
+        }
+        long max = Long.MIN_VALUE;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            max = Math.max(max, ShardContext.callOn(shard, action));
+        }
+        return max;
+    }
+
+    private void load(ReadModelRow row) {
+        if (!removedDuringRebuild.contains(row.id())) {
+            apply(row);
+        }
+    }
+
+    private void clear() {
+        rows.clear();
+        idsByTradeNo.clear();
+        byTime.clear();
+        byAccount.clear();
+        byStatus.values().forEach(Set::clear);
+    }
+
+    /**
+     * Iterate the rows for the snapshot, weakly consistent with concurrent changes.
+     */
+    void forEachRow(Consumer<ReadModelRow> action) {
+        rows.values().forEach(action);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * After commit, add or replace a created or updated transaction.
+     */
+    public void upsert(Transaction transaction) {
+        ReadModelRow row = ReadModelRow.of(transaction);
+        afterCommit(() -> apply(row));
+    }
+
+    /**
+     * After commit, remove a deleted or archived transaction.
+     */
+    public void remove(Long id) {
+        afterCommit(() -> removeNow(id));
+    }
+
+    public Optional<Transaction> findById(Long id) {
+        return Optional.ofNullable(rows.get(id)).map(ReadModelRow::toTransaction);
+    }
+
+    public Optional<Transaction> findByTradeNo(String tradeNo) {
+        Long id = idsByTradeNo.get(CompactEncoding.encodeTradeNo(tradeNo));
+        return id == null ? Optional.empty() : findById(id);
+    }
+
+    /**
+     * Page of the transactions, newest first, like {@link com.banking.service.TransactionService#getTransactions}.
+     */
+    public PagedResult<Transaction> findPage(int page, int size) {
+        long totalElements = rows.size();
+        List<Transaction> content = collect(byTime.iterator(), (long) page * size, size, key -> true);
+        return new PagedResult<>(content, page, size, totalElements, (int) ((totalElements + size - 1) / size));
+    }
+
+    /**
+     * Transactions of an account created in [from, to], newest first.
+     */
+    public List<Transaction> findByAccount(String accountNumber, LocalDateTime from, LocalDateTime to, int limit) {
+        Iterator<AccountKey> keys = byAccount.subSet(
+                new AccountKey(accountNumber, ReadModelRow.toNanos(to), Long.MAX_VALUE), true,
+                new AccountKey(accountNumber, ReadModelRow.toNanos(from), Long.MIN_VALUE), true).iterator();
+        List<Transaction> result = new ArrayList<>();
+        while (keys.hasNext() && result.size() < limit) {
+            ReadModelRow row = rows.get(keys.next().id());
+            //the index may briefly hold the previous account of an updated row
+            if (row != null && row.accountNumber().equals(accountNumber)) {
+                result.add(row.toTransaction());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Transactions in a status created before the given time, newest first.
+     */
+    public List<Transaction> findByStatus(TransactionStatus status, LocalDateTime createdBefore, int limit) {
+        Iterator<TimeKey> keys = byStatus.get(status)
+                .tailSet(new TimeKey(ReadModelRow.toNanos(createdBefore), Long.MIN_VALUE), false).iterator();
+        return collect(keys, 0, limit, row -> row.transactionStatus() == status);
+    }
+
+    private List<Transaction> collect(Iterator<TimeKey> keys, long skip, int limit, Predicate<ReadModelRow> matches) {
+        List<Transaction> result = new ArrayList<>(limit);
+        long skipped = 0;
+        while (keys.hasNext() && result.size() < limit) {
+            ReadModelRow row = rows.get(keys.next().id());
+            if (row == null || !matches.test(row)) {
+                continue;
+            }
+            if (skipped++ >= skip) {
+                result.add(row.toTransaction());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replace the row unless the model holds a newer version or a tombstone of the same or a newer version, and
+     * move its index entries. </br>
+     * The per-id compute serializes the writers of one transaction, readers are never blocked.
+     */
+    private void apply(ReadModelRow row) {
+        rows.compute(row.id(), (id, existing) -> {
+            if (existing != null && existing.version() > row.version()) {
+                return existing;
+            }
+            Tombstone tombstone = tombstones.get(id);
+            if (tombstone != null && tombstone.version() >= row.version()) {
+                return existing;
+            }
+            if (existing != null) {
+                unindex(existing);
+            }
+            idsByTradeNo.put(row.tradeNo(), row.id());
+            byTime.add(new TimeKey(row.createdAt(), row.id()));
+            byAccount.add(new AccountKey(row.accountNumber(), row.createdAt(), row.id()));
+            byStatus.get(row.transactionStatus()).add(new TimeKey(row.createdAt(), row.id()));
+            return row;
+        });
+    }
+
+    /**
+     * Remove the row and leave a tombstone. Its version is the removal time, or the removed row version if later,
+     * the model may not have seen the row yet.
+     */
+    private void removeNow(Long id) {
+        if (rebuilding) {
+            removedDuringRebuild.add(id);
+        }
+        pruneTombstones();
+        rows.compute(id, (key, existing) -> {
+            long version = ReadModelRow.toNanos(LocalDateTime.now());
+            if (existing != null) {
+                unindex(existing);
+                version = Math.max(version, existing.version());
+            }
+            Tombstone tombstone = new Tombstone(id, version, System.currentTimeMillis() + tombstoneTtlMs);
+            tombstones.put(id, tombstone);
+            tombstoneExpiry.add(tombstone);
+            return null;
+        });
+    }
+
+    //past the redelivery window, no late change of the row is expected
+    private void pruneTombstones() {
+        long now = System.currentTimeMillis();
+        Tombstone head;
+        while ((head = tombstoneExpiry.peek()) != null && head.expiresAt() <= now) {
+            if (tombstoneExpiry.remove(head)) {
+                tombstones.remove(head.id(), head);
+            }
+        }
+    }
+
+    private void unindex(ReadModelRow row) {
+        idsByTradeNo.remove(row.tradeNo(), row.id());
+        byTime.remove(new TimeKey(row.createdAt(), row.id()));
+        byAccount.remove(new AccountKey(row.accountNumber(), row.createdAt(), row.id()));
+        byStatus.get(row.transactionStatus()).remove(new TimeKey(row.createdAt(), row.id()));
+    }
+
+    /**
+     * A peer changed a transaction: reload it from the hot table, off the broadcaster thread.
+     */
+    private void refreshFromPeer(InvalidationMessage message) {
+        if (!CacheConfig.TRANSACTION_BY_ID.equals(message.cacheName()) || !(message.key() instanceof Long id)) {
+            return;
+        }
+        peerRefresher.execute(() -> {
+            try {
+                //on the primary, the peer's change may not have reached a replica yet
+                Optional<Transaction> transaction = shardRouter == null
+                        ? transactionTemplate.execute(status -> transactionRepository.findById(id))
+                        : ShardContext.callOn(shardRouter.shardForId(id),
+                                () -> transactionTemplate.execute(status -> transactionRepository.findById(id)));
+                transaction.ifPresentOrElse(found -> apply(ReadModelRow.of(found)), () -> removeNow(id));
+            } catch (RuntimeException e) {
+                logger.error("Failed to refresh read model for transaction ID {}, error: {}", id, e.getMessage(), e);
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    //the data is committed, the row is corrected by the next change or rebuild
+                    logger.error("Failed to apply change to the read model after commit, error: {}", e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    private record TimeKey(long createdAt, long id) {
+    }
+
+    private record Tombstone(long id, long version, long expiresAt) {
+    }
+
+    private record AccountKey(String accountNumber, long createdAt, long id) {
+    }
+}
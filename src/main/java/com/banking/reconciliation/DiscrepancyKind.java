@@ -0,0 +1,15 @@
+package com.banking.reconciliation;
+
+/**
+ * What did not reconcile in an end-of-day run.
+ */
+public enum DiscrepancyKind {
+    /**
+     * The in-memory balance of an account and currency differs from the sum of its transactions in the DB.
+     */
+    LEDGER_MISMATCH,
+    /**
+     * A transfer of the day has a missing leg, or legs of different amounts.
+     */
+    UNBALANCED_TRANSFER
+}
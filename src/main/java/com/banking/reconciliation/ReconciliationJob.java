@@ -0,0 +1,288 @@
+package com.banking.reconciliation;
+
+import com.banking.balance.AccountBalanceLedger;
+import com.banking.dto.ReconciliationReport;
+import com.banking.enums.DebitCredit;
+import com.banking.repository.AccountBalanceRepository;
+import com.banking.repository.ReconciliationRepository;
+import com.banking.storage.compact.CompactEncoding;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-of-day reconciliation of the transactions of a business date, run by schedule (app.reconciliation.cron, the
+ * previous day) or by POST /reconciliation/{date}. </br>
+ * The accounts are split in app.reconciliation.partitions partitions by account hash, reconciled in parallel on a
+ * fork-join pool of app.reconciliation.parallelism threads: each partition streams its transactions of the day
+ * with a forward-only cursor and sums the debits and credits per account and currency, so a partition only holds
+ * the totals of its accounts, never its rows. The totals are saved to reconciliation_totals. </br>
+ * Checks: the balances of every account moved on the day are compared with the {@link AccountBalanceLedger} when
+ * it is enabled, and the transfers of the day must have both legs, of the same amount. Mismatches are checked once
+ * more at the end of the run, a write committed but not yet applied to the ledger is not a discrepancy. </br>
+ * Note: a run holds up to parallelism DB connections, keep it below the pool size.
+ * For the jpa engine without sharding, like the ledger.
+ */
+@Component
+@ConditionalOnExpression("${app.reconciliation.enabled:false} and '${app.storage.engine:jpa}' == 'jpa' and !${app.sharding.enabled:false}")
+public class ReconciliationJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationJob.class);
+
+    @Autowired
+    private ReconciliationRepository reconciliationRepository;
+
+    @Autowired
+    private AccountBalanceRepository accountBalanceRepository;
+
+    @Autowired
+    private ObjectProvider<AccountBalanceLedger> accountBalanceLedger;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.reconciliation.partitions:16}")
+    private int partitions;
+
+    @Value("${app.reconciliation.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.reconciliation.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${app.reconciliation.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.reconciliation.report-limit:1000}")
+    private int reportLimit;
+
+    private Timer duration;
+    private Counter transactionsScanned;
+    private final Map<DiscrepancyKind, Counter> discrepanciesFound = new EnumMap<>(DiscrepancyKind.class);
+    private final AtomicLong lastDiscrepancies = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        if (partitions < 1 || parallelism < 1) {
+            throw new IllegalStateException("Reconciliation needs at least one partition and one thread");
+        }
+        duration = Timer.builder("transaction.reconciliation.duration").register(meterRegistry);
+        transactionsScanned = Counter.builder("transaction.reconciliation.transactions").register(meterRegistry);
+        for (DiscrepancyKind kind : DiscrepancyKind.values()) {
+            discrepanciesFound.put(kind, Counter.builder("transaction.reconciliation.discrepancies")
+                    .tag("kind", kind.name().toLowerCase()).register(meterRegistry));
+        }
+        Gauge.builder("transaction.reconciliation.last_discrepancies", lastDiscrepancies, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.reconciliation.cron:0 30 0 * * *}")
+    public void reconcileYesterday() {
+        try {
+            reconcile(LocalDate.now().minusDays(1));
+        } catch (Exception e) {
+            logger.error("Scheduled reconciliation failed, error: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reconcile a business date and replace its report. One run at a time, a second caller waits.
+     */
+    public synchronized ReconciliationReport reconcile(LocalDate day) {
+        if (day.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("Cannot reconcile " + day + ", it is in the future");
+        }
+        long start = System.nanoTime();
+        logger.info("Reconciling {}, {} partitions on {} threads", day, partitions, parallelism);
+        reconciliationRepository.startRun(day, partitions);
+
+        Optional<AccountBalanceLedger> ledger = Optional.ofNullable(accountBalanceLedger.getIfAvailable())
+                .filter(AccountBalanceLedger::isReady);
+        if (ledger.isEmpty()) {
+            logger.info("Account balance ledger not available, the balances of {} are not compared", day);
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        PartitionResult result;
+        try {
+            result = pool.invoke(new PartitionTask(day, 0, partitions, ledger.orElse(null)));
+        } finally {
+            pool.shutdown();
+        }
+
+        List<ReconciliationRepository.Discrepancy> discrepancies = new ArrayList<>();
+        ledger.ifPresent(current -> discrepancies.addAll(recheck(current, result.mismatchedAccounts())));
+        discrepancies.addAll(reconciliationRepository.findUnbalancedTransfers(day, DiscrepancyKind.UNBALANCED_TRANSFER.name()));
+        reconciliationRepository.saveDiscrepancies(day, discrepancies);
+        reconciliationRepository.finishRun(day, result.transactions(), result.accounts(), discrepancies.size());
+
+        discrepancies.forEach(discrepancy -> discrepanciesFound.get(DiscrepancyKind.valueOf(discrepancy.kind())).increment());
+        transactionsScanned.increment(result.transactions());
+        lastDiscrepancies.set(discrepancies.size());
+        long elapsed = System.nanoTime() - start;
+        duration.record(elapsed, TimeUnit.NANOSECONDS);
+        logger.info("Reconciled {}: {} transactions, {} accounts, {} discrepancies in {} ms", day, result.transactions(),
+                result.accounts(), discrepancies.size(), elapsed / 1_000_000);
+        return findReport(day).orElseThrow();
+    }
+
+    /**
+     * The report of the last run of a business date.
+     */
+    public Optional<ReconciliationReport> findReport(LocalDate day) {
+        return reconciliationRepository.findRun(day).map(run -> new ReconciliationReport(run.businessDate(), run.startedAt(),
+                run.finishedAt(), run.partitions(), run.transactions(), run.accounts(), run.discrepancies(),
+                reconciliationRepository.findDiscrepancies(day, reportLimit).stream()
+                        .map(discrepancy -> new ReconciliationReport.Discrepancy(discrepancy.kind(), discrepancy.accountNumber(),
+                                discrepancy.currency(), discrepancy.reference(), CompactEncoding.decodeAmount(discrepancy.expected()),
+                                CompactEncoding.decodeAmount(discrepancy.actual())))
+                        .toList()));
+    }
+
+    /**
+     * Reconcile one partition: stream, sum, save the totals and compare the balances of its accounts.
+     */
+    private PartitionResult reconcilePartition(LocalDate day, int partition, AccountBalanceLedger ledger) {
+        long start = System.currentTimeMillis();
+        //account -> currency -> debits, credits, count
+        Map<String, Map<String, long[]>> totals = new HashMap<>();
+        long[] transactions = new long[1];
+        reconciliationRepository.streamDay(day, partition, partitions, fetchSize, posting -> {
+            long[] sums = totals.computeIfAbsent(posting.accountNumber(), key -> new HashMap<>())
+                    .computeIfAbsent(posting.currency(), key -> new long[3]);
+            sums[posting.debitCredit() == DebitCredit.DEBIT ? 0 : 1] += posting.amount();
+            sums[2]++;
+            transactions[0]++;
+        });
+
+        List<ReconciliationRepository.Totals> rows = new ArrayList<>(batchSize);
+        for (Map.Entry<String, Map<String, long[]>> account : totals.entrySet()) {
+            for (Map.Entry<String, long[]> currency : account.getValue().entrySet()) {
+                long[] sums = currency.getValue();
+                rows.add(new ReconciliationRepository.Totals(account.getKey(), currency.getKey(), sums[0], sums[1], sums[2]));
+                if (rows.size() == batchSize) {
+                    reconciliationRepository.saveTotals(day, rows);
+                    rows.clear();
+                }
+            }
+        }
+        reconciliationRepository.saveTotals(day, rows);
+
+        Set<String> mismatched = new HashSet<>();
+        if (ledger != null) {
+            List<String> accounts = new ArrayList<>(totals.keySet());
+            for (int from = 0; from < accounts.size(); from += batchSize) {
+                List<String> batch = accounts.subList(from, Math.min(from + batchSize, accounts.size()));
+                compare(ledger, batch).forEach(discrepancy -> mismatched.add(discrepancy.accountNumber()));
+            }
+        }
+        logger.debug("Reconciled partition {} of {}: {} transactions, {} accounts in {} ms", partition, day, transactions[0],
+                totals.size(), System.currentTimeMillis() - start);
+        return new PartitionResult(transactions[0], totals.size(), mismatched);
+    }
+
+    /**
+     * Compare the balances summed from the DB with the ledger, for a batch of accounts.
+     */
+    private List<ReconciliationRepository.Discrepancy> compare(AccountBalanceLedger ledger, List<String> accounts) {
+        Map<String, Map<String, Long>> expected = new HashMap<>();
+        for (AccountBalanceRepository.Balance balance : accountBalanceRepository.sumByAccounts(accounts)) {
+            expected.computeIfAbsent(balance.accountNumber(), key -> new HashMap<>()).put(balance.currency(), balance.amount());
+        }
+        List<ReconciliationRepository.Discrepancy> discrepancies = new ArrayList<>();
+        for (String accountNumber : accounts) {
+            Optional<Map<String, BigDecimal>> balances = ledger.findBalances(accountNumber);
+            if (balances.isEmpty()) {
+                //the ledger is rebuilding, nothing to compare with
+                continue;
+            }
+            Map<String, BigDecimal> actual = balances.get();
+            Map<String, Long> sums = expected.getOrDefault(accountNumber, Map.of());
+            Set<String> currencies = new HashSet<>(sums.keySet());
+            currencies.addAll(actual.keySet());
+            for (String currency : currencies) {
+                long expectedAmount = sums.getOrDefault(currency, 0L);
+                long actualAmount = actual.containsKey(currency) ? CompactEncoding.encodeAmount(actual.get(currency)) : 0L;
+                if (expectedAmount != actualAmount) {
+                    discrepancies.add(new ReconciliationRepository.Discrepancy(DiscrepancyKind.LEDGER_MISMATCH.name(),
+                            accountNumber, currency, null, expectedAmount, actualAmount));
+                }
+            }
+        }
+        return discrepancies;
+    }
+
+    /**
+     * Compare the mismatched accounts again, the ones still differing are discrepancies.
+     */
+    private List<ReconciliationRepository.Discrepancy> recheck(AccountBalanceLedger ledger, Set<String> mismatchedAccounts) {
+        List<ReconciliationRepository.Discrepancy> discrepancies = new ArrayList<>();
+        List<String> accounts = new ArrayList<>(mismatchedAccounts);
+        for (int from = 0; from < accounts.size(); from += batchSize) {
+            discrepancies.addAll(compare(ledger, accounts.subList(from, Math.min(from + batchSize, accounts.size()))));
+        }
+        return discrepancies;
+    }
+
+    private record PartitionResult(long transactions, long accounts, Set<String> mismatchedAccounts) {
+
+        PartitionResult merge(PartitionResult other) {
+            Set<String> mismatched = new HashSet<>(mismatchedAccounts);
+            mismatched.addAll(other.mismatchedAccounts);
+            return new PartitionResult(transactions + other.transactions, accounts + other.accounts, mismatched);
+        }
+    }
+
+    /**
+     * Partitions [from, to), split in halves until one partition is left.
+     */
+    private class PartitionTask extends RecursiveTask<PartitionResult> {
+
+        private final LocalDate day;
+        private final int from;
+        private final int to;
+        private final AccountBalanceLedger ledger;
+
+        PartitionTask(LocalDate day, int from, int to, AccountBalanceLedger ledger) {
+            this.day = day;
+            this.from = from;
+            this.to = to;
+            this.ledger = ledger;
+        }
+
+        @Override
+        protected PartitionResult compute() {
+            if (to - from == 1) {
+                return reconcilePartition(day, from, ledger);
+            }
+            int middle = (from + to) >>> 1;
+            PartitionTask left = new PartitionTask(day, from, middle, ledger);
+            left.fork();
+            PartitionResult right = new PartitionTask(day, middle, to, ledger).compute();
+            return left.join().merge(right);
+        }
+    }
+}
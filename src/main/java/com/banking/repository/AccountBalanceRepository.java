@@ -0,0 +1,182 @@
+package com.banking.repository;
+
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.storage.compact.CompactEncoding;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Balance queries and the balance checkpoint tables of the account balance ledger. </br>
+ * account_balances holds the balances of the last checkpoint (minor units per account and currency),
+ * account_balance_checkpoint the single row describing the transactions it covers. Both are created at startup
+ * if they do not exist, like the archive table. </br>
+ * Balances sum the transactions of the hot table and of the archive, except FAILED ones: credits minus debits.
+ */
+@Repository
+public class AccountBalanceRepository {
+
+    private static final String BALANCE_COLUMNS = "account_number, currency, debit_credit, amount";
+
+    @Value("${app.storage.compact:false}")
+    private boolean compact;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Sum of the minor units of an account in one currency, signed (credits positive).
+     */
+    public record Balance(String accountNumber, String currency, long amount) {
+    }
+
+    /**
+     * What a checkpoint covers: the row count and max id of the transactions (hot and archive) and the latest
+     * update time of the hot table when it was taken. A DB with the same watermark has the same balances.
+     */
+    public record Watermark(long transactionCount, long maxTransactionId, LocalDateTime maxUpdatedAt) {
+    }
+
+    @PostConstruct
+    void createTables() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS account_balances (
+                    account_number VARCHAR(20) NOT NULL,
+                    currency VARCHAR(3) NOT NULL,
+                    balance BIGINT NOT NULL,
+                    PRIMARY KEY (account_number, currency)
+                )""");
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS account_balance_checkpoint (
+                    id INT PRIMARY KEY,
+                    transaction_count BIGINT NOT NULL,
+                    max_transaction_id BIGINT NOT NULL,
+                    max_updated_at TIMESTAMP,
+                    taken_at TIMESTAMP NOT NULL
+                )""");
+    }
+
+    /**
+     * Balances of all the accounts, one pass over both tables, for the ledger rebuild.
+     */
+    public List<Balance> sumAll() {
+        return sum("");
+    }
+
+    /**
+     * Balances of one account, served by the account_number + created_at indexes.
+     */
+    public List<Balance> sumByAccount(String accountNumber) {
+        Object account = compact ? CompactEncoding.encodeAccountNumber(accountNumber) : accountNumber;
+        return sum(" AND account_number = ?", account);
+    }
+
+    /**
+     * Balances of several accounts in one query, for the reconciliation, keep the list to a few hundred accounts.
+     */
+    public List<Balance> sumByAccounts(Collection<String> accountNumbers) {
+        if (accountNumbers.isEmpty()) {
+            return List.of();
+        }
+        Object[] accounts = accountNumbers.stream()
+                .map(accountNumber -> compact ? CompactEncoding.encodeAccountNumber(accountNumber) : accountNumber)
+                .toArray();
+        return sum(" AND account_number IN (" + String.join(", ", Collections.nCopies(accounts.length, "?")) + ")", accounts);
+    }
+
+    public Watermark currentWatermark() {
+        return jdbcTemplate.queryForObject("""
+                SELECT (SELECT COUNT(*) FROM transactions) + (SELECT COUNT(*) FROM transactions_archive),
+                       GREATEST(COALESCE((SELECT MAX(id) FROM transactions), 0), COALESCE((SELECT MAX(id) FROM transactions_archive), 0)),
+                       (SELECT MAX(updated_at) FROM transactions)""",
+                (resultSet, rowNum) -> new Watermark(resultSet.getLong(1), resultSet.getLong(2),
+                        resultSet.getObject(3, LocalDateTime.class)));
+    }
+
+    /**
+     * Count of the hot table rows above an id, the rows created since a checkpoint.
+     */
+    public long countAfter(long id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE id > ?", Long.class, id);
+    }
+
+    public Optional<Watermark> findCheckpoint() {
+        return jdbcTemplate.query(
+                "SELECT transaction_count, max_transaction_id, max_updated_at FROM account_balance_checkpoint WHERE id = 1",
+                (resultSet, rowNum) -> new Watermark(resultSet.getLong(1), resultSet.getLong(2),
+                        resultSet.getObject(3, LocalDateTime.class))).stream().findFirst();
+    }
+
+    public List<Balance> findCheckpointBalances() {
+        return jdbcTemplate.query("SELECT account_number, currency, balance FROM account_balances",
+                (resultSet, rowNum) -> new Balance(resultSet.getString(1), resultSet.getString(2), resultSet.getLong(3)));
+    }
+
+    /**
+     * Replace the checkpoint, in the caller's transaction.
+     */
+    public void saveCheckpoint(List<Balance> balances, Watermark watermark) {
+        jdbcTemplate.update("DELETE FROM account_balances");
+        List<Object[]> rows = balances.stream()
+                .map(balance -> new Object[]{balance.accountNumber(), balance.currency(), balance.amount()})
+                .toList();
+        jdbcTemplate.batchUpdate("INSERT INTO account_balances (account_number, currency, balance) VALUES (?, ?, ?)", rows);
+        jdbcTemplate.update("DELETE FROM account_balance_checkpoint");
+        jdbcTemplate.update("INSERT INTO account_balance_checkpoint (id, transaction_count, max_transaction_id, max_updated_at, taken_at) "
+                        + "VALUES (1, ?, ?, ?, ?)",
+                watermark.transactionCount(), watermark.maxTransactionId(),
+                watermark.maxUpdatedAt() == null ? null : Timestamp.valueOf(watermark.maxUpdatedAt()),
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private List<Balance> sum(String condition, Object... conditionArguments) {
+        String failed = compact ? TransactionStatus.FAILED.getCode() : TransactionStatus.FAILED.name();
+        List<Object> arguments = new ArrayList<>();
+        for (int table = 0; table < 2; table++) {
+            arguments.add(failed);
+            arguments.addAll(Arrays.asList(conditionArguments));
+        }
+        String sql = "SELECT account_number, currency, debit_credit, SUM(amount) FROM ("
+                + "SELECT " + BALANCE_COLUMNS + " FROM transactions WHERE status <> ?" + condition
+                + " UNION ALL SELECT " + BALANCE_COLUMNS + " FROM transactions_archive WHERE status <> ?" + condition
+                + ") balances GROUP BY account_number, currency, debit_credit";
+        List<Balance> sums = jdbcTemplate.query(sql, this::mapSum, arguments.toArray());
+        //one row per debit/credit side, fold them into one balance per account and currency
+        Map<List<String>, Long> balances = new LinkedHashMap<>();
+        for (Balance sum : sums) {
+            balances.merge(List.of(sum.accountNumber(), sum.currency()), sum.amount(), Long::sum);
+        }
+        return balances.entrySet().stream()
+                .map(entry -> new Balance(entry.getKey().get(0), entry.getKey().get(1), entry.getValue()))
+                .toList();
+    }
+
+    private Balance mapSum(ResultSet resultSet, int rowNum) throws SQLException {
+        String accountNumber = compact
+                ? CompactEncoding.decodeAccountNumber(resultSet.getBigDecimal(1))
+                : resultSet.getString(1);
+        long amount = compact
+                ? resultSet.getLong(4)
+                : CompactEncoding.encodeAmount(resultSet.getBigDecimal(4));
+        DebitCredit debitCredit = compact
+                ? DebitCredit.fromCode(resultSet.getString(3))
+                : DebitCredit.valueOf(resultSet.getString(3));
+        return new Balance(accountNumber, resultSet.getString(2), debitCredit == DebitCredit.DEBIT ? -amount : amount);
+    }
+}
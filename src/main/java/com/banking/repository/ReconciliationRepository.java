@@ -0,0 +1,215 @@
+package com.banking.repository;
+
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.storage.compact.CompactEncoding;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Queries of the end-of-day reconciliation and its report tables. </br>
+ * reconciliation_runs has one row per business date, reconciliation_totals the debit and credit totals of the
+ * day per account and currency (minor units), reconciliation_discrepancies what did not reconcile. They are
+ * created at startup if they do not exist, like the archive table, and a new run of a date replaces its rows. </br>
+ * The day's transactions are read from the hot table and the archive, except FAILED ones, like the balances.
+ */
+@Repository
+public class ReconciliationRepository {
+
+    private static final String POSTING_COLUMNS = "account_number, currency, debit_credit, amount";
+
+    @Value("${app.storage.compact:false}")
+    private boolean compact;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * One transaction of the day, as it counts in the totals: amount in minor units.
+     */
+    public record Posting(String accountNumber, String currency, DebitCredit debitCredit, long amount) {
+    }
+
+    public record Run(LocalDate businessDate, LocalDateTime startedAt, LocalDateTime finishedAt, int partitions,
+                      long transactions, long accounts, long discrepancies) {
+    }
+
+    public record Totals(String accountNumber, String currency, long debitTotal, long creditTotal, long transactionCount) {
+    }
+
+    /**
+     * Expected and actual are minor units, account and currency are null for a transfer, the reference is null for an account.
+     */
+    public record Discrepancy(String kind, String accountNumber, String currency, String reference, long expected, long actual) {
+    }
+
+    @FunctionalInterface
+    public interface PostingHandler {
+        void handle(Posting posting);
+    }
+
+    @PostConstruct
+    void createTables() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS reconciliation_runs (
+                    business_date DATE PRIMARY KEY,
+                    started_at TIMESTAMP NOT NULL,
+                    finished_at TIMESTAMP,
+                    partitions INT NOT NULL,
+                    transactions BIGINT NOT NULL,
+                    accounts BIGINT NOT NULL,
+                    discrepancies BIGINT NOT NULL
+                )""");
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS reconciliation_totals (
+                    business_date DATE NOT NULL,
+                    account_number VARCHAR(20) NOT NULL,
+                    currency VARCHAR(3) NOT NULL,
+                    debit_total BIGINT NOT NULL,
+                    credit_total BIGINT NOT NULL,
+                    transaction_count BIGINT NOT NULL,
+                    PRIMARY KEY (business_date, account_number, currency)
+                )""");
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS reconciliation_discrepancies (
+                    business_date DATE NOT NULL,
+                    kind VARCHAR(32) NOT NULL,
+                    account_number VARCHAR(20),
+                    currency VARCHAR(3),
+                    reference VARCHAR(18),
+                    expected BIGINT NOT NULL,
+                    actual BIGINT NOT NULL
+                )""");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_reconciliation_discrepancies_date ON reconciliation_discrepancies (business_date)");
+    }
+
+    /**
+     * Stream the day's transactions of one account hash partition to the handler, with a forward-only cursor
+     * fetching fetchSize rows at a time, so the partition is never held in memory. </br>
+     * Note: the partition is ORA_HASH of the stored account number, every run of the same partition count
+     * splits the accounts the same way.
+     */
+    public void streamDay(LocalDate day, int partition, int partitions, int fetchSize, PostingHandler handler) {
+        //the bucket count is part of the statement, a partition only binds its number
+        String condition = " WHERE created_at >= ? AND created_at < ? AND status <> ? AND ORA_HASH(account_number, " + (partitions - 1) + ") = ?";
+        String sql = "SELECT " + POSTING_COLUMNS + " FROM transactions" + condition
+                + " UNION ALL SELECT " + POSTING_COLUMNS + " FROM transactions_archive" + condition;
+        Timestamp from = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            int index = 1;
+            for (int table = 0; table < 2; table++) {
+                statement.setTimestamp(index++, from);
+                statement.setTimestamp(index++, to);
+                statement.setString(index++, failed());
+                statement.setInt(index++, partition);
+            }
+            return statement;
+        }, (RowCallbackHandler) resultSet -> handler.handle(mapPosting(resultSet)));
+    }
+
+    /**
+     * Transfers created on the day whose legs do not balance: a missing leg, or legs of different amounts.
+     * Expected is the debited amount, actual the credited one. The legs are in different account partitions, so
+     * this is one grouped query, served by idx_transfer_ref, instead of a partition pass.
+     */
+    public List<Discrepancy> findUnbalancedTransfers(LocalDate day, String kind) {
+        String debit = compact ? DebitCredit.DEBIT.getCode() : DebitCredit.DEBIT.name();
+        String amount = compact ? "amount" : "CAST(amount * 100 AS BIGINT)";
+        String condition = " WHERE transfer_ref IS NOT NULL AND created_at >= ? AND created_at < ?";
+        String sql = "SELECT transfer_ref, debits, credits FROM ("
+                + "SELECT transfer_ref, COUNT(*) legs, "
+                + "SUM(CASE WHEN debit_credit = ? THEN " + amount + " ELSE 0 END) debits, "
+                + "SUM(CASE WHEN debit_credit = ? THEN 0 ELSE " + amount + " END) credits FROM ("
+                + "SELECT transfer_ref, debit_credit, amount FROM transactions" + condition
+                + " UNION ALL SELECT transfer_ref, debit_credit, amount FROM transactions_archive" + condition
+                + ") transfer_legs GROUP BY transfer_ref) transfers WHERE legs <> 2 OR debits <> credits";
+        Timestamp from = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        return jdbcTemplate.query(sql, (resultSet, rowNum) -> new Discrepancy(kind, null, null,
+                        compact ? CompactEncoding.decodeTradeNo(resultSet.getLong(1)) : resultSet.getString(1),
+                        resultSet.getLong(2), resultSet.getLong(3)),
+                debit, debit, from, to, from, to);
+    }
+
+    /**
+     * Replace the report of the date with a new, unfinished run.
+     */
+    public void startRun(LocalDate day, int partitions) {
+        Date date = Date.valueOf(day);
+        jdbcTemplate.update("DELETE FROM reconciliation_totals WHERE business_date = ?", date);
+        jdbcTemplate.update("DELETE FROM reconciliation_discrepancies WHERE business_date = ?", date);
+        jdbcTemplate.update("DELETE FROM reconciliation_runs WHERE business_date = ?", date);
+        jdbcTemplate.update("INSERT INTO reconciliation_runs (business_date, started_at, partitions, transactions, accounts, discrepancies) "
+                + "VALUES (?, ?, ?, 0, 0, 0)", date, Timestamp.valueOf(LocalDateTime.now()), partitions);
+    }
+
+    public void saveTotals(LocalDate day, List<Totals> totals) {
+        Date date = Date.valueOf(day);
+        List<Object[]> rows = totals.stream()
+                .map(row -> new Object[]{date, row.accountNumber(), row.currency(), row.debitTotal(), row.creditTotal(), row.transactionCount()})
+                .toList();
+        jdbcTemplate.batchUpdate("INSERT INTO reconciliation_totals (business_date, account_number, currency, debit_total, credit_total, transaction_count) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    public void saveDiscrepancies(LocalDate day, List<Discrepancy> discrepancies) {
+        Date date = Date.valueOf(day);
+        List<Object[]> rows = discrepancies.stream()
+                .map(row -> new Object[]{date, row.kind(), row.accountNumber(), row.currency(), row.reference(), row.expected(), row.actual()})
+                .toList();
+        jdbcTemplate.batchUpdate("INSERT INTO reconciliation_discrepancies (business_date, kind, account_number, currency, reference, expected, actual) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    public void finishRun(LocalDate day, long transactions, long accounts, long discrepancies) {
+        jdbcTemplate.update("UPDATE reconciliation_runs SET finished_at = ?, transactions = ?, accounts = ?, discrepancies = ? WHERE business_date = ?",
+                Timestamp.valueOf(LocalDateTime.now()), transactions, accounts, discrepancies, Date.valueOf(day));
+    }
+
+    public Optional<Run> findRun(LocalDate day) {
+        return jdbcTemplate.query("SELECT business_date, started_at, finished_at, partitions, transactions, accounts, discrepancies "
+                        + "FROM reconciliation_runs WHERE business_date = ?",
+                (resultSet, rowNum) -> new Run(resultSet.getObject(1, LocalDate.class), resultSet.getObject(2, LocalDateTime.class),
+                        resultSet.getObject(3, LocalDateTime.class), resultSet.getInt(4), resultSet.getLong(5),
+                        resultSet.getLong(6), resultSet.getLong(7)),
+                Date.valueOf(day)).stream().findFirst();
+    }
+
+    public List<Discrepancy> findDiscrepancies(LocalDate day, int limit) {
+        return jdbcTemplate.query("SELECT kind, account_number, currency, reference, expected, actual FROM reconciliation_discrepancies "
+                        + "WHERE business_date = ? LIMIT ?",
+                (resultSet, rowNum) -> new Discrepancy(resultSet.getString(1), resultSet.getString(2), resultSet.getString(3),
+                        resultSet.getString(4), resultSet.getLong(5), resultSet.getLong(6)),
+                Date.valueOf(day), limit);
+    }
+
+    private String failed() {
+        return compact ? TransactionStatus.FAILED.getCode() : TransactionStatus.FAILED.name();
+    }
+
+    private Posting mapPosting(ResultSet resultSet) throws SQLException {
+        if (compact) {
+            return new Posting(CompactEncoding.decodeAccountNumber(resultSet.getBigDecimal(1)), resultSet.getString(2),
+                    DebitCredit.fromCode(resultSet.getString(3)), resultSet.getLong(4));
+        }
+        return new Posting(resultSet.getString(1), resultSet.getString(2),
+                DebitCredit.valueOf(resultSet.getString(3)), CompactEncoding.encodeAmount(resultSet.getBigDecimal(4)));
+    }
+}
@@ -0,0 +1,169 @@
+package com.banking.repository;
+
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.enums.TransactionType;
+import com.banking.model.Transaction;
+import com.banking.storage.compact.CompactEncoding;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cold partition of the transactions: COMPLETED and FAILED transactions moved out of the hot table by the archiver. </br>
+ * The table has the columns of transactions plus archived_at, and is created at startup if it does not exist
+ * (Hibernate only manages the mapped table). Archived transactions are read-only. </br>
+ * With the compact mapping (app.storage.compact) the archive uses the compact column types as well. </br>
+ * Note: keep the column list in line with schema-durable.sql when the transactions table changes.
+ */
+@Repository
+public class TransactionArchiveRepository {
+
+    static final String COLUMNS = "id, trade_no, account_number, account_name, payee_account, payee_name, amount, currency, "
+            + "status, type, debit_credit, created_at, updated_at, description, transfer_ref";
+
+    private final RowMapper<Transaction> rowMapper = this::mapRow;
+
+    @Value("${app.storage.compact:false}")
+    private boolean compact;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @PostConstruct
+    void createTable() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS transactions_archive (
+                    id BIGINT PRIMARY KEY,
+                    trade_no %s NOT NULL,
+                    account_number %s NOT NULL,
+                    account_name VARCHAR(100) NOT NULL,
+                    payee_account %s NOT NULL,
+                    payee_name VARCHAR(100),
+                    amount %s NOT NULL,
+                    currency VARCHAR(3) NOT NULL,
+                    status %s NOT NULL,
+                    type %s NOT NULL,
+                    debit_credit %s NOT NULL,
+                    created_at TIMESTAMP NOT NULL,
+                    updated_at TIMESTAMP,
+                    description VARCHAR(500),
+                    archived_at TIMESTAMP NOT NULL,
+                    transfer_ref %s
+                )""".formatted(compact
+                        ? new Object[]{"BIGINT", "DECIMAL(21, 0)", "DECIMAL(21, 0)", "BIGINT", "VARCHAR(1)", "VARCHAR(3)", "VARCHAR(2)", "BIGINT"}
+                        : new Object[]{"VARCHAR(18)", "VARCHAR(20)", "VARCHAR(20)", "NUMERIC(19, 2)", "VARCHAR(16)", "VARCHAR(32)", "VARCHAR(16)", "VARCHAR(18)"}));
+        //archives created before the transfers
+        jdbcTemplate.execute("ALTER TABLE transactions_archive ADD COLUMN IF NOT EXISTS transfer_ref " + (compact ? "BIGINT" : "VARCHAR(18)"));
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_archive_trade_no ON transactions_archive (trade_no)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_archive_account_timestamp ON transactions_archive (account_number, created_at)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_archive_transfer_ref ON transactions_archive (transfer_ref)");
+    }
+
+    public Optional<Transaction> findById(Long id) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM transactions_archive WHERE id = ?", rowMapper, id)
+                .stream().findFirst();
+    }
+
+    public Optional<Transaction> findByTradeNo(String tradeNo) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM transactions_archive WHERE trade_no = ?", rowMapper,
+                        compact ? CompactEncoding.encodeTradeNo(tradeNo) : tradeNo)
+                .stream().findFirst();
+    }
+
+    /**
+     * Archived legs of a transfer, in id order.
+     */
+    public List<Transaction> findByTransferRef(String transferRef) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM transactions_archive WHERE transfer_ref = ? ORDER BY id", rowMapper,
+                compact ? CompactEncoding.encodeTradeNo(transferRef) : transferRef);
+    }
+
+    public boolean existsById(Long id) {
+        return !jdbcTemplate.queryForList("SELECT id FROM transactions_archive WHERE id = ?", Long.class, id).isEmpty();
+    }
+
+    /**
+     * Ids of the oldest archivable transactions, served by idx_status_timestamp.
+     */
+    public List<Long> findArchivableIds(List<TransactionStatus> statuses, LocalDateTime createdBefore, int limit) {
+        return namedParameterJdbcTemplate.queryForList(
+                "SELECT id FROM transactions WHERE status IN (:statuses) AND created_at < :createdBefore ORDER BY created_at LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("statuses", statuses.stream().map(status -> compact ? status.getCode() : status.name()).toList())
+                        .addValue("createdBefore", Timestamp.valueOf(createdBefore))
+                        .addValue("limit", limit),
+                Long.class);
+    }
+
+    /**
+     * Copy the rows to the archive and delete them from the hot table, in the caller's transaction.
+     * Returns the number of rows moved.
+     */
+    public int moveToArchive(List<Long> ids) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("ids", ids);
+        int copied = namedParameterJdbcTemplate.update(
+                "INSERT INTO transactions_archive (" + COLUMNS + ", archived_at) SELECT " + COLUMNS
+                        + ", CURRENT_TIMESTAMP FROM transactions WHERE id IN (:ids)", parameters);
+        namedParameterJdbcTemplate.update("DELETE FROM transactions WHERE id IN (:ids)", parameters);
+        return copied;
+    }
+
+    private Transaction mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        if (compact) {
+            return mapCompactRow(resultSet);
+        }
+        Transaction transaction = new Transaction();
+        transaction.setId(resultSet.getLong("id"));
+        transaction.setTradeNo(resultSet.getString("trade_no"));
+        transaction.setAccountNumber(resultSet.getString("account_number"));
+        transaction.setAccountName(resultSet.getString("account_name"));
+        transaction.setPayeeAccount(resultSet.getString("payee_account"));
+        transaction.setPayeeName(resultSet.getString("payee_name"));
+        transaction.setAmount(resultSet.getBigDecimal("amount"));
+        transaction.setCurrency(resultSet.getString("currency"));
+        transaction.setStatus(TransactionStatus.valueOf(resultSet.getString("status")));
+        transaction.setType(TransactionType.valueOf(resultSet.getString("type")));
+        transaction.setDebitCredit(DebitCredit.valueOf(resultSet.getString("debit_credit")));
+        transaction.setCreatedAt(resultSet.getObject("created_at", LocalDateTime.class));
+        transaction.setUpdatedAt(resultSet.getObject("updated_at", LocalDateTime.class));
+        transaction.setDescription(resultSet.getString("description"));
+        transaction.setTransferRef(resultSet.getString("transfer_ref"));
+        return transaction;
+    }
+
+    private Transaction mapCompactRow(ResultSet resultSet) throws SQLException {
+        Transaction transaction = new Transaction();
+        transaction.setId(resultSet.getLong("id"));
+        transaction.setTradeNo(CompactEncoding.decodeTradeNo(resultSet.getLong("trade_no")));
+        transaction.setAccountNumber(CompactEncoding.decodeAccountNumber(resultSet.getBigDecimal("account_number")));
+        transaction.setAccountName(resultSet.getString("account_name"));
+        transaction.setPayeeAccount(CompactEncoding.decodeAccountNumber(resultSet.getBigDecimal("payee_account")));
+        transaction.setPayeeName(resultSet.getString("payee_name"));
+        transaction.setAmount(CompactEncoding.decodeAmount(resultSet.getLong("amount")));
+        transaction.setCurrency(resultSet.getString("currency"));
+        transaction.setStatus(TransactionStatus.fromCode(resultSet.getString("status")));
+        transaction.setType(TransactionType.fromCode(resultSet.getString("type")));
+        transaction.setDebitCredit(DebitCredit.fromCode(resultSet.getString("debit_credit")));
+        transaction.setCreatedAt(resultSet.getObject("created_at", LocalDateTime.class));
+        transaction.setUpdatedAt(resultSet.getObject("updated_at", LocalDateTime.class));
+        transaction.setDescription(resultSet.getString("description"));
+        transaction.setTransferRef(CompactEncoding.decodeTradeNo(resultSet.getObject("transfer_ref", Long.class)));
+        return transaction;
+    }
+}
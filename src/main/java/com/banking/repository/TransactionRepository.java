@@ -1,8 +1,17 @@
 package com.banking.repository;
 
+import com.banking.enums.TransactionStatus;
 import com.banking.model.Transaction;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -10,4 +19,31 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     Optional<Transaction> findByTradeNo(String tradeNo);
 
+    //slice instead of page, no count query is needed when walking the latest transactions
+    Slice<Transaction> findAllBy(Pageable pageable);
+
+    //keyset walk over the whole table, used by the read model rebuild
+    List<Transaction> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    //delta replay of the read model snapshot, served by idx_updated_at and idx_status_timestamp
+    List<Transaction> findByUpdatedAtAfter(LocalDateTime since);
+
+    List<Transaction> findByStatusAndCreatedAtAfter(TransactionStatus status, LocalDateTime since);
+
+    //both legs of a transfer, served by idx_transfer_ref
+    List<Transaction> findByTransferRefOrderByIdAsc(String transferRef);
+
+    @Query("select max(t.id) from Transaction t")
+    Long findMaxId();
+
+    //row lock of the update and delete paths: concurrent changes of one row are serialized, each reads the
+    //committed state its balance posting reverses
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Transaction t where t.id = :id")
+    Optional<Transaction> findForUpdateById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Transaction t where t.tradeNo = :tradeNo")
+    Optional<Transaction> findForUpdateByTradeNo(@Param("tradeNo") String tradeNo);
+
 } 
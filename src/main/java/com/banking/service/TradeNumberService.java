@@ -0,0 +1,10 @@
+package com.banking.service;
+
+import java.util.List;
+
+/**
+ * the trade number allocation service interface
+ */
+public interface TradeNumberService {
+    List<String> allocate(int count);
+}
@@ -1,8 +1,11 @@
 package com.banking.service;
 
 import com.banking.dto.PagedResult;
+import com.banking.dto.TransferRequest;
 import com.banking.model.Transaction;
 
+import java.util.List;
+
 /**
  * the transaction service interface
  */
@@ -22,4 +25,14 @@ public interface TransactionService {
     void deleteTransactionByTradeNo(String tradeNo);
 
     PagedResult<Transaction> getTransactions(int page, int size);
+
+    /**
+     * Post both legs of a transfer together, returns the TRANSFER_OUT and the TRANSFER_IN leg.
+     */
+    List<Transaction> createTransfer(TransferRequest transfer);
+
+    /**
+     * Both legs of a transfer by its reference, the trade number of the TRANSFER_OUT leg.
+     */
+    List<Transaction> getTransfer(String transferRef);
 }
\ No newline at end of file
@@ -0,0 +1,216 @@
+package com.banking.service.impl;
+
+import com.banking.dto.PagedResult;
+import com.banking.dto.TransferRequest;
+import com.banking.enums.TransactionStatus;
+import com.banking.exception.TransactionNotFoundException;
+import com.banking.model.Transaction;
+import com.banking.service.TransactionService;
+import com.banking.storage.log.LogStructuredStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transaction service on the append-only log store (app.storage.engine=log), for high-ingest nodes. </br>
+ * Same contract as {@link TransactionServiceImpl}, without JPA: a write is one append to the log, a point read is one
+ * index lookup and one decode from the mapped segment, so the transaction caches are not used. </br>
+ * The legs of a transfer are appended together with consecutive ids, see {@link LogStructuredStore#insertAll}. </br>
+ * Note: there are no database transactions, each call is atomic on its own.
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.engine", havingValue = "log")
+public class LogStructuredTransactionService implements TransactionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogStructuredTransactionService.class);
+
+    @Autowired
+    private LogStructuredStore logStructuredStore;
+
+    @Override
+    public Transaction createTransaction(Transaction transaction) {
+        try {
+            transaction.setStatus(TransactionStatus.PENDING);
+            transaction.setCreatedAt(LocalDateTime.now());
+            transaction.setUpdatedAt(null);
+            Transaction transactionSaved = logStructuredStore.insert(transaction);
+
+            logger.info("Transaction created successfully, id {}, transaction number {}", transactionSaved.getId(), transactionSaved.getTradeNo());
+            return transactionSaved;
+        } catch (Exception e) {
+            logger.error("Failed to create transaction, transaction number {}, error {}: ", transaction.getTradeNo(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Transaction> createTransfer(TransferRequest transfer) {
+        try {
+            transfer.checkLegs();
+            LocalDateTime currentTime = LocalDateTime.now();
+            List<Transaction> legs = List.of(transfer.toOutLeg(), transfer.toInLeg());
+            for (Transaction leg : legs) {
+                leg.setStatus(TransactionStatus.PENDING);
+                leg.setCreatedAt(currentTime);
+            }
+            List<Transaction> legsSaved = logStructuredStore.insertAll(legs);
+
+            logger.info("Transfer created successfully, reference {}, ids {} and {}", transfer.getOutTradeNo(),
+                    legsSaved.get(0).getId(), legsSaved.get(1).getId());
+            return legsSaved;
+        } catch (Exception e) {
+            logger.error("Failed to create transfer, reference {}, error {}: ", transfer.getOutTradeNo(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * The reference is the trade number of the OUT leg, the IN leg has the next id.
+     */
+    @Override
+    public List<Transaction> getTransfer(String transferRef) {
+        logger.info("Getting transfer by reference {}", transferRef);
+        Transaction outLeg = logStructuredStore.findByTradeNo(transferRef)
+                .filter(transaction -> transferRef.equals(transaction.getTransferRef()))
+                .orElseThrow(() -> new TransactionNotFoundException("Transfer not found by reference " + transferRef));
+        Transaction inLeg = logStructuredStore.findById(outLeg.getId() + 1)
+                .filter(transaction -> transferRef.equals(transaction.getTransferRef()))
+                .orElseThrow(() -> new IllegalStateException("Transfer " + transferRef + " has no TRANSFER_IN leg"));
+        return List.of(outLeg, inLeg);
+    }
+
+    @Override
+    public Transaction getTransactionById(Long id) {
+        logger.info("Getting transaction by ID {}", id);
+        return logStructuredStore.findById(id)
+                .orElseThrow(() -> new TransactionNotFoundException("Transaction not found by ID " + id));
+    }
+
+    @Override
+    public Transaction getTransactionByTradeNo(String tradeNo) {
+        logger.info("Getting transaction by trade number {}", tradeNo);
+        return logStructuredStore.findByTradeNo(tradeNo)
+                .orElseThrow(() -> new TransactionNotFoundException("Transaction not found by trade number: " + tradeNo));
+    }
+
+    @Override
+    public Transaction updateTransaction(Long id, Transaction transaction) {
+        try {
+            Transaction existingTransaction = getTransactionById(id);
+            TransactionServiceImpl.checkNotTransferLeg(existingTransaction);
+
+            existingTransaction.setAccountNumber(transaction.getAccountNumber());
+            existingTransaction.setAccountName(transaction.getAccountName());
+            existingTransaction.setPayeeAccount(transaction.getPayeeAccount());
+            existingTransaction.setPayeeName(transaction.getPayeeName());
+            existingTransaction.setAmount(transaction.getAmount());
+            existingTransaction.setCurrency(transaction.getCurrency());
+            existingTransaction.setType(transaction.getType());
+            existingTransaction.setDescription(transaction.getDescription());
+
+            existingTransaction.setUpdatedAt(LocalDateTime.now());
+
+            Transaction updatedTransaction = save(existingTransaction);
+            logger.info("Transaction updated successfully, ID {}, trade number {}", id, updatedTransaction.getTradeNo());
+            return updatedTransaction;
+
+        } catch (Exception e) {
+            logger.error("Failed to update transaction, ID {}, trade number {},  Error: {}", id, transaction.getTradeNo(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Transaction updateTransactionByTradeNo(String tradeNo, Transaction transaction) {
+        logger.info("Updating transaction by trade number {}", tradeNo);
+        try {
+            Transaction existingTransaction = getTransactionByTradeNo(tradeNo);
+            TransactionServiceImpl.checkNotTransferLeg(existingTransaction);
+
+            existingTransaction.setAccountNumber(transaction.getAccountNumber());
+            existingTransaction.setAccountName(transaction.getAccountName());
+            existingTransaction.setPayeeAccount(transaction.getPayeeAccount());
+            existingTransaction.setPayeeName(transaction.getPayeeName());
+            existingTransaction.setAmount(transaction.getAmount());
+            existingTransaction.setCurrency(transaction.getCurrency());
+            existingTransaction.setType(transaction.getType());
+            existingTransaction.setDescription(transaction.getDescription());
+            existingTransaction.setDebitCredit(transaction.getDebitCredit());
+
+            existingTransaction.setUpdatedAt(LocalDateTime.now());
+
+            Transaction updatedTransaction = save(existingTransaction);
+            logger.info("Transaction updated successfully, id {}, trade number {}", updatedTransaction.getId(), tradeNo);
+            return updatedTransaction;
+
+        } catch (Exception e) {
+            logger.error("Failed to update transaction - id {}, trade number {}, Error: {}", transaction.getId(), tradeNo, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void deleteTransaction(Long id) {
+        try {
+            TransactionServiceImpl.checkNotTransferLeg(getTransactionById(id));
+            logStructuredStore.delete(id)
+                    .orElseThrow(() -> new TransactionNotFoundException("Transaction not found by ID " + id));
+            logger.info("Transaction deleted successfully by ID {}", id);
+        } catch (Exception e) {
+            logger.error("Failed to delete transaction by ID {}, error: {}", id, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void deleteTransactionByTradeNo(String tradeNo) {
+        try {
+            Transaction transaction = getTransactionByTradeNo(tradeNo);
+            TransactionServiceImpl.checkNotTransferLeg(transaction);
+            logStructuredStore.delete(transaction.getId())
+                    .orElseThrow(() -> new TransactionNotFoundException("Transaction not found by trade number: " + tradeNo));
+            logger.info("Transaction deleted successfully by trade number {}", tradeNo);
+        } catch (Exception e) {
+            logger.error("Failed to delete transaction by trade number {}, error: {}", tradeNo, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    @Override
+    public PagedResult<Transaction> getTransactions(int page, int size) {
+        logger.info("Getting transaction list - page {}, size {}", page, size);
+
+        try {
+            List<Transaction> content = logStructuredStore.findPage((long) page * size, size);
+            long totalElements = logStructuredStore.count();
+            PagedResult<Transaction> result = new PagedResult<>(
+                    content,
+                    page,
+                    size,
+                    totalElements,
+                    (int) ((totalElements + size - 1) / size)
+            );
+            logger.info("Retrieved {} transactions by page {}, size {}", result.getContent().size(), page, size);
+            return result;
+
+        } catch (Exception e) {
+            logger.error("Failed to get transactions by page {}, size {}, error: {}", page, size, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Append the new version, the transaction may have been deleted since it was read.
+     */
+    private Transaction save(Transaction transaction) {
+        if (!logStructuredStore.update(transaction)) {
+            throw new TransactionNotFoundException("Transaction not found by ID " + transaction.getId());
+        }
+        return transaction;
+    }
+}
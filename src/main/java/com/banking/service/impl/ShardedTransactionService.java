@@ -0,0 +1,188 @@
+package com.banking.service.impl;
+
+import com.banking.dto.PagedResult;
+import com.banking.dto.TransferRequest;
+import com.banking.exception.TransactionNotFoundException;
+import com.banking.model.Transaction;
+import com.banking.service.TransactionService;
+import com.banking.sharding.ShardContext;
+import com.banking.sharding.ShardRouter;
+import com.banking.sharding.ShardingProperties;
+import com.banking.sharding.TradeNoShardIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Sharding layer in front of {@link TransactionServiceImpl} (app.sharding.enabled=true). </br>
+ * Every call runs the JPA service on one shard, chosen by {@link ShardRouter} before the DB transaction starts:
+ * creates by account number, by-id calls by the id, by-trade-number calls through the trade number index. </br>
+ * The list is a scatter-gather: every shard returns its newest (page + 1) * size transactions in parallel, and
+ * the merged list is cut to the requested page. The window is bounded by app.sharding.max-list-window: a deeper page
+ * would make every shard load and send that many rows, it is rejected with 400. </br>
+ * Both legs of a transfer are stored on the shard of the debited account, so they commit together. </br>
+ * Note: an update cannot change the account number to one of another shard, the transaction would not move.
+ * The TRANSFER_IN leg may live on another shard than its account.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardedTransactionService implements TransactionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedTransactionService.class);
+
+    @Autowired
+    @Qualifier("transactionServiceImpl")
+    private TransactionService delegate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TradeNoShardIndex tradeNoShardIndex;
+
+    @Autowired
+    private ShardingProperties shardingProperties;
+
+    @Autowired
+    @Qualifier("shardQueryExecutor")
+    private ExecutorService shardQueryExecutor;
+
+    @Override
+    public Transaction createTransaction(Transaction transaction) {
+        int shard = shardRouter.shardForAccount(transaction.getAccountNumber());
+        tradeNoShardIndex.reserve(transaction.getTradeNo(), shard);
+        try {
+            return ShardContext.callOn(shard, () -> delegate.createTransaction(transaction));
+        } catch (RuntimeException e) {
+            tradeNoShardIndex.remove(transaction.getTradeNo());
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Transaction> createTransfer(TransferRequest transfer) {
+        transfer.checkLegs();
+        int shard = shardRouter.shardForAccount(transfer.getAccountNumber());
+        tradeNoShardIndex.reserve(transfer.getOutTradeNo(), shard);
+        try {
+            tradeNoShardIndex.reserve(transfer.getInTradeNo(), shard);
+        } catch (RuntimeException e) {
+            tradeNoShardIndex.remove(transfer.getOutTradeNo());
+            throw e;
+        }
+        try {
+            return ShardContext.callOn(shard, () -> delegate.createTransfer(transfer));
+        } catch (RuntimeException e) {
+            tradeNoShardIndex.remove(transfer.getOutTradeNo());
+            tradeNoShardIndex.remove(transfer.getInTradeNo());
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransfer(String transferRef) {
+        int shard = shardRouter.shardForTradeNo(transferRef)
+                .orElseThrow(() -> new TransactionNotFoundException("Transfer not found by reference " + transferRef));
+        return ShardContext.callOn(shard, () -> delegate.getTransfer(transferRef));
+    }
+
+    @Override
+    public Transaction getTransactionById(Long id) {
+        return ShardContext.callOn(shardRouter.shardForId(id), () -> delegate.getTransactionById(id));
+    }
+
+    @Override
+    public Transaction getTransactionByTradeNo(String tradeNo) {
+        return ShardContext.callOn(shardOfTradeNo(tradeNo), () -> delegate.getTransactionByTradeNo(tradeNo));
+    }
+
+    @Override
+    public Transaction updateTransaction(Long id, Transaction transaction) {
+        int shard = shardRouter.shardForId(id);
+        checkSameShard(shard, transaction);
+        return ShardContext.callOn(shard, () -> delegate.updateTransaction(id, transaction));
+    }
+
+    @Override
+    public Transaction updateTransactionByTradeNo(String tradeNo, Transaction transaction) {
+        int shard = shardOfTradeNo(tradeNo);
+        checkSameShard(shard, transaction);
+        return ShardContext.callOn(shard, () -> delegate.updateTransactionByTradeNo(tradeNo, transaction));
+    }
+
+    @Override
+    public void deleteTransaction(Long id) {
+        int shard = shardRouter.shardForId(id);
+        Transaction transaction = ShardContext.callOn(shard, () -> delegate.getTransactionById(id));
+        ShardContext.runOn(shard, () -> delegate.deleteTransaction(id));
+        tradeNoShardIndex.remove(transaction.getTradeNo());
+    }
+
+    @Override
+    public void deleteTransactionByTradeNo(String tradeNo) {
+        ShardContext.runOn(shardOfTradeNo(tradeNo), () -> delegate.deleteTransactionByTradeNo(tradeNo));
+        tradeNoShardIndex.remove(tradeNo);
+    }
+
+    @Override
+    public PagedResult<Transaction> getTransactions(int page, int size) {
+        long window = (page + 1L) * size;
+        if (window > shardingProperties.getMaxListWindow()) {
+            throw new IllegalArgumentException("Page " + page + " of size " + size + " is beyond the first "
+                    + shardingProperties.getMaxListWindow() + " transactions that can be listed across the shards");
+        }
+        List<Future<PagedResult<Transaction>>> futures = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            int target = shard;
+            futures.add(shardQueryExecutor.submit(() -> ShardContext.callOn(target, () -> delegate.getTransactions(0, (int) window))));
+        }
+
+        List<Transaction> merged = new ArrayList<>();
+        long totalElements = 0;
+        try {
+            for (Future<PagedResult<Transaction>> future : futures) {
+                PagedResult<Transaction> shardPage = future.get();
+                merged.addAll(shardPage.getContent());
+                totalElements += shardPage.getTotalElements();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while listing the shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Failed to list the shards: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        merged.sort(Comparator.comparing(Transaction::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+        int from = Math.min(page * size, merged.size());
+        List<Transaction> content = new ArrayList<>(merged.subList(from, Math.min(from + size, merged.size())));
+        logger.info("Merged {} transactions from {} shards for page {}, size {}", content.size(), futures.size(), page, size);
+        return new PagedResult<>(content, page, size, totalElements, (int) ((totalElements + size - 1) / size));
+    }
+
+    private int shardOfTradeNo(String tradeNo) {
+        return shardRouter.shardForTradeNo(tradeNo)
+                .orElseThrow(() -> new TransactionNotFoundException("Transaction not found by trade number: " + tradeNo));
+    }
+
+    private void checkSameShard(int shard, Transaction transaction) {
+        if (transaction.getAccountNumber() != null && shardRouter.shardForAccount(transaction.getAccountNumber()) != shard) {
+            throw new IllegalArgumentException("Account number " + transaction.getAccountNumber() + " belongs to another shard, the transaction cannot be moved");
+        }
+    }
+}
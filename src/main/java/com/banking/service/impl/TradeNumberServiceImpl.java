@@ -0,0 +1,89 @@
+package com.banking.service.impl;
+
+import com.banking.idgen.DatabaseSequence;
+import com.banking.idgen.HiLoIdGenerator;
+import com.banking.service.TradeNumberService;
+import com.banking.storage.log.LogStructuredStore;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out unique 18-digit trade numbers, so clients no longer have to invent them. </br>
+ * Format: the prefix digit app.trade-no.prefix followed by a 17-digit counter. The counter comes in blocks of
+ * app.trade-no.block-size from the trade_no_blocks sequence, and is handed out from the block with one atomic
+ * increment, so instances never share a number and allocation does not lock. After a restart the sequence
+ * continues above the trade numbers already stored (the unused rest of a block is skipped). </br>
+ * With the log engine the transactions are not in the database, a new sequence starts above the highest trade
+ * number of the log instead. </br>
+ * Note: numbers chosen by clients must not start with the prefix digit, they could collide with allocated ones.
+ */
+@Service
+public class TradeNumberServiceImpl implements TradeNumberService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeNumberServiceImpl.class);
+
+    private static final long MAX_COUNTER = 99_999_999_999_999_999L;
+
+    @Value("${app.trade-no.prefix:9}")
+    private int prefix;
+
+    @Value("${app.trade-no.block-size:10000}")
+    private int blockSize;
+
+    @Value("${app.storage.compact:false}")
+    private boolean compact;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectProvider<LogStructuredStore> logStructuredStore;
+
+    private HiLoIdGenerator counter;
+
+    @PostConstruct
+    void init() {
+        if (prefix < 1 || prefix > 9) {
+            throw new IllegalStateException("app.trade-no.prefix must be a digit from 1 to 9: " + prefix);
+        }
+        DatabaseSequence blocks = new DatabaseSequence(dataSource, "trade_no_blocks");
+        String floor = prefix + "00000000000000000";
+        String ceiling = prefix + "99999999999999999";
+        LogStructuredStore store = logStructuredStore.getIfAvailable();
+        if (store != null) {
+            //the database may be in memory, the log is what survives a restart
+            long highest = store.maxTradeNo(Long.parseLong(floor), Long.parseLong(ceiling));
+            blocks.create("SELECT " + ((highest < 0 ? 0 : highest - Long.parseLong(floor)) / blockSize + 1));
+        } else {
+            //trade_no is a BIGINT with the compact mapping
+            String quote = compact ? "" : "'";
+            blocks.create("SELECT (COALESCE(MAX(CAST(trade_no AS BIGINT)), " + floor + ") - " + floor + ") / " + blockSize
+                    + " + 1 FROM transactions WHERE trade_no BETWEEN " + quote + floor + quote + " AND " + quote + ceiling + quote);
+        }
+        counter = new HiLoIdGenerator(blocks::next, blockSize, 0);
+        logger.info("Trade number allocation initialized, prefix {}, block size {}", prefix, blockSize);
+    }
+
+    @Override
+    public List<String> allocate(int count) {
+        List<String> tradeNumbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long value = counter.nextId(0);
+            if (value > MAX_COUNTER) {
+                throw new IllegalStateException("Trade number range of prefix " + prefix + " is exhausted");
+            }
+            tradeNumbers.add(prefix + String.format("%017d", value));
+        }
+        logger.info("Allocated {} trade numbers, from {}", count, tradeNumbers.isEmpty() ? null : tradeNumbers.get(0));
+        return tradeNumbers;
+    }
+}
@@ -1,16 +1,23 @@
 package com.banking.service.impl;
 
+import com.banking.balance.AccountBalanceLedger;
+import com.banking.balance.Posting;
+import com.banking.cache.TransactionCaches;
+import com.banking.cache.TransactionLoader;
 import com.banking.dto.PagedResult;
+import com.banking.dto.TransferRequest;
 import com.banking.enums.TransactionStatus;
 import com.banking.exception.TransactionNotFoundException;
 import com.banking.model.Transaction;
+import com.banking.readmodel.TransactionReadModel;
+import com.banking.repository.TransactionArchiveRepository;
 import com.banking.repository.TransactionRepository;
 import com.banking.service.TransactionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -20,15 +27,27 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Transaction service implementation with optimized caching strategy
  * Cache strategy for banking transactions:
- * - Short TTL for data consistency
+ * - Cache maintenance runs after commit (write-through on create and update, eviction on delete), so the TTLs can be long
  * - Precise cache eviction to avoid unnecessary cache clearing
  * - No caching for frequently changing data (pagination)
+ * - Short-lived negative caching for not-found keys, evicted when the transaction is created
+ * - Misses load through {@link TransactionLoader}: negative cache, optional off-heap tier, then one DB load per key (single-flight)
+ * - Evictions go through {@link TransactionCaches}, which also invalidates the caches of the other instances
+ * - Old COMPLETED and FAILED transactions are moved to the archive table, reads fall back to it
+ * - Reads are read-only transactions, served by a replica when the read/write split is enabled
+ * - Changes are applied to the {@link TransactionReadModel} after commit when it is enabled
+ * - Balance effects are applied to the {@link AccountBalanceLedger} after commit when it is enabled
+ * - Both legs of a transfer are inserted in one batch and one commit, and cannot be modified on their own
+ * Default storage engine (app.storage.engine=jpa), see {@link LogStructuredTransactionService} for the log engine
  */
 @Service
+@ConditionalOnProperty(name = "app.storage.engine", havingValue = "jpa", matchIfMissing = true)
 @Transactional
 public class TransactionServiceImpl implements TransactionService {
 
@@ -38,7 +57,19 @@ public class TransactionServiceImpl implements TransactionService {
     private TransactionRepository transactionRepository;
 
     @Autowired
-    private CacheManager cacheManager;
+    private TransactionArchiveRepository transactionArchiveRepository;
+
+    @Autowired
+    private TransactionCaches transactionCaches;
+
+    @Autowired
+    private TransactionLoader transactionLoader;
+
+    @Autowired
+    private ObjectProvider<TransactionReadModel> transactionReadModel;
+
+    @Autowired
+    private ObjectProvider<AccountBalanceLedger> accountBalanceLedger;
 
     @Override
     @Transactional
@@ -49,6 +80,13 @@ public class TransactionServiceImpl implements TransactionService {
             transaction.setCreatedAt(currentTime);
             transaction.setUpdatedAt(null);
             Transaction transactionSaved = transactionRepository.save(transaction);
+
+            //the keys may have been probed before they existed, clear the negative cache
+            transactionCaches.forgetMissing(transactionSaved.getId(), transactionSaved.getTradeNo());
+            transactionCaches.put(transactionSaved);
+            transactionReadModel.ifAvailable(readModel -> readModel.upsert(transactionSaved));
+            accountBalanceLedger.ifAvailable(ledger -> ledger.record(null, Posting.of(transactionSaved)));
+
             logger.info("Transaction created successfully, id {}, transaction number {}", transactionSaved.getId(), transactionSaved.getTradeNo());
             return transactionSaved;
         } catch (Exception e) {
@@ -58,27 +96,76 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
+    @Transactional
+    public List<Transaction> createTransfer(TransferRequest transfer) {
+        try {
+            transfer.checkLegs();
+            LocalDateTime currentTime = LocalDateTime.now();
+            List<Transaction> legs = List.of(transfer.toOutLeg(), transfer.toInLeg());
+            for (Transaction leg : legs) {
+                leg.setStatus(TransactionStatus.PENDING);
+                leg.setCreatedAt(currentTime);
+            }
+            //one JDBC batch (hibernate.jdbc.batch_size), flushed on commit
+            List<Transaction> legsSaved = transactionRepository.saveAll(legs);
+
+            for (Transaction legSaved : legsSaved) {
+                transactionCaches.forgetMissing(legSaved.getId(), legSaved.getTradeNo());
+                transactionCaches.put(legSaved);
+                transactionReadModel.ifAvailable(readModel -> readModel.upsert(legSaved));
+                accountBalanceLedger.ifAvailable(ledger -> ledger.record(null, Posting.of(legSaved)));
+            }
+
+            logger.info("Transfer created successfully, reference {}, ids {} and {}", transfer.getOutTradeNo(),
+                    legsSaved.get(0).getId(), legsSaved.get(1).getId());
+            return legsSaved;
+        } catch (Exception e) {
+            logger.error("Failed to create transfer, reference {}, error {}: ", transfer.getOutTradeNo(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Transaction> getTransfer(String transferRef) {
+        logger.info("Getting transfer by reference {}", transferRef);
+        List<Transaction> legs = new ArrayList<>(transactionRepository.findByTransferRefOrderByIdAsc(transferRef));
+        if (legs.size() < 2) {
+            //the archiver moves the legs on their own, one of them may already be archived
+            legs.addAll(transactionArchiveRepository.findByTransferRef(transferRef));
+            legs.sort((first, second) -> Long.compare(first.getId(), second.getId()));
+        }
+        if (legs.isEmpty()) {
+            throw new TransactionNotFoundException("Transfer not found by reference " + transferRef);
+        }
+        return legs;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     @Cacheable(value = "transaction-by-id", key = "#id", unless = "#result == null")
     public Transaction getTransactionById(Long id) {
         logger.info("Getting transaction by ID {}", id);
-        return transactionRepository.findById(id)
+        return transactionLoader.loadById(id)
                 .orElseThrow(() -> new TransactionNotFoundException("Transaction not found by ID " + id));
     }
 
     @Override
+    @Transactional(readOnly = true)
     @Cacheable(value = "transaction-by-tradeno", key = "#tradeNo", unless = "#result == null")
     public Transaction getTransactionByTradeNo(String tradeNo) {
         logger.info("Getting transaction by trade number {}", tradeNo);
-        return transactionRepository.findByTradeNo(tradeNo)
+        return transactionLoader.loadByTradeNo(tradeNo)
                 .orElseThrow(() -> new TransactionNotFoundException("Transaction not found by trade number: " + tradeNo));
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "transaction-by-id", key = "#id")
     public Transaction updateTransaction(Long id, Transaction transaction) {
         try {
-            Transaction existingTransaction = getTransactionById(id);
+            Transaction existingTransaction = findExistingById(id);
+            checkNotTransferLeg(existingTransaction);
+            Posting before = Posting.of(existingTransaction);
 
             existingTransaction.setAccountNumber(transaction.getAccountNumber());
             existingTransaction.setAccountName(transaction.getAccountName());
@@ -93,11 +180,10 @@ public class TransactionServiceImpl implements TransactionService {
 
             Transaction updatedTransaction = transactionRepository.save(existingTransaction);
 
-            //clear cache
-            String tradeNoToEvict = existingTransaction.getTradeNo();
-            if (cacheManager != null && cacheManager.getCache("transaction-by-tradeno") != null) {
-                cacheManager.getCache("transaction-by-tradeno").evict(tradeNoToEvict);
-            }
+            //refresh cache by id and trade number
+            transactionCaches.put(updatedTransaction);
+            transactionReadModel.ifAvailable(readModel -> readModel.upsert(updatedTransaction));
+            accountBalanceLedger.ifAvailable(ledger -> ledger.record(before, Posting.of(updatedTransaction)));
 
             logger.info("Transaction updated successfully, ID {}, trade number {}", id, updatedTransaction.getTradeNo());
             return updatedTransaction;
@@ -110,11 +196,12 @@ public class TransactionServiceImpl implements TransactionService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "transaction-by-tradeno", key = "#tradeNo")
     public Transaction updateTransactionByTradeNo(String tradeNo, Transaction transaction) {
         logger.info("Updating transaction by trade number {}", tradeNo);
         try {
-            Transaction existingTransaction = getTransactionByTradeNo(tradeNo);
+            Transaction existingTransaction = findExistingByTradeNo(tradeNo);
+            checkNotTransferLeg(existingTransaction);
+            Posting before = Posting.of(existingTransaction);
 
             existingTransaction.setAccountNumber(transaction.getAccountNumber());
             existingTransaction.setAccountName(transaction.getAccountName());
@@ -130,11 +217,10 @@ public class TransactionServiceImpl implements TransactionService {
 
             Transaction updatedTransaction = transactionRepository.save(existingTransaction);
 
-            //should also clear cache for id
-            Long idToEvict = existingTransaction.getId();
-            if (cacheManager != null && cacheManager.getCache("transaction-by-id") != null) {
-                cacheManager.getCache("transaction-by-id").evict(idToEvict);
-            }
+            //refresh cache by id and trade number
+            transactionCaches.put(updatedTransaction);
+            transactionReadModel.ifAvailable(readModel -> readModel.upsert(updatedTransaction));
+            accountBalanceLedger.ifAvailable(ledger -> ledger.record(before, Posting.of(updatedTransaction)));
 
             logger.info("Transaction updated successfully, id {}, trade number {}", updatedTransaction.getId(), tradeNo);
             return updatedTransaction;
@@ -147,17 +233,16 @@ public class TransactionServiceImpl implements TransactionService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "transaction-by-id", key = "#id")
     public void deleteTransaction(Long id) {
         try {
-            Transaction transaction = getTransactionById(id);
+            Transaction transaction = findExistingById(id);
+            checkNotTransferLeg(transaction);
             transactionRepository.delete(transaction);
 
-            //should also clear cache for TradeNo
-            String tradeNo = transaction.getTradeNo();
-            if (cacheManager != null && cacheManager.getCache("transaction-by-tradeno") != null) {
-                cacheManager.getCache("transaction-by-tradeno").evict(tradeNo);
-            }
+            //clear cache by id and trade number
+            transactionCaches.evict(id, transaction.getTradeNo());
+            transactionReadModel.ifAvailable(readModel -> readModel.remove(id));
+            accountBalanceLedger.ifAvailable(ledger -> ledger.record(Posting.of(transaction), null));
 
             logger.info("Transaction deleted successfully by ID {}", id);
         } catch (Exception e) {
@@ -168,18 +253,18 @@ public class TransactionServiceImpl implements TransactionService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "transaction-by-tradeno", key = "#tradeNo")
     public void deleteTransactionByTradeNo(String tradeNo) {
         try {
-            Transaction transaction = getTransactionByTradeNo(tradeNo);
+            Transaction transaction = findExistingByTradeNo(tradeNo);
+            checkNotTransferLeg(transaction);
             Long id = transaction.getId();
 
             transactionRepository.delete(transaction);
 
-            //should also clear cache for id
-            if (cacheManager != null && cacheManager.getCache("transaction-by-id") != null) {
-                cacheManager.getCache("transaction-by-id").evict(id);
-            }
+            //clear cache by id and trade number
+            transactionCaches.evict(id, tradeNo);
+            transactionReadModel.ifAvailable(readModel -> readModel.remove(id));
+            accountBalanceLedger.ifAvailable(ledger -> ledger.record(Posting.of(transaction), null));
 
             logger.info("Transaction deleted successfully by trade number {}", tradeNo);
         } catch (Exception e) {
@@ -189,6 +274,7 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PagedResult<Transaction> getTransactions(int page, int size) {
         logger.info("Getting transaction list - page {}, size {}", page, size);
 
@@ -210,4 +296,38 @@ public class TransactionServiceImpl implements TransactionService {
             throw e;
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Load the entity to modify in the current persistence context. </br>
+     * Note: not coalesced on purpose, a single-flight result may be an instance loaded by another request.
+     * Archived transactions are read-only. The row is locked until the end of the transaction, concurrent
+     * changes of one transaction are serialized.
+     */
+    private Transaction findExistingById(Long id) {
+        return transactionRepository.findForUpdateById(id).orElseThrow(() -> {
+            if (transactionArchiveRepository.existsById(id)) {
+                return new IllegalArgumentException("Transaction ID " + id + " is archived and can no longer be modified");
+            }
+            return new TransactionNotFoundException("Transaction not found by ID " + id);
+        });
+    }
+
+    private Transaction findExistingByTradeNo(String tradeNo) {
+        return transactionRepository.findForUpdateByTradeNo(tradeNo).orElseThrow(() -> {
+            if (transactionArchiveRepository.findByTradeNo(tradeNo).isPresent()) {
+                return new IllegalArgumentException("Transaction " + tradeNo + " is archived and can no longer be modified");
+            }
+            return new TransactionNotFoundException("Transaction not found by trade number: " + tradeNo);
+        });
+    }
+
+    /**
+     * The legs of a transfer are posted and kept together, changing or removing one would unbalance the transfer.
+     */
+    static void checkNotTransferLeg(Transaction transaction) {
+        if (transaction.getTransferRef() != null) {
+            throw new IllegalArgumentException("Transaction " + transaction.getTradeNo() + " is a leg of transfer "
+                    + transaction.getTransferRef() + " and cannot be modified on its own");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.banking.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.List;
+
+/**
+ * The connection pools of the shards, by shard index.
+ */
+public class ShardDataSources {
+
+    private final List<HikariDataSource> pools;
+
+    public ShardDataSources(List<HikariDataSource> pools) {
+        this.pools = List.copyOf(pools);
+    }
+
+    public HikariDataSource get(int shard) {
+        return pools.get(shard);
+    }
+
+    public int size() {
+        return pools.size();
+    }
+
+    public List<HikariDataSource> all() {
+        return pools;
+    }
+
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,50 @@
+package com.banking.sharding;
+
+import com.banking.idgen.IdGenerator;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Shard of a transaction: the account number hash for creates and account queries, the id for by-id access
+ * (the shard bits of the id, see {@link IdGenerator}) and the {@link TradeNoShardIndex} for trade numbers.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardRouter {
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    @Autowired
+    private TradeNoShardIndex tradeNoShardIndex;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @PostConstruct
+    void checkShardBits() {
+        if (shardCount() > idGenerator.maxShards()) {
+            throw new IllegalStateException(shardCount() + " shards configured, app.id.shard-bits only encodes " + idGenerator.maxShards());
+        }
+    }
+
+    public int shardCount() {
+        return shardDataSources.size();
+    }
+
+    public int shardForAccount(String accountNumber) {
+        return Math.floorMod(accountNumber.hashCode(), shardCount());
+    }
+
+    public int shardForId(long id) {
+        return idGenerator.shardOf(id);
+    }
+
+    public Optional<Integer> shardForTradeNo(String tradeNo) {
+        return tradeNoShardIndex.find(tradeNo);
+    }
+}
@@ -0,0 +1,18 @@
+package com.banking.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Routes connections to the shard of the {@link ShardContext}, or to the directory shard (0) when none is set,
+ * e.g. for the schema management and the trade number index.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final int DIRECTORY_SHARD = 0;
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardContext.current();
+        return shard != null ? shard : DIRECTORY_SHARD;
+    }
+}
@@ -0,0 +1,72 @@
+package com.banking.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prepares the shards once all beans are created, so the tables of the directory shard exist (Hibernate schema,
+ * archive table): copies the schema of app.sharding.schema-tables from the directory shard to the shards that
+ * do not have it yet.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardSchemaInitializer implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardSchemaInitializer.class);
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    @Autowired
+    private ShardingProperties properties;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            List<String> schema = scriptSchema(shardDataSources.get(ShardRoutingDataSource.DIRECTORY_SHARD));
+            for (int shard = 1; shard < shardDataSources.size(); shard++) {
+                try (Connection connection = shardDataSources.get(shard).getConnection();
+                     Statement statement = connection.createStatement()) {
+                    if (!hasTransactionsTable(connection)) {
+                        for (String sql : schema) {
+                            statement.execute(sql);
+                        }
+                        logger.info("Schema copied to shard {}", shard);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to prepare the shards: " + e.getMessage(), e);
+        }
+    }
+
+    private List<String> scriptSchema(HikariDataSource directory) throws SQLException {
+        List<String> statements = new ArrayList<>();
+        try (Connection connection = directory.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SCRIPT NODATA TABLE " + String.join(", ", properties.getSchemaTables()))) {
+            while (resultSet.next()) {
+                statements.add(resultSet.getString(1));
+            }
+        }
+        return statements;
+    }
+
+    private static boolean hasTransactionsTable(Connection connection) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(null, null, "TRANSACTIONS", null)) {
+            return tables.next();
+        }
+    }
+}
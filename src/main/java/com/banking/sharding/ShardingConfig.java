@@ -0,0 +1,73 @@
+package com.banking.sharding;
+
+import com.banking.datasource.RoutingDataSourceProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Account-number sharding, replaces the auto-configured DataSource when app.sharding.enabled=true. </br>
+ * JPA and JdbcTemplate see one {@link ShardRoutingDataSource} over a pool per shard, the {@link ShardContext}
+ * set by the sharded service decides which shard a DB transaction runs on. </br>
+ * Note: not combined with the read/write split (app.datasource.routing), each shard would need its own replicas.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Autowired
+    private ShardingProperties properties;
+
+    @Bean(destroyMethod = "close")
+    public ShardDataSources shardDataSources() {
+        List<HikariDataSource> pools = new ArrayList<>();
+        List<RoutingDataSourceProperties.Node> shards = properties.getShards();
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("app.sharding.enabled is set but no app.sharding.shards are configured");
+        }
+        for (int i = 0; i < shards.size(); i++) {
+            RoutingDataSourceProperties.Node node = shards.get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + i);
+            dataSource.setJdbcUrl(node.getUrl());
+            dataSource.setUsername(node.getUsername());
+            dataSource.setPassword(node.getPassword());
+            dataSource.setMaximumPoolSize(node.getMaximumPoolSize());
+            pools.add(dataSource);
+        }
+        return new ShardDataSources(pools);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shardDataSources) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shardDataSources.size(); i++) {
+            targets.put(i, shardDataSources.get(i));
+        }
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(shardDataSources.get(ShardRoutingDataSource.DIRECTORY_SHARD));
+        routingDataSource.afterPropertiesSet();
+        return routingDataSource;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService shardQueryExecutor() {
+        return Executors.newFixedThreadPool(properties.getScatterGatherThreads(), new CustomizableThreadFactory("shard-query-"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.banking.sharding;
+
+import com.banking.datasource.RoutingDataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sharding settings bound from app.sharding.* </br>
+ * <pre>
+ * app.sharding.enabled=true
+ * app.sharding.shards[0].url=jdbc:h2:mem:banking_shard0;DB_CLOSE_DELAY=-1
+ * app.sharding.shards[1].url=jdbc:h2:mem:banking_shard1;DB_CLOSE_DELAY=-1
+ * </pre>
+ * Note: the shard of an account is its hash modulo the shard count, changing the count needs a data migration.
+ */
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+    private List<RoutingDataSourceProperties.Node> shards = new ArrayList<>();
+    private int scatterGatherThreads = 8;
+    //deepest position the list can reach, every shard loads up to this many rows for one page
+    private int maxListWindow = 1000;
+    private long tradeNoCacheSize = 100_000;
+    private List<String> schemaTables = new ArrayList<>(List.of("transactions", "transactions_archive"));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<RoutingDataSourceProperties.Node> getShards() {
+        return shards;
+    }
+
+    public void setShards(List<RoutingDataSourceProperties.Node> shards) {
+        this.shards = shards;
+    }
+
+    public int getScatterGatherThreads() {
+        return scatterGatherThreads;
+    }
+
+    public void setScatterGatherThreads(int scatterGatherThreads) {
+        this.scatterGatherThreads = scatterGatherThreads;
+    }
+
+    public int getMaxListWindow() {
+        return maxListWindow;
+    }
+
+    public void setMaxListWindow(int maxListWindow) {
+        this.maxListWindow = maxListWindow;
+    }
+
+    public long getTradeNoCacheSize() {
+        return tradeNoCacheSize;
+    }
+
+    public void setTradeNoCacheSize(long tradeNoCacheSize) {
+        this.tradeNoCacheSize = tradeNoCacheSize;
+    }
+
+    public List<String> getSchemaTables() {
+        return schemaTables;
+    }
+
+    public void setSchemaTables(List<String> schemaTables) {
+        this.schemaTables = schemaTables;
+    }
+}
@@ -0,0 +1,73 @@
+package com.banking.sharding;
+
+import com.banking.exception.DuplicatedTransactionException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Trade number to shard index, in the trade_no_shards table of the directory shard. </br>
+ * A trade number is reserved before the transaction is created, which also keeps trade numbers unique across
+ * shards. Lookups are cached, a mapping only changes when the transaction is deleted.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class TradeNoShardIndex {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardingProperties properties;
+
+    private Cache<String, Integer> shardByTradeNo;
+
+    @PostConstruct
+    void init() {
+        shardByTradeNo = Caffeine.newBuilder()
+                .maximumSize(properties.getTradeNoCacheSize())
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .build();
+        ShardContext.runOn(ShardRoutingDataSource.DIRECTORY_SHARD, () -> jdbcTemplate.execute(
+                "CREATE TABLE IF NOT EXISTS trade_no_shards (trade_no VARCHAR(18) PRIMARY KEY, shard INT NOT NULL)"));
+    }
+
+    public void reserve(String tradeNo, int shard) {
+        try {
+            ShardContext.runOn(ShardRoutingDataSource.DIRECTORY_SHARD, () -> jdbcTemplate.update(
+                    "INSERT INTO trade_no_shards (trade_no, shard) VALUES (?, ?)", tradeNo, shard));
+        } catch (DuplicateKeyException e) {
+            throw new DuplicatedTransactionException("Transaction already exists with trade number " + tradeNo, e);
+        }
+        shardByTradeNo.put(tradeNo, shard);
+    }
+
+    public Optional<Integer> find(String tradeNo) {
+        Integer shard = shardByTradeNo.getIfPresent(tradeNo);
+        if (shard != null) {
+            return Optional.of(shard);
+        }
+        List<Integer> shards = ShardContext.callOn(ShardRoutingDataSource.DIRECTORY_SHARD, () -> jdbcTemplate.queryForList(
+                "SELECT shard FROM trade_no_shards WHERE trade_no = ?", Integer.class, tradeNo));
+        if (shards.isEmpty()) {
+            return Optional.empty();
+        }
+        shardByTradeNo.put(tradeNo, shards.get(0));
+        return Optional.of(shards.get(0));
+    }
+
+    public void remove(String tradeNo) {
+        ShardContext.runOn(ShardRoutingDataSource.DIRECTORY_SHARD, () -> jdbcTemplate.update(
+                "DELETE FROM trade_no_shards WHERE trade_no = ?", tradeNo));
+        shardByTradeNo.invalidate(tradeNo);
+    }
+}
@@ -0,0 +1,62 @@
+package com.banking.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Startup check of the durable (H2 file) store, active with the durable profile. </br>
+ * Reports the MVStore file statistics, the row high-water mark and the time from JVM start to ready,
+ * which is the restart time documented in the README. </br>
+ * Note: only cheap, index-backed queries here (no COUNT(*)), so the check does not grow with the table.
+ */
+@Component
+@Profile("durable")
+public class DurableStoreInspector {
+
+    private static final Logger logger = LoggerFactory.getLogger(DurableStoreInspector.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.storage.durable.low-fill-rate-percent:50}")
+    private int lowFillRatePercent;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inspect() {
+        long readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        try {
+            Map<String, String> info = new HashMap<>();
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT SETTING_NAME, SETTING_VALUE FROM INFORMATION_SCHEMA.SETTINGS WHERE SETTING_NAME LIKE 'info.%'");
+            for (Map<String, Object> row : rows) {
+                info.put(String.valueOf(row.get("SETTING_NAME")), String.valueOf(row.get("SETTING_VALUE")));
+            }
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM transactions", Long.class);
+            //info.FILE_SIZE is in bytes
+            String fileSize = info.get("info.FILE_SIZE");
+            long fileSizeKb = fileSize != null && fileSize.matches("\\d+") ? Long.parseLong(fileSize) / 1024 : -1;
+
+            logger.info("Durable store ready in {} ms since JVM start, max id {}, file size {} KB, chunks {}, fill rate {}%",
+                    readyMillis, maxId, fileSizeKb, info.get("info.CHUNK_COUNT"), info.get("info.FILL_RATE"));
+
+            String fillRate = info.get("info.FILL_RATE");
+            if (fillRate != null && fillRate.matches("\\d+") && Integer.parseInt(fillRate) < lowFillRatePercent) {
+                logger.warn("Durable store fill rate is {}%, run SHUTDOWN COMPACT in a maintenance window to shrink the file", fillRate);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to inspect the durable store, error: {}", e.getMessage(), e);
+        }
+    }
+}
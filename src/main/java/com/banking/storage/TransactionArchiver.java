@@ -0,0 +1,113 @@
+package com.banking.storage;
+
+import com.banking.enums.TransactionStatus;
+import com.banking.readmodel.TransactionReadModel;
+import com.banking.repository.TransactionArchiveRepository;
+import com.banking.sharding.ShardContext;
+import com.banking.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves old COMPLETED and FAILED transactions from the hot table to transactions_archive, so the hot table and its
+ * indexes only hold the working set. </br>
+ * Runs on a fixed delay, in chunks of app.archive.batch-size rows, each chunk in its own DB transaction so the locks
+ * are short and a failure only rolls back one chunk. Reads by id and trade number fall back to the archive
+ * (see TransactionLoader), the cached copies stay valid because an archived transaction no longer changes. </br>
+ * Note: H2 has no declarative partitioning, the archive table is the cold partition.
+ */
+@Component
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true")
+public class TransactionArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionArchiver.class);
+
+    private static final List<TransactionStatus> ARCHIVABLE_STATUSES = List.of(TransactionStatus.COMPLETED, TransactionStatus.FAILED);
+
+    @Value("${app.archive.older-than-days:90}")
+    private int olderThanDays;
+
+    @Value("${app.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.archive.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    @Autowired
+    private TransactionArchiveRepository transactionArchiveRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<TransactionReadModel> transactionReadModel;
+
+    //with sharding every shard is archived in turn
+    @Autowired(required = false)
+    private ShardRouter shardRouter;
+
+    private TransactionTemplate transactionTemplate;
+    private Counter archivedRows;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        archivedRows = Counter.builder("transaction.archive.rows").register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.archive.initial-delay-ms:60000}", fixedDelayString = "${app.archive.interval-ms:3600000}")
+    public void archive() {
+        if (shardRouter == null) {
+            archiveCurrentShard();
+            return;
+        }
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            ShardContext.runOn(shard, this::archiveCurrentShard);
+        }
+    }
+
+    private void archiveCurrentShard() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(olderThanDays);
+        long startTime = System.currentTimeMillis();
+        int total = 0;
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                List<Long> ids = new ArrayList<>();
+                Integer moved = transactionTemplate.execute(status -> {
+                    ids.addAll(transactionArchiveRepository.findArchivableIds(ARCHIVABLE_STATUSES, cutoff, batchSize));
+                    return ids.isEmpty() ? 0 : transactionArchiveRepository.moveToArchive(ids);
+                });
+                //committed, the read model only holds the hot table
+                transactionReadModel.ifAvailable(readModel -> ids.forEach(readModel::remove));
+                total += moved;
+                archivedRows.increment(moved);
+                if (moved < batchSize) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                logger.info("Archived {} transactions created before {} in {} ms", total, cutoff, System.currentTimeMillis() - startTime);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to archive transactions after {} rows, error: {}", total, e.getMessage(), e);
+        }
+    }
+}
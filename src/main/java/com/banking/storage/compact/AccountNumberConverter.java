@@ -0,0 +1,23 @@
+package com.banking.storage.compact;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Account number stored as DECIMAL(21, 0) with a leading 1, applied by META-INF/orm-compact.xml.
+ */
+@Converter
+public class AccountNumberConverter implements AttributeConverter<String, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(String accountNumber) {
+        return CompactEncoding.encodeAccountNumber(accountNumber);
+    }
+
+    @Override
+    public String convertToEntityAttribute(BigDecimal accountNumber) {
+        return CompactEncoding.decodeAccountNumber(accountNumber);
+    }
+}
@@ -0,0 +1,23 @@
+package com.banking.storage.compact;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Amount stored as BIGINT minor units, applied by META-INF/orm-compact.xml.
+ */
+@Converter
+public class AmountMinorUnitsConverter implements AttributeConverter<BigDecimal, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(BigDecimal amount) {
+        return CompactEncoding.encodeAmount(amount);
+    }
+
+    @Override
+    public BigDecimal convertToEntityAttribute(Long minorUnits) {
+        return CompactEncoding.decodeAmount(minorUnits);
+    }
+}
@@ -0,0 +1,64 @@
+package com.banking.storage.compact;
+
+import java.math.BigDecimal;
+
+/**
+ * Column encodings of the compact storage mapping (profile compact), shared by the JPA converters, the JDBC
+ * repositories and {@link CompactSchemaMigration}. </br>
+ * - trade numbers (always 18 digits) are stored as BIGINT, zero padded back to 18 digits when read </br>
+ * - account numbers (10 to 20 digits, leading zeros allowed) are stored as DECIMAL(21, 0) with a leading 1,
+ *   so the leading zeros survive </br>
+ * - amounts are stored as BIGINT minor units (cents) </br>
+ * - enums are stored as their codes (P, TO, DR...) instead of their names </br>
+ * Note: minor units in a BIGINT cover amounts below 92,233,720,368,547,758.08, larger amounts cannot be stored.
+ */
+public final class CompactEncoding {
+
+    static final int TRADE_NO_DIGITS = 18;
+
+    static final int AMOUNT_SCALE = 2;
+
+    private CompactEncoding() {
+    }
+
+    public static Long encodeTradeNo(String tradeNo) {
+        if (tradeNo == null) {
+            return null;
+        }
+        requireDigits(tradeNo, TRADE_NO_DIGITS, TRADE_NO_DIGITS, "trade number");
+        return Long.parseLong(tradeNo);
+    }
+
+    public static String decodeTradeNo(Long tradeNo) {
+        return tradeNo == null ? null : String.format("%0" + TRADE_NO_DIGITS + "d", tradeNo);
+    }
+
+    public static BigDecimal encodeAccountNumber(String accountNumber) {
+        if (accountNumber == null) {
+            return null;
+        }
+        requireDigits(accountNumber, 1, 20, "account number");
+        return new BigDecimal("1" + accountNumber);
+    }
+
+    public static String decodeAccountNumber(BigDecimal accountNumber) {
+        return accountNumber == null ? null : accountNumber.toBigInteger().toString().substring(1);
+    }
+
+    /**
+     * Throws ArithmeticException when the amount has more than 2 decimals or does not fit in a long.
+     */
+    public static Long encodeAmount(BigDecimal amount) {
+        return amount == null ? null : amount.movePointRight(AMOUNT_SCALE).longValueExact();
+    }
+
+    public static BigDecimal decodeAmount(Long minorUnits) {
+        return minorUnits == null ? null : BigDecimal.valueOf(minorUnits, AMOUNT_SCALE);
+    }
+
+    private static void requireDigits(String value, int minLength, int maxLength, String name) {
+        if (value.length() < minLength || value.length() > maxLength || !value.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            throw new IllegalArgumentException("Invalid " + name + " for the compact storage: " + value);
+        }
+    }
+}
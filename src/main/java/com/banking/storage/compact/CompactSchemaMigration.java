@@ -0,0 +1,191 @@
+package com.banking.storage.compact;
+
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.enums.TransactionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Offline conversion of a durable H2 database to the compact mapping (META-INF/orm-compact.xml), and measurement of
+ * the size reduction. Run it with the application stopped: </br>
+ * java -cp target/classes:h2.jar:slf4j/logback jars com.banking.storage.compact.CompactSchemaMigration
+ * jdbc:h2:file:./data/banking_db sa "" [--dry-run] </br>
+ * transactions and transactions_archive (when it exists) are copied into compact tables with the indexes, the
+ * copy is checked against the row count, then the old table is dropped and the copy renamed. Sizes of the old and
+ * the new table are logged from H2 DISK_SPACE_USED. With --dry-run the copies are measured and dropped, nothing
+ * changes. </br>
+ * Note: run SHUTDOWN COMPACT (or restart the durable profile, which compacts on close) to give the freed pages
+ * back to the file system.
+ */
+public class CompactSchemaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompactSchemaMigration.class);
+
+    private static final String COMPACT_SUFFIX = "_compact";
+
+    private static final String COLUMNS = "id, trade_no, account_number, account_name, payee_account, payee_name, amount, currency, "
+            + "status, type, debit_credit, created_at, updated_at, description, transfer_ref";
+
+    private final Connection connection;
+
+    private final boolean dryRun;
+
+    CompactSchemaMigration(Connection connection, boolean dryRun) {
+        this.connection = connection;
+        this.dryRun = dryRun;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 1) {
+            System.err.println("Usage: CompactSchemaMigration <jdbc url> [user] [password] [--dry-run]");
+            System.exit(1);
+        }
+        List<String> arguments = Arrays.asList(args);
+        boolean dryRun = arguments.contains("--dry-run");
+        List<String> connectionArguments = arguments.stream().filter(argument -> !argument.equals("--dry-run")).toList();
+        String user = connectionArguments.size() > 1 ? connectionArguments.get(1) : "sa";
+        String password = connectionArguments.size() > 2 ? connectionArguments.get(2) : "";
+
+        try (Connection connection = DriverManager.getConnection(connectionArguments.get(0), user, password)) {
+            CompactSchemaMigration migration = new CompactSchemaMigration(connection, dryRun);
+            migration.migrate("transactions", "", List.of(
+                    "CREATE UNIQUE INDEX idx_trade_no ON %s (trade_no)",
+                    "CREATE INDEX idx_account_timestamp ON %s (account_number, created_at)",
+                    "CREATE INDEX idx_status_timestamp ON %s (status, created_at)",
+                    "CREATE INDEX idx_updated_at ON %s (updated_at)",
+                    "CREATE INDEX idx_transfer_ref ON %s (transfer_ref)"));
+            migration.migrate("transactions_archive", ", archived_at TIMESTAMP NOT NULL", List.of(
+                    "CREATE UNIQUE INDEX idx_archive_trade_no ON %s (trade_no)",
+                    "CREATE INDEX idx_archive_account_timestamp ON %s (account_number, created_at)",
+                    "CREATE INDEX idx_archive_transfer_ref ON %s (transfer_ref)"));
+        }
+    }
+
+    void migrate(String table, String extraColumns, List<String> indexes) throws SQLException {
+        String dataType = columnType(table, "trade_no");
+        if (dataType == null) {
+            logger.info("Table {} does not exist, skipped", table);
+            return;
+        }
+        if (dataType.equals("BIGINT")) {
+            logger.info("Table {} is already compact, skipped", table);
+            return;
+        }
+
+        boolean archive = !extraColumns.isEmpty();
+        String target = table + COMPACT_SUFFIX;
+        long start = System.currentTimeMillis();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + target);
+            statement.execute(createTable(target, extraColumns));
+            String columns = COLUMNS + (archive ? ", archived_at" : "");
+            long copied = statement.executeUpdate("INSERT INTO " + target + " (" + columns + ") SELECT " + encodedColumns(table)
+                    + (archive ? ", archived_at" : "") + " FROM " + table);
+            // the indexes are built after the copy, in one pass instead of row by row
+            for (String index : indexes) {
+                statement.execute(String.format(index.replace("idx_", "idx_compact_"), target));
+            }
+            long rows = count(table);
+            if (copied != rows) {
+                throw new IllegalStateException("Copied " + copied + " rows of " + table + " but it has " + rows + ", nothing changed");
+            }
+
+            long sizeBefore = diskSpaceUsed(table);
+            long sizeAfter = diskSpaceUsed(target);
+            logger.info("Table {}: {} rows, {} bytes before, {} bytes compact, {}% smaller, {} ms",
+                    table, rows, sizeBefore, sizeAfter, sizeBefore == 0 ? 0 : (sizeBefore - sizeAfter) * 100 / sizeBefore,
+                    System.currentTimeMillis() - start);
+
+            if (dryRun) {
+                statement.execute("DROP TABLE " + target);
+                logger.info("Dry run, table {} unchanged", table);
+                return;
+            }
+            statement.execute("DROP TABLE " + table);
+            statement.execute("ALTER TABLE " + target + " RENAME TO " + table);
+            for (String index : indexes) {
+                String name = index.split(" ")[index.startsWith("CREATE UNIQUE") ? 3 : 2];
+                statement.execute("ALTER INDEX " + name.replace("idx_", "idx_compact_") + " RENAME TO " + name);
+            }
+            logger.info("Table {} converted to the compact mapping", table);
+        }
+    }
+
+    private String createTable(String table, String extraColumns) {
+        return "CREATE TABLE " + table + " ("
+                + "id BIGINT PRIMARY KEY, "
+                + "trade_no BIGINT NOT NULL, "
+                + "account_number DECIMAL(21, 0) NOT NULL, "
+                + "account_name VARCHAR(100) NOT NULL, "
+                + "payee_account DECIMAL(21, 0) NOT NULL, "
+                + "payee_name VARCHAR(100), "
+                + "amount BIGINT NOT NULL, "
+                + "currency VARCHAR(3) NOT NULL, "
+                + "status VARCHAR(1) NOT NULL, "
+                + "type VARCHAR(3) NOT NULL, "
+                + "debit_credit VARCHAR(2) NOT NULL, "
+                + "created_at TIMESTAMP NOT NULL, "
+                + "updated_at TIMESTAMP, "
+                + "description VARCHAR(500), "
+                + "transfer_ref BIGINT"
+                + extraColumns + ")";
+    }
+
+    /**
+     * The encodings of {@link CompactEncoding} in SQL, enums mapped from their names to their codes.
+     */
+    private String encodedColumns(String table) throws SQLException {
+        //tables written before the transfers have no transfer_ref yet
+        String transferRef = columnType(table, "transfer_ref") != null ? "CAST(transfer_ref AS BIGINT)" : "NULL";
+        return "id, CAST(trade_no AS BIGINT), CAST('1' || account_number AS DECIMAL(21, 0)), account_name, "
+                + "CAST('1' || payee_account AS DECIMAL(21, 0)), payee_name, CAST(amount * 100 AS BIGINT), currency, "
+                + codes("status", TransactionStatus.values(), TransactionStatus::getCode) + ", "
+                + codes("type", TransactionType.values(), TransactionType::getCode) + ", "
+                + codes("debit_credit", DebitCredit.values(), DebitCredit::getCode) + ", "
+                + "created_at, updated_at, description, " + transferRef;
+    }
+
+    private static <E extends Enum<E>> String codes(String column, E[] values, Function<E, String> code) {
+        return Arrays.stream(values)
+                .map(value -> "WHEN '" + value.name() + "' THEN '" + code.apply(value) + "'")
+                .collect(Collectors.joining(" ", "CASE " + column + " ", " END"));
+    }
+
+    private String columnType(String table, String column) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = ? AND COLUMN_NAME = ?")) {
+            statement.setString(1, table.toUpperCase());
+            statement.setString(2, column.toUpperCase());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+
+    private long count(String table) throws SQLException {
+        return queryForLong("SELECT COUNT(*) FROM " + table);
+    }
+
+    private long diskSpaceUsed(String table) throws SQLException {
+        return queryForLong("SELECT DISK_SPACE_USED('" + table.toUpperCase() + "')");
+    }
+
+    private long queryForLong(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
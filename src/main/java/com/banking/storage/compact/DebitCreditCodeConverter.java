@@ -0,0 +1,22 @@
+package com.banking.storage.compact;
+
+import com.banking.enums.DebitCredit;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Debit/credit indicator stored as its code, applied by META-INF/orm-compact.xml.
+ */
+@Converter
+public class DebitCreditCodeConverter implements AttributeConverter<DebitCredit, String> {
+
+    @Override
+    public String convertToDatabaseColumn(DebitCredit value) {
+        return value == null ? null : value.getCode();
+    }
+
+    @Override
+    public DebitCredit convertToEntityAttribute(String code) {
+        return code == null ? null : DebitCredit.fromCode(code);
+    }
+}
@@ -0,0 +1,21 @@
+package com.banking.storage.compact;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * 18-digit trade number stored as BIGINT, applied by META-INF/orm-compact.xml.
+ */
+@Converter
+public class TradeNoConverter implements AttributeConverter<String, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(String tradeNo) {
+        return CompactEncoding.encodeTradeNo(tradeNo);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Long tradeNo) {
+        return CompactEncoding.decodeTradeNo(tradeNo);
+    }
+}
@@ -0,0 +1,22 @@
+package com.banking.storage.compact;
+
+import com.banking.enums.TransactionStatus;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Transaction status stored as its code, applied by META-INF/orm-compact.xml.
+ */
+@Converter
+public class TransactionStatusCodeConverter implements AttributeConverter<TransactionStatus, String> {
+
+    @Override
+    public String convertToDatabaseColumn(TransactionStatus value) {
+        return value == null ? null : value.getCode();
+    }
+
+    @Override
+    public TransactionStatus convertToEntityAttribute(String code) {
+        return code == null ? null : TransactionStatus.fromCode(code);
+    }
+}
@@ -0,0 +1,22 @@
+package com.banking.storage.compact;
+
+import com.banking.enums.TransactionType;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Transaction type stored as its code, applied by META-INF/orm-compact.xml.
+ */
+@Converter
+public class TransactionTypeCodeConverter implements AttributeConverter<TransactionType, String> {
+
+    @Override
+    public String convertToDatabaseColumn(TransactionType value) {
+        return value == null ? null : value.getCode();
+    }
+
+    @Override
+    public TransactionType convertToEntityAttribute(String code) {
+        return code == null ? null : TransactionType.fromCode(code);
+    }
+}
@@ -0,0 +1,158 @@
+package com.banking.storage.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * One fixed-size, memory-mapped segment file of the transaction log. </br>
+ * Record: payload length (4) | type (1) | payload | CRC32 of type and payload (4). The file is pre-sized with zeros,
+ * so a zero length marks the end of the written part, and a CRC mismatch marks a torn write after a crash.
+ */
+final class LogSegment {
+
+    static final int RECORD_OVERHEAD = 4 + 1 + 4;
+    static final byte TYPE_PUT = 1;
+    static final byte TYPE_DELETE = 2;
+
+    private final int id;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final AtomicLong liveBytes = new AtomicLong();
+    private int writeOffset;
+
+    private LogSegment(int id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static LogSegment open(Path directory, int id, int size) throws IOException {
+        Path path = directory.resolve(fileName(id));
+        //an existing segment keeps its size, the configured size only applies to new segments
+        long existing = Files.exists(path) ? Files.size(path) : 0;
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, existing > 0 ? existing : size);
+        return new LogSegment(id, path, channel, buffer);
+    }
+
+    static String fileName(int id) {
+        return String.format("segment-%010d.log", id);
+    }
+
+    static int parseId(String fileName) {
+        return Integer.parseInt(fileName.substring("segment-".length(), fileName.length() - ".log".length()));
+    }
+
+    boolean hasRoom(int payloadLength) {
+        return writeOffset + RECORD_OVERHEAD + payloadLength + 4 <= buffer.capacity();
+    }
+
+    /**
+     * Append a record and return its offset. The caller holds the log write lock.
+     */
+    int append(byte type, ByteBuffer payload) {
+        int offset = writeOffset;
+        int length = payload.remaining();
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload.duplicate());
+        buffer.put(offset + 4, type);
+        buffer.put(offset + 5, payload, payload.position(), length);
+        buffer.putInt(offset + 5 + length, (int) crc.getValue());
+        //length last, a reader scanning the file never sees a record before it is complete
+        buffer.putInt(offset, length);
+        writeOffset = offset + RECORD_OVERHEAD + length;
+        return offset;
+    }
+
+    /**
+     * Whether a valid record starts at the offset. False at the end of the log or on a torn record.
+     */
+    boolean isValidRecord(int offset) {
+        if (offset + RECORD_OVERHEAD > buffer.capacity()) {
+            return false;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0 || offset + RECORD_OVERHEAD + length > buffer.capacity()) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.get(offset + 4));
+        crc.update(payload(offset));
+        return (int) crc.getValue() == buffer.getInt(offset + 5 + length);
+    }
+
+    int payloadLength(int offset) {
+        return buffer.getInt(offset);
+    }
+
+    int recordSize(int offset) {
+        return RECORD_OVERHEAD + buffer.getInt(offset);
+    }
+
+    byte type(int offset) {
+        return buffer.get(offset + 4);
+    }
+
+    /**
+     * A read-only view of the payload, safe for concurrent readers.
+     */
+    ByteBuffer payload(int offset) {
+        int length = buffer.getInt(offset);
+        ByteBuffer view = buffer.duplicate();
+        view.limit(offset + 5 + length);
+        view.position(offset + 5);
+        return view.slice();
+    }
+
+    /**
+     * Zero the rest of the segment after a torn record, so the records written next are not followed by stale bytes.
+     */
+    void clearFrom(int offset) {
+        for (int i = offset; i < buffer.capacity(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    int id() {
+        return id;
+    }
+
+    int writeOffset() {
+        return writeOffset;
+    }
+
+    void writeOffset(int writeOffset) {
+        this.writeOffset = writeOffset;
+    }
+
+    AtomicLong liveBytes() {
+        return liveBytes;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+}
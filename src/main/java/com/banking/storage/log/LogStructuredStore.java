@@ -0,0 +1,718 @@
+package com.banking.storage.log;
+
+import com.banking.codec.TransactionCodec;
+import com.banking.enums.TransactionType;
+import com.banking.exception.DuplicatedTransactionException;
+import com.banking.model.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only transaction store on segmented, memory-mapped log files (app.storage.engine=log). </br>
+ * Every create, update and delete appends one record ({@link TransactionCodec} payload, or a tombstone) to the active
+ * segment. Two in-memory indexes map the id to the record location (segment, offset) and the trade number to the id,
+ * so a point read is one index lookup and one decode from the mapped segment. </br>
+ * Durability is a group commit: writers append under a lock, then wait until the flusher thread has forced the segment
+ * past their record, so one fsync covers every write that arrived while the previous one was running. </br>
+ * The index is checkpointed periodically, a restart loads the checkpoint and replays only the log written after it.
+ * Sealed segments whose live data drops below app.storage.log.compaction-live-ratio are compacted: the live records
+ * are appended again to the active segment and the old file is deleted. </br>
+ * The two legs of a transfer are appended together, with consecutive ids and in the same segment; a crash between
+ * them leaves the TRANSFER_OUT leg as the last record of the log, and recovery drops it. </br>
+ * Note: the index is on-heap, about 100 bytes per transaction. Ids are assigned by the store in creation order,
+ * which is what the newest-first listing relies on.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.engine", havingValue = "log")
+public class LogStructuredStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogStructuredStore.class);
+
+    private static final String CHECKPOINT_FILE = "index.checkpoint";
+    private static final int CHECKPOINT_MAGIC = 0x54584C47;
+    private static final int CHECKPOINT_VERSION = 1;
+
+    @Value("${app.storage.log.dir:data/log}")
+    private String dir;
+
+    @Value("${app.storage.log.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${app.storage.log.fsync:group}")
+    private String fsync;
+
+    @Value("${app.storage.log.group-commit-interval-ms:2}")
+    private long groupCommitIntervalMs;
+
+    @Value("${app.storage.log.checkpoint-interval-seconds:60}")
+    private long checkpointIntervalSeconds;
+
+    @Value("${app.storage.log.compaction-interval-seconds:30}")
+    private long compactionIntervalSeconds;
+
+    @Value("${app.storage.log.compaction-live-ratio:0.5}")
+    private double compactionLiveRatio;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    //id -> segment << 32 | offset
+    private final ConcurrentSkipListMap<Long, Long> idIndex = new ConcurrentSkipListMap<>();
+    //trade number (as a number) -> id
+    private final ConcurrentHashMap<Long, Long> tradeNoIndex = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, LogSegment> segments = new ConcurrentSkipListMap<>();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ByteBuffer scratch = ByteBuffer.allocate(TransactionCodec.MAX_ENCODED_SIZE);
+    private final Object durabilityMonitor = new Object();
+
+    private Path directory;
+    private int segmentSize;
+    private long nextId = 1;
+    private volatile LogSegment active;
+    //positions are segment << 32 | end offset, so they grow across segments
+    private volatile long appendedPosition;
+    private volatile long durablePosition;
+    private volatile boolean running;
+    private Thread flusher;
+    private ScheduledExecutorService maintenance;
+    private Timer fsyncTimer;
+    private Counter compactions;
+
+    @PostConstruct
+    void init() throws IOException {
+        directory = Paths.get(dir);
+        Files.createDirectories(directory);
+        segmentSize = segmentSizeMb * 1024 * 1024;
+
+        long startTime = System.currentTimeMillis();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(p -> p.getFileName().toString().matches("segment-\\d+\\.log")).toList()) {
+                int id = LogSegment.parseId(path.getFileName().toString());
+                segments.put(id, LogSegment.open(directory, id, segmentSize));
+            }
+        }
+        long replayed = recover();
+        if (segments.isEmpty()) {
+            segments.put(1, LogSegment.open(directory, 1, segmentSize));
+        }
+        active = segments.lastEntry().getValue();
+        appendedPosition = position(active.id(), active.writeOffset());
+        durablePosition = appendedPosition;
+
+        fsyncTimer = Timer.builder("transaction.log.fsync").register(meterRegistry);
+        compactions = Counter.builder("transaction.log.compactions").register(meterRegistry);
+        Gauge.builder("transaction.log.entries", tradeNoIndex, Map::size).register(meterRegistry);
+        Gauge.builder("transaction.log.segments", segments, Map::size).register(meterRegistry);
+
+        running = true;
+        if ("group".equalsIgnoreCase(fsync)) {
+            flusher = new Thread(this::flushLoop, "transaction-log-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transaction-log-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::checkpointQuietly, checkpointIntervalSeconds, checkpointIntervalSeconds, TimeUnit.SECONDS);
+        maintenance.scheduleWithFixedDelay(this::compactQuietly, compactionIntervalSeconds, compactionIntervalSeconds, TimeUnit.SECONDS);
+
+        logger.info("Transaction log opened in {}, {} segments, {} transactions, {} records replayed in {} ms, fsync {}",
+                directory.toAbsolutePath(), segments.size(), tradeNoIndex.size(), replayed, System.currentTimeMillis() - startTime, fsync);
+    }
+
+    @PreDestroy
+    void close() {
+        running = false;
+        synchronized (durabilityMonitor) {
+            durabilityMonitor.notifyAll();
+        }
+        maintenance.shutdown();
+        try {
+            if (flusher != null) {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            }
+            maintenance.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            active.force();
+            //a clean shutdown restarts without replay
+            writeCheckpoint();
+            for (LogSegment segment : segments.values()) {
+                segment.close();
+            }
+        } catch (IOException e) {
+            logger.error("Failed to close the transaction log, error: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Append a new transaction, assigning its id. </br>
+     * Note: the trade number uniqueness is checked under the write lock, there is no separate constraint.
+     */
+    public Transaction insert(Transaction transaction) {
+        long tradeNo = TransactionCodec.tradeNoToLong(transaction.getTradeNo());
+        long position;
+        writeLock.lock();
+        try {
+            if (tradeNoIndex.containsKey(tradeNo)) {
+                throw new DuplicatedTransactionException("Transaction already exists with trade number " + transaction.getTradeNo());
+            }
+            transaction.setId(nextId++);
+            idIndex.put(transaction.getId(), appendPutLocked(transaction));
+            tradeNoIndex.put(tradeNo, transaction.getId());
+            position = appendedPosition;
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(position);
+        return transaction;
+    }
+
+    /**
+     * Append new transactions together, assigning consecutive ids: under one write lock, in one segment, and with one
+     * wait for durability. Either all trade numbers are free or nothing is written.
+     */
+    public List<Transaction> insertAll(List<Transaction> transactions) {
+        long[] tradeNos = new long[transactions.size()];
+        for (int i = 0; i < tradeNos.length; i++) {
+            tradeNos[i] = TransactionCodec.tradeNoToLong(transactions.get(i).getTradeNo());
+        }
+        long position;
+        writeLock.lock();
+        try {
+            for (int i = 0; i < tradeNos.length; i++) {
+                for (int j = 0; j < i; j++) {
+                    if (tradeNos[j] == tradeNos[i]) {
+                        throw new DuplicatedTransactionException("Duplicated trade number " + transactions.get(i).getTradeNo());
+                    }
+                }
+                if (tradeNoIndex.containsKey(tradeNos[i])) {
+                    throw new DuplicatedTransactionException("Transaction already exists with trade number " + transactions.get(i).getTradeNo());
+                }
+            }
+            ByteBuffer[] payloads = new ByteBuffer[transactions.size()];
+            int totalLength = 0;
+            for (int i = 0; i < payloads.length; i++) {
+                transactions.get(i).setId(nextId + i);
+                scratch.clear();
+                TransactionCodec.encode(transactions.get(i), scratch);
+                scratch.flip();
+                payloads[i] = ByteBuffer.allocate(scratch.remaining()).put(scratch).flip();
+                totalLength += (i > 0 ? LogSegment.RECORD_OVERHEAD : 0) + payloads[i].remaining();
+            }
+            if (!active.hasRoom(totalLength)) {
+                rotateLocked();
+            }
+            nextId += payloads.length;
+            for (int i = 0; i < payloads.length; i++) {
+                long location = appendLocked(LogSegment.TYPE_PUT, payloads[i]);
+                active.liveBytes().addAndGet(active.recordSize(offsetOf(location)));
+                idIndex.put(transactions.get(i).getId(), location);
+                tradeNoIndex.put(tradeNos[i], transactions.get(i).getId());
+            }
+            position = appendedPosition;
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(position);
+        return transactions;
+    }
+
+    /**
+     * Append a new version of an existing transaction. Returns false if it does not exist (anymore).
+     */
+    public boolean update(Transaction transaction) {
+        long position;
+        writeLock.lock();
+        try {
+            Long previous = idIndex.get(transaction.getId());
+            if (previous == null) {
+                return false;
+            }
+            idIndex.put(transaction.getId(), appendPutLocked(transaction));
+            release(previous);
+            position = appendedPosition;
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(position);
+        return true;
+    }
+
+    /**
+     * Append a tombstone for the transaction, returning the deleted version.
+     */
+    public Optional<Transaction> delete(long id) {
+        Transaction deleted;
+        long position;
+        writeLock.lock();
+        try {
+            Long previous = idIndex.get(id);
+            if (previous == null) {
+                return Optional.empty();
+            }
+            deleted = read(previous);
+            long tradeNo = TransactionCodec.tradeNoToLong(deleted.getTradeNo());
+            scratch.clear();
+            scratch.putLong(id).putLong(tradeNo).flip();
+            appendLocked(LogSegment.TYPE_DELETE, scratch);
+            idIndex.remove(id);
+            tradeNoIndex.remove(tradeNo, id);
+            release(previous);
+            position = appendedPosition;
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(position);
+        return Optional.of(deleted);
+    }
+
+    public Optional<Transaction> findById(long id) {
+        while (true) {
+            Long location = idIndex.get(id);
+            if (location == null) {
+                return Optional.empty();
+            }
+            LogSegment segment = segments.get(segmentOf(location));
+            if (segment != null) {
+                return Optional.of(TransactionCodec.decode(segment.payload(offsetOf(location))));
+            }
+            //moved by compaction after the index lookup, the index already has the new location
+        }
+    }
+
+    public Optional<Transaction> findByTradeNo(String tradeNo) {
+        Long id;
+        try {
+            id = tradeNoIndex.get(TransactionCodec.tradeNoToLong(tradeNo));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        return id != null ? findById(id) : Optional.empty();
+    }
+
+    /**
+     * Newest first, ids are assigned in creation order.
+     */
+    public List<Transaction> findPage(long offset, int limit) {
+        List<Transaction> page = new ArrayList<>(limit);
+        Iterator<Long> ids = idIndex.descendingKeySet().iterator();
+        for (long skipped = 0; skipped < offset && ids.hasNext(); skipped++) {
+            ids.next();
+        }
+        while (page.size() < limit && ids.hasNext()) {
+            findById(ids.next()).ifPresent(page::add);
+        }
+        return page;
+    }
+
+    public long count() {
+        return tradeNoIndex.size();
+    }
+
+    /**
+     * Highest stored trade number within [from, to], as a number, or -1 if there is none. A scan of the index,
+     * for startup only.
+     */
+    public long maxTradeNo(long from, long to) {
+        long max = -1;
+        for (long tradeNo : tradeNoIndex.keySet()) {
+            if (tradeNo >= from && tradeNo <= to && tradeNo > max) {
+                max = tradeNo;
+            }
+        }
+        return max;
+    }
+
+    private long appendPutLocked(Transaction transaction) {
+        scratch.clear();
+        TransactionCodec.encode(transaction, scratch);
+        scratch.flip();
+        long location = appendLocked(LogSegment.TYPE_PUT, scratch);
+        active.liveBytes().addAndGet(active.recordSize(offsetOf(location)));
+        return location;
+    }
+
+    private long appendLocked(byte type, ByteBuffer payload) {
+        if (!active.hasRoom(payload.remaining())) {
+            rotateLocked();
+        }
+        int offset = active.append(type, payload);
+        appendedPosition = position(active.id(), active.writeOffset());
+        return location(active.id(), offset);
+    }
+
+    private void rotateLocked() {
+        try {
+            //the flusher only forces the active segment, a sealed segment is forced once here
+            active.force();
+            LogSegment next = LogSegment.open(directory, active.id() + 1, segmentSize);
+            segments.put(next.id(), next);
+            active = next;
+            logger.info("Transaction log rolled over to segment {}", next.id());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open a new transaction log segment", e);
+        }
+    }
+
+    private void release(long location) {
+        LogSegment segment = segments.get(segmentOf(location));
+        if (segment != null) {
+            segment.liveBytes().addAndGet(-segment.recordSize(offsetOf(location)));
+        }
+    }
+
+    private Transaction read(long location) {
+        return TransactionCodec.decode(segments.get(segmentOf(location)).payload(offsetOf(location)));
+    }
+
+    private void awaitDurable(long position) {
+        if (flusher == null) {
+            return;
+        }
+        synchronized (durabilityMonitor) {
+            durabilityMonitor.notifyAll();
+            while (durablePosition < position) {
+                if (!running) {
+                    throw new IllegalStateException("Transaction log is closed");
+                }
+                try {
+                    durabilityMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the transaction log flush", e);
+                }
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            //the target is read before the segment: a rotation in between has already forced the older segment
+            long target = appendedPosition;
+            if (target > durablePosition) {
+                LogSegment segment = active;
+                fsyncTimer.record(segment::force);
+                synchronized (durabilityMonitor) {
+                    durablePosition = target;
+                    durabilityMonitor.notifyAll();
+                }
+            }
+            synchronized (durabilityMonitor) {
+                if (running && appendedPosition <= durablePosition) {
+                    try {
+                        durabilityMonitor.wait(groupCommitIntervalMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Load the index checkpoint if there is a valid one, then replay the records written after it.
+     */
+    private long recover() throws IOException {
+        int fromSegment = segments.isEmpty() ? 0 : segments.firstKey();
+        int fromOffset = 0;
+        long[] checkpoint = readCheckpoint();
+        if (checkpoint != null && segments.containsKey((int) checkpoint[1])) {
+            nextId = checkpoint[0];
+            fromSegment = (int) checkpoint[1];
+            fromOffset = (int) checkpoint[2];
+        } else {
+            if (checkpoint != null) {
+                logger.warn("Transaction log checkpoint refers to a missing segment, replaying the whole log");
+            }
+            idIndex.clear();
+            tradeNoIndex.clear();
+        }
+
+        long replayed = 0;
+        LogSegment lastSegment = null;
+        int lastOffset = -1;
+        for (LogSegment segment : segments.tailMap(fromSegment, true).values()) {
+            int offset = segment.id() == fromSegment ? fromOffset : 0;
+            while (segment.isValidRecord(offset)) {
+                apply(segment, offset);
+                lastSegment = segment;
+                lastOffset = offset;
+                offset += segment.recordSize(offset);
+                replayed++;
+            }
+            if (offset + 4 <= segment.capacity() && segment.payloadLength(offset) != 0) {
+                logger.warn("Torn record in transaction log segment {} at offset {}, the rest of the segment is discarded", segment.id(), offset);
+                segment.clearFrom(offset);
+            }
+            segment.writeOffset(offset);
+        }
+        if (lastSegment != null) {
+            dropOrphanTransferLeg(lastSegment, lastOffset);
+        }
+
+        for (Long location : idIndex.values()) {
+            LogSegment segment = segments.get(segmentOf(location));
+            segment.liveBytes().addAndGet(segment.recordSize(offsetOf(location)));
+        }
+        return replayed;
+    }
+
+    /**
+     * A TRANSFER_OUT leg as the last record without the IN leg (next id) is a transfer torn by a crash, it is cut off
+     * the log like a torn record. Legs are never updated, so such a record is always the insert.
+     */
+    private void dropOrphanTransferLeg(LogSegment segment, int offset) {
+        if (segment.type(offset) != LogSegment.TYPE_PUT) {
+            return;
+        }
+        Transaction last = TransactionCodec.decode(segment.payload(offset));
+        if (last.getType() != TransactionType.TRANSFER_OUT || last.getTransferRef() == null || idIndex.containsKey(last.getId() + 1)) {
+            return;
+        }
+        logger.warn("Transfer {} lost its TRANSFER_IN leg in a crash, the TRANSFER_OUT leg {} is discarded", last.getTransferRef(), last.getId());
+        idIndex.remove(last.getId());
+        tradeNoIndex.remove(TransactionCodec.tradeNoToLong(last.getTradeNo()), last.getId());
+        segment.clearFrom(offset);
+        segment.writeOffset(offset);
+    }
+
+    private void apply(LogSegment segment, int offset) {
+        ByteBuffer payload = segment.payload(offset);
+        long id = payload.getLong(TransactionCodec.ID_OFFSET);
+        long tradeNo = payload.getLong(TransactionCodec.TRADE_NO_OFFSET);
+        if (segment.type(offset) == LogSegment.TYPE_PUT) {
+            idIndex.put(id, location(segment.id(), offset));
+            tradeNoIndex.put(tradeNo, id);
+        } else {
+            idIndex.remove(id);
+            tradeNoIndex.remove(tradeNo, id);
+        }
+        nextId = Math.max(nextId, id + 1);
+    }
+
+    /**
+     * Checkpoint: magic, version, next id, replay segment, replay offset, count, (id, trade number, location) per
+     * transaction, CRC32 of everything before it.
+     */
+    private void writeCheckpoint() throws IOException {
+        long[] ids;
+        long[] locations;
+        long next;
+        long replayFrom;
+        LogSegment lastSegment;
+        writeLock.lock();
+        try {
+            int count = tradeNoIndex.size();
+            ids = new long[count];
+            locations = new long[count];
+            int i = 0;
+            for (Map.Entry<Long, Long> entry : idIndex.entrySet()) {
+                ids[i] = entry.getKey();
+                locations[i++] = entry.getValue();
+            }
+            next = nextId;
+            replayFrom = appendedPosition;
+            lastSegment = active;
+        } finally {
+            writeLock.unlock();
+        }
+        //the checkpoint must not refer to records that are not on disk yet, older segments were forced on rotation
+        lastSegment.force();
+
+        //the records cannot move while the checkpoint is written, compaction runs on this same thread
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), new CRC32());
+             DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeLong(next);
+            out.writeInt(segmentOf(replayFrom));
+            out.writeInt(offsetOf(replayFrom));
+            out.writeInt(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                ByteBuffer payload = segments.get(segmentOf(locations[i])).payload(offsetOf(locations[i]));
+                out.writeLong(ids[i]);
+                out.writeLong(payload.getLong(TransactionCodec.TRADE_NO_OFFSET));
+                out.writeLong(locations[i]);
+            }
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.debug("Transaction log checkpoint written, {} transactions", ids.length);
+    }
+
+    /**
+     * Load the checkpoint into the indexes, returns next id, replay segment and replay offset, or null if there is
+     * no valid checkpoint.
+     */
+    private long[] readCheckpoint() {
+        try (InputStream file = Files.newInputStream(directory.resolve(CHECKPOINT_FILE));
+             CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(file, 1 << 16), new CRC32());
+             DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+                logger.warn("Unknown transaction log checkpoint format, ignored");
+                return null;
+            }
+            long next = in.readLong();
+            int segment = in.readInt();
+            int offset = in.readInt();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                long tradeNo = in.readLong();
+                idIndex.put(id, in.readLong());
+                tradeNoIndex.put(tradeNo, id);
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                logger.warn("Transaction log checkpoint is corrupt, ignored");
+                idIndex.clear();
+                tradeNoIndex.clear();
+                return null;
+            }
+            return new long[]{next, segment, offset};
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Failed to read the transaction log checkpoint, ignored, error: {}", e.getMessage());
+            idIndex.clear();
+            tradeNoIndex.clear();
+            return null;
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            writeCheckpoint();
+        } catch (Exception e) {
+            logger.error("Failed to write the transaction log checkpoint, error: {}", e.getMessage(), e);
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            LogSegment candidate = null;
+            double lowest = compactionLiveRatio;
+            for (LogSegment segment : segments.values()) {
+                double liveRatio = (double) segment.liveBytes().get() / segment.capacity();
+                if (segment != active && liveRatio < lowest) {
+                    lowest = liveRatio;
+                    candidate = segment;
+                }
+            }
+            if (candidate != null) {
+                compact(candidate);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to compact the transaction log, error: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Append the live records of a sealed segment to the active segment, then delete it. </br>
+     * Note: tombstones are carried over while an older segment exists, it may still hold a version of the deleted transaction.
+     */
+    private void compact(LogSegment segment) throws IOException {
+        long startTime = System.currentTimeMillis();
+        boolean olderSegments = segments.firstKey() < segment.id();
+        int moved = 0;
+        int offset = 0;
+        while (segment.isValidRecord(offset)) {
+            long location = location(segment.id(), offset);
+            ByteBuffer payload = segment.payload(offset);
+            long id = payload.getLong(TransactionCodec.ID_OFFSET);
+            writeLock.lock();
+            try {
+                if (segment.type(offset) == LogSegment.TYPE_PUT) {
+                    Long current = idIndex.get(id);
+                    if (current != null && current == location) {
+                        long relocated = appendLocked(LogSegment.TYPE_PUT, payload);
+                        active.liveBytes().addAndGet(active.recordSize(offsetOf(relocated)));
+                        idIndex.put(id, relocated);
+                        moved++;
+                    }
+                } else if (olderSegments && !idIndex.containsKey(id)) {
+                    appendLocked(LogSegment.TYPE_DELETE, payload);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            offset += segment.recordSize(offset);
+        }
+
+        //the moved records and a checkpoint without the segment must be on disk before the file goes away
+        active.force();
+        writeCheckpoint();
+        segments.remove(segment.id());
+        segment.delete();
+        compactions.increment();
+        logger.info("Transaction log segment {} compacted, {} live records moved in {} ms", segment.id(), moved, System.currentTimeMillis() - startTime);
+    }
+
+    private static long location(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+
+    private static long position(int segment, int offset) {
+        return location(segment, offset);
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+}
@@ -0,0 +1,34 @@
+-- Schema of the durable profile with the compact mapping (profiles durable,compact), idempotent like schema-durable.sql.
+-- Keep it in line with META-INF/orm-compact.xml. An existing database is converted by CompactSchemaMigration.
+CREATE TABLE IF NOT EXISTS transactions (
+    -- generated by the application (com.banking.idgen), not by the database
+    id BIGINT PRIMARY KEY,
+    -- 18 digits, zero padded when read
+    trade_no BIGINT NOT NULL,
+    -- digits with a leading 1, which keeps leading zeros
+    account_number DECIMAL(21, 0) NOT NULL,
+    account_name VARCHAR(100) NOT NULL,
+    payee_account DECIMAL(21, 0) NOT NULL,
+    payee_name VARCHAR(100),
+    -- minor units
+    amount BIGINT NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    -- enum codes
+    status VARCHAR(1) NOT NULL,
+    type VARCHAR(3) NOT NULL,
+    debit_credit VARCHAR(2) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP,
+    description VARCHAR(500),
+    -- trade number of the TRANSFER_OUT leg, like trade_no
+    transfer_ref BIGINT
+);
+
+-- added with the transfers, for files created before
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS transfer_ref BIGINT;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_trade_no ON transactions (trade_no);
+CREATE INDEX IF NOT EXISTS idx_account_timestamp ON transactions (account_number, created_at);
+CREATE INDEX IF NOT EXISTS idx_status_timestamp ON transactions (status, created_at);
+CREATE INDEX IF NOT EXISTS idx_updated_at ON transactions (updated_at);
+CREATE INDEX IF NOT EXISTS idx_transfer_ref ON transactions (transfer_ref);
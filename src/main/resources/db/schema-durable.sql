@@ -0,0 +1,29 @@
+-- Schema of the durable profile, idempotent: it runs at every start and never drops data.
+-- Keep it in line with the mapping of com.banking.model.Transaction.
+CREATE TABLE IF NOT EXISTS transactions (
+    -- generated by the application (com.banking.idgen), not by the database
+    id BIGINT PRIMARY KEY,
+    trade_no VARCHAR(18) NOT NULL,
+    account_number VARCHAR(20) NOT NULL,
+    account_name VARCHAR(100) NOT NULL,
+    payee_account VARCHAR(20) NOT NULL,
+    payee_name VARCHAR(100),
+    amount NUMERIC(19, 2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    type VARCHAR(32) NOT NULL,
+    debit_credit VARCHAR(16) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP,
+    description VARCHAR(500),
+    transfer_ref VARCHAR(18)
+);
+
+-- added with the transfers, for files created before
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS transfer_ref VARCHAR(18);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_trade_no ON transactions (trade_no);
+CREATE INDEX IF NOT EXISTS idx_account_timestamp ON transactions (account_number, created_at);
+CREATE INDEX IF NOT EXISTS idx_status_timestamp ON transactions (status, created_at);
+CREATE INDEX IF NOT EXISTS idx_updated_at ON transactions (updated_at);
+CREATE INDEX IF NOT EXISTS idx_transfer_ref ON transactions (transfer_ref);
@@ -0,0 +1,123 @@
+package com.banking.admission;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AdaptiveConcurrencyLimit unit test
+ */
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("A fast request grows the limit by 1/limit only while the limit is in use")
+    void testRelease_AdditiveIncreaseWhenInUse() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(new AdmissionProperties.Limit(10, 1, 20, 10, 50, 1000));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(AdaptiveConcurrencyLimit.Outcome.ADMITTED, limit.acquire());
+        }
+
+        //5 in flight, half the limit
+        limit.release(FAST, false);
+        assertEquals(10.1, limit.getLimit(), 1e-9);
+
+        //4 in flight and less, the limit is not in use
+        for (int i = 0; i < 4; i++) {
+            limit.release(FAST, false);
+        }
+        assertEquals(10.1, limit.getLimit(), 1e-9);
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Slow or failed requests decrease the limit at most once per latency target")
+    void testRelease_MultiplicativeDecreaseOncePerTarget() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(new AdmissionProperties.Limit(10, 1, 20, 10, 50, 20));
+        for (int i = 0; i < 4; i++) {
+            limit.acquire();
+        }
+        Thread.sleep(30);
+
+        limit.release(SLOW, false);
+        limit.release(SLOW, false);
+        assertEquals(9.0, limit.getLimit(), 1e-9, "one burst of slow requests, one decrease");
+
+        Thread.sleep(30);
+        limit.release(FAST, true);
+        assertEquals(8.1, limit.getLimit(), 1e-9, "a failure counts as slow");
+        limit.release(SLOW, false);
+        assertEquals(8.1, limit.getLimit(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("The limit does not go below min-limit")
+    void testRelease_MinLimit() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(new AdmissionProperties.Limit(2, 2, 20, 10, 50, 5));
+        limit.acquire();
+        Thread.sleep(10);
+
+        limit.release(SLOW, false);
+
+        assertEquals(2.0, limit.getLimit(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Over the limit with a full queue, a request is rejected at once")
+    void testAcquire_QueueFull() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(new AdmissionProperties.Limit(1, 1, 1, 0, 1000, 50));
+        assertEquals(AdaptiveConcurrencyLimit.Outcome.ADMITTED, limit.acquire());
+
+        long start = System.nanoTime();
+        assertEquals(AdaptiveConcurrencyLimit.Outcome.QUEUE_FULL, limit.acquire());
+
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500), "did not wait");
+        assertEquals(0, limit.getQueued());
+        assertEquals(1, limit.getInFlight());
+    }
+
+    @Test
+    @DisplayName("A queued request is rejected after max-queue-wait-ms")
+    void testAcquire_Timeout() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(new AdmissionProperties.Limit(1, 1, 1, 1, 50, 50));
+        limit.acquire();
+
+        long start = System.nanoTime();
+        assertEquals(AdaptiveConcurrencyLimit.Outcome.TIMEOUT, limit.acquire());
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(0, limit.getQueued());
+        assertEquals(1, limit.getInFlight());
+    }
+
+    @Test
+    @DisplayName("A queued request is admitted when a permit is released")
+    void testAcquire_AdmittedFromQueue() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(new AdmissionProperties.Limit(1, 1, 1, 1, 5000, 50));
+        limit.acquire();
+        CompletableFuture<AdaptiveConcurrencyLimit.Outcome> queued = CompletableFuture.supplyAsync(limit::acquire);
+        while (limit.getQueued() == 0) {
+            Thread.sleep(1);
+        }
+
+        limit.release(FAST, false);
+
+        assertEquals(AdaptiveConcurrencyLimit.Outcome.ADMITTED, queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1, limit.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Invalid min and max limits are rejected")
+    void testConstructor_InvalidLimits() {
+        assertThrows(IllegalStateException.class,
+                () -> new AdaptiveConcurrencyLimit(new AdmissionProperties.Limit(1, 0, 1, 1, 50, 50)));
+        assertThrows(IllegalStateException.class,
+                () -> new AdaptiveConcurrencyLimit(new AdmissionProperties.Limit(1, 4, 2, 1, 50, 50)));
+    }
+}
@@ -0,0 +1,185 @@
+package com.banking.balance;
+
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.enums.TransactionType;
+import com.banking.model.Transaction;
+import com.banking.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AccountBalanceLedger test, against the H2 database: postings of the service writes, checkpoint and rebuild
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:balance_ledger_test;DB_CLOSE_DELAY=-1",
+        "app.balance.enabled=true",
+        "app.balance.checkpoint-interval-ms=3600000",
+        "app.archive.enabled=false",
+        "app.cache.warmup.enabled=false"
+})
+public class AccountBalanceLedgerTest {
+
+    private static final String ACCOUNT = "6222000000000001";
+
+    private static final int UPDATERS = 8;
+
+    private static final AtomicLong tradeNumbers = new AtomicLong(200000000000000000L);
+
+    @Autowired
+    private AccountBalanceLedger accountBalanceLedger;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM transactions");
+        jdbcTemplate.update("DELETE FROM transactions_archive");
+        jdbcTemplate.update("DELETE FROM account_balances");
+        jdbcTemplate.update("DELETE FROM account_balance_checkpoint");
+        accountBalanceLedger.rebuild();
+    }
+
+    @Test
+    @DisplayName("Creates, updates and deletes move the balance by their posting")
+    void testRecord_ServiceWrites() {
+        Transaction credit = transactionService.createTransaction(transaction(DebitCredit.CREDIT, "100.00"));
+        Transaction debit = transactionService.createTransaction(transaction(DebitCredit.DEBIT, "30.00"));
+        assertEquals(new BigDecimal("70.00"), balance());
+
+        Transaction changed = transaction(DebitCredit.DEBIT, "50.00");
+        changed.setTradeNo(debit.getTradeNo());
+        transactionService.updateTransaction(debit.getId(), changed);
+        assertEquals(new BigDecimal("50.00"), balance());
+
+        transactionService.deleteTransaction(credit.getId());
+        assertEquals(new BigDecimal("-50.00"), balance());
+    }
+
+    @Test
+    @DisplayName("Concurrent updates of one transaction each reverse the committed posting, the balance matches the DB")
+    void testRecord_ConcurrentUpdates() throws Exception {
+        Transaction credit = transactionService.createTransaction(transaction(DebitCredit.CREDIT, "100.00"));
+        ExecutorService executor = Executors.newFixedThreadPool(UPDATERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> updates = new ArrayList<>();
+            for (int i = 0; i < UPDATERS; i++) {
+                Transaction changed = transaction(DebitCredit.CREDIT, (200 + i) + ".00");
+                changed.setTradeNo(credit.getTradeNo());
+                updates.add(executor.submit(() -> {
+                    start.await();
+                    return transactionService.updateTransaction(credit.getId(), changed);
+                }));
+            }
+            start.countDown();
+            for (Future<?> update : updates) {
+                update.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        BigDecimal stored = jdbcTemplate.queryForObject("SELECT amount FROM transactions WHERE id = ?", BigDecimal.class, credit.getId());
+        assertEquals(stored, balance());
+    }
+
+    @Test
+    @DisplayName("A FAILED transaction does not change the balance, failing a transaction reverses its posting")
+    void testRecord_FailedTransaction() {
+        transactionService.createTransaction(transaction(DebitCredit.CREDIT, "100.00"));
+        Transaction failed = transaction(DebitCredit.CREDIT, "40.00");
+        failed.markAsFailed();
+
+        accountBalanceLedger.record(null, Posting.of(failed));
+        assertEquals(new BigDecimal("100.00"), balance());
+
+        Transaction pending = transaction(DebitCredit.CREDIT, "40.00");
+        accountBalanceLedger.record(null, Posting.of(pending));
+        assertEquals(new BigDecimal("140.00"), balance());
+        accountBalanceLedger.record(Posting.of(pending), Posting.of(failed));
+        assertEquals(new BigDecimal("100.00"), balance());
+    }
+
+    @Test
+    @DisplayName("A rebuild without checkpoint sums the DB, FAILED transactions excluded")
+    void testRebuild_SumsDb() {
+        transactionService.createTransaction(transaction(DebitCredit.CREDIT, "100.00"));
+        Transaction failed = transactionService.createTransaction(transaction(DebitCredit.DEBIT, "30.00"));
+        jdbcTemplate.update("UPDATE transactions SET status = ? WHERE id = ?", TransactionStatus.FAILED.name(), failed.getId());
+
+        accountBalanceLedger.rebuild();
+
+        assertTrue(accountBalanceLedger.isReady());
+        assertEquals(new BigDecimal("100.00"), balance());
+    }
+
+    @Test
+    @DisplayName("A rebuild restores the checkpoint and replays the transactions created since")
+    void testRebuild_CheckpointAndReplay() {
+        transactionService.createTransaction(transaction(DebitCredit.CREDIT, "100.00"));
+        assertTrue(accountBalanceLedger.checkpoint());
+        transactionService.createTransaction(transaction(DebitCredit.DEBIT, "30.00"));
+        //a checkpoint balance differing from the DB shows which path the rebuild took
+        jdbcTemplate.update("UPDATE account_balances SET balance = balance + 1 WHERE account_number = ?", ACCOUNT);
+
+        accountBalanceLedger.rebuild();
+
+        assertEquals(new BigDecimal("70.01"), balance());
+    }
+
+    @Test
+    @DisplayName("A checkpoint older than an update of the DB is ignored, the balances are summed again")
+    void testRebuild_StaleCheckpoint() {
+        Transaction credit = transactionService.createTransaction(transaction(DebitCredit.CREDIT, "100.00"));
+        assertTrue(accountBalanceLedger.checkpoint());
+        jdbcTemplate.update("UPDATE account_balances SET balance = balance + 1 WHERE account_number = ?", ACCOUNT);
+        Transaction changed = transaction(DebitCredit.CREDIT, "80.00");
+        changed.setTradeNo(credit.getTradeNo());
+        transactionService.updateTransaction(credit.getId(), changed);
+
+        accountBalanceLedger.rebuild();
+
+        assertEquals(new BigDecimal("80.00"), balance());
+    }
+
+    private BigDecimal balance() {
+        Map<String, BigDecimal> balances = accountBalanceLedger.findBalances(ACCOUNT).orElseThrow();
+        return balances.get("CNY");
+    }
+
+    private static Transaction transaction(DebitCredit debitCredit, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setTradeNo(String.valueOf(tradeNumbers.incrementAndGet()));
+        transaction.setAccountNumber(ACCOUNT);
+        transaction.setAccountName("david");
+        transaction.setPayeeAccount("9876543210987654");
+        transaction.setPayeeName("Tom");
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setCurrency("CNY");
+        transaction.setType(debitCredit == DebitCredit.DEBIT ? TransactionType.WITHDRAWAL : TransactionType.DEPOSIT);
+        transaction.setDebitCredit(debitCredit);
+        return transaction;
+    }
+}
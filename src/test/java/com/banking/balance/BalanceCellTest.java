@@ -0,0 +1,147 @@
+package com.banking.balance;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BalanceCell unit test: CAS mode, promotion to striped counters, exact sums under concurrent adds
+ */
+public class BalanceCellTest {
+
+    private static final int THREADS = 8;
+    private static final int ADDS_PER_THREAD = 50_000;
+
+    @Test
+    @DisplayName("Uncontended adds stay on the CAS counter and sum exactly")
+    void testAdd_Uncontended() {
+        HotAccountPolicy policy = new HotAccountPolicy(1, 1000);
+        BalanceCell cell = new BalanceCell(100, policy);
+
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(cell.add(i % 2 == 0 ? 7 : -3));
+        }
+
+        assertFalse(cell.isPromoted());
+        assertEquals(100 + 500 * 4, cell.get());
+        assertEquals(0, cell.getCasRetries());
+        assertEquals(0, policy.getCasRetries());
+    }
+
+    @Test
+    @DisplayName("A contended cell is promoted to striped counters once, and keeps its balance")
+    void testAdd_PromotedWhenContended() throws Exception {
+        HotAccountPolicy policy = new HotAccountPolicy(1, 1000);
+        BalanceCell cell = new BalanceCell(1_000, policy);
+        AtomicInteger promotions = new AtomicInteger();
+        AtomicLong added = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        //a failed CAS needs a real collision, the writers spin until one happened
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    long count = 0;
+                    while (!cell.isPromoted() && System.nanoTime() < deadline) {
+                        if (cell.add(1)) {
+                            promotions.incrementAndGet();
+                        }
+                        count++;
+                    }
+                    added.addAndGet(count);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(cell.isPromoted());
+        assertEquals(1, promotions.get());
+        assertTrue(cell.getCasRetries() >= 1);
+        assertEquals(cell.getCasRetries(), policy.getCasRetries());
+        assertEquals(1_000 + added.get(), cell.get());
+
+        assertFalse(cell.add(-1_000));
+        assertEquals(added.get(), cell.get());
+    }
+
+    @Test
+    @DisplayName("Concurrent adds sum exactly, a snapshot read meanwhile stays within bounds")
+    void testAdd_ExactUnderConcurrentSnapshot() throws Exception {
+        BalanceCell cell = new BalanceCell(0, new HotAccountPolicy(16, 1000));
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Long> snapshots = new ArrayList<>();
+        Thread reader = new Thread(() -> {
+            while (writing.get()) {
+                snapshots.add(cell.get());
+            }
+        });
+        reader.start();
+
+        long expected = addConcurrently(cell, 3, writing);
+        reader.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertEquals((long) THREADS * ADDS_PER_THREAD * 3, expected);
+        assertEquals(expected, cell.get());
+        assertFalse(snapshots.isEmpty());
+        for (long snapshot : snapshots) {
+            assertTrue(snapshot >= 0 && snapshot <= expected, "snapshot " + snapshot);
+            assertEquals(0, snapshot % 3, "a snapshot never holds part of an add");
+        }
+    }
+
+    @Test
+    @DisplayName("The contention threshold must be at least 1")
+    void testPolicy_InvalidThreshold() {
+        assertThrows(IllegalStateException.class, () -> new HotAccountPolicy(0, 1000));
+    }
+
+    /**
+     * Add the delta from all the threads at once, returns the total added. Clears the writing flag when done.
+     */
+    private static long addConcurrently(BalanceCell cell, long delta, AtomicBoolean writing) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                        cell.add(delta);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            return THREADS * ADDS_PER_THREAD * delta;
+        } finally {
+            writing.set(false);
+            executor.shutdownNow();
+        }
+    }
+}
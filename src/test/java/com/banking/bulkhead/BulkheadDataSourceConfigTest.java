@@ -0,0 +1,97 @@
+package com.banking.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BulkheadDataSourceConfig unit test: one connection pool per workload
+ */
+public class BulkheadDataSourceConfigTest {
+
+    private HikariDataSource readDataSource;
+    private HikariDataSource writeDataSource;
+    private HikariDataSource bulkDataSource;
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl("jdbc:h2:mem:bulkhead_pools_test;DB_CLOSE_DELAY=-1");
+        dataSourceProperties.setUsername("sa");
+        dataSourceProperties.afterPropertiesSet();
+        BulkheadProperties properties = new BulkheadProperties();
+        properties.getRead().setPoolSize(2);
+        properties.getWrite().setPoolSize(2);
+        properties.getBulk().setPoolSize(1);
+
+        BulkheadDataSourceConfig config = new BulkheadDataSourceConfig();
+        ReflectionTestUtils.setField(config, "properties", properties);
+        ReflectionTestUtils.setField(config, "dataSourceProperties", dataSourceProperties);
+        readDataSource = config.readDataSource();
+        writeDataSource = config.writeDataSource();
+        bulkDataSource = config.bulkDataSource();
+        //the shortest wait Hikari allows, a full pool fails fast
+        bulkDataSource.setConnectionTimeout(250);
+        dataSource = config.dataSource(readDataSource, writeDataSource, bulkDataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        BulkheadContext.clear();
+        readDataSource.close();
+        writeDataSource.close();
+        bulkDataSource.close();
+    }
+
+    @Test
+    @DisplayName("Each workload takes its connections from its own pool, work outside a request from the bulk pool")
+    void testConnection_PoolPerWorkload() throws Exception {
+        assertEquals(1, activeAfterConnect(Workload.READ, readDataSource));
+        assertEquals(1, activeAfterConnect(Workload.WRITE, writeDataSource));
+        assertEquals(1, activeAfterConnect(Workload.BULK, bulkDataSource));
+        assertEquals(1, activeAfterConnect(null, bulkDataSource));
+        assertEquals("bulkhead-read", readDataSource.getPoolName());
+        assertEquals(1, bulkDataSource.getMaximumPoolSize());
+    }
+
+    @Test
+    @DisplayName("A full bulk pool fails the bulk work without blocking reads and writes")
+    void testConnection_FullBulkPoolIsolated() throws Exception {
+        BulkheadContext.set(Workload.BULK);
+        try (Connection held = dataSource.getConnection()) {
+            assertThrows(SQLException.class, dataSource::getConnection);
+
+            for (Workload workload : new Workload[]{Workload.READ, Workload.WRITE}) {
+                BulkheadContext.set(workload);
+                long start = System.nanoTime();
+                try (Connection connection = dataSource.getConnection()) {
+                    assertTrue(connection.isValid(1));
+                }
+                assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(200), workload + " did not wait");
+            }
+        }
+    }
+
+    private int activeAfterConnect(Workload workload, HikariDataSource expectedPool) throws Exception {
+        if (workload == null) {
+            BulkheadContext.clear();
+        } else {
+            BulkheadContext.set(workload);
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            return expectedPool.getHikariPoolMXBean().getActiveConnections();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.banking.bulkhead;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WorkloadBulkhead unit test
+ */
+public class WorkloadBulkheadTest {
+
+    @Test
+    @DisplayName("A full bulkhead without wait rejects at once, a release frees the slot")
+    void testTryAcquire_FullNoWait() {
+        WorkloadBulkhead bulkhead = new WorkloadBulkhead(Workload.BULK, partition(2, 0));
+
+        assertTrue(bulkhead.tryAcquire());
+        assertTrue(bulkhead.tryAcquire());
+        assertFalse(bulkhead.tryAcquire());
+        assertEquals(2, bulkhead.getActive());
+        assertEquals(1.0, bulkhead.getSaturation());
+
+        bulkhead.release();
+        assertTrue(bulkhead.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("A full bulkhead rejects after max-wait-ms")
+    void testTryAcquire_FullAfterWait() {
+        WorkloadBulkhead bulkhead = new WorkloadBulkhead(Workload.BULK, partition(1, 50));
+        bulkhead.tryAcquire();
+
+        long start = System.nanoTime();
+        assertFalse(bulkhead.tryAcquire());
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    @DisplayName("A waiting request takes the slot released meanwhile")
+    void testTryAcquire_WaitsForRelease() throws Exception {
+        WorkloadBulkhead bulkhead = new WorkloadBulkhead(Workload.WRITE, partition(1, 5000));
+        bulkhead.tryAcquire();
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(bulkhead::tryAcquire);
+        while (bulkhead.getWaiting() == 0) {
+            Thread.sleep(1);
+        }
+
+        bulkhead.release();
+
+        assertTrue(waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(1, bulkhead.getActive());
+    }
+
+    @Test
+    @DisplayName("A bulkhead needs at least one slot")
+    void testConstructor_NoSlot() {
+        assertThrows(IllegalStateException.class, () -> new WorkloadBulkhead(Workload.READ, partition(0, 50)));
+    }
+
+    private static BulkheadProperties.Partition partition(int maxConcurrent, long maxWaitMs) {
+        BulkheadProperties.Partition partition = new BulkheadProperties.Partition();
+        partition.setMaxConcurrent(maxConcurrent);
+        partition.setMaxWaitMs(maxWaitMs);
+        partition.setPoolSize(1);
+        return partition;
+    }
+}
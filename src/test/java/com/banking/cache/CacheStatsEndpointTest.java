@@ -0,0 +1,95 @@
+package com.banking.cache;
+
+import com.banking.config.AppCacheProperties;
+import com.banking.config.CacheConfig;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CacheStatsEndpoint and MicrometerStatsCounter unit test: statistics and meters of each cache
+ */
+public class CacheStatsEndpointTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CaffeineCacheManager cacheManager;
+    private CacheStatsEndpoint cacheStatsEndpoint;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new CaffeineCacheManager();
+        for (String cacheName : new String[]{CacheConfig.TRANSACTION_BY_ID, CacheConfig.MISSING_TRANSACTION_BY_ID}) {
+            //evictions applied on the calling thread, the counts are exact when the test reads them
+            cacheManager.registerCustomCache(cacheName, Caffeine.newBuilder()
+                    .maximumSize(2)
+                    .executor(Runnable::run)
+                    .recordStats(() -> new MicrometerStatsCounter(cacheName, meterRegistry))
+                    .build());
+        }
+        cacheStatsEndpoint = new CacheStatsEndpoint();
+        ReflectionTestUtils.setField(cacheStatsEndpoint, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(cacheStatsEndpoint, "cacheProperties", new AppCacheProperties());
+    }
+
+    @Test
+    @DisplayName("Hits, misses, loads and size evictions are reported for their own cache only")
+    void testCacheStats_PerCache() {
+        Cache byId = cacheManager.getCache(CacheConfig.TRANSACTION_BY_ID);
+        assertNull(byId.get(1L));
+        assertEquals("transaction-1", byId.get(1L, () -> "transaction-1"));
+        assertNotNull(byId.get(1L));
+        byId.put(2L, "transaction-2");
+        byId.put(3L, "transaction-3");
+        ((CaffeineCache) byId).getNativeCache().cleanUp();
+
+        Map<String, Map<String, Object>> stats = cacheStatsEndpoint.cacheStats();
+
+        Map<String, Object> byIdStats = stats.get(CacheConfig.TRANSACTION_BY_ID);
+        assertEquals(1L, byIdStats.get("hitCount"));
+        assertEquals(2L, byIdStats.get("missCount"));
+        assertEquals(1L, byIdStats.get("loadSuccessCount"));
+        assertEquals(1L, byIdStats.get("evictionCount"));
+        assertEquals(2L, byIdStats.get("estimatedSize"));
+        assertNotNull(byIdStats.get("spec"));
+
+        Map<String, Object> missingStats = stats.get(CacheConfig.MISSING_TRANSACTION_BY_ID);
+        assertEquals(0L, missingStats.get("hitCount"));
+        assertEquals(0L, missingStats.get("missCount"));
+        assertEquals("maximumSize 10000, expireAfterWriteSeconds 5", missingStats.get("spec"));
+    }
+
+    @Test
+    @DisplayName("Evictions by cause and load latencies are published as meters tagged with the cache")
+    void testStatsCounter_Meters() {
+        Cache byId = cacheManager.getCache(CacheConfig.TRANSACTION_BY_ID);
+        byId.get(1L, () -> "transaction-1");
+        assertThrows(Cache.ValueRetrievalException.class, () -> byId.get(2L, () -> {
+            throw new IllegalStateException("DB down");
+        }));
+        byId.put(2L, "transaction-2");
+        byId.put(3L, "transaction-3");
+        ((CaffeineCache) byId).getNativeCache().cleanUp();
+
+        assertEquals(1, meterRegistry.get("transaction.cache.load.duration")
+                .tag("cache", CacheConfig.TRANSACTION_BY_ID).tag("result", "success").timer().count());
+        assertEquals(1, meterRegistry.get("transaction.cache.load.duration")
+                .tag("cache", CacheConfig.TRANSACTION_BY_ID).tag("result", "failure").timer().count());
+        assertEquals(1, meterRegistry.get("transaction.cache.evictions")
+                .tag("cache", CacheConfig.TRANSACTION_BY_ID).tag("cause", "SIZE").counter().count());
+        assertEquals(0, meterRegistry.get("transaction.cache.evictions")
+                .tag("cache", CacheConfig.MISSING_TRANSACTION_BY_ID).tag("cause", "SIZE").counter().count());
+        assertEquals(0, meterRegistry.get("transaction.cache.load.duration")
+                .tag("cache", CacheConfig.MISSING_TRANSACTION_BY_ID).tag("result", "success").timer().count());
+    }
+}
@@ -0,0 +1,139 @@
+package com.banking.cache;
+
+import com.banking.config.CacheConfig;
+import com.banking.model.Transaction;
+import com.banking.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * CacheWarmer unit test
+ */
+public class CacheWarmerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private CacheWarmer cacheWarmer;
+    private TransactionRepository transactionRepository;
+    private ConcurrentMapCacheManager cacheManager;
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = mock(TransactionRepository.class);
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.TRANSACTION_BY_ID, CacheConfig.TRANSACTION_BY_TRADE_NO);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        cacheWarmer = new CacheWarmer();
+        ReflectionTestUtils.setField(cacheWarmer, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(cacheWarmer, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(cacheWarmer, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(cacheWarmer, "enabled", true);
+        ReflectionTestUtils.setField(cacheWarmer, "warmupSize", 10);
+        ReflectionTestUtils.setField(cacheWarmer, "batchSize", 5);
+        ReflectionTestUtils.setField(cacheWarmer, "parallelism", 2);
+        ReflectionTestUtils.setField(cacheWarmer, "timeoutSeconds", 10);
+        ReflectionTestUtils.setField(cacheWarmer, "snapshotFile", tempDir.resolve("hot-keys.snapshot").toString());
+    }
+
+    @Test
+    @DisplayName("Should load the latest transactions into both caches when there is no snapshot")
+    void testWarmUp_LatestTransactions() {
+        when(transactionRepository.findAllBy(any(Pageable.class)))
+                .thenAnswer(invocation -> new SliceImpl<>(transactions(((Pageable) invocation.getArgument(0)).getPageNumber() * 5L + 1, 5)));
+
+        cacheWarmer.warmUp();
+
+        assertEquals(CacheWarmer.State.COMPLETED, cacheWarmer.getState());
+        assertEquals(10, cacheWarmer.getLoadedCount());
+        assertNotNull(cacheManager.getCache(CacheConfig.TRANSACTION_BY_ID).get(10L));
+        assertNotNull(cacheManager.getCache(CacheConfig.TRANSACTION_BY_TRADE_NO).get(tradeNo(10L)));
+    }
+
+    @Test
+    @DisplayName("Should load the ids of the hot-key snapshot")
+    void testWarmUp_FromSnapshot() throws Exception {
+        Files.write(tempDir.resolve("hot-keys.snapshot"), List.of("7", "8"));
+        when(transactionRepository.findAllById(List.of(7L, 8L))).thenReturn(transactions(7, 2));
+
+        cacheWarmer.warmUp();
+
+        assertEquals(2, cacheWarmer.getLoadedCount());
+        assertNotNull(cacheManager.getCache(CacheConfig.TRANSACTION_BY_ID).get(8L));
+        verify(transactionRepository, never()).findAllBy(any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("After a failover, readiness refuses traffic while the caches are loaded again")
+    @SuppressWarnings("unchecked")
+    void testWarmUpAfterFailover_RefusesTrafficUntilDone() throws Exception {
+        Files.write(tempDir.resolve("hot-keys.snapshot"), List.of("3"));
+        when(transactionRepository.findAllById(List.of(3L))).thenReturn(transactions(3, 1));
+
+        assertEquals(CacheWarmer.State.COMPLETED, cacheWarmer.warmUpAfterFailover());
+
+        ArgumentCaptor<AvailabilityChangeEvent<ReadinessState>> events = ArgumentCaptor.forClass(AvailabilityChangeEvent.class);
+        InOrder inOrder = inOrder(eventPublisher, transactionRepository);
+        inOrder.verify(eventPublisher).publishEvent(events.capture());
+        inOrder.verify(transactionRepository).findAllById(List.of(3L));
+        inOrder.verify(eventPublisher).publishEvent(events.capture());
+        assertEquals(List.of(ReadinessState.REFUSING_TRAFFIC, ReadinessState.ACCEPTING_TRAFFIC),
+                events.getAllValues().stream().map(AvailabilityChangeEvent::getState).toList());
+        assertNotNull(cacheManager.getCache(CacheConfig.TRANSACTION_BY_ID).get(3L));
+    }
+
+    @Test
+    @DisplayName("A failed warm-up still accepts traffic again")
+    void testWarmUpAfterFailover_Failure() {
+        when(transactionRepository.findAllBy(any(Pageable.class))).thenThrow(new IllegalStateException("DB down"));
+
+        assertEquals(CacheWarmer.State.FAILED, cacheWarmer.warmUpAfterFailover());
+        verify(eventPublisher, times(2)).publishEvent(any(AvailabilityChangeEvent.class));
+    }
+
+    @Test
+    @DisplayName("Disabled warm-up does nothing, at startup or after a failover")
+    void testDisabled() {
+        ReflectionTestUtils.setField(cacheWarmer, "enabled", false);
+
+        cacheWarmer.run(null);
+        assertEquals(CacheWarmer.State.DISABLED, cacheWarmer.getState());
+        assertEquals(CacheWarmer.State.DISABLED, cacheWarmer.warmUpAfterFailover());
+        cacheWarmer.writeSnapshot();
+
+        verifyNoInteractions(transactionRepository, eventPublisher);
+        assertFalse(Files.exists(tempDir.resolve("hot-keys.snapshot")));
+    }
+
+    private static List<Transaction> transactions(long firstId, int count) {
+        return java.util.stream.LongStream.range(firstId, firstId + count).mapToObj(id -> {
+            Transaction transaction = new Transaction();
+            transaction.setId(id);
+            transaction.setTradeNo(tradeNo(id));
+            return transaction;
+        }).toList();
+    }
+
+    private static String tradeNo(long id) {
+        return String.valueOf(100000000000000000L + id);
+    }
+}
@@ -0,0 +1,173 @@
+package com.banking.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SingleFlight unit test
+ */
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight<Long, String> singleFlight;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>("test", meterRegistry);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Concurrent misses of one key run the loader once and all get its value")
+    void testLoad_ConcurrentMissesCoalesced() throws Exception {
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = callConcurrently(() -> singleFlight.load(1L, () -> {
+            loaderCalls.incrementAndGet();
+            awaitQuietly(release);
+            return "transaction-1";
+        }));
+        awaitCollapsed(CALLERS - 1);
+        assertEquals(1, singleFlight.inFlightCount());
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("transaction-1", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loaderCalls.get());
+        assertEquals(1, loads("leader"));
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    @DisplayName("A loader failure reaches every waiter, and the key is released for the next load")
+    void testLoad_FailureReachesEveryWaiter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("DB down");
+
+        List<Future<String>> results = callConcurrently(() -> singleFlight.load(1L, () -> {
+            awaitQuietly(release);
+            throw failure;
+        }));
+        awaitCollapsed(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertSame(failure, e.getCause());
+        }
+        assertEquals(0, singleFlight.inFlightCount());
+        assertEquals(1, meterRegistry.get("transaction.cache.load.duration").tag("result", "failure").timer().count());
+
+        //not remembered, the next miss loads again
+        assertEquals("transaction-1", singleFlight.load(1L, () -> "transaction-1"));
+        assertEquals(2, loads("leader"));
+    }
+
+    @Test
+    @DisplayName("An Error of the loader reaches every waiter instead of blocking them")
+    void testLoad_ErrorReachesEveryWaiter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StackOverflowError failure = new StackOverflowError("deep mapping");
+
+        List<Future<String>> results = callConcurrently(() -> singleFlight.load(1L, () -> {
+            awaitQuietly(release);
+            throw failure;
+        }));
+        awaitCollapsed(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertSame(failure, e.getCause());
+        }
+        assertEquals(0, singleFlight.inFlightCount());
+        assertEquals(1, meterRegistry.get("transaction.cache.load.duration").tag("result", "failure").timer().count());
+    }
+
+    @Test
+    @DisplayName("Different keys load independently, and sequential loads of one key each run the loader")
+    void testLoad_NotACache() {
+        AtomicInteger loaderCalls = new AtomicInteger();
+
+        assertEquals("a", singleFlight.load(1L, () -> { loaderCalls.incrementAndGet(); return "a"; }));
+        assertEquals("b", singleFlight.load(2L, () -> { loaderCalls.incrementAndGet(); return "b"; }));
+        assertEquals("a", singleFlight.load(1L, () -> { loaderCalls.incrementAndGet(); return "a"; }));
+
+        assertEquals(3, loaderCalls.get());
+        assertEquals(0, loads("collapsed"));
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    @DisplayName("A null value is returned to the waiters, for a key that does not exist")
+    void testLoad_NullValue() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = callConcurrently(() -> singleFlight.load(9L, () -> {
+            awaitQuietly(release);
+            return null;
+        }));
+        awaitCollapsed(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertNull(result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    private List<Future<String>> callConcurrently(java.util.concurrent.Callable<String> call) {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(call));
+        }
+        return results;
+    }
+
+    //the leader holds the load until every other caller joined it
+    private void awaitCollapsed(int collapsed) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (loads("collapsed") < collapsed) {
+            assertTrue(System.currentTimeMillis() < deadline, "callers did not join the in-flight load");
+            Thread.sleep(5);
+        }
+    }
+
+    private double loads(String outcome) {
+        return meterRegistry.get("transaction.cache.loads").tag("outcome", outcome).counter().count();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.banking.cache;
+
+import com.banking.config.CacheConfig;
+import com.banking.model.Transaction;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * TransactionCacheLoader unit test: refresh-ahead reloads of the transaction cache
+ */
+public class TransactionCacheLoaderTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private TransactionLoader transactionLoader;
+    private ObjectProvider<TransactionLoader> loaderProvider;
+    private Transaction stored;
+    private Transaction fresh;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transactionLoader = mock(TransactionLoader.class);
+        loaderProvider = mock(ObjectProvider.class);
+        when(loaderProvider.getObject()).thenReturn(transactionLoader);
+        stored = transaction("stored");
+        fresh = transaction("fresh");
+    }
+
+    @Test
+    @DisplayName("A reload returns the row read from the DB, a deleted row returns null")
+    void testReload_FreshOrRemoved() {
+        TransactionCacheLoader loader = new TransactionCacheLoader(CacheConfig.TRANSACTION_BY_ID, loaderProvider, Runnable::run, meterRegistry);
+        when(transactionLoader.reloadById(1L)).thenReturn(Optional.of(fresh));
+
+        assertSame(fresh, loader.reload(1L, stored));
+
+        when(transactionLoader.reloadById(1L)).thenReturn(Optional.empty());
+        assertNull(loader.reload(1L, stored));
+        assertEquals(1, refreshes("success"));
+        assertEquals(1, refreshes("removed"));
+    }
+
+    @Test
+    @DisplayName("The trade number cache reloads by trade number")
+    void testReload_ByTradeNo() {
+        TransactionCacheLoader loader = new TransactionCacheLoader(CacheConfig.TRANSACTION_BY_TRADE_NO, loaderProvider, Runnable::run, meterRegistry);
+        when(transactionLoader.reloadByTradeNo("123456789012345654")).thenReturn(Optional.of(fresh));
+
+        assertSame(fresh, loader.reload("123456789012345654", stored));
+        verify(transactionLoader, never()).reloadById(any());
+    }
+
+    @Test
+    @DisplayName("An entry past the refresh interval is replaced by the reloaded row")
+    void testRefresh_Replaced() {
+        LoadingCache<Object, Object> cache = cache(Runnable::run);
+        when(transactionLoader.reloadById(1L)).thenReturn(Optional.of(fresh));
+
+        cache.get(1L);
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        cache.get(1L);
+
+        assertSame(fresh, cache.policy().getIfPresentQuietly(1L));
+        verify(transactionLoader).loadById(1L);
+    }
+
+    @Test
+    @DisplayName("A refresh finding no row removes the entry")
+    void testRefresh_DeletedRowRemoved() {
+        LoadingCache<Object, Object> cache = cache(Runnable::run);
+        when(transactionLoader.reloadById(1L)).thenReturn(Optional.empty());
+
+        cache.get(1L);
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        cache.get(1L);
+
+        assertNull(cache.policy().getIfPresentQuietly(1L));
+        assertEquals(1, refreshes("removed"));
+    }
+
+    @Test
+    @DisplayName("A failed refresh keeps the current value")
+    void testRefresh_FailureKeepsValue() {
+        LoadingCache<Object, Object> cache = cache(Runnable::run);
+        when(transactionLoader.reloadById(1L)).thenThrow(new IllegalStateException("DB down"));
+
+        cache.get(1L);
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+
+        assertSame(stored, cache.get(1L));
+        assertSame(stored, cache.policy().getIfPresentQuietly(1L));
+        assertEquals(1, refreshes("failure"));
+    }
+
+    @Test
+    @DisplayName("A refresh rejected by the saturated pool keeps the current value")
+    void testRefresh_RejectedKeepsValue() {
+        LoadingCache<Object, Object> cache = cache(command -> {
+            throw new RejectedExecutionException("queue full");
+        });
+
+        cache.get(1L);
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+
+        assertSame(stored, cache.get(1L));
+        assertSame(stored, cache.policy().getIfPresentQuietly(1L));
+        assertEquals(1, refreshes("rejected"));
+        verify(transactionLoader, never()).reloadById(any());
+    }
+
+    private LoadingCache<Object, Object> cache(Executor refreshExecutor) {
+        when(transactionLoader.loadById(1L)).thenReturn(Optional.of(stored));
+        return Caffeine.newBuilder()
+                .refreshAfterWrite(1, TimeUnit.MINUTES)
+                .ticker(nanos::get)
+                .executor(Runnable::run)
+                .build(new TransactionCacheLoader(CacheConfig.TRANSACTION_BY_ID, loaderProvider, refreshExecutor, meterRegistry));
+    }
+
+    private double refreshes(String result) {
+        return meterRegistry.get("transaction.cache.refreshes").tag("result", result).counter().count();
+    }
+
+    private static Transaction transaction(String description) {
+        Transaction transaction = new Transaction();
+        transaction.setId(1L);
+        transaction.setTradeNo("123456789012345654");
+        transaction.setDescription(description);
+        return transaction;
+    }
+}
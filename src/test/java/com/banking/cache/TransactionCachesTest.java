@@ -0,0 +1,164 @@
+package com.banking.cache;
+
+import com.banking.cache.invalidation.CacheInvalidationBroadcaster;
+import com.banking.cache.offheap.OffHeapTransactionStore;
+import com.banking.config.CacheConfig;
+import com.banking.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * TransactionCaches unit test: cache maintenance runs after commit, never on rollback
+ */
+public class TransactionCachesTest {
+
+    private TransactionCaches transactionCaches;
+    private CacheInvalidationBroadcaster broadcaster;
+    private Cache byId;
+    private Cache byTradeNo;
+    private Cache missingById;
+    private TransactionTemplate transactionTemplate;
+    private Transaction transaction;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.TRANSACTION_BY_ID,
+                CacheConfig.TRANSACTION_BY_TRADE_NO, CacheConfig.MISSING_TRANSACTION_BY_ID, CacheConfig.MISSING_TRANSACTION_BY_TRADE_NO);
+        byId = cacheManager.getCache(CacheConfig.TRANSACTION_BY_ID);
+        byTradeNo = cacheManager.getCache(CacheConfig.TRANSACTION_BY_TRADE_NO);
+        missingById = cacheManager.getCache(CacheConfig.MISSING_TRANSACTION_BY_ID);
+        broadcaster = mock(CacheInvalidationBroadcaster.class);
+        ObjectProvider<OffHeapTransactionStore> noOffHeapStore = mock(ObjectProvider.class);
+
+        transactionCaches = new TransactionCaches();
+        ReflectionTestUtils.setField(transactionCaches, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(transactionCaches, "broadcaster", broadcaster);
+        ReflectionTestUtils.setField(transactionCaches, "offHeapStore", noOffHeapStore);
+        transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+
+        transaction = new Transaction();
+        transaction.setId(1L);
+        transaction.setTradeNo("123456789012345654");
+    }
+
+    @Test
+    @DisplayName("A write-through put reaches the caches only after commit")
+    void testPut_AfterCommit() {
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionCaches.put(transaction);
+            assertNull(byId.get(1L));
+            assertNull(byTradeNo.get("123456789012345654"));
+            verifyNoInteractions(broadcaster);
+        });
+
+        assertSame(transaction, byId.get(1L).get());
+        assertSame(transaction, byTradeNo.get("123456789012345654").get());
+        verify(broadcaster).publish(CacheConfig.TRANSACTION_BY_ID, 1L);
+        verify(broadcaster).publish(CacheConfig.TRANSACTION_BY_TRADE_NO, "123456789012345654");
+    }
+
+    @Test
+    @DisplayName("An eviction runs only after commit, a concurrent reader still sees the committed value before")
+    void testEvict_AfterCommit() {
+        byId.put(1L, transaction);
+        byTradeNo.put("123456789012345654", transaction);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionCaches.evict(1L, "123456789012345654");
+            assertNotNull(byId.get(1L));
+            assertNotNull(byTradeNo.get("123456789012345654"));
+        });
+
+        assertNull(byId.get(1L));
+        assertNull(byTradeNo.get("123456789012345654"));
+        verify(broadcaster).publish(CacheConfig.TRANSACTION_BY_ID, 1L);
+        verify(broadcaster).publish(CacheConfig.TRANSACTION_BY_TRADE_NO, "123456789012345654");
+    }
+
+    @Test
+    @DisplayName("A rolled back create neither populates the caches nor forgets the missing keys")
+    void testRollback_NotPopulated() {
+        missingById.put(1L, Boolean.TRUE);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionCaches.forgetMissing(1L, "123456789012345654");
+            transactionCaches.put(transaction);
+            status.setRollbackOnly();
+        });
+
+        assertNull(byId.get(1L));
+        assertNull(byTradeNo.get("123456789012345654"));
+        assertNotNull(missingById.get(1L));
+        verifyNoInteractions(broadcaster);
+    }
+
+    @Test
+    @DisplayName("A rolled back delete does not invalidate the caches, locally or on the peers")
+    void testRollback_NotInvalidated() {
+        byId.put(1L, transaction);
+        byTradeNo.put("123456789012345654", transaction);
+
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            transactionCaches.evict(1L, "123456789012345654");
+            throw new IllegalStateException("constraint violation");
+        }));
+
+        assertSame(transaction, byId.get(1L).get());
+        assertSame(transaction, byTradeNo.get("123456789012345654").get());
+        verifyNoInteractions(broadcaster);
+    }
+
+    @Test
+    @DisplayName("Without a transaction the maintenance runs immediately")
+    void testNoTransaction_Immediate() {
+        transactionCaches.put(transaction);
+        assertSame(transaction, byId.get(1L).get());
+
+        transactionCaches.evict(1L, "123456789012345654");
+        assertNull(byId.get(1L));
+    }
+
+    @Test
+    @DisplayName("A cache failure after commit does not fail the committed request")
+    void testAfterCommit_FailureSwallowed() {
+        doThrow(new IllegalStateException("network down")).when(broadcaster).publish(any(), any());
+
+        assertDoesNotThrow(() -> transactionTemplate.executeWithoutResult(status -> transactionCaches.evict(1L, "123456789012345654")));
+    }
+
+    /**
+     * Transaction manager without a resource, only the synchronization lifecycle runs.
+     */
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.banking.cache;
+
+import com.banking.cache.invalidation.CacheInvalidationBroadcaster;
+import com.banking.cache.offheap.OffHeapTransactionStore;
+import com.banking.config.CacheConfig;
+import com.banking.model.Transaction;
+import com.banking.repository.TransactionArchiveRepository;
+import com.banking.repository.TransactionRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * TransactionLoader unit test: negative cache of the keys not found in the DB
+ */
+public class TransactionLoaderTest {
+
+    private static final String TRADE_NO = "123456789012345654";
+
+    private final AtomicLong nanos = new AtomicLong();
+    private TransactionLoader transactionLoader;
+    private TransactionCaches transactionCaches;
+    private TransactionRepository transactionRepository;
+    private TransactionArchiveRepository transactionArchiveRepository;
+    private Transaction transaction;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        for (String cacheName : new String[]{CacheConfig.MISSING_TRANSACTION_BY_ID, CacheConfig.MISSING_TRANSACTION_BY_TRADE_NO}) {
+            cacheManager.registerCustomCache(cacheName, Caffeine.newBuilder()
+                    .expireAfterWrite(5, TimeUnit.SECONDS)
+                    .ticker(nanos::get)
+                    .build());
+        }
+        ObjectProvider<OffHeapTransactionStore> noOffHeapStore = mock(ObjectProvider.class);
+        transactionCaches = new TransactionCaches();
+        ReflectionTestUtils.setField(transactionCaches, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(transactionCaches, "broadcaster", mock(CacheInvalidationBroadcaster.class));
+        ReflectionTestUtils.setField(transactionCaches, "offHeapStore", noOffHeapStore);
+
+        transactionRepository = mock(TransactionRepository.class);
+        transactionArchiveRepository = mock(TransactionArchiveRepository.class);
+        transactionLoader = new TransactionLoader();
+        ReflectionTestUtils.setField(transactionLoader, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(transactionLoader, "transactionArchiveRepository", transactionArchiveRepository);
+        ReflectionTestUtils.setField(transactionLoader, "transactionCaches", transactionCaches);
+        ReflectionTestUtils.setField(transactionLoader, "meterRegistry", new SimpleMeterRegistry());
+        transactionLoader.initSingleFlight();
+
+        transaction = new Transaction();
+        transaction.setId(1L);
+        transaction.setTradeNo(TRADE_NO);
+    }
+
+    @Test
+    @DisplayName("A miss is remembered, the next lookup of the key does not reach the DB")
+    void testLoad_MissRemembered() {
+        assertTrue(transactionLoader.loadById(1L).isEmpty());
+        assertTrue(transactionLoader.loadById(1L).isEmpty());
+        assertTrue(transactionLoader.loadByTradeNo(TRADE_NO).isEmpty());
+        assertTrue(transactionLoader.loadByTradeNo(TRADE_NO).isEmpty());
+
+        verify(transactionRepository, times(1)).findById(1L);
+        verify(transactionArchiveRepository, times(1)).findById(1L);
+        verify(transactionRepository, times(1)).findByTradeNo(TRADE_NO);
+        verify(transactionArchiveRepository, times(1)).findByTradeNo(TRADE_NO);
+    }
+
+    @Test
+    @DisplayName("The create forgets the remembered miss after commit, the key is then loaded from the DB")
+    void testForgetMissing_AfterCommit() {
+        transactionLoader.loadById(1L);
+        transactionLoader.loadByTradeNo(TRADE_NO);
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(transaction));
+        when(transactionRepository.findByTradeNo(TRADE_NO)).thenReturn(Optional.of(transaction));
+
+        new TransactionTemplate(new NoOpTransactionManager()).executeWithoutResult(status -> {
+            transactionCaches.forgetMissing(1L, TRADE_NO);
+            //not committed yet, the miss still holds
+            assertTrue(transactionLoader.loadById(1L).isEmpty());
+        });
+
+        assertSame(transaction, transactionLoader.loadById(1L).orElseThrow());
+        assertSame(transaction, transactionLoader.loadByTradeNo(TRADE_NO).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("A remembered miss expires after its TTL")
+    void testLoad_MissExpires() {
+        transactionLoader.loadById(1L);
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(transaction));
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(4));
+        assertTrue(transactionLoader.loadById(1L).isEmpty());
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertSame(transaction, transactionLoader.loadById(1L).orElseThrow());
+        verify(transactionRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("A create committed while the lookup ran is not hidden by the stale miss")
+    void testLoad_ForgottenDuringLookup() {
+        //the create commits after the DB answered, before the loader remembers the miss
+        when(transactionArchiveRepository.findById(1L)).thenAnswer(invocation -> {
+            transactionCaches.forgetMissing(1L, TRADE_NO);
+            return Optional.empty();
+        });
+        assertTrue(transactionLoader.loadById(1L).isEmpty());
+
+        assertFalse(transactionCaches.isKnownMissing(CacheConfig.MISSING_TRANSACTION_BY_ID, 1L));
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(transaction));
+        assertSame(transaction, transactionLoader.loadById(1L).orElseThrow());
+    }
+
+    /**
+     * Transaction manager without a resource, only the synchronization lifecycle runs.
+     */
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
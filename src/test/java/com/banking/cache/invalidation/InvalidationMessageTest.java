@@ -0,0 +1,59 @@
+package com.banking.cache.invalidation;
+
+import com.banking.config.CacheConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InvalidationMessage unit test: wire format
+ */
+public class InvalidationMessageTest {
+
+    @Test
+    @DisplayName("A Long key (id) survives encode and decode with its type")
+    void testEncodeDecode_LongKey() {
+        InvalidationMessage message = new InvalidationMessage("node-1", CacheConfig.TRANSACTION_BY_ID, 372036854775807001L);
+
+        byte[] data = message.encode();
+
+        assertEquals("node-1|transaction-by-id|L|372036854775807001", new String(data, StandardCharsets.UTF_8));
+        InvalidationMessage decoded = InvalidationMessage.decode(data, data.length);
+        assertEquals(message, decoded);
+        assertInstanceOf(Long.class, decoded.key());
+    }
+
+    @Test
+    @DisplayName("A String key (trade number) stays a String, even when it is all digits")
+    void testEncodeDecode_StringKey() {
+        InvalidationMessage message = new InvalidationMessage("node-1", CacheConfig.TRANSACTION_BY_TRADE_NO, "123456789012345654");
+
+        byte[] data = message.encode();
+        InvalidationMessage decoded = InvalidationMessage.decode(data, data.length);
+
+        assertEquals(message, decoded);
+        assertInstanceOf(String.class, decoded.key());
+    }
+
+    @Test
+    @DisplayName("Only the received length of the packet buffer is decoded")
+    void testDecode_PacketLength() {
+        byte[] encoded = new InvalidationMessage("node-1", CacheConfig.TRANSACTION_BY_ID, 7L).encode();
+        byte[] buffer = new byte[512];
+        System.arraycopy(encoded, 0, buffer, 0, encoded.length);
+        buffer[encoded.length] = '9';
+
+        assertEquals(7L, InvalidationMessage.decode(buffer, encoded.length).key());
+    }
+
+    @Test
+    @DisplayName("A malformed message is rejected")
+    void testDecode_Malformed() {
+        byte[] data = "node-1|transaction-by-id".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IllegalArgumentException.class, () -> InvalidationMessage.decode(data, data.length));
+    }
+}
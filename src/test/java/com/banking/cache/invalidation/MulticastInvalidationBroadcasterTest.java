@@ -0,0 +1,85 @@
+package com.banking.cache.invalidation;
+
+import com.banking.cache.TransactionCaches;
+import com.banking.cache.offheap.OffHeapTransactionStore;
+import com.banking.config.CacheConfig;
+import com.banking.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * MulticastInvalidationBroadcaster unit test: received invalidations applied to the local caches, without a socket
+ */
+public class MulticastInvalidationBroadcasterTest {
+
+    private static final String TRADE_NO = "123456789012345654";
+
+    private MulticastInvalidationBroadcaster broadcaster;
+    private Cache byId;
+    private Cache byTradeNo;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        broadcaster = new MulticastInvalidationBroadcaster();
+        ReflectionTestUtils.setField(broadcaster, "nodeId", "node-1");
+
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.TRANSACTION_BY_ID,
+                CacheConfig.TRANSACTION_BY_TRADE_NO);
+        byId = cacheManager.getCache(CacheConfig.TRANSACTION_BY_ID);
+        byTradeNo = cacheManager.getCache(CacheConfig.TRANSACTION_BY_TRADE_NO);
+        TransactionCaches transactionCaches = new TransactionCaches();
+        ReflectionTestUtils.setField(transactionCaches, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(transactionCaches, "broadcaster", broadcaster);
+        ReflectionTestUtils.setField(transactionCaches, "offHeapStore", mock(ObjectProvider.class));
+        ReflectionTestUtils.invokeMethod(transactionCaches, "subscribe");
+
+        Transaction transaction = new Transaction();
+        transaction.setId(1L);
+        transaction.setTradeNo(TRADE_NO);
+        byId.put(1L, transaction);
+        byTradeNo.put(TRADE_NO, transaction);
+    }
+
+    @Test
+    @DisplayName("An invalidation from a peer evicts the local entry of its cache")
+    void testDeliver_PeerEvicts() {
+        broadcaster.deliver(received(new InvalidationMessage("node-2", CacheConfig.TRANSACTION_BY_ID, 1L)));
+
+        assertNull(byId.get(1L));
+        assertNotNull(byTradeNo.get(TRADE_NO));
+
+        broadcaster.deliver(received(new InvalidationMessage("node-2", CacheConfig.TRANSACTION_BY_TRADE_NO, TRADE_NO)));
+
+        assertNull(byTradeNo.get(TRADE_NO));
+    }
+
+    @Test
+    @DisplayName("The messages of this node, looped back by the group, are ignored")
+    void testDeliver_OwnMessageIgnored() {
+        broadcaster.deliver(received(new InvalidationMessage("node-1", CacheConfig.TRANSACTION_BY_ID, 1L)));
+
+        assertNotNull(byId.get(1L));
+    }
+
+    @Test
+    @DisplayName("Nothing is sent before the broadcaster is started")
+    void testPublish_NotRunning() {
+        assertDoesNotThrow(() -> broadcaster.publish(CacheConfig.TRANSACTION_BY_ID, 1L));
+        assertFalse(broadcaster.isRunning());
+    }
+
+    //through the wire format, as the receiver decodes it
+    private static InvalidationMessage received(InvalidationMessage message) {
+        byte[] data = message.encode();
+        return InvalidationMessage.decode(data, data.length);
+    }
+}
@@ -0,0 +1,80 @@
+package com.banking.cache.offheap;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OffHeapLongIndex unit test
+ */
+public class OffHeapLongIndexTest {
+
+    @Test
+    @DisplayName("Put, replace and get, -1 for an absent key")
+    void testPutGet() {
+        OffHeapLongIndex index = new OffHeapLongIndex(100);
+
+        index.put(7L, 70L);
+        index.put(8L, 80L);
+        index.put(7L, 71L);
+
+        assertEquals(71L, index.get(7L));
+        assertEquals(80L, index.get(8L));
+        assertEquals(-1L, index.get(9L));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    @DisplayName("Remove only when the key still maps to the expected value")
+    void testRemove_ExpectedValue() {
+        OffHeapLongIndex index = new OffHeapLongIndex(100);
+        index.put(7L, 70L);
+
+        index.remove(7L, 69L);
+        assertEquals(70L, index.get(7L));
+
+        index.remove(7L, 70L);
+        assertEquals(-1L, index.get(7L));
+        assertEquals(0, index.size());
+
+        //absent key, nothing to do
+        index.remove(7L, 70L);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    @DisplayName("Backward-shift deletion keeps every colliding key reachable, against a HashMap")
+    void testRemove_KeepsProbeChains() {
+        //16 slots, 12 keys: long probe chains and wrap-around
+        OffHeapLongIndex index = new OffHeapLongIndex(11);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int round = 0; round < 10_000; round++) {
+            long key = random.nextInt(24) - 12;
+            if (expected.size() < 12 && random.nextBoolean()) {
+                long value = random.nextInt(1000);
+                index.put(key, value);
+                expected.put(key, value);
+            } else if (expected.containsKey(key)) {
+                index.remove(key, expected.remove(key));
+            }
+            assertEquals(expected.size(), index.size());
+        }
+        for (long key = -12; key < 12; key++) {
+            assertEquals(expected.getOrDefault(key, -1L), index.get(key), "key " + key);
+        }
+    }
+
+    @Test
+    @DisplayName("Sized as a power of two above the entries at 0.75 load, limited to MAX_SLOTS")
+    void testCapacity() {
+        assertEquals(16 * 16, new OffHeapLongIndex(1).capacityBytes());
+        assertEquals(2048 * 16, new OffHeapLongIndex(1000).capacityBytes());
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapLongIndex(OffHeapLongIndex.MAX_SLOTS));
+    }
+}
@@ -0,0 +1,220 @@
+package com.banking.cache.offheap;
+
+import com.banking.config.AppCacheProperties;
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.enums.TransactionType;
+import com.banking.model.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OffHeapTransactionStore unit test, with 1 MB slabs
+ */
+public class OffHeapTransactionStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OffHeapTransactionStore store;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    @DisplayName("A stored transaction is found by id and by trade number")
+    void testPutGet() throws Exception {
+        store = store(2, 1000, "");
+
+        assertTrue(store.put(transaction(1L, "Test")));
+
+        Transaction byId = store.getById(1L).orElseThrow();
+        assertEquals(tradeNo(1L), byId.getTradeNo());
+        assertEquals(new BigDecimal("500.00"), byId.getAmount());
+        assertEquals(1L, store.getByTradeNo(tradeNo(1L)).orElseThrow().getId());
+        assertEquals(Optional.empty(), store.getById(2L));
+        assertEquals(1, store.size());
+        assertEquals(2.0, gets("hit"));
+        assertEquals(1.0, gets("miss"));
+    }
+
+    @Test
+    @DisplayName("A new version replaces the old one, the old record is dead space")
+    void testPut_Replaces() throws Exception {
+        store = store(2, 1000, "");
+        store.put(transaction(1L, "first"));
+        long used = store.usedBytes();
+
+        store.put(transaction(1L, "second"));
+
+        assertEquals("second", store.getById(1L).orElseThrow().getDescription());
+        assertEquals("second", store.getByTradeNo(tradeNo(1L)).orElseThrow().getDescription());
+        assertEquals(1, store.size());
+        assertTrue(store.usedBytes() > used);
+    }
+
+    @Test
+    @DisplayName("Removal by id or trade number drops both index entries")
+    void testRemove() throws Exception {
+        store = store(2, 1000, "");
+        store.put(transaction(1L, "Test"));
+        store.put(transaction(2L, "Test"));
+
+        store.removeById(1L);
+        store.removeByTradeNo(tradeNo(2L));
+
+        assertTrue(store.getByTradeNo(tradeNo(1L)).isEmpty());
+        assertTrue(store.getById(2L).isEmpty());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    @DisplayName("When the ring is full, the oldest slab is recycled and its entries dropped")
+    void testPut_RecyclesOldestSlab() throws Exception {
+        store = store(2, 100_000, "");
+        long id = 0;
+        long used;
+        //fill both slabs until the next put wraps around onto the first one
+        do {
+            used = store.usedBytes();
+            store.put(transaction(++id, "x".repeat(200)));
+        } while (store.usedBytes() > used);
+
+        assertTrue(id > 2000, "both slabs were filled before recycling");
+        assertTrue(store.getById(1L).isEmpty(), "entries of the recycled slab are dropped");
+        assertTrue(store.getByTradeNo(tradeNo(1L)).isEmpty());
+        assertTrue(store.getById(id - 1).isPresent(), "entries of the second slab are kept");
+        assertTrue(store.getById(id).isPresent());
+        assertTrue(store.usedBytes() <= 2L * 1024 * 1024);
+    }
+
+    @Test
+    @DisplayName("max-entries bounds the entries, the oldest slab is recycled to make room")
+    void testPut_MaxEntries() throws Exception {
+        store = store(4, 10, "");
+        for (long id = 1; id <= 11; id++) {
+            store.put(transaction(id, "Test"));
+            assertTrue(store.size() <= 10);
+        }
+        assertTrue(store.getById(11L).isPresent());
+    }
+
+    @Test
+    @DisplayName("A record expires after the heap expire-after-write, counted from its demotion")
+    void testGet_Expired() throws Exception {
+        store = store(2, 1000, "");
+        ReflectionTestUtils.setField(store, "expireAfterWriteNanos", TimeUnit.MILLISECONDS.toNanos(50));
+        store.put(transaction(1L, "Test"));
+        store.put(transaction(2L, "Test"));
+        assertTrue(store.getById(1L).isPresent());
+
+        Thread.sleep(60);
+
+        assertTrue(store.getById(1L).isEmpty());
+        assertTrue(store.getByTradeNo(tradeNo(2L)).isEmpty());
+        assertEquals(0, store.size());
+        assertEquals(2.0, gets("expired"));
+
+        //a new version starts a new expiry
+        store.put(transaction(1L, "Test"));
+        assertTrue(store.getById(1L).isPresent());
+    }
+
+    @Test
+    @DisplayName("The expiry is the expire-after-write of transaction-by-id")
+    void testExpiryFromHeapCache() throws Exception {
+        AppCacheProperties.Spec spec = new AppCacheProperties.Spec();
+        spec.setExpireAfterWriteMinutes(5);
+        AppCacheProperties properties = new AppCacheProperties();
+        properties.getSpecs().put("transaction-by-id", spec);
+        store = store(2, 1000, "", properties);
+
+        assertEquals(TimeUnit.MINUTES.toNanos(5), ReflectionTestUtils.getField(store, "expireAfterWriteNanos"));
+    }
+
+    @Test
+    @DisplayName("A transaction without a valid trade number is not stored")
+    void testPut_NotEncodable() throws Exception {
+        store = store(2, 1000, "");
+        Transaction transaction = transaction(1L, "Test");
+        transaction.setTradeNo("12345");
+
+        assertFalse(store.put(transaction));
+        transaction.setId(null);
+        assertFalse(store.put(transaction));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    @DisplayName("In file mode the slabs are mapped from the file")
+    void testFileMode() throws Exception {
+        Path file = tempDir.resolve("offheap.dat");
+        store = store(2, 1000, file.toString());
+
+        store.put(transaction(1L, "Test"));
+
+        assertEquals(1L, store.getById(1L).orElseThrow().getId());
+        assertTrue(Files.size(file) >= 1024 * 1024);
+    }
+
+    private OffHeapTransactionStore store(int capacityMb, long maxEntries, String file) throws Exception {
+        return store(capacityMb, maxEntries, file, new AppCacheProperties());
+    }
+
+    private OffHeapTransactionStore store(int capacityMb, long maxEntries, String file, AppCacheProperties properties) throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        OffHeapTransactionStore created = new OffHeapTransactionStore();
+        ReflectionTestUtils.setField(created, "capacityMb", (long) capacityMb);
+        ReflectionTestUtils.setField(created, "slabSizeMb", 1);
+        ReflectionTestUtils.setField(created, "maxEntries", maxEntries);
+        ReflectionTestUtils.setField(created, "file", file);
+        ReflectionTestUtils.setField(created, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(created, "cacheProperties", properties);
+        created.init();
+        return created;
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("transaction.cache.offheap.gets").tag("result", result).functionCounter().count();
+    }
+
+    private static String tradeNo(long id) {
+        return String.valueOf(100000000000000000L + id);
+    }
+
+    private static Transaction transaction(long id, String description) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTradeNo(tradeNo(id));
+        transaction.setAccountNumber("1234567890123456");
+        transaction.setAccountName("david");
+        transaction.setPayeeAccount("9876543210987654");
+        transaction.setPayeeName("Tom");
+        transaction.setAmount(new BigDecimal("500.00"));
+        transaction.setCurrency("CNY");
+        transaction.setType(TransactionType.TRANSFER_OUT);
+        transaction.setDebitCredit(DebitCredit.DEBIT);
+        transaction.setStatus(TransactionStatus.PENDING);
+        transaction.setDescription(description);
+        transaction.setCreatedAt(LocalDateTime.now());
+        return transaction;
+    }
+}
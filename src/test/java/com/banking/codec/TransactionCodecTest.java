@@ -0,0 +1,153 @@
+package com.banking.codec;
+
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.enums.TransactionType;
+import com.banking.model.Transaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TransactionCodec unit test
+ */
+public class TransactionCodecTest {
+
+    @Test
+    @DisplayName("Every field survives an encode and decode")
+    void testRoundTrip_AllFields() {
+        Transaction transaction = transaction();
+
+        Transaction decoded = roundTrip(transaction);
+
+        assertEquals(transaction.getId(), decoded.getId());
+        assertEquals(transaction.getTradeNo(), decoded.getTradeNo());
+        assertEquals(transaction.getStatus(), decoded.getStatus());
+        assertEquals(transaction.getType(), decoded.getType());
+        assertEquals(transaction.getDebitCredit(), decoded.getDebitCredit());
+        assertEquals(transaction.getAmount(), decoded.getAmount());
+        assertEquals(transaction.getCreatedAt(), decoded.getCreatedAt());
+        assertEquals(transaction.getUpdatedAt(), decoded.getUpdatedAt());
+        assertEquals(transaction.getAccountNumber(), decoded.getAccountNumber());
+        assertEquals(transaction.getAccountName(), decoded.getAccountName());
+        assertEquals(transaction.getPayeeAccount(), decoded.getPayeeAccount());
+        assertEquals(transaction.getPayeeName(), decoded.getPayeeName());
+        assertEquals(transaction.getCurrency(), decoded.getCurrency());
+        assertEquals(transaction.getDescription(), decoded.getDescription());
+        assertEquals(transaction.getTransferRef(), decoded.getTransferRef());
+    }
+
+    @Test
+    @DisplayName("Null fields decode as null")
+    void testRoundTrip_Nulls() {
+        Transaction transaction = new Transaction();
+        transaction.setStatus(null);
+
+        Transaction decoded = roundTrip(transaction);
+
+        assertNull(decoded.getId());
+        assertNull(decoded.getTradeNo());
+        assertNull(decoded.getStatus());
+        assertNull(decoded.getType());
+        assertNull(decoded.getDebitCredit());
+        assertNull(decoded.getAmount());
+        assertNull(decoded.getCreatedAt());
+        assertNull(decoded.getUpdatedAt());
+        assertNull(decoded.getAccountName());
+        assertNull(decoded.getDescription());
+        assertNull(decoded.getTransferRef());
+    }
+
+    @Test
+    @DisplayName("Amount scale, large amounts, leading-zero trade numbers and non-ASCII text are kept")
+    void testRoundTrip_Boundaries() {
+        Transaction transaction = transaction();
+        transaction.setAmount(new BigDecimal("99999999999999999.99"));
+        transaction.setTradeNo("000000000000000001");
+        transaction.setAccountName("邹永卫");
+        transaction.setDescription("D".repeat(500));
+        transaction.setCreatedAt(LocalDateTime.of(1970, 1, 1, 0, 0));
+
+        Transaction decoded = roundTrip(transaction);
+
+        assertEquals(new BigDecimal("99999999999999999.99"), decoded.getAmount());
+        assertEquals("000000000000000001", decoded.getTradeNo());
+        assertEquals("邹永卫", decoded.getAccountName());
+        assertEquals(500, decoded.getDescription().length());
+        assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0), decoded.getCreatedAt());
+        assertEquals(new BigDecimal("0.10"), roundTrip(withAmount(new BigDecimal("0.10"))).getAmount());
+    }
+
+    @Test
+    @DisplayName("A record written before transferRef was appended decodes with a null transferRef")
+    void testDecode_RecordWithoutTransferRef() {
+        ByteBuffer buffer = encode(transaction());
+        buffer.limit(buffer.limit() - Long.BYTES);
+
+        Transaction decoded = TransactionCodec.decode(buffer);
+
+        assertEquals("123456789012345678", decoded.getTradeNo());
+        assertEquals("Test", decoded.getDescription());
+        assertNull(decoded.getTransferRef());
+    }
+
+    @Test
+    @DisplayName("Id and trade number are at fixed offsets")
+    void testKeyOffsets() {
+        ByteBuffer buffer = encode(transaction());
+
+        assertEquals(42L, buffer.getLong(TransactionCodec.ID_OFFSET));
+        assertEquals(123456789012345678L, buffer.getLong(TransactionCodec.TRADE_NO_OFFSET));
+    }
+
+    @Test
+    @DisplayName("Trade numbers convert to longs and back, only 18 digits are accepted")
+    void testTradeNoConversion() {
+        assertEquals(999999999999999999L, TransactionCodec.tradeNoToLong("999999999999999999"));
+        assertEquals("000000000000000000", TransactionCodec.longToTradeNo(0));
+        assertEquals(-1L, TransactionCodec.tradeNoToLong(null));
+        assertNull(TransactionCodec.longToTradeNo(-1L));
+        assertThrows(IllegalArgumentException.class, () -> TransactionCodec.tradeNoToLong("12345"));
+    }
+
+    private static Transaction roundTrip(Transaction transaction) {
+        return TransactionCodec.decode(encode(transaction));
+    }
+
+    private static ByteBuffer encode(Transaction transaction) {
+        ByteBuffer buffer = ByteBuffer.allocate(TransactionCodec.MAX_ENCODED_SIZE);
+        TransactionCodec.encode(transaction, buffer);
+        return buffer.flip();
+    }
+
+    private static Transaction withAmount(BigDecimal amount) {
+        Transaction transaction = transaction();
+        transaction.setAmount(amount);
+        return transaction;
+    }
+
+    private static Transaction transaction() {
+        Transaction transaction = new Transaction();
+        transaction.setId(42L);
+        transaction.setTradeNo("123456789012345678");
+        transaction.setAccountNumber("1234567890123456");
+        transaction.setAccountName("david");
+        transaction.setPayeeAccount("9876543210987654");
+        transaction.setPayeeName("Tom");
+        transaction.setAmount(new BigDecimal("500.00"));
+        transaction.setCurrency("CNY");
+        transaction.setType(TransactionType.TRANSFER_OUT);
+        transaction.setDebitCredit(DebitCredit.DEBIT);
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setDescription("Test");
+        transaction.setTransferRef("123456789012345678");
+        transaction.setCreatedAt(LocalDateTime.of(2025, 6, 30, 12, 30, 15, 123456789));
+        transaction.setUpdatedAt(LocalDateTime.of(2025, 6, 30, 12, 31));
+        return transaction;
+    }
+}
@@ -0,0 +1,38 @@
+package com.banking.config;
+
+import com.banking.cache.offheap.OffHeapTransactionStore;
+import com.banking.model.Transaction;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * CacheConfig unit test
+ */
+public class CacheConfigTest {
+
+    @Test
+    @DisplayName("Only entries evicted for size are demoted to the off-heap tier, expired ones are dropped")
+    void testOffHeapDemotion_SizeOnly() {
+        OffHeapTransactionStore store = mock(OffHeapTransactionStore.class);
+        RemovalListener<Object, Object> listener = CacheConfig.offHeapDemotion(store);
+        Transaction transaction = new Transaction();
+        transaction.setId(1L);
+
+        listener.onRemoval(1L, transaction, RemovalCause.EXPIRED);
+        listener.onRemoval(1L, transaction, RemovalCause.COLLECTED);
+        listener.onRemoval(1L, transaction, RemovalCause.EXPLICIT);
+        listener.onRemoval(1L, transaction, RemovalCause.REPLACED);
+        verifyNoInteractions(store);
+
+        listener.onRemoval(1L, transaction, RemovalCause.SIZE);
+        verify(store).put(transaction);
+
+        //not a transaction, e.g. a negative cache marker
+        listener.onRemoval(1L, Boolean.TRUE, RemovalCause.SIZE);
+        verifyNoMoreInteractions(store);
+    }
+}
@@ -1,12 +1,15 @@
 package com.banking.controller;
 
 import com.banking.dto.PagedResult;
+import com.banking.dto.TransferRequest;
 import com.banking.enums.DebitCredit;
 import com.banking.enums.TransactionStatus;
 import com.banking.enums.TransactionType;
 import com.banking.exception.DuplicatedTransactionException;
+import com.banking.exception.ServiceOverloadedException;
 import com.banking.exception.TransactionNotFoundException;
 import com.banking.model.Transaction;
+import com.banking.readmodel.TransactionReadModel;
 import com.banking.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,6 +26,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -43,6 +47,10 @@ public class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    //not ready unless a test says so, the other tests read through the service
+    @MockBean
+    private TransactionReadModel transactionReadModel;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -985,6 +993,18 @@ public class TransactionControllerTest {
 
             verify(transactionService, never()).createTransaction(any(Transaction.class));
         }
+
+        @Test
+        @DisplayName("Should return 429 with Retry-After when the service is overloaded")
+        void testGetTransactionById_Overloaded() throws Exception {
+            when(transactionService.getTransactionById(1L))
+                    .thenThrow(new ServiceOverloadedException("Service is overloaded, retry later", 1));
+
+            mockMvc.perform(get("/transaction/1"))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "1"))
+                    .andExpect(content().string(containsString("Service is overloaded")));
+        }
     }
 
     @Nested
@@ -1023,4 +1043,162 @@ public class TransactionControllerTest {
             verify(transactionService, never()).createTransaction(any(Transaction.class));
         }
     }
-} 
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Transfer Tests")
+    class TransferTests {
+
+        private TransferRequest validTransfer() {
+            TransferRequest transfer = new TransferRequest();
+            transfer.setOutTradeNo("123456789012345654");
+            transfer.setInTradeNo("123456789012345655");
+            transfer.setAccountNumber("1234567890123456");
+            transfer.setAccountName("david");
+            transfer.setPayeeAccount("9876543210987654");
+            transfer.setPayeeName("Tom");
+            transfer.setAmount(new BigDecimal("500.00"));
+            transfer.setCurrency("CNY");
+            transfer.setDescription("Test");
+            return transfer;
+        }
+
+        private List<Transaction> savedLegs(TransferRequest transfer) {
+            Transaction outLeg = transfer.toOutLeg();
+            outLeg.setId(1L);
+            outLeg.setStatus(TransactionStatus.PENDING);
+            Transaction inLeg = transfer.toInLeg();
+            inLeg.setId(2L);
+            inLeg.setStatus(TransactionStatus.PENDING);
+            return List.of(outLeg, inLeg);
+        }
+
+        @Test
+        @DisplayName("Should create both legs of a transfer")
+        void testCreateTransfer_Success() throws Exception {
+            TransferRequest transfer = validTransfer();
+            when(transactionService.createTransfer(any(TransferRequest.class))).thenReturn(savedLegs(transfer));
+
+            mockMvc.perform(post("/transaction/transfer")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transfer)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$", hasSize(2)))
+                    .andExpect(jsonPath("$[0].accountNumber").value("1234567890123456"))
+                    .andExpect(jsonPath("$[0].type").value("TO"))
+                    .andExpect(jsonPath("$[0].debitCredit").value("DR"))
+                    .andExpect(jsonPath("$[1].accountNumber").value("9876543210987654"))
+                    .andExpect(jsonPath("$[1].accountName").value("Tom"))
+                    .andExpect(jsonPath("$[1].type").value("TI"))
+                    .andExpect(jsonPath("$[1].debitCredit").value("CR"))
+                    .andExpect(jsonPath("$[*].transferRef", everyItem(is("123456789012345654"))));
+
+            verify(transactionService, times(1)).createTransfer(any(TransferRequest.class));
+        }
+
+        @Test
+        @DisplayName("Should return 400 when the payee name of a transfer is missing")
+        void testCreateTransfer_MissingPayeeName() throws Exception {
+            TransferRequest transfer = validTransfer();
+            transfer.setPayeeName(null);
+
+            mockMvc.perform(post("/transaction/transfer")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transfer)))
+                    .andExpect(status().isBadRequest());
+
+            verify(transactionService, never()).createTransfer(any(TransferRequest.class));
+        }
+
+        @Test
+        @DisplayName("Should return 400 when the service rejects the legs of a transfer")
+        void testCreateTransfer_SameAccount() throws Exception {
+            when(transactionService.createTransfer(any(TransferRequest.class)))
+                    .thenThrow(new IllegalArgumentException("Transfer account and payee account must be different"));
+
+            mockMvc.perform(post("/transaction/transfer")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(validTransfer())))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string(containsString("must be different")));
+        }
+
+        @Test
+        @DisplayName("Should get both legs of a transfer by reference")
+        void testGetTransfer_Success() throws Exception {
+            when(transactionService.getTransfer("123456789012345654")).thenReturn(savedLegs(validTransfer()));
+
+            mockMvc.perform(get("/transaction/transfer/123456789012345654"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)))
+                    .andExpect(jsonPath("$[0].id").value(1))
+                    .andExpect(jsonPath("$[1].id").value(2));
+        }
+
+        @Test
+        @DisplayName("Should return 404 when the transfer does not exist")
+        void testGetTransfer_NotFound() throws Exception {
+            when(transactionService.getTransfer("123456789012345699"))
+                    .thenThrow(new TransactionNotFoundException("Transfer not found by reference 123456789012345699"));
+
+            mockMvc.perform(get("/transaction/transfer/123456789012345699"))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("Should return 400 for an invalid transfer reference")
+        void testGetTransfer_InvalidReference() throws Exception {
+            mockMvc.perform(get("/transaction/transfer/12345"))
+                    .andExpect(status().isBadRequest());
+
+            verify(transactionService, never()).getTransfer(anyString());
+        }
+    }
+
+    @Nested
+    @DisplayName("Read Model Tests")
+    class ReadModelTests {
+
+        @Test
+        @DisplayName("Should serve transaction from the read model when it is ready")
+        void testGetTransactionById_FromReadModel() throws Exception {
+            when(transactionReadModel.isReady()).thenReturn(true);
+            when(transactionReadModel.findById(1L)).thenReturn(Optional.of(mockSavedDBTransaction));
+
+            mockMvc.perform(get("/transaction/1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(1))
+                    .andExpect(jsonPath("$.tradeNo").value("123456789012345654"));
+
+            verify(transactionService, never()).getTransactionById(anyLong());
+        }
+
+        @Test
+        @DisplayName("Should fall back to the service when the read model misses")
+        void testGetTransactionByTradeNo_ReadModelMiss() throws Exception {
+            when(transactionReadModel.isReady()).thenReturn(true);
+            when(transactionReadModel.findByTradeNo("123456789012345654")).thenReturn(Optional.empty());
+            when(transactionService.getTransactionByTradeNo("123456789012345654")).thenReturn(mockSavedDBTransaction);
+
+            mockMvc.perform(get("/transaction/by-trade-no/123456789012345654"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(1));
+
+            verify(transactionService, times(1)).getTransactionByTradeNo("123456789012345654");
+        }
+
+        @Test
+        @DisplayName("Should list transactions from the read model when it is ready")
+        void testGetTransactions_FromReadModel() throws Exception {
+            when(transactionReadModel.isReady()).thenReturn(true);
+            when(transactionReadModel.findPage(0, 20))
+                    .thenReturn(new PagedResult<>(List.of(mockSavedDBTransaction), 0, 20, 1, 1));
+
+            mockMvc.perform(get("/transaction"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content", hasSize(1)))
+                    .andExpect(jsonPath("$.totalElements").value(1));
+
+            verify(transactionService, never()).getTransactions(anyInt(), anyInt());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.banking.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReadWriteRoutingDataSource unit test, with a primary and two replicas on separate in-memory H2 databases,
+ * wired like RoutingDataSourceConfig
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private static final long MAX_LAG_ROWS = 2;
+
+    private HikariDataSource primary;
+    private Map<String, HikariDataSource> replicas;
+    private ReplicaHealthChecker replicaHealthChecker;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        primary = node("primary");
+        replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", node("replica-0"));
+        replicas.put("replica-1", node("replica-1"));
+        replicaHealthChecker = new ReplicaHealthChecker(primary, replicas, MAX_LAG_ROWS);
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(ReadWriteRoutingDataSource.PRIMARY, primary);
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(replicaHealthChecker);
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(primary);
+        routingDataSource.afterPropertiesSet();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWritesContext.clear();
+        replicaHealthChecker.close();
+        primary.close();
+    }
+
+    @Test
+    @DisplayName("Read-only transactions go to the healthy replicas in turn")
+    void testReadOnly_Replica() {
+        replicaHealthChecker.check();
+
+        assertEquals("replica-0", readOnly.execute(status -> servedBy()));
+        assertEquals("replica-1", readOnly.execute(status -> servedBy()));
+        assertEquals("replica-0", readOnly.execute(status -> servedBy()));
+        assertEquals(2, replicaHealthChecker.getHealthyCount());
+    }
+
+    @Test
+    @DisplayName("Read-write transactions and statements outside a transaction go to the primary")
+    void testWrite_Primary() {
+        replicaHealthChecker.check();
+
+        assertEquals("primary", readWrite.execute(status -> servedBy()));
+        assertEquals("primary", servedBy());
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("INSERT INTO transactions (id) VALUES (1)"));
+        assertEquals(1, countOnPrimary(1));
+    }
+
+    @Test
+    @DisplayName("The reads of a client that has just written go to the primary, read-only or not")
+    void testReadYourWrites_Primary() {
+        replicaHealthChecker.check();
+
+        ReadYourWritesContext.requirePrimary();
+        assertEquals("primary", readOnly.execute(status -> servedBy()));
+
+        ReadYourWritesContext.clear();
+        assertTrue(readOnly.execute(status -> servedBy()).startsWith("replica-"));
+    }
+
+    @Test
+    @DisplayName("Reads fall back to the primary until the first health check, and when no replica is available")
+    void testReplicaUnavailable_FallbackToPrimary() {
+        assertEquals("primary", readOnly.execute(status -> servedBy()));
+
+        replicaHealthChecker.check();
+        replicas.get("replica-0").close();
+        replicas.get("replica-1").close();
+        replicaHealthChecker.check();
+
+        assertEquals("primary", readOnly.execute(status -> servedBy()));
+        assertEquals(0, replicaHealthChecker.getHealthyCount());
+        assertTrue(replicaHealthChecker.getStatus().get("replica-0").startsWith("DOWN"));
+    }
+
+    @Test
+    @DisplayName("A lagging replica is skipped, the other one serves the reads")
+    void testReplicaLagging_Skipped() {
+        for (long id = 1; id <= MAX_LAG_ROWS + 1; id++) {
+            jdbcTemplate.update("INSERT INTO transactions (id) VALUES (?)", id);
+            new JdbcTemplate(replicas.get("replica-1")).update("INSERT INTO transactions (id) VALUES (?)", id);
+        }
+        replicaHealthChecker.check();
+
+        assertEquals("replica-1", readOnly.execute(status -> servedBy()));
+        assertEquals("replica-1", readOnly.execute(status -> servedBy()));
+        assertEquals("LAGGING (3 rows)", replicaHealthChecker.getStatus().get("replica-0"));
+
+        //caught up, back in the rotation
+        for (long id = 1; id <= MAX_LAG_ROWS + 1; id++) {
+            new JdbcTemplate(replicas.get("replica-0")).update("INSERT INTO transactions (id) VALUES (?)", id);
+        }
+        replicaHealthChecker.check();
+        assertEquals(2, replicaHealthChecker.getHealthyCount());
+    }
+
+    private String servedBy() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private long countOnPrimary(long id) {
+        return new JdbcTemplate(primary).queryForObject("SELECT COUNT(*) FROM transactions WHERE id = ?", Long.class, id);
+    }
+
+    //each node is its own database, named in the node table
+    private static HikariDataSource node(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl("jdbc:h2:mem:routing_" + name.replace('-', '_') + "_" + System.nanoTime());
+        dataSource.setMaximumPoolSize(2);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE node (name VARCHAR(16))");
+        jdbcTemplate.update("INSERT INTO node (name) VALUES (?)", name);
+        jdbcTemplate.execute("CREATE TABLE transactions (id BIGINT PRIMARY KEY)");
+        return dataSource;
+    }
+}
@@ -0,0 +1,33 @@
+package com.banking.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TransactionNotFoundException unit test
+ */
+public class TransactionNotFoundExceptionTest {
+
+    @Test
+    @DisplayName("The message-only not-found skips the stack trace and cannot be suppressed into")
+    void testConstructor_Stackless() {
+        TransactionNotFoundException e = new TransactionNotFoundException("Transaction not found by ID 1");
+        e.addSuppressed(new IllegalStateException("ignored"));
+
+        assertEquals("Transaction not found by ID 1", e.getMessage());
+        assertEquals(0, e.getStackTrace().length);
+        assertEquals(0, e.getSuppressed().length);
+    }
+
+    @Test
+    @DisplayName("A not-found with a cause keeps its stack trace")
+    void testConstructor_WithCause() {
+        IllegalStateException cause = new IllegalStateException("DB down");
+        TransactionNotFoundException e = new TransactionNotFoundException("Transaction not found by ID 1", cause);
+
+        assertSame(cause, e.getCause());
+        assertTrue(e.getStackTrace().length > 0);
+    }
+}
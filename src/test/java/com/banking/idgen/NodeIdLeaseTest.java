@@ -0,0 +1,159 @@
+package com.banking.idgen;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NodeIdLease unit test, against an in-memory H2 database and leases of 200 ms
+ */
+public class NodeIdLeaseTest {
+
+    private static final long LEASE_MILLIS = 200;
+
+    private FailingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:node_id_lease_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource = new FailingDataSource(h2);
+    }
+
+    @Test
+    @DisplayName("Instances sharing a database lease different node ids")
+    void testClaim_DistinctNodeIds() {
+        assertEquals(0, new NodeIdLease(dataSource, LEASE_MILLIS).claim(4));
+        assertEquals(1, new NodeIdLease(dataSource, LEASE_MILLIS).claim(4));
+        assertThrows(IllegalStateException.class, () -> new NodeIdLease(dataSource, LEASE_MILLIS).claim(2));
+    }
+
+    @Test
+    @DisplayName("Renewals keep the generator running past the lease time")
+    void testRenew_KeepsGenerating() throws Exception {
+        NodeIdLease lease = new NodeIdLease(dataSource, LEASE_MILLIS);
+        SnowflakeIdGenerator generator = attach(lease);
+
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(LEASE_MILLIS / 2);
+            lease.renew();
+        }
+
+        assertFalse(lease.isExpired());
+        assertTrue(generator.nextId(0) > 0);
+    }
+
+    @Test
+    @DisplayName("Renewals failing with a DB error stop the generator at the lease expiry, a successful one resumes it")
+    void testRenew_FailingUntilExpiry() throws Exception {
+        NodeIdLease lease = new NodeIdLease(dataSource, LEASE_MILLIS);
+        SnowflakeIdGenerator generator = attach(lease);
+
+        dataSource.failing = true;
+        lease.renew();
+        //still within the lease
+        assertTrue(generator.nextId(0) > 0);
+
+        Thread.sleep(LEASE_MILLIS + 50);
+        lease.renew();
+        assertTrue(lease.isExpired());
+        assertThrows(IllegalStateException.class, () -> generator.nextId(0));
+
+        dataSource.failing = false;
+        lease.renew();
+        assertFalse(lease.isExpired());
+        assertTrue(generator.nextId(0) > 0);
+    }
+
+    @Test
+    @DisplayName("Without any renewal, e.g. a stalled scheduler, the generator stops at the lease expiry")
+    void testNoRenewal_StopsAtExpiry() throws Exception {
+        NodeIdLease lease = new NodeIdLease(dataSource, LEASE_MILLIS);
+        SnowflakeIdGenerator generator = attach(lease);
+        assertTrue(generator.nextId(0) > 0);
+
+        Thread.sleep(LEASE_MILLIS + 50);
+
+        assertThrows(IllegalStateException.class, () -> generator.nextId(0));
+    }
+
+    @Test
+    @DisplayName("A lease taken over by another instance disables the generator for good")
+    void testRenew_LeaseLost() throws Exception {
+        NodeIdLease lease = new NodeIdLease(dataSource, LEASE_MILLIS);
+        SnowflakeIdGenerator generator = attach(lease);
+
+        Thread.sleep(LEASE_MILLIS + 50);
+        //the expired node id is taken by the next instance
+        assertEquals(0, new NodeIdLease(dataSource, LEASE_MILLIS).claim(1));
+        lease.renew();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> generator.nextId(0));
+        assertTrue(e.getMessage().contains("lease lost"));
+        assertEquals(1, new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM id_node_leases", Integer.class));
+    }
+
+    @Test
+    @DisplayName("A fixed node id has no lease deadline")
+    void testFixedNodeId_NoDeadline() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 0);
+
+        assertTrue(generator.nextId(0) > 0);
+    }
+
+    @Test
+    @DisplayName("A fixed node id from the configuration is not bound by a lease, ids are generated")
+    void testFixedNodeId_ConfigNotLeased() {
+        IdGeneratorConfig config = new IdGeneratorConfig();
+        ReflectionTestUtils.setField(config, "strategy", "snowflake");
+        ReflectionTestUtils.setField(config, "nodeId", 3);
+        ReflectionTestUtils.setField(config, "leaseSeconds", 30L);
+        Object installed = ReflectionTestUtils.getField(IdGenerators.class, "current");
+        try {
+            NodeIdLease lease = config.nodeIdLease(dataSource);
+            IdGenerator generator = config.idGenerator(dataSource, lease);
+
+            assertTrue(generator.nextId(0) > 0);
+            assertFalse(lease.isExpired());
+            //no node id was claimed
+            lease.attach(new SnowflakeIdGenerator(4, 0));
+            lease.renew();
+            assertTrue(generator.nextId(0) > 0);
+        } finally {
+            ReflectionTestUtils.setField(IdGenerators.class, "current", installed);
+        }
+    }
+
+    private static SnowflakeIdGenerator attach(NodeIdLease lease) {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(lease.claim(1), 0);
+        lease.attach(generator);
+        return generator;
+    }
+
+    //a database that is unreachable on demand
+    private static class FailingDataSource extends DelegatingDataSource {
+
+        private volatile boolean failing;
+
+        FailingDataSource(JdbcDataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (failing) {
+                throw new SQLException("Connection refused");
+            }
+            return super.getConnection();
+        }
+    }
+}
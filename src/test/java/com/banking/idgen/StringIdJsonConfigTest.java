@@ -0,0 +1,49 @@
+package com.banking.idgen;
+
+import com.banking.controller.TransactionController;
+import com.banking.model.Transaction;
+import com.banking.readmodel.TransactionReadModel;
+import com.banking.service.TransactionService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * StringIdJsonConfig unit test: with app.id.json-string the id of a transaction is written as a string
+ */
+@WebMvcTest(value = TransactionController.class, properties = "app.id.json-string=true")
+@Import(StringIdJsonConfig.class)
+public class StringIdJsonConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TransactionService transactionService;
+
+    @MockBean
+    private TransactionReadModel transactionReadModel;
+
+    @Test
+    @DisplayName("Should return a snowflake id above 2^53 as an exact string")
+    void testGetTransactionById_LargeIdAsString() throws Exception {
+        long snowflakeId = 372036854775807001L;
+        Transaction transaction = new Transaction();
+        transaction.setId(snowflakeId);
+        transaction.setTradeNo("123456789012345654");
+        when(transactionService.getTransactionById(snowflakeId)).thenReturn(transaction);
+
+        mockMvc.perform(get("/transaction/" + snowflakeId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("372036854775807001"))
+                .andExpect(jsonPath("$.tradeNo").value("123456789012345654"));
+    }
+}
@@ -0,0 +1,83 @@
+package com.banking.interceptor;
+
+import com.banking.admission.AdaptiveConcurrencyLimit;
+import com.banking.admission.AdmissionProperties;
+import com.banking.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AdmissionControlInterceptor unit test
+ */
+public class AdmissionControlInterceptorTest {
+
+    private AdmissionControlInterceptor interceptor;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setRetryAfterSeconds(2);
+        properties.setReads(limit());
+        properties.setWrites(limit());
+        meterRegistry = new SimpleMeterRegistry();
+
+        interceptor = new AdmissionControlInterceptor();
+        ReflectionTestUtils.setField(interceptor, "properties", properties);
+        ReflectionTestUtils.setField(interceptor, "meterRegistry", meterRegistry);
+        interceptor.init();
+    }
+
+    @Test
+    @DisplayName("A shed request is rejected with Retry-After and does not release a permit on completion")
+    void testShed_NoPermitReleased() {
+        MockHttpServletRequest admitted = new MockHttpServletRequest("GET", "/transactions/1");
+        MockHttpServletRequest shed = new MockHttpServletRequest("GET", "/transactions/2");
+        assertTrue(interceptor.preHandle(admitted, new MockHttpServletResponse(), null));
+
+        ServiceOverloadedException exception = assertThrows(ServiceOverloadedException.class,
+                () -> interceptor.preHandle(shed, new MockHttpServletResponse(), null));
+        interceptor.afterCompletion(shed, new MockHttpServletResponse(), null, exception);
+
+        assertEquals(2, exception.getRetryAfterSeconds());
+        assertEquals(1, readLimit().getInFlight(), "the admitted request still holds its permit");
+        assertEquals(1.0, meterRegistry.get("transaction.admission.shed")
+                .tag("class", "read").tag("reason", "queue_full").counter().count());
+
+        interceptor.afterCompletion(admitted, new MockHttpServletResponse(), null, null);
+        assertEquals(0, readLimit().getInFlight());
+    }
+
+    @Test
+    @DisplayName("Reads and writes have their own limits")
+    void testReadsAndWrites_SeparateLimits() {
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/transactions"), new MockHttpServletResponse(), null));
+
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("POST", "/transactions"), new MockHttpServletResponse(), null));
+        assertThrows(ServiceOverloadedException.class,
+                () -> interceptor.preHandle(new MockHttpServletRequest("PUT", "/transactions/1"), new MockHttpServletResponse(), null));
+    }
+
+    private AdaptiveConcurrencyLimit readLimit() {
+        return (AdaptiveConcurrencyLimit) ReflectionTestUtils.getField(interceptor, "readLimit");
+    }
+
+    //one permit, no queue
+    private static AdmissionProperties.Limit limit() {
+        AdmissionProperties.Limit limit = new AdmissionProperties.Limit();
+        limit.setInitialLimit(1);
+        limit.setMinLimit(1);
+        limit.setMaxLimit(1);
+        limit.setMaxQueue(0);
+        limit.setMaxQueueWaitMs(10);
+        limit.setLatencyTargetMs(50);
+        return limit;
+    }
+}
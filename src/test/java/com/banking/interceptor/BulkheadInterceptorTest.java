@@ -0,0 +1,119 @@
+package com.banking.interceptor;
+
+import com.banking.bulkhead.Bulkhead;
+import com.banking.bulkhead.BulkheadContext;
+import com.banking.bulkhead.BulkheadProperties;
+import com.banking.bulkhead.Workload;
+import com.banking.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BulkheadInterceptor unit test
+ */
+public class BulkheadInterceptorTest {
+
+    private BulkheadInterceptor interceptor;
+    private SimpleMeterRegistry meterRegistry;
+    private HandlerMethod read;
+    private HandlerMethod write;
+    private HandlerMethod bulk;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        BulkheadProperties properties = new BulkheadProperties();
+        properties.setRetryAfterSeconds(3);
+        properties.getBulk().setMaxConcurrent(1);
+        properties.getBulk().setMaxWaitMs(20);
+        meterRegistry = new SimpleMeterRegistry();
+
+        interceptor = new BulkheadInterceptor();
+        ReflectionTestUtils.setField(interceptor, "properties", properties);
+        ReflectionTestUtils.setField(interceptor, "meterRegistry", meterRegistry);
+        interceptor.init();
+
+        Handlers handlers = new Handlers();
+        read = new HandlerMethod(handlers, "read");
+        write = new HandlerMethod(handlers, "write");
+        bulk = new HandlerMethod(handlers, "bulk");
+    }
+
+    @AfterEach
+    void tearDown() {
+        BulkheadContext.clear();
+    }
+
+    @Test
+    @DisplayName("A full bulk partition rejects bulk requests with Retry-After, reads and writes are admitted at once")
+    void testPreHandle_FullBulkIsolated() {
+        MockHttpServletRequest listing = new MockHttpServletRequest("GET", "/transactions");
+        assertTrue(interceptor.preHandle(listing, new MockHttpServletResponse(), bulk));
+
+        ServiceOverloadedException exception = assertThrows(ServiceOverloadedException.class,
+                () -> interceptor.preHandle(new MockHttpServletRequest("GET", "/transactions"), new MockHttpServletResponse(), bulk));
+        assertEquals(3, exception.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("transaction.bulkhead.rejected").tag("workload", "bulk").counter().count());
+
+        long start = System.nanoTime();
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/transaction/1"), new MockHttpServletResponse(), read));
+        assertEquals(Workload.READ, BulkheadContext.current());
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("POST", "/transaction"), new MockHttpServletResponse(), write));
+        assertEquals(Workload.WRITE, BulkheadContext.current());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(20), "did not wait on the bulk partition");
+        assertEquals(0.0, meterRegistry.get("transaction.bulkhead.rejected").tag("workload", "read").counter().count());
+    }
+
+    @Test
+    @DisplayName("Completion releases the slot of an admitted request only, and clears the workload of the thread")
+    void testAfterCompletion_ReleasesAdmittedOnly() {
+        MockHttpServletRequest admitted = new MockHttpServletRequest("GET", "/transactions");
+        MockHttpServletRequest rejected = new MockHttpServletRequest("GET", "/transactions");
+        interceptor.preHandle(admitted, new MockHttpServletResponse(), bulk);
+        assertThrows(ServiceOverloadedException.class, () -> interceptor.preHandle(rejected, new MockHttpServletResponse(), bulk));
+
+        interceptor.afterCompletion(rejected, new MockHttpServletResponse(), bulk, null);
+        assertEquals(1.0, meterRegistry.get("transaction.bulkhead.active").tag("workload", "bulk").gauge().value());
+
+        interceptor.afterCompletion(admitted, new MockHttpServletResponse(), bulk, null);
+        assertEquals(0.0, meterRegistry.get("transaction.bulkhead.active").tag("workload", "bulk").gauge().value());
+        assertNull(BulkheadContext.current());
+    }
+
+    @Test
+    @DisplayName("A handler without @Bulkhead is not limited")
+    void testPreHandle_NotAnnotated() throws Exception {
+        HandlerMethod other = new HandlerMethod(new Handlers(), "other");
+
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/other"), new MockHttpServletResponse(), other));
+        assertNull(BulkheadContext.current());
+    }
+
+    static class Handlers {
+
+        @Bulkhead(Workload.READ)
+        public void read() {
+        }
+
+        @Bulkhead(Workload.WRITE)
+        public void write() {
+        }
+
+        @Bulkhead(Workload.BULK)
+        public void bulk() {
+        }
+
+        public void other() {
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.banking.interceptor;
+
+import com.banking.datasource.ReadYourWritesContext;
+import com.banking.datasource.RoutingDataSourceProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReadYourWritesInterceptor unit test
+ */
+public class ReadYourWritesInterceptorTest {
+
+    private ReadYourWritesInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        RoutingDataSourceProperties properties = new RoutingDataSourceProperties();
+        properties.setReadYourWritesWindowMs(200);
+        interceptor = new ReadYourWritesInterceptor();
+        ReflectionTestUtils.setField(interceptor, "properties", properties);
+        interceptor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWritesContext.clear();
+    }
+
+    @Test
+    @DisplayName("After a successful write, the client's reads require the primary for the window")
+    void testRead_AfterWrite_PrimaryRequired() throws Exception {
+        assertFalse(read("client-1"));
+
+        write("client-1", 201);
+
+        assertTrue(read("client-1"));
+        assertFalse(read("client-2"), "other clients still read from the replicas");
+        Thread.sleep(300);
+        assertFalse(read("client-1"), "the window has passed");
+    }
+
+    @Test
+    @DisplayName("A failed write does not send the client's reads to the primary")
+    void testRead_AfterFailedWrite_Replica() {
+        write("client-1", 409);
+
+        assertFalse(read("client-1"));
+    }
+
+    @Test
+    @DisplayName("The flag is cleared when the request completes, a pooled thread does not keep it")
+    void testAfterCompletion_Clears() {
+        write("client-1", 201);
+        MockHttpServletRequest request = request("GET", "client-1");
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        assertTrue(ReadYourWritesContext.isPrimaryRequired());
+
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+
+        assertFalse(ReadYourWritesContext.isPrimaryRequired());
+    }
+
+    //whether a read of the client is sent to the primary
+    private boolean read(String clientId) {
+        MockHttpServletRequest request = request("GET", clientId);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, null);
+        boolean primaryRequired = ReadYourWritesContext.isPrimaryRequired();
+        interceptor.afterCompletion(request, response, null, null);
+        return primaryRequired;
+    }
+
+    private void write(String clientId, int status) {
+        MockHttpServletRequest request = request("POST", clientId);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, null);
+        response.setStatus(status);
+        interceptor.afterCompletion(request, response, null, null);
+    }
+
+    private static MockHttpServletRequest request(String method, String clientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/transactions");
+        request.addHeader(ClientIds.CLIENT_ID_HEADER, clientId);
+        return request;
+    }
+}
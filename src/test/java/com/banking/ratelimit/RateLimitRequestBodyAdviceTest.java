@@ -0,0 +1,110 @@
+package com.banking.ratelimit;
+
+import com.banking.controller.TransactionController;
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionType;
+import com.banking.interceptor.ClientIds;
+import com.banking.model.Transaction;
+import com.banking.readmodel.TransactionReadModel;
+import com.banking.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * RateLimitRequestBodyAdvice unit test: the per-account limit of the create endpoint, end to end through MVC
+ */
+@WebMvcTest(value = TransactionController.class, properties = {
+        "app.rate-limit.enabled=true",
+        "app.rate-limit.account.rate-per-second=0.2",
+        "app.rate-limit.account.burst=2"
+})
+@Import({TransactionRateLimiter.class, SimpleMeterRegistry.class})
+public class RateLimitRequestBodyAdviceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private TransactionService transactionService;
+
+    @MockBean
+    private TransactionReadModel transactionReadModel;
+
+    private Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new Transaction();
+        transaction.setTradeNo("123456789012345654");
+        transaction.setAccountNumber("1234567890123456");
+        transaction.setAccountName("david");
+        transaction.setPayeeAccount("9876543210987654");
+        transaction.setPayeeName("Tom");
+        transaction.setAmount(new BigDecimal("500.00"));
+        transaction.setCurrency("CNY");
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDebitCredit(DebitCredit.CREDIT);
+        transaction.setDescription("Test");
+        when(transactionService.createTransaction(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction created = invocation.getArgument(0);
+            created.setId(1L);
+            return created;
+        });
+    }
+
+    @Test
+    @DisplayName("Should return 429 with Retry-After once the account has used its burst, without calling the service")
+    void testCreate_AccountOverLimit() throws Exception {
+        //the limiter is shared by the tests of the context, each test has its own account
+        transaction.setAccountNumber("1111222233334444");
+        create("client-1").andExpect(status().isCreated());
+        create("client-2").andExpect(status().isCreated());
+
+        //one token per 5 seconds
+        create("client-3")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(content().string(containsString("for account 1111222233334444")));
+
+        verify(transactionService, times(2)).createTransaction(any(Transaction.class));
+    }
+
+    @Test
+    @DisplayName("Should keep serving the other accounts of the same client")
+    void testCreate_OtherAccountNotLimited() throws Exception {
+        create("client-1").andExpect(status().isCreated());
+        create("client-1").andExpect(status().isCreated());
+        create("client-1").andExpect(status().isTooManyRequests());
+
+        transaction.setAccountNumber("6543210987654321");
+        create("client-1").andExpect(status().isCreated());
+    }
+
+    private ResultActions create(String clientId) throws Exception {
+        return mockMvc.perform(post("/transaction")
+                .header(ClientIds.CLIENT_ID_HEADER, clientId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transaction)));
+    }
+}
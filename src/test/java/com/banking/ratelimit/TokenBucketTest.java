@@ -0,0 +1,83 @@
+package com.banking.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TokenBucket unit test: the GCRA arithmetic, driven by an explicit clock
+ */
+public class TokenBucketTest {
+
+    //10 per second, burst of 3
+    private static final long INTERVAL = 100_000_000L;
+    private static final long TOLERANCE = 2 * INTERVAL;
+
+    @Test
+    @DisplayName("A full bucket allows exactly the burst at once, then returns the wait to the next token")
+    void testTryAcquire_Burst() {
+        TokenBucket bucket = new TokenBucket();
+        long now = 1_000_000_000L;
+
+        assertEquals(0, bucket.tryAcquire(now, INTERVAL, TOLERANCE));
+        assertEquals(0, bucket.tryAcquire(now, INTERVAL, TOLERANCE));
+        assertEquals(0, bucket.tryAcquire(now, INTERVAL, TOLERANCE));
+
+        assertEquals(INTERVAL, bucket.tryAcquire(now, INTERVAL, TOLERANCE));
+    }
+
+    @Test
+    @DisplayName("A token is back exactly one interval later, not a nanosecond before")
+    void testTryAcquire_RefillBoundary() {
+        TokenBucket bucket = new TokenBucket();
+        long now = 1_000_000_000L;
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire(now, INTERVAL, TOLERANCE);
+        }
+
+        assertEquals(1, bucket.tryAcquire(now + INTERVAL - 1, INTERVAL, TOLERANCE));
+        assertEquals(0, bucket.tryAcquire(now + INTERVAL, INTERVAL, TOLERANCE));
+        assertEquals(INTERVAL, bucket.tryAcquire(now + INTERVAL, INTERVAL, TOLERANCE));
+    }
+
+    @Test
+    @DisplayName("A rejected request does not consume a token")
+    void testTryAcquire_RejectedNotCounted() {
+        TokenBucket bucket = new TokenBucket();
+        long now = 1_000_000_000L;
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire(now, INTERVAL, TOLERANCE);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(now, INTERVAL, TOLERANCE) > 0);
+        }
+
+        assertEquals(0, bucket.tryAcquire(now + INTERVAL, INTERVAL, TOLERANCE));
+    }
+
+    @Test
+    @DisplayName("An idle bucket refills up to the burst, never beyond")
+    void testTryAcquire_RefillCappedAtBurst() {
+        TokenBucket bucket = new TokenBucket();
+        long now = 1_000_000_000L;
+        bucket.tryAcquire(now, INTERVAL, TOLERANCE);
+
+        long later = now + 100 * INTERVAL;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(later, INTERVAL, TOLERANCE));
+        }
+        assertTrue(bucket.tryAcquire(later, INTERVAL, TOLERANCE) > 0);
+    }
+
+    @Test
+    @DisplayName("A burst of 1 spaces the requests one interval apart")
+    void testTryAcquire_NoBurst() {
+        TokenBucket bucket = new TokenBucket();
+        long now = 1_000_000_000L;
+
+        assertEquals(0, bucket.tryAcquire(now, INTERVAL, 0));
+        assertEquals(INTERVAL / 2, bucket.tryAcquire(now + INTERVAL / 2, INTERVAL, 0));
+        assertEquals(0, bucket.tryAcquire(now + INTERVAL, INTERVAL, 0));
+    }
+}
@@ -0,0 +1,133 @@
+package com.banking.ratelimit;
+
+import com.banking.enums.TransactionType;
+import com.banking.exception.RateLimitExceededException;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TransactionRateLimiter unit test
+ */
+public class TransactionRateLimiterTest {
+
+    private RateLimitProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setClient(limit(100, 100));
+        properties.setAccount(limit(0.5, 2));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("An account over its limit is rejected with the wait rounded up to seconds, other keys are not")
+    void testAcquire_PerAccountLimit() {
+        TransactionRateLimiter limiter = limiter();
+        limiter.acquire("client-1", "1234567890123456", TransactionType.DEPOSIT);
+        limiter.acquire("client-1", "1234567890123456", TransactionType.DEPOSIT);
+
+        RateLimitExceededException exception = assertThrows(RateLimitExceededException.class,
+                () -> limiter.acquire("client-1", "1234567890123456", TransactionType.DEPOSIT));
+
+        //one token per 2 seconds
+        assertEquals(2, exception.getRetryAfterSeconds());
+        assertDoesNotThrow(() -> limiter.acquire("client-1", "1234567890123456", TransactionType.WITHDRAWAL));
+        assertDoesNotThrow(() -> limiter.acquire("client-1", "6543210987654321", TransactionType.DEPOSIT));
+        assertEquals(1.0, meterRegistry.get("transaction.rate_limit.rejected").tag("scope", "account").counter().count());
+    }
+
+    @Test
+    @DisplayName("A client over its limit is rejected before its accounts are charged")
+    void testAcquire_PerClientLimit() {
+        properties.setClient(limit(1, 1));
+        TransactionRateLimiter limiter = limiter();
+        limiter.acquire("client-1", "1234567890123456", TransactionType.DEPOSIT);
+
+        RateLimitExceededException exception = assertThrows(RateLimitExceededException.class,
+                () -> limiter.acquire("client-1", "6543210987654321", TransactionType.DEPOSIT));
+
+        assertEquals(1, exception.getRetryAfterSeconds());
+        assertDoesNotThrow(() -> limiter.acquire("client-2", "6543210987654321", TransactionType.DEPOSIT));
+        assertDoesNotThrow(() -> limiter.acquire("client-3", "6543210987654321", TransactionType.DEPOSIT),
+                "the rejected request did not take a token of the account");
+    }
+
+    @Test
+    @DisplayName("A per-type limit overrides the account limit")
+    void testAcquire_PerTypeLimit() {
+        properties.getAccountTypes().put(TransactionType.TRANSFER_OUT, limit(1, 1));
+        TransactionRateLimiter limiter = limiter();
+        limiter.acquire("client-1", "1234567890123456", TransactionType.TRANSFER_OUT);
+
+        assertThrows(RateLimitExceededException.class,
+                () -> limiter.acquire("client-1", "1234567890123456", TransactionType.TRANSFER_OUT));
+    }
+
+    @Test
+    @DisplayName("An idle key is evicted and restarts with a full bucket")
+    void testAcquire_IdleKeyEvicted() throws Exception {
+        properties.setIdleExpireSeconds(1);
+        TransactionRateLimiter limiter = limiter();
+        limiter.acquire("client-1", "1234567890123456", TransactionType.DEPOSIT);
+        limiter.acquire("client-1", "1234567890123456", TransactionType.DEPOSIT);
+        assertThrows(RateLimitExceededException.class,
+                () -> limiter.acquire("client-1", "1234567890123456", TransactionType.DEPOSIT));
+
+        Thread.sleep(1100);
+        buckets(limiter, "clientBuckets").cleanUp();
+        buckets(limiter, "accountBuckets").cleanUp();
+
+        assertEquals(0.0, meterRegistry.get("transaction.rate_limit.keys").gauge().value());
+        assertDoesNotThrow(() -> limiter.acquire("client-1", "1234567890123456", TransactionType.DEPOSIT));
+    }
+
+    @Test
+    @DisplayName("The number of keys is bounded by max-keys")
+    void testAcquire_MaxKeys() {
+        properties.setMaxKeys(10);
+        TransactionRateLimiter limiter = limiter();
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire("client-" + i, null, null);
+        }
+        Cache<?, ?> clientBuckets = buckets(limiter, "clientBuckets");
+        clientBuckets.cleanUp();
+
+        assertTrue(clientBuckets.estimatedSize() <= 10);
+    }
+
+    @Test
+    @DisplayName("A rate of zero is rejected at startup")
+    void testInit_InvalidRate() {
+        properties.setAccount(limit(0, 1));
+
+        assertThrows(IllegalStateException.class, this::limiter);
+    }
+
+    private TransactionRateLimiter limiter() {
+        TransactionRateLimiter limiter = new TransactionRateLimiter();
+        ReflectionTestUtils.setField(limiter, "properties", properties);
+        ReflectionTestUtils.setField(limiter, "meterRegistry", meterRegistry);
+        limiter.init();
+        return limiter;
+    }
+
+    private static Cache<?, ?> buckets(TransactionRateLimiter limiter, String field) {
+        return (Cache<?, ?>) ReflectionTestUtils.getField(limiter, field);
+    }
+
+    private static RateLimitProperties.Limit limit(double ratePerSecond, int burst) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setRatePerSecond(ratePerSecond);
+        limit.setBurst(burst);
+        return limit;
+    }
+}
@@ -0,0 +1,180 @@
+package com.banking.readmodel;
+
+import com.banking.cache.invalidation.CacheInvalidationBroadcaster;
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.enums.TransactionType;
+import com.banking.model.Transaction;
+import com.banking.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * ReadModelSnapshot unit test: write, check and restore of the snapshot, replay of the delta from the DB
+ */
+public class ReadModelSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<TransactionReadModel> readModels = new ArrayList<>();
+    private TransactionRepository transactionRepository;
+    private ReadModelSnapshot snapshot;
+    private LocalDateTime created;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = mock(TransactionRepository.class);
+        created = LocalDateTime.now().minusMinutes(10);
+
+        //the model of the previous run, written to the snapshot
+        TransactionReadModel written = readModel();
+        snapshot = snapshot(written);
+        written.upsert(transaction(1L, "first"));
+        written.upsert(transaction(2L, "x".repeat(40000)));
+        ReflectionTestUtils.setField(written, "ready", true);
+        snapshot.write();
+    }
+
+    @AfterEach
+    void tearDown() {
+        readModels.forEach(TransactionReadModel::shutdown);
+    }
+
+    @Test
+    @DisplayName("A restart restores the rows of the snapshot, strings above 32767 bytes included")
+    void testRestore_RoundTrip() {
+        dbHolds(2L, 2);
+        TransactionReadModel restored = restartedReadModel();
+
+        restored.rebuild();
+
+        assertTrue(restored.isReady());
+        assertEquals("first", restored.findById(1L).orElseThrow().getDescription());
+        assertEquals("x".repeat(40000), restored.findById(2L).orElseThrow().getDescription());
+        assertEquals(2, restored.findPage(0, 10).getTotalElements());
+        //only the ids above the snapshot are read
+        verify(transactionRepository).findByIdGreaterThanOrderByIdAsc(eq(2L), any(Pageable.class));
+        verify(transactionRepository, never()).findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("A snapshot with a bad checksum is ignored")
+    void testOpen_BadChecksum() throws Exception {
+        Path file = directory.resolve("read-model.snapshot");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+
+        assertTrue(snapshot.open().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Creates and updates since the snapshot are replayed from the DB")
+    void testRestore_DeltaReplayed() {
+        dbHolds(3L, 3);
+        Transaction updated = transaction(1L, "first");
+        updated.setStatus(TransactionStatus.COMPLETED);
+        updated.setUpdatedAt(LocalDateTime.now());
+        when(transactionRepository.findByUpdatedAtAfter(any())).thenReturn(List.of(updated));
+        when(transactionRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), any(Pageable.class)))
+                .thenReturn(List.of(transaction(3L, "third")));
+        TransactionReadModel restored = restartedReadModel();
+
+        restored.rebuild();
+
+        assertTrue(restored.isReady());
+        assertEquals(TransactionStatus.COMPLETED, restored.findById(1L).orElseThrow().getStatus());
+        assertEquals("third", restored.findById(3L).orElseThrow().getDescription());
+        assertEquals(3, restored.findPage(0, 10).getTotalElements());
+    }
+
+    @Test
+    @DisplayName("A row count different from the DB drops the snapshot, the model is rebuilt from the DB")
+    void testRestore_CountMismatchRebuilds() {
+        //row 2 was deleted since the snapshot
+        dbHolds(2L, 1);
+        when(transactionRepository.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(transaction(1L, "first")));
+        TransactionReadModel restored = restartedReadModel();
+
+        restored.rebuild();
+
+        assertTrue(restored.isReady());
+        assertTrue(restored.findById(1L).isPresent());
+        assertTrue(restored.findById(2L).isEmpty());
+        assertEquals(1, restored.findPage(0, 10).getTotalElements());
+    }
+
+    private void dbHolds(long maxId, long count) {
+        when(transactionRepository.findMaxId()).thenReturn(maxId);
+        when(transactionRepository.count()).thenReturn(count);
+    }
+
+    @SuppressWarnings("unchecked")
+    private TransactionReadModel restartedReadModel() {
+        TransactionReadModel readModel = readModel();
+        ObjectProvider<ReadModelSnapshot> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(snapshot(readModel));
+        ReflectionTestUtils.setField(readModel, "readModelSnapshot", provider);
+        return readModel;
+    }
+
+    private TransactionReadModel readModel() {
+        TransactionReadModel readModel = new TransactionReadModel();
+        ReflectionTestUtils.setField(readModel, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(readModel, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(readModel, "broadcaster", mock(CacheInvalidationBroadcaster.class));
+        ReflectionTestUtils.setField(readModel, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(readModel, "rebuildBatchSize", 1000);
+        ReflectionTestUtils.setField(readModel, "tombstoneTtlMs", 60000L);
+        readModel.init();
+        readModels.add(readModel);
+        return readModel;
+    }
+
+    private ReadModelSnapshot snapshot(TransactionReadModel readModel) {
+        ReadModelSnapshot readModelSnapshot = new ReadModelSnapshot();
+        ReflectionTestUtils.setField(readModelSnapshot, "transactionReadModel", readModel);
+        ReflectionTestUtils.setField(readModelSnapshot, "file", directory.resolve("read-model.snapshot").toString());
+        ReflectionTestUtils.setField(readModelSnapshot, "maxAgeMinutes", 60L);
+        ReflectionTestUtils.setField(readModelSnapshot, "clockSkewMillis", 5000L);
+        return readModelSnapshot;
+    }
+
+    private Transaction transaction(Long id, String description) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTradeNo(String.format("%018d", 100000000000000000L + id));
+        transaction.setAccountNumber("1234567890123456");
+        transaction.setAccountName("david");
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setCurrency("CNY");
+        transaction.setStatus(TransactionStatus.PENDING);
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDebitCredit(DebitCredit.CREDIT);
+        transaction.setDescription(description);
+        transaction.setCreatedAt(created.plusSeconds(id));
+        return transaction;
+    }
+}
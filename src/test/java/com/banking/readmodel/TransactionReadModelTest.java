@@ -0,0 +1,220 @@
+package com.banking.readmodel;
+
+import com.banking.cache.invalidation.CacheInvalidationBroadcaster;
+import com.banking.cache.invalidation.InvalidationMessage;
+import com.banking.config.CacheConfig;
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.enums.TransactionType;
+import com.banking.model.Transaction;
+import com.banking.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * TransactionReadModel unit test: versions and tombstones of the rows, account and status indexes
+ */
+public class TransactionReadModelTest {
+
+    private static final String ACCOUNT = "1234567890123456";
+    private static final String OTHER_ACCOUNT = "6222000000000001";
+
+    private TransactionReadModel readModel;
+    private TransactionRepository transactionRepository;
+    private Consumer<InvalidationMessage> peerListener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        transactionRepository = mock(TransactionRepository.class);
+        CacheInvalidationBroadcaster broadcaster = mock(CacheInvalidationBroadcaster.class);
+
+        readModel = new TransactionReadModel();
+        ReflectionTestUtils.setField(readModel, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(readModel, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(readModel, "broadcaster", broadcaster);
+        ReflectionTestUtils.setField(readModel, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(readModel, "tombstoneTtlMs", 60000L);
+        readModel.init();
+
+        ArgumentCaptor<Consumer<InvalidationMessage>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(broadcaster).subscribe(listener.capture());
+        peerListener = listener.getValue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        readModel.shutdown();
+    }
+
+    @Test
+    @DisplayName("An older version does not replace a newer row")
+    void testUpsert_OlderVersionIgnored() {
+        LocalDateTime created = LocalDateTime.now().minusMinutes(5);
+        readModel.upsert(transaction(1L, created, created.plusMinutes(2), TransactionStatus.COMPLETED));
+
+        readModel.upsert(transaction(1L, created, created.plusMinutes(1), TransactionStatus.FAILED));
+
+        assertEquals(TransactionStatus.COMPLETED, readModel.findById(1L).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("A late upsert of the deleted version does not bring the row back")
+    void testRemove_LateUpsertRejected() {
+        LocalDateTime created = LocalDateTime.now().minusMinutes(5);
+        Transaction transaction = transaction(1L, created, created.plusMinutes(1), TransactionStatus.PENDING);
+        readModel.upsert(transaction);
+
+        readModel.remove(1L);
+        readModel.upsert(transaction);
+
+        assertTrue(readModel.findById(1L).isEmpty());
+        assertTrue(readModel.findByTradeNo(transaction.getTradeNo()).isEmpty());
+        assertEquals(0, readModel.findPage(0, 10).getTotalElements());
+    }
+
+    @Test
+    @DisplayName("A delete the model has not seen yet still rejects the late create")
+    void testRemove_BeforeCreate() {
+        readModel.remove(1L);
+
+        readModel.upsert(transaction(1L, LocalDateTime.now().minusSeconds(1), null, TransactionStatus.PENDING));
+
+        assertTrue(readModel.findById(1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A peer refresh that read the row before its delete does not bring it back")
+    void testRemove_StalePeerRefreshRejected() throws Exception {
+        LocalDateTime created = LocalDateTime.now().minusMinutes(5);
+        Transaction transaction = transaction(1L, created, null, TransactionStatus.PENDING);
+        readModel.upsert(transaction);
+        readModel.remove(1L);
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(transaction));
+
+        peerListener.accept(new InvalidationMessage("peer", CacheConfig.TRANSACTION_BY_ID, 1L));
+        awaitPeerRefresh();
+
+        verify(transactionRepository).findById(1L);
+        assertTrue(readModel.findById(1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Tombstones past the TTL are pruned")
+    void testRemove_TombstonesPruned() throws Exception {
+        ReflectionTestUtils.setField(readModel, "tombstoneTtlMs", 0L);
+        readModel.remove(1L);
+        Thread.sleep(2);
+
+        readModel.remove(2L);
+        Thread.sleep(2);
+        readModel.remove(3L);
+
+        Map<?, ?> tombstones = (Map<?, ?>) ReflectionTestUtils.getField(readModel, "tombstones");
+        assertEquals(1, tombstones.size());
+        assertTrue(tombstones.containsKey(3L));
+    }
+
+    @Test
+    @DisplayName("The account index returns the transactions of the account in the time range, newest first")
+    void testFindByAccount_RangeNewestFirst() {
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        for (long id = 1; id <= 5; id++) {
+            readModel.upsert(transaction(id, ACCOUNT, start.plusMinutes(id), null, TransactionStatus.PENDING));
+        }
+        readModel.upsert(transaction(6L, OTHER_ACCOUNT, start.plusMinutes(3), null, TransactionStatus.PENDING));
+
+        List<Transaction> inRange = readModel.findByAccount(ACCOUNT, start.plusMinutes(2), start.plusMinutes(4), 10);
+        assertEquals(List.of(4L, 3L, 2L), ids(inRange));
+
+        List<Transaction> limited = readModel.findByAccount(ACCOUNT, start, start.plusHours(1), 2);
+        assertEquals(List.of(5L, 4L), ids(limited));
+
+        assertEquals(List.of(6L), ids(readModel.findByAccount(OTHER_ACCOUNT, start, start.plusHours(1), 10)));
+    }
+
+    @Test
+    @DisplayName("An update or delete moves the entries of the account and status indexes")
+    void testIndexes_UpdateAndRemove() {
+        LocalDateTime created = LocalDateTime.now().minusMinutes(30);
+        LocalDateTime from = created.minusMinutes(1);
+        LocalDateTime to = created.plusMinutes(10);
+        readModel.upsert(transaction(1L, ACCOUNT, created, null, TransactionStatus.PENDING));
+        readModel.upsert(transaction(2L, ACCOUNT, created.plusMinutes(1), null, TransactionStatus.PENDING));
+
+        readModel.upsert(transaction(1L, OTHER_ACCOUNT, created, created.plusMinutes(5), TransactionStatus.COMPLETED));
+
+        assertEquals(List.of(2L), ids(readModel.findByAccount(ACCOUNT, from, to, 10)));
+        assertEquals(List.of(1L), ids(readModel.findByAccount(OTHER_ACCOUNT, from, to, 10)));
+        assertEquals(List.of(2L), ids(readModel.findByStatus(TransactionStatus.PENDING, to, 10)));
+        assertEquals(List.of(1L), ids(readModel.findByStatus(TransactionStatus.COMPLETED, to, 10)));
+
+        readModel.remove(2L);
+
+        assertTrue(readModel.findByAccount(ACCOUNT, from, to, 10).isEmpty());
+        assertTrue(readModel.findByStatus(TransactionStatus.PENDING, to, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("The status index returns the transactions created strictly before the time, newest first")
+    void testFindByStatus_CreatedBefore() {
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        readModel.upsert(transaction(1L, ACCOUNT, start.plusMinutes(1), null, TransactionStatus.PENDING));
+        readModel.upsert(transaction(2L, ACCOUNT, start.plusMinutes(2), null, TransactionStatus.FAILED));
+        readModel.upsert(transaction(3L, ACCOUNT, start.plusMinutes(3), null, TransactionStatus.PENDING));
+        readModel.upsert(transaction(4L, ACCOUNT, start.plusMinutes(4), null, TransactionStatus.PENDING));
+
+        assertEquals(List.of(3L, 1L), ids(readModel.findByStatus(TransactionStatus.PENDING, start.plusMinutes(4), 10)));
+        assertEquals(List.of(4L), ids(readModel.findByStatus(TransactionStatus.PENDING, start.plusHours(1), 1)));
+        assertEquals(List.of(2L), ids(readModel.findByStatus(TransactionStatus.FAILED, start.plusHours(1), 10)));
+    }
+
+    private static List<Long> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getId).toList();
+    }
+
+    //the queued refresh still runs after shutdown
+    private void awaitPeerRefresh() throws InterruptedException {
+        ExecutorService peerRefresher = (ExecutorService) ReflectionTestUtils.getField(readModel, "peerRefresher");
+        peerRefresher.shutdown();
+        assertTrue(peerRefresher.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private static Transaction transaction(Long id, LocalDateTime createdAt, LocalDateTime updatedAt, TransactionStatus status) {
+        return transaction(id, ACCOUNT, createdAt, updatedAt, status);
+    }
+
+    private static Transaction transaction(Long id, String accountNumber, LocalDateTime createdAt, LocalDateTime updatedAt,
+                                           TransactionStatus status) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTradeNo(String.format("%018d", 100000000000000000L + id));
+        transaction.setAccountNumber(accountNumber);
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setCurrency("CNY");
+        transaction.setStatus(status);
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDebitCredit(DebitCredit.CREDIT);
+        transaction.setCreatedAt(createdAt);
+        transaction.setUpdatedAt(updatedAt);
+        return transaction;
+    }
+}
@@ -0,0 +1,229 @@
+package com.banking.reconciliation;
+
+import com.banking.balance.AccountBalanceLedger;
+import com.banking.dto.ReconciliationReport;
+import com.banking.dto.TransferRequest;
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionType;
+import com.banking.model.Transaction;
+import com.banking.repository.ReconciliationRepository;
+import com.banking.service.TransactionService;
+import com.banking.storage.compact.CompactEncoding;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReconciliationJob test, against the H2 database: few partitions and small batches so every path is taken
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reconciliation_test;DB_CLOSE_DELAY=-1",
+        "app.reconciliation.enabled=true",
+        "app.reconciliation.partitions=4",
+        "app.reconciliation.parallelism=2",
+        "app.reconciliation.batch-size=3",
+        "app.reconciliation.fetch-size=5",
+        "app.balance.enabled=true",
+        "app.archive.enabled=false",
+        "app.cache.warmup.enabled=false"
+})
+public class ReconciliationJobTest {
+
+    private static final int PARTITIONS = 4;
+    private static final int ACCOUNTS = 10;
+    private static final int TRANSACTIONS_PER_ACCOUNT = 3;
+
+    private static final AtomicLong tradeNumbers = new AtomicLong(100000000000000000L);
+
+    @Autowired
+    private ReconciliationJob reconciliationJob;
+
+    @Autowired
+    private ReconciliationRepository reconciliationRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountBalanceLedger accountBalanceLedger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    //account number -> debit total, credit total, count, in minor units
+    private Map<String, long[]> expectedTotals;
+
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM transactions");
+        jdbcTemplate.update("DELETE FROM transactions_archive");
+        accountBalanceLedger.rebuild();
+        today = LocalDate.now();
+
+        expectedTotals = new HashMap<>();
+        for (int account = 0; account < ACCOUNTS; account++) {
+            String accountNumber = "62220000000000" + String.format("%02d", account);
+            for (int i = 0; i < TRANSACTIONS_PER_ACCOUNT; i++) {
+                DebitCredit debitCredit = i % 2 == 0 ? DebitCredit.CREDIT : DebitCredit.DEBIT;
+                BigDecimal amount = new BigDecimal(account * 100 + i + 1).movePointLeft(2).add(BigDecimal.TEN);
+                transactionService.createTransaction(transaction(accountNumber, debitCredit, amount));
+                long[] totals = expectedTotals.computeIfAbsent(accountNumber, key -> new long[3]);
+                totals[debitCredit == DebitCredit.DEBIT ? 0 : 1] += CompactEncoding.encodeAmount(amount);
+                totals[2]++;
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Every transaction of the day is streamed by exactly one partition, an account by one partition only")
+    void testPartitionsCoverEveryTransactionOnce() {
+        Map<String, Integer> partitionOfAccount = new HashMap<>();
+        long[] streamed = new long[1];
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            int current = partition;
+            reconciliationRepository.streamDay(today, partition, PARTITIONS, 5, posting -> {
+                streamed[0]++;
+                Integer previous = partitionOfAccount.putIfAbsent(posting.accountNumber(), current);
+                assertTrue(previous == null || previous == current, "account " + posting.accountNumber() + " in two partitions");
+            });
+        }
+
+        assertEquals(ACCOUNTS * TRANSACTIONS_PER_ACCOUNT, streamed[0]);
+        assertEquals(expectedTotals.keySet(), partitionOfAccount.keySet());
+    }
+
+    @Test
+    @DisplayName("Should save the debit and credit totals of every account, with no discrepancy when the ledger matches")
+    void testReconcile_TotalsPerAccount() {
+        ReconciliationReport report = reconciliationJob.reconcile(today);
+
+        assertEquals(ACCOUNTS * TRANSACTIONS_PER_ACCOUNT, report.getTransactions());
+        assertEquals(ACCOUNTS, report.getAccounts());
+        assertEquals(PARTITIONS, report.getPartitions());
+        assertEquals(0, report.getDiscrepancyCount());
+        assertNotNull(report.getFinishedAt());
+
+        Map<String, long[]> saved = new HashMap<>();
+        jdbcTemplate.query("SELECT account_number, currency, debit_total, credit_total, transaction_count FROM reconciliation_totals "
+                + "WHERE business_date = ?", resultSet -> {
+            assertEquals("CNY", resultSet.getString(2));
+            saved.put(resultSet.getString(1), new long[]{resultSet.getLong(3), resultSet.getLong(4), resultSet.getLong(5)});
+        }, java.sql.Date.valueOf(today));
+        assertEquals(expectedTotals.keySet(), saved.keySet());
+        expectedTotals.forEach((accountNumber, totals) -> assertArrayEquals(totals, saved.get(accountNumber), accountNumber));
+    }
+
+    @Test
+    @DisplayName("A rerun of the date replaces its report instead of adding to it")
+    void testReconcile_RerunReplacesReport() {
+        reconciliationJob.reconcile(today);
+        reconciliationJob.reconcile(today);
+
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reconciliation_totals WHERE business_date = ?",
+                Long.class, java.sql.Date.valueOf(today));
+        assertEquals(ACCOUNTS, rows);
+    }
+
+    @Test
+    @DisplayName("Should report a ledger mismatch when the DB changed behind the ledger")
+    void testReconcile_LedgerMismatch() {
+        String accountNumber = "6222000000000003";
+        long before = ledgerBalance(accountNumber);
+        //a CREDIT row changed directly in the DB, the ledger never saw it
+        jdbcTemplate.update("UPDATE transactions SET amount = amount + 1 WHERE account_number = ? AND debit_credit = ? "
+                + "AND id = (SELECT MIN(id) FROM transactions WHERE account_number = ? AND debit_credit = ?)",
+                accountNumber, DebitCredit.CREDIT.name(), accountNumber, DebitCredit.CREDIT.name());
+
+        ReconciliationReport report = reconciliationJob.reconcile(today);
+
+        assertEquals(1, report.getDiscrepancyCount());
+        ReconciliationReport.Discrepancy discrepancy = report.getDiscrepancies().get(0);
+        assertEquals(DiscrepancyKind.LEDGER_MISMATCH.name(), discrepancy.kind());
+        assertEquals(accountNumber, discrepancy.accountNumber());
+        assertEquals("CNY", discrepancy.currency());
+        assertEquals(0, CompactEncoding.decodeAmount(before + 100).compareTo(discrepancy.expected()));
+        assertEquals(0, CompactEncoding.decodeAmount(before).compareTo(discrepancy.actual()));
+    }
+
+    @Test
+    @DisplayName("Should report a transfer with a missing leg, and not a balanced one")
+    void testReconcile_UnbalancedTransfer() {
+        List<Transaction> balanced = transactionService.createTransfer(transfer("6222000000000001", "6222000000000002"));
+        List<Transaction> broken = transactionService.createTransfer(transfer("6222000000000004", "6222000000000005"));
+        //the TRANSFER_IN leg lost, as if a partial write had committed
+        jdbcTemplate.update("DELETE FROM transactions WHERE id = ?", broken.get(1).getId());
+
+        ReconciliationReport report = reconciliationJob.reconcile(today);
+
+        List<ReconciliationReport.Discrepancy> transfers = new ArrayList<>();
+        Set<String> mismatchedAccounts = new HashSet<>();
+        for (ReconciliationReport.Discrepancy discrepancy : report.getDiscrepancies()) {
+            if (DiscrepancyKind.UNBALANCED_TRANSFER.name().equals(discrepancy.kind())) {
+                transfers.add(discrepancy);
+            } else {
+                mismatchedAccounts.add(discrepancy.accountNumber());
+            }
+        }
+        assertEquals(1, transfers.size());
+        assertEquals(broken.get(0).getTransferRef(), transfers.get(0).reference());
+        assertNotEquals(balanced.get(0).getTransferRef(), transfers.get(0).reference());
+        assertEquals(0, new BigDecimal("25.00").compareTo(transfers.get(0).expected()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(transfers.get(0).actual()));
+        //the ledger still holds the credit of the lost leg
+        assertEquals(Set.of("6222000000000005"), mismatchedAccounts);
+    }
+
+    @Test
+    @DisplayName("Should not reconcile a future date")
+    void testReconcile_FutureDate() {
+        assertThrows(IllegalArgumentException.class, () -> reconciliationJob.reconcile(today.plusDays(1)));
+    }
+
+    private long ledgerBalance(String accountNumber) {
+        return CompactEncoding.encodeAmount(accountBalanceLedger.findBalances(accountNumber).orElseThrow().get("CNY"));
+    }
+
+    private static Transaction transaction(String accountNumber, DebitCredit debitCredit, BigDecimal amount) {
+        Transaction transaction = new Transaction();
+        transaction.setTradeNo(String.valueOf(tradeNumbers.incrementAndGet()));
+        transaction.setAccountNumber(accountNumber);
+        transaction.setAccountName("david");
+        transaction.setPayeeAccount("9876543210987654");
+        transaction.setPayeeName("Tom");
+        transaction.setAmount(amount);
+        transaction.setCurrency("CNY");
+        transaction.setType(debitCredit == DebitCredit.DEBIT ? TransactionType.WITHDRAWAL : TransactionType.DEPOSIT);
+        transaction.setDebitCredit(debitCredit);
+        return transaction;
+    }
+
+    private static TransferRequest transfer(String accountNumber, String payeeAccount) {
+        TransferRequest transfer = new TransferRequest();
+        transfer.setOutTradeNo(String.valueOf(tradeNumbers.incrementAndGet()));
+        transfer.setInTradeNo(String.valueOf(tradeNumbers.incrementAndGet()));
+        transfer.setAccountNumber(accountNumber);
+        transfer.setAccountName("david");
+        transfer.setPayeeAccount(payeeAccount);
+        transfer.setPayeeName("Tom");
+        transfer.setAmount(new BigDecimal("25.00"));
+        transfer.setCurrency("CNY");
+        return transfer;
+    }
+}
@@ -0,0 +1,105 @@
+package com.banking.service.impl;
+
+import com.banking.dto.PagedResult;
+import com.banking.model.Transaction;
+import com.banking.service.TransactionService;
+import com.banking.sharding.ShardContext;
+import com.banking.sharding.ShardRouter;
+import com.banking.sharding.ShardingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * ShardedTransactionService unit test of the scatter-gather list, over 3 shards
+ */
+public class ShardedTransactionServiceTest {
+
+    private static final int SHARDS = 3;
+    private static final int ROWS_PER_SHARD = 10;
+
+    private final LocalDateTime now = LocalDateTime.of(2025, 6, 30, 12, 0);
+
+    private ShardedTransactionService shardedTransactionService;
+    private TransactionService delegate;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(TransactionService.class);
+        //shard s holds the transactions created at minutes s, s + 3, s + 6... before now, newest first
+        when(delegate.getTransactions(eq(0), anyInt())).thenAnswer(invocation -> {
+            int shard = ShardContext.current();
+            int limit = invocation.getArgument(1);
+            List<Transaction> rows = new ArrayList<>();
+            for (int i = 0; i < Math.min(limit, ROWS_PER_SHARD); i++) {
+                rows.add(transaction(shard + (long) i * SHARDS));
+            }
+            return new PagedResult<>(rows, 0, limit, ROWS_PER_SHARD, (ROWS_PER_SHARD + limit - 1) / limit);
+        });
+        ShardRouter shardRouter = mock(ShardRouter.class);
+        when(shardRouter.shardCount()).thenReturn(SHARDS);
+        ShardingProperties shardingProperties = new ShardingProperties();
+        shardingProperties.setMaxListWindow(20);
+        executor = Executors.newFixedThreadPool(SHARDS);
+
+        shardedTransactionService = new ShardedTransactionService();
+        ReflectionTestUtils.setField(shardedTransactionService, "delegate", delegate);
+        ReflectionTestUtils.setField(shardedTransactionService, "shardRouter", shardRouter);
+        ReflectionTestUtils.setField(shardedTransactionService, "shardingProperties", shardingProperties);
+        ReflectionTestUtils.setField(shardedTransactionService, "shardQueryExecutor", executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should merge the newest transactions of every shard and cut the requested page")
+    void testGetTransactions_MergedPage() {
+        PagedResult<Transaction> result = shardedTransactionService.getTransactions(1, 4);
+
+        //minutes 4..7 before now, across the three shards
+        assertEquals(List.of(4L, 5L, 6L, 7L), result.getContent().stream().map(Transaction::getId).toList());
+        assertEquals(SHARDS * ROWS_PER_SHARD, result.getTotalElements());
+        verify(delegate, times(SHARDS)).getTransactions(0, 8);
+    }
+
+    @Test
+    @DisplayName("Should list up to the window cap, every shard loading only (page + 1) * size rows")
+    void testGetTransactions_AtCap() {
+        PagedResult<Transaction> result = shardedTransactionService.getTransactions(3, 5);
+
+        assertEquals(List.of(15L, 16L, 17L, 18L, 19L), result.getContent().stream().map(Transaction::getId).toList());
+        verify(delegate, times(SHARDS)).getTransactions(0, 20);
+    }
+
+    @Test
+    @DisplayName("Should reject a page beyond the window cap without querying the shards")
+    void testGetTransactions_BeyondCap() {
+        assertThrows(IllegalArgumentException.class, () -> shardedTransactionService.getTransactions(4, 5));
+        assertThrows(IllegalArgumentException.class, () -> shardedTransactionService.getTransactions(Integer.MAX_VALUE, 100));
+        verify(delegate, never()).getTransactions(anyInt(), anyInt());
+    }
+
+    private Transaction transaction(long minutesAgo) {
+        Transaction transaction = new Transaction();
+        transaction.setId(minutesAgo);
+        transaction.setCreatedAt(now.minusMinutes(minutesAgo));
+        return transaction;
+    }
+}
@@ -0,0 +1,154 @@
+package com.banking.service.impl;
+
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.enums.TransactionType;
+import com.banking.model.Transaction;
+import com.banking.storage.log.LogStructuredStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TradeNumberServiceImpl unit test, with a fresh in-memory database per "restart"
+ */
+public class TradeNumberServiceImplTest {
+
+    private static final int BLOCK_SIZE = 10;
+
+    @TempDir
+    Path tempDir;
+
+    private LogStructuredStore logStore;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (logStore != null) {
+            invoke(logStore, "close");
+        }
+    }
+
+    @Test
+    @DisplayName("Allocated numbers carry the prefix digit and are unique across blocks")
+    void testAllocate_Format() {
+        TradeNumberServiceImpl service = service(database(), null);
+
+        List<String> tradeNumbers = service.allocate(25);
+
+        assertEquals(25, new HashSet<>(tradeNumbers).size());
+        tradeNumbers.forEach(tradeNo -> assertTrue(tradeNo.matches("9\\d{17}"), tradeNo));
+    }
+
+    @Test
+    @DisplayName("With the JPA engine a new sequence starts above the highest stored trade number")
+    void testInit_SeededFromTransactionsTable() {
+        DataSource database = database();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE transactions (trade_no VARCHAR(18))");
+        jdbcTemplate.update("INSERT INTO transactions (trade_no) VALUES ('900000000000000095'), ('123456789012345678')");
+
+        List<String> tradeNumbers = service(database, null).allocate(5);
+
+        tradeNumbers.forEach(tradeNo -> assertTrue(Long.parseLong(tradeNo) > 900000000000000095L, tradeNo));
+    }
+
+    @Test
+    @DisplayName("With the log engine numbers do not repeat after a restart with an empty in-memory database")
+    void testInit_SeededFromLogStore() throws Exception {
+        logStore = logStore();
+        TradeNumberServiceImpl first = service(database(), logStore);
+        Set<String> used = new HashSet<>(first.allocate(BLOCK_SIZE * 3 + 5));
+        for (String tradeNo : used) {
+            logStore.insert(transaction(tradeNo));
+        }
+
+        //restart: the database, and with it the sequence, is new, the log keeps the transactions
+        TradeNumberServiceImpl restarted = service(database(), logStore);
+
+        for (String tradeNo : restarted.allocate(BLOCK_SIZE * 3)) {
+            assertFalse(used.contains(tradeNo), tradeNo + " allocated again");
+            assertTrue(Long.parseLong(tradeNo) > 900000000000000035L, tradeNo);
+        }
+    }
+
+    @Test
+    @DisplayName("With the log engine client numbers outside the prefix do not move the sequence")
+    void testInit_LogStoreOtherPrefix() throws Exception {
+        logStore = logStore();
+        logStore.insert(transaction("123456789012345678"));
+
+        assertEquals("900000000000000010", service(database(), logStore).allocate(1).get(0));
+    }
+
+    private TradeNumberServiceImpl service(DataSource dataSource, LogStructuredStore store) {
+        StaticListableBeanFactory beanFactory = store != null
+                ? new StaticListableBeanFactory(Map.of("logStructuredStore", store))
+                : new StaticListableBeanFactory();
+        TradeNumberServiceImpl service = new TradeNumberServiceImpl();
+        ReflectionTestUtils.setField(service, "prefix", 9);
+        ReflectionTestUtils.setField(service, "blockSize", BLOCK_SIZE);
+        ReflectionTestUtils.setField(service, "dataSource", dataSource);
+        ReflectionTestUtils.setField(service, "logStructuredStore", beanFactory.getBeanProvider(LogStructuredStore.class));
+        service.init();
+        return service;
+    }
+
+    private static DataSource database() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:trade_no_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    private LogStructuredStore logStore() throws Exception {
+        LogStructuredStore store = new LogStructuredStore();
+        ReflectionTestUtils.setField(store, "dir", tempDir.toString());
+        ReflectionTestUtils.setField(store, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(store, "fsync", "none");
+        ReflectionTestUtils.setField(store, "checkpointIntervalSeconds", 3600L);
+        ReflectionTestUtils.setField(store, "compactionIntervalSeconds", 3600L);
+        ReflectionTestUtils.setField(store, "compactionLiveRatio", 0.5);
+        ReflectionTestUtils.setField(store, "meterRegistry", new SimpleMeterRegistry());
+        invoke(store, "init");
+        return store;
+    }
+
+    //init and close are package-private lifecycle methods of the store
+    private static void invoke(LogStructuredStore store, String name) throws Exception {
+        Method method = LogStructuredStore.class.getDeclaredMethod(name);
+        method.setAccessible(true);
+        method.invoke(store);
+    }
+
+    private static Transaction transaction(String tradeNo) {
+        Transaction transaction = new Transaction();
+        transaction.setTradeNo(tradeNo);
+        transaction.setAccountNumber("1234567890123456");
+        transaction.setAccountName("david");
+        transaction.setPayeeAccount("9876543210987654");
+        transaction.setAmount(new BigDecimal("500.00"));
+        transaction.setCurrency("CNY");
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDebitCredit(DebitCredit.CREDIT);
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setCreatedAt(LocalDateTime.now());
+        return transaction;
+    }
+}
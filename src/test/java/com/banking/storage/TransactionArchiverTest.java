@@ -0,0 +1,160 @@
+package com.banking.storage;
+
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.enums.TransactionType;
+import com.banking.model.Transaction;
+import com.banking.readmodel.TransactionReadModel;
+import com.banking.repository.TransactionArchiveRepository;
+import com.banking.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TransactionArchiver test, against the H2 database: batches of 2 rows so a run takes several chunks
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archiver_test;DB_CLOSE_DELAY=-1",
+        "app.archive.enabled=true",
+        "app.archive.older-than-days=90",
+        "app.archive.batch-size=2",
+        "app.archive.initial-delay-ms=3600000",
+        "app.read-model.enabled=true",
+        "app.cache.warmup.enabled=false"
+})
+public class TransactionArchiverTest {
+
+    private static final AtomicLong tradeNumbers = new AtomicLong(200000000000000000L);
+
+    @Autowired
+    private TransactionArchiver transactionArchiver;
+
+    @Autowired
+    private TransactionArchiveRepository transactionArchiveRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionReadModel transactionReadModel;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Transaction> old;
+    private Transaction oldPending;
+    private Transaction recent;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM transactions");
+        jdbcTemplate.update("DELETE FROM transactions_archive");
+
+        LocalDateTime beforeCutoff = LocalDateTime.now().minusDays(91);
+        old = List.of(create(), create(), create(), create(), create());
+        for (int i = 0; i < old.size(); i++) {
+            backdate(old.get(i), i % 2 == 0 ? TransactionStatus.COMPLETED : TransactionStatus.FAILED, beforeCutoff.minusMinutes(i));
+        }
+        //not final yet, it stays in the hot table however old it is
+        oldPending = create();
+        backdate(oldPending, TransactionStatus.PENDING, beforeCutoff);
+        //final but inside the window
+        recent = create();
+        backdate(recent, TransactionStatus.COMPLETED, LocalDateTime.now().minusDays(89));
+    }
+
+    @Test
+    @DisplayName("Rows past the cutoff move to the archive in chunks, the others stay in the hot table")
+    void testArchive_MovesRowsPastCutoff() {
+        transactionArchiver.archive();
+
+        for (Transaction transaction : old) {
+            assertEquals(0, countIn("transactions", transaction.getId()));
+            assertEquals(1, countIn("transactions_archive", transaction.getId()));
+        }
+        assertEquals(1, countIn("transactions", oldPending.getId()));
+        assertEquals(1, countIn("transactions", recent.getId()));
+        assertEquals(old.size(), jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions_archive", Long.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Long.class));
+    }
+
+    @Test
+    @DisplayName("A second run moves nothing again, every row is archived exactly once")
+    void testArchive_ExactlyOnce() {
+        transactionArchiver.archive();
+        transactionArchiver.archive();
+
+        assertEquals(old.size(), jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions_archive", Long.class));
+        assertEquals(old.size(), jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT id) FROM transactions_archive", Long.class));
+    }
+
+    @Test
+    @DisplayName("Archived transactions are still found by id and by trade number, with the cached copies gone")
+    void testArchive_LookupsFallBackToArchive() {
+        transactionArchiver.archive();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        for (Transaction transaction : old) {
+            Transaction byId = transactionService.getTransactionById(transaction.getId());
+            assertEquals(transaction.getTradeNo(), byId.getTradeNo());
+            assertEquals(0, transaction.getAmount().compareTo(byId.getAmount()));
+            Transaction byTradeNo = transactionService.getTransactionByTradeNo(transaction.getTradeNo());
+            assertEquals(transaction.getId(), byTradeNo.getId());
+            assertEquals(transaction.getId(), transactionArchiveRepository.findByTradeNo(transaction.getTradeNo()).orElseThrow().getId());
+        }
+        assertEquals(TransactionStatus.COMPLETED, transactionService.getTransactionById(old.get(0).getId()).getStatus());
+        assertEquals(TransactionStatus.FAILED, transactionService.getTransactionById(old.get(1).getId()).getStatus());
+    }
+
+    @Test
+    @DisplayName("Archived rows are removed from the read model, which only holds the hot table")
+    void testArchive_RemovedFromReadModel() {
+        assertTrue(transactionReadModel.findById(old.get(0).getId()).isPresent());
+
+        transactionArchiver.archive();
+
+        for (Transaction transaction : old) {
+            assertTrue(transactionReadModel.findById(transaction.getId()).isEmpty());
+        }
+        assertTrue(transactionReadModel.findById(recent.getId()).isPresent());
+    }
+
+    private Transaction create() {
+        Transaction transaction = new Transaction();
+        transaction.setTradeNo(String.valueOf(tradeNumbers.incrementAndGet()));
+        transaction.setAccountNumber("6222000000000001");
+        transaction.setAccountName("david");
+        transaction.setPayeeAccount("9876543210987654");
+        transaction.setPayeeName("Tom");
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setCurrency("CNY");
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDebitCredit(DebitCredit.CREDIT);
+        return transactionService.createTransaction(transaction);
+    }
+
+    private void backdate(Transaction transaction, TransactionStatus status, LocalDateTime createdAt) {
+        jdbcTemplate.update("UPDATE transactions SET status = ?, created_at = ? WHERE id = ?",
+                status.name(), Timestamp.valueOf(createdAt), transaction.getId());
+    }
+
+    private long countIn(String table, Long id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE id = ?", Long.class, id);
+    }
+}
@@ -0,0 +1,118 @@
+package com.banking.storage.compact;
+
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.enums.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compact mapping converters unit test: every value survives the round trip through its column type
+ */
+public class CompactConvertersTest {
+
+    private final AccountNumberConverter accountNumberConverter = new AccountNumberConverter();
+    private final AmountMinorUnitsConverter amountConverter = new AmountMinorUnitsConverter();
+    private final TradeNoConverter tradeNoConverter = new TradeNoConverter();
+
+    @Test
+    @DisplayName("Account numbers keep their leading zeros and length, from 1 to 20 digits")
+    void testAccountNumber_RoundTrip() {
+        for (String accountNumber : new String[]{"1234567890123456", "0000000001", "0000000000", "00000000000000000000",
+                "99999999999999999999", "0", "1"}) {
+            BigDecimal column = accountNumberConverter.convertToDatabaseColumn(accountNumber);
+            assertTrue(column.precision() <= 21, accountNumber);
+            assertEquals(0, column.scale());
+            assertEquals(accountNumber, accountNumberConverter.convertToEntityAttribute(column));
+        }
+        assertNull(accountNumberConverter.convertToDatabaseColumn(null));
+        assertNull(accountNumberConverter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    @DisplayName("Account numbers that are empty, too long or not digits are rejected")
+    void testAccountNumber_Invalid() {
+        assertThrows(IllegalArgumentException.class, () -> accountNumberConverter.convertToDatabaseColumn(""));
+        assertThrows(IllegalArgumentException.class, () -> accountNumberConverter.convertToDatabaseColumn("123456789012345678901"));
+        assertThrows(IllegalArgumentException.class, () -> accountNumberConverter.convertToDatabaseColumn("12345678901234a6"));
+        assertThrows(IllegalArgumentException.class, () -> accountNumberConverter.convertToDatabaseColumn("-123456789"));
+    }
+
+    @Test
+    @DisplayName("Amounts round trip as minor units, up to the largest amount a BIGINT holds")
+    void testAmount_RoundTrip() {
+        for (String amount : new String[]{"0.00", "0.01", "-0.01", "500.00", "92233720368547758.07", "-92233720368547758.08"}) {
+            assertEquals(new BigDecimal(amount), amountConverter.convertToEntityAttribute(amountConverter.convertToDatabaseColumn(new BigDecimal(amount))), amount);
+        }
+        assertEquals(Long.MAX_VALUE, amountConverter.convertToDatabaseColumn(new BigDecimal("92233720368547758.07")));
+        assertEquals(1L, amountConverter.convertToDatabaseColumn(new BigDecimal("0.01")));
+        assertNull(amountConverter.convertToDatabaseColumn(null));
+        assertNull(amountConverter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    @DisplayName("Amounts with fewer decimals or trailing zeros come back at scale 2 with the same value")
+    void testAmount_Scale() {
+        assertEquals(new BigDecimal("1.50"), amountConverter.convertToEntityAttribute(amountConverter.convertToDatabaseColumn(new BigDecimal("1.5"))));
+        assertEquals(new BigDecimal("100.00"), amountConverter.convertToEntityAttribute(amountConverter.convertToDatabaseColumn(new BigDecimal("1E+2"))));
+        assertEquals(150L, amountConverter.convertToDatabaseColumn(new BigDecimal("1.500")));
+    }
+
+    @Test
+    @DisplayName("Amounts with a third decimal or beyond a BIGINT of minor units are rejected, not rounded")
+    void testAmount_NotRepresentable() {
+        assertThrows(ArithmeticException.class, () -> amountConverter.convertToDatabaseColumn(new BigDecimal("0.001")));
+        assertThrows(ArithmeticException.class, () -> amountConverter.convertToDatabaseColumn(new BigDecimal("92233720368547758.08")));
+        assertThrows(ArithmeticException.class, () -> amountConverter.convertToDatabaseColumn(new BigDecimal("-92233720368547758.09")));
+        //a 17-digit amount fits NUMERIC(19, 2) but not always the compact column
+        assertThrows(ArithmeticException.class, () -> amountConverter.convertToDatabaseColumn(new BigDecimal("99999999999999999.99")));
+    }
+
+    @Test
+    @DisplayName("Trade numbers keep their 18 digits, leading zeros included")
+    void testTradeNo_RoundTrip() {
+        for (String tradeNo : new String[]{"123456789012345654", "000000000000000001", "000000000000000000", "999999999999999999",
+                "900000000000000000"}) {
+            assertEquals(tradeNo, tradeNoConverter.convertToEntityAttribute(tradeNoConverter.convertToDatabaseColumn(tradeNo)));
+        }
+        assertEquals(1L, tradeNoConverter.convertToDatabaseColumn("000000000000000001"));
+        assertNull(tradeNoConverter.convertToDatabaseColumn(null));
+        assertNull(tradeNoConverter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    @DisplayName("Trade numbers that are not 18 digits are rejected")
+    void testTradeNo_Invalid() {
+        assertThrows(IllegalArgumentException.class, () -> tradeNoConverter.convertToDatabaseColumn("12345678901234567"));
+        assertThrows(IllegalArgumentException.class, () -> tradeNoConverter.convertToDatabaseColumn("1234567890123456789"));
+        assertThrows(IllegalArgumentException.class, () -> tradeNoConverter.convertToDatabaseColumn("12345678901234567X"));
+    }
+
+    @Test
+    @DisplayName("Every enum value round trips through its code")
+    void testEnumCodes_RoundTrip() {
+        TransactionStatusCodeConverter statusConverter = new TransactionStatusCodeConverter();
+        TransactionTypeCodeConverter typeConverter = new TransactionTypeCodeConverter();
+        DebitCreditCodeConverter debitCreditConverter = new DebitCreditCodeConverter();
+
+        for (TransactionStatus status : TransactionStatus.values()) {
+            String code = statusConverter.convertToDatabaseColumn(status);
+            assertTrue(code.length() <= 1, code);
+            assertEquals(status, statusConverter.convertToEntityAttribute(code));
+        }
+        for (TransactionType type : TransactionType.values()) {
+            String code = typeConverter.convertToDatabaseColumn(type);
+            assertTrue(code.length() <= 3, code);
+            assertEquals(type, typeConverter.convertToEntityAttribute(code));
+        }
+        for (DebitCredit debitCredit : DebitCredit.values()) {
+            String code = debitCreditConverter.convertToDatabaseColumn(debitCredit);
+            assertTrue(code.length() <= 2, code);
+            assertEquals(debitCredit, debitCreditConverter.convertToEntityAttribute(code));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.banking.storage.compact;
+
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.enums.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CompactSchemaMigration unit test, on an in-memory H2 database with the non-compact schema
+ */
+public class CompactSchemaMigrationTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 6, 30, 12, 30, 15, 123456000);
+
+    private String url;
+    private Connection keepAlive;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        url = "jdbc:h2:mem:compact_migration_" + System.nanoTime();
+        //the database lives as long as one connection is open
+        keepAlive = DriverManager.getConnection(url, "sa", "");
+        jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(DriverManager.getConnection(url, "sa", ""), true));
+        jdbcTemplate.execute("""
+                CREATE TABLE transactions (
+                    id BIGINT PRIMARY KEY, trade_no VARCHAR(255) NOT NULL, account_number VARCHAR(255) NOT NULL,
+                    account_name VARCHAR(255) NOT NULL, payee_account VARCHAR(255) NOT NULL, payee_name VARCHAR(255),
+                    amount NUMERIC(19, 2) NOT NULL, currency VARCHAR(255) NOT NULL, status VARCHAR(255) NOT NULL,
+                    type VARCHAR(255) NOT NULL, debit_credit VARCHAR(255) NOT NULL, created_at TIMESTAMP NOT NULL,
+                    updated_at TIMESTAMP, description VARCHAR(500), transfer_ref VARCHAR(18))""");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX idx_trade_no ON transactions (trade_no)");
+        //an archive written before the transfers, without transfer_ref
+        jdbcTemplate.execute("""
+                CREATE TABLE transactions_archive (
+                    id BIGINT PRIMARY KEY, trade_no VARCHAR(18) NOT NULL, account_number VARCHAR(20) NOT NULL,
+                    account_name VARCHAR(100) NOT NULL, payee_account VARCHAR(20) NOT NULL, payee_name VARCHAR(100),
+                    amount NUMERIC(19, 2) NOT NULL, currency VARCHAR(3) NOT NULL, status VARCHAR(16) NOT NULL,
+                    type VARCHAR(32) NOT NULL, debit_credit VARCHAR(16) NOT NULL, created_at TIMESTAMP NOT NULL,
+                    updated_at TIMESTAMP, description VARCHAR(500), archived_at TIMESTAMP NOT NULL)""");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        keepAlive.close();
+    }
+
+    @Test
+    @DisplayName("Every row is preserved, values decode to what was stored, boundary values included")
+    void testMigrate_PreservesRows() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(1, "000000000000000001", "0000000001", "99999999999999999999", "0.01", TransactionStatus.PENDING,
+                TransactionType.TRANSFER_OUT, DebitCredit.DEBIT, "000000000000000001", null));
+        rows.add(row(2, "999999999999999999", "1234567890123456", "0000000000", "92233720368547758.07", TransactionStatus.COMPLETED,
+                TransactionType.TRANSFER_IN, DebitCredit.CREDIT, "000000000000000001", CREATED_AT.plusDays(1)));
+        for (int i = 0; i < TransactionType.values().length; i++) {
+            rows.add(row(10 + i, String.valueOf(100000000000000000L + i), "6222000000000001", "9876543210987654", "500." + String.format("%02d", i),
+                    TransactionStatus.values()[i % TransactionStatus.values().length], TransactionType.values()[i],
+                    DebitCredit.values()[i % 2], null, null));
+        }
+        for (Object[] row : rows) {
+            jdbcTemplate.update("INSERT INTO transactions (id, trade_no, account_number, account_name, payee_account, payee_name, amount, currency, status, type, "
+                    + "debit_credit, created_at, updated_at, description, transfer_ref) VALUES (?, ?, ?, 'david', ?, 'Tom', ?, 'CNY', ?, ?, ?, ?, ?, '邹永卫', ?)",
+                    row[0], row[1], row[2], row[3], row[4], row[5], row[6], row[7], row[8], row[9], row[10]);
+        }
+
+        CompactSchemaMigration.main(new String[]{url, "sa", ""});
+
+        assertEquals("BIGINT", columnType("TRANSACTIONS", "TRADE_NO"));
+        assertEquals("BIGINT", columnType("TRANSACTIONS", "AMOUNT"));
+        assertEquals(rows.size(), jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+        for (Object[] row : rows) {
+            Map<String, Object> migrated = jdbcTemplate.queryForMap("SELECT * FROM transactions WHERE id = ?", row[0]);
+            assertEquals(row[1], CompactEncoding.decodeTradeNo((Long) migrated.get("TRADE_NO")));
+            assertEquals(row[2], CompactEncoding.decodeAccountNumber((BigDecimal) migrated.get("ACCOUNT_NUMBER")));
+            assertEquals(row[3], CompactEncoding.decodeAccountNumber((BigDecimal) migrated.get("PAYEE_ACCOUNT")));
+            assertEquals(row[4], CompactEncoding.decodeAmount((Long) migrated.get("AMOUNT")));
+            assertEquals(row[5], TransactionStatus.fromCode((String) migrated.get("STATUS")).name());
+            assertEquals(row[6], TransactionType.fromCode((String) migrated.get("TYPE")).name());
+            assertEquals(row[7], DebitCredit.fromCode((String) migrated.get("DEBIT_CREDIT")).name());
+            assertEquals(row[8], ((Timestamp) migrated.get("CREATED_AT")).toLocalDateTime());
+            assertEquals(row[9] == null ? null : Timestamp.valueOf((LocalDateTime) row[9]), migrated.get("UPDATED_AT"));
+            assertEquals(row[10], CompactEncoding.decodeTradeNo((Long) migrated.get("TRANSFER_REF")));
+            assertEquals("david", migrated.get("ACCOUNT_NAME"));
+            assertEquals("邹永卫", migrated.get("DESCRIPTION"));
+        }
+        //the renamed indexes still enforce the trade number uniqueness
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_NAME = 'TRANSACTIONS' AND INDEX_NAME = 'IDX_TRADE_NO'", Integer.class));
+        assertThrows(DuplicateKeyException.class, () -> jdbcTemplate.update("INSERT INTO transactions (id, trade_no, account_number, "
+                + "account_name, payee_account, amount, currency, status, type, debit_credit, created_at) SELECT 99, trade_no, account_number, "
+                + "account_name, payee_account, amount, currency, status, type, debit_credit, created_at FROM transactions WHERE id = 1"));
+    }
+
+    @Test
+    @DisplayName("Archived rows are preserved with their archived_at, an archive without transfer_ref gets nulls")
+    void testMigrate_Archive() throws Exception {
+        LocalDateTime archivedAt = CREATED_AT.plusDays(100);
+        jdbcTemplate.update("INSERT INTO transactions_archive (id, trade_no, account_number, account_name, payee_account, amount, "
+                        + "currency, status, type, debit_credit, created_at, archived_at) VALUES (5, '000000000000000005', '0012345678', "
+                        + "'david', '9876543210987654', 10.50, 'CNY', 'FAILED', 'FEE', 'DEBIT', ?, ?)",
+                Timestamp.valueOf(CREATED_AT), Timestamp.valueOf(archivedAt));
+
+        CompactSchemaMigration.main(new String[]{url, "sa", ""});
+
+        Map<String, Object> migrated = jdbcTemplate.queryForMap("SELECT * FROM transactions_archive WHERE id = 5");
+        assertEquals("000000000000000005", CompactEncoding.decodeTradeNo((Long) migrated.get("TRADE_NO")));
+        assertEquals("0012345678", CompactEncoding.decodeAccountNumber((BigDecimal) migrated.get("ACCOUNT_NUMBER")));
+        assertEquals(new BigDecimal("10.50"), CompactEncoding.decodeAmount((Long) migrated.get("AMOUNT")));
+        assertEquals(TransactionStatus.FAILED, TransactionStatus.fromCode((String) migrated.get("STATUS")));
+        assertEquals(Timestamp.valueOf(archivedAt), migrated.get("ARCHIVED_AT"));
+        assertNull(migrated.get("TRANSFER_REF"));
+    }
+
+    @Test
+    @DisplayName("A dry run measures the copy and changes nothing, a second run skips the compact tables")
+    void testMigrate_DryRunAndRerun() throws Exception {
+        jdbcTemplate.update("INSERT INTO transactions (id, trade_no, account_number, account_name, payee_account, amount, currency, "
+                + "status, type, debit_credit, created_at) VALUES (1, '123456789012345678', '0000000001', 'david', '9876543210987654', "
+                + "1.00, 'CNY', 'PENDING', 'DEPOSIT', 'CREDIT', CURRENT_TIMESTAMP)");
+
+        CompactSchemaMigration.main(new String[]{url, "sa", "", "--dry-run"});
+        assertEquals("CHARACTER VARYING", columnType("TRANSACTIONS", "TRADE_NO"));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME LIKE '%_COMPACT'", Integer.class));
+
+        CompactSchemaMigration.main(new String[]{url, "sa", ""});
+        CompactSchemaMigration.main(new String[]{url, "sa", ""});
+        assertEquals("BIGINT", columnType("TRANSACTIONS", "TRADE_NO"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class));
+        assertEquals(123456789012345678L, jdbcTemplate.queryForObject("SELECT trade_no FROM transactions", Long.class));
+    }
+
+    private String columnType(String table, String column) {
+        return jdbcTemplate.queryForObject("SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = ? AND COLUMN_NAME = ?",
+                String.class, table, column);
+    }
+
+    private static Object[] row(long id, String tradeNo, String accountNumber, String payeeAccount, String amount, TransactionStatus status,
+                                TransactionType type, DebitCredit debitCredit, String transferRef, LocalDateTime updatedAt) {
+        return new Object[]{id, tradeNo, accountNumber, payeeAccount, new BigDecimal(amount), status.name(), type.name(), debitCredit.name(),
+                CREATED_AT, updatedAt, transferRef};
+    }
+}
@@ -0,0 +1,135 @@
+package com.banking.storage.log;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LogSegment unit test
+ */
+public class LogSegmentTest {
+
+    private static final int SIZE = 4096;
+
+    @TempDir
+    Path tempDir;
+
+    private LogSegment segment;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (segment != null) {
+            segment.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Appended records are read back in order, with their type and payload")
+    void testAppend_ReadBack() throws Exception {
+        segment = LogSegment.open(tempDir, 1, SIZE);
+
+        int first = segment.append(LogSegment.TYPE_PUT, payload("first"));
+        int second = segment.append(LogSegment.TYPE_DELETE, payload("second"));
+
+        assertEquals(0, first);
+        assertEquals(LogSegment.RECORD_OVERHEAD + 5, second);
+        assertTrue(segment.isValidRecord(first));
+        assertTrue(segment.isValidRecord(second));
+        assertEquals(LogSegment.TYPE_PUT, segment.type(first));
+        assertEquals(LogSegment.TYPE_DELETE, segment.type(second));
+        assertEquals("second", text(segment.payload(second)));
+        assertEquals(second + segment.recordSize(second), segment.writeOffset());
+        //end of the written part
+        assertFalse(segment.isValidRecord(segment.writeOffset()));
+    }
+
+    @Test
+    @DisplayName("A record whose bytes do not match its CRC is torn")
+    void testIsValidRecord_Torn() throws Exception {
+        segment = LogSegment.open(tempDir, 1, SIZE);
+        segment.append(LogSegment.TYPE_PUT, payload("first"));
+        int second = segment.append(LogSegment.TYPE_PUT, payload("second"));
+        segment.force();
+        segment.close();
+
+        //a crash in the middle of the second record: its payload only partly reached the disk
+        overwrite(tempDir.resolve(LogSegment.fileName(1)), second + 5, new byte[]{'X', 'X'});
+        segment = LogSegment.open(tempDir, 1, SIZE);
+
+        assertTrue(segment.isValidRecord(0));
+        assertFalse(segment.isValidRecord(second));
+    }
+
+    @Test
+    @DisplayName("A length beyond the end of the segment is not a record")
+    void testIsValidRecord_LengthOutOfBounds() throws Exception {
+        segment = LogSegment.open(tempDir, 1, SIZE);
+        segment.close();
+        overwrite(tempDir.resolve(LogSegment.fileName(1)), 0, ByteBuffer.allocate(4).putInt(SIZE).array());
+        segment = LogSegment.open(tempDir, 1, SIZE);
+
+        assertFalse(segment.isValidRecord(0));
+        assertFalse(segment.isValidRecord(SIZE - 4));
+    }
+
+    @Test
+    @DisplayName("Clearing from an offset zeroes the rest of the segment")
+    void testClearFrom() throws Exception {
+        segment = LogSegment.open(tempDir, 1, SIZE);
+        segment.append(LogSegment.TYPE_PUT, payload("first"));
+        int second = segment.append(LogSegment.TYPE_PUT, payload("second"));
+
+        segment.clearFrom(second);
+
+        assertTrue(segment.isValidRecord(0));
+        assertEquals(0, segment.payloadLength(second));
+    }
+
+    @Test
+    @DisplayName("A record only fits with room left for the end marker")
+    void testHasRoom() throws Exception {
+        segment = LogSegment.open(tempDir, 1, SIZE);
+
+        assertTrue(segment.hasRoom(SIZE - LogSegment.RECORD_OVERHEAD - 4));
+        assertFalse(segment.hasRoom(SIZE - LogSegment.RECORD_OVERHEAD - 3));
+    }
+
+    @Test
+    @DisplayName("An existing segment keeps its size, the file name carries the id")
+    void testOpen_ExistingSize() throws Exception {
+        segment = LogSegment.open(tempDir, 7, SIZE);
+        segment.close();
+
+        segment = LogSegment.open(tempDir, 7, SIZE * 2);
+
+        assertEquals(SIZE, segment.capacity());
+        assertEquals(SIZE, Files.size(tempDir.resolve("segment-0000000007.log")));
+        assertEquals(7, LogSegment.parseId(LogSegment.fileName(7)));
+    }
+
+    private static ByteBuffer payload(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String text(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void overwrite(Path file, long position, byte[] bytes) throws Exception {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), position);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.banking.storage.log;
+
+import com.banking.enums.DebitCredit;
+import com.banking.enums.TransactionStatus;
+import com.banking.enums.TransactionType;
+import com.banking.model.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LogStructuredStore unit test, with 1 MB segments. </br>
+ * A crash is simulated by stopping the background threads and closing the files without the shutdown checkpoint,
+ * the store opened next on the same directory recovers from what is in the segment files.
+ */
+public class LogStructuredStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LogStructuredStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    @DisplayName("A torn last record is discarded on recovery, the records before it are kept")
+    void testRecover_TornLastRecord() throws Exception {
+        store = open("group");
+        store.insert(transaction(1, "first"));
+        store.insert(transaction(2, "second"));
+        store.insert(transaction(3, "third"));
+        crash();
+
+        //the crash hit the third record: part of its payload never reached the disk
+        int torn = lastRecordOffset(1);
+        LogSegmentTest.overwrite(segmentFile(1), torn + 5 + 20, new byte[]{0x7F, 0x7F, 0x7F});
+        store = open("group");
+
+        assertEquals(2, store.count());
+        assertEquals("second", store.findById(2L).orElseThrow().getDescription());
+        assertTrue(store.findById(3L).isEmpty());
+        assertTrue(store.findByTradeNo(tradeNo(3)).isEmpty());
+
+        //the next record goes where the torn one was, and survives the next crash
+        Transaction next = store.insert(transaction(4, "fourth"));
+        assertEquals(3L, next.getId());
+        assertEquals(torn, lastRecordOffset(1));
+        crash();
+        store = open("group");
+        assertEquals(3, store.count());
+        assertEquals("fourth", store.findByTradeNo(tradeNo(4)).orElseThrow().getDescription());
+    }
+
+    @Test
+    @DisplayName("Recovery loads the checkpoint and replays only the records written after it")
+    void testRecover_CheckpointAndReplay() throws Exception {
+        store = open("group");
+        store.insert(transaction(1, "first"));
+        store.insert(transaction(2, "second"));
+        store.insert(transaction(3, "third"));
+        ReflectionTestUtils.invokeMethod(store, "writeCheckpoint");
+        Transaction updated = store.findById(1L).orElseThrow();
+        updated.setDescription("updated");
+        assertTrue(store.update(updated));
+        assertTrue(store.delete(2L).isPresent());
+        store.insert(transaction(4, "fourth"));
+        crash();
+
+        //a whole-log replay would stop at the first record, the checkpoint lets recovery start after it
+        LogSegmentTest.overwrite(segmentFile(1), crcOffset(0), new byte[]{0x7F});
+        store = open("group");
+
+        assertEquals(3, store.count());
+        assertEquals("updated", store.findById(1L).orElseThrow().getDescription());
+        assertTrue(store.findById(2L).isEmpty());
+        assertTrue(store.findByTradeNo(tradeNo(2)).isEmpty());
+        assertEquals("third", store.findById(3L).orElseThrow().getDescription());
+        assertEquals("fourth", store.findById(4L).orElseThrow().getDescription());
+        assertEquals(5L, store.insert(transaction(5, "fifth")).getId());
+    }
+
+    @Test
+    @DisplayName("A corrupt checkpoint is ignored and the whole log is replayed")
+    void testRecover_CorruptCheckpoint() throws Exception {
+        store = open("group");
+        store.insert(transaction(1, "first"));
+        ReflectionTestUtils.invokeMethod(store, "writeCheckpoint");
+        store.insert(transaction(2, "second"));
+        assertTrue(store.delete(1L).isPresent());
+        crash();
+
+        LogSegmentTest.overwrite(tempDir.resolve("index.checkpoint"), 30, new byte[]{0x7F, 0x7F});
+        store = open("group");
+
+        assertEquals(1, store.count());
+        assertTrue(store.findById(1L).isEmpty());
+        assertEquals("second", store.findById(2L).orElseThrow().getDescription());
+    }
+
+    @Test
+    @DisplayName("A clean shutdown checkpoints the index, the next start has nothing to replay")
+    void testClose_Checkpoint() throws Exception {
+        store = open("group");
+        store.insert(transaction(1, "first"));
+        store.insert(transaction(2, "second"));
+        store.close();
+
+        //every record is covered by the checkpoint, recovery does not read the log
+        LogSegmentTest.overwrite(segmentFile(1), crcOffset(0), new byte[]{0x7F});
+        store = open("group");
+
+        assertEquals(2, store.count());
+        assertEquals("second", store.findByTradeNo(tradeNo(2)).orElseThrow().getDescription());
+    }
+
+    @Test
+    @DisplayName("Compaction moves the live records and keeps a tombstone while an older segment holds the deleted version")
+    void testCompact_Tombstones() throws Exception {
+        store = open("none");
+        Transaction deleted = store.insert(transaction(1, "deleted"));
+        //fill segment 1 with live records
+        long tradeNo = 100;
+        while (!Files.exists(segmentFile(2))) {
+            store.insert(transaction(tradeNo++, "live"));
+        }
+        long liveCount = store.count();
+        //segment 2: the tombstone of a transaction in segment 1, and versions of one transaction that are overwritten
+        assertTrue(store.delete(deleted.getId()).isPresent());
+        Transaction updated = store.insert(transaction(2, "version"));
+        int version = 0;
+        while (!Files.exists(segmentFile(3))) {
+            updated.setDescription("version " + ++version);
+            assertTrue(store.update(updated));
+        }
+
+        ReflectionTestUtils.invokeMethod(store, "compactQuietly");
+
+        assertFalse(Files.exists(segmentFile(2)), "the segment with little live data is deleted");
+        assertTrue(Files.exists(segmentFile(1)), "the segment with live data is kept");
+        assertEquals(1.0, meterRegistry.get("transaction.log.compactions").counter().count());
+        assertEquals("version " + version, store.findById(updated.getId()).orElseThrow().getDescription());
+        assertTrue(store.findById(deleted.getId()).isEmpty());
+        assertEquals(liveCount, store.count());
+
+        //without the checkpoint, the whole log is replayed: the carried-over tombstone keeps the deleted transaction deleted
+        crash();
+        Files.delete(tempDir.resolve("index.checkpoint"));
+        store = open("none");
+
+        assertTrue(store.findById(deleted.getId()).isEmpty());
+        assertTrue(store.findByTradeNo(tradeNo(1)).isEmpty());
+        assertEquals("version " + version, store.findByTradeNo(tradeNo(2)).orElseThrow().getDescription());
+        assertEquals(liveCount, store.count());
+    }
+
+    @Test
+    @DisplayName("A TRANSFER_OUT leg without its TRANSFER_IN leg at the end of the log is dropped on recovery")
+    void testRecover_OrphanTransferLeg() throws Exception {
+        store = open("group");
+        store.insertAll(List.of(leg(1, TransactionType.TRANSFER_OUT, tradeNo(1)), leg(2, TransactionType.TRANSFER_IN, tradeNo(1))));
+        //the crash hit between the two legs of the next transfer
+        Transaction orphan = store.insert(leg(3, TransactionType.TRANSFER_OUT, tradeNo(3)));
+        int orphanOffset = lastRecordOffset(1);
+        crash();
+
+        store = open("group");
+
+        assertEquals(2, store.count());
+        assertTrue(store.findById(orphan.getId()).isEmpty());
+        assertTrue(store.findByTradeNo(tradeNo(3)).isEmpty());
+        assertEquals(TransactionType.TRANSFER_OUT, store.findByTradeNo(tradeNo(1)).orElseThrow().getType());
+        assertEquals(TransactionType.TRANSFER_IN, store.findByTradeNo(tradeNo(2)).orElseThrow().getType());
+        //cut off the log like a torn record, the retried transfer is written in its place
+        store.insertAll(List.of(leg(3, TransactionType.TRANSFER_OUT, tradeNo(3)), leg(4, TransactionType.TRANSFER_IN, tradeNo(3))));
+        assertEquals(4, store.count());
+        crash();
+        store = open("group");
+        assertEquals(4, store.count());
+        assertTrue(lastRecordOffset(1) > orphanOffset);
+    }
+
+    @Test
+    @DisplayName("An acknowledged write has been forced to disk, concurrent writes share the fsync")
+    void testGroupCommit_AcknowledgedIsDurable() throws Exception {
+        store = open("group");
+        store.insert(transaction(1, "first"));
+        assertEquals(appendedPosition(), durablePosition());
+
+        int writers = 8;
+        int perWriter = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int writer = 0; writer < writers; writer++) {
+                long first = 1000 + writer * perWriter;
+                results.add(executor.submit(() -> {
+                    for (long i = first; i < first + perWriter; i++) {
+                        store.insert(transaction(i, "concurrent"));
+                        //every acknowledged record is below the durable position
+                        assertTrue(durablePosition() >= position(store.findByTradeNo(tradeNo(i)).orElseThrow().getId()));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long fsyncs = meterRegistry.get("transaction.log.fsync").timer().count();
+        assertTrue(fsyncs >= 1 && fsyncs <= 1 + writers * perWriter, "fsyncs " + fsyncs);
+        assertEquals(appendedPosition(), durablePosition());
+        assertEquals(1 + writers * perWriter, store.count());
+    }
+
+    private LogStructuredStore open(String fsync) throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        LogStructuredStore opened = new LogStructuredStore();
+        ReflectionTestUtils.setField(opened, "dir", tempDir.toString());
+        ReflectionTestUtils.setField(opened, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(opened, "fsync", fsync);
+        ReflectionTestUtils.setField(opened, "groupCommitIntervalMs", 2L);
+        //maintenance is triggered by the tests
+        ReflectionTestUtils.setField(opened, "checkpointIntervalSeconds", 3600L);
+        ReflectionTestUtils.setField(opened, "compactionIntervalSeconds", 3600L);
+        ReflectionTestUtils.setField(opened, "compactionLiveRatio", 0.5);
+        ReflectionTestUtils.setField(opened, "meterRegistry", meterRegistry);
+        opened.init();
+        return opened;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void crash() throws Exception {
+        ReflectionTestUtils.setField(store, "running", false);
+        ((ScheduledExecutorService) ReflectionTestUtils.getField(store, "maintenance")).shutdownNow();
+        Thread flusher = (Thread) ReflectionTestUtils.getField(store, "flusher");
+        if (flusher != null) {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        for (LogSegment segment : ((Map<Integer, LogSegment>) ReflectionTestUtils.getField(store, "segments")).values()) {
+            segment.close();
+        }
+        store = null;
+    }
+
+    private Path segmentFile(int id) {
+        return tempDir.resolve(LogSegment.fileName(id));
+    }
+
+    //offset of the last valid record, or the end of the written part if it is read after a crash
+    private int lastRecordOffset(int segmentId) throws Exception {
+        LogSegment segment = LogSegment.open(tempDir, segmentId, 0);
+        try {
+            int last = 0;
+            int offset = 0;
+            while (segment.isValidRecord(offset)) {
+                last = offset;
+                offset += segment.recordSize(offset);
+            }
+            return last;
+        } finally {
+            segment.close();
+        }
+    }
+
+    //offset of the CRC of a record in segment 1, the payload decodes the same with a broken CRC
+    private int crcOffset(int offset) throws Exception {
+        LogSegment segment = LogSegment.open(tempDir, 1, 0);
+        try {
+            return offset + 5 + segment.payloadLength(offset);
+        } finally {
+            segment.close();
+        }
+    }
+
+    //end position of the record of the id
+    @SuppressWarnings("unchecked")
+    private long position(long id) {
+        Map<Long, Long> idIndex = (Map<Long, Long>) ReflectionTestUtils.getField(store, "idIndex");
+        long location = idIndex.get(id);
+        return location + LogSegment.RECORD_OVERHEAD + payloadLengthAt(location);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int payloadLengthAt(long location) {
+        Map<Integer, LogSegment> segments = (Map<Integer, LogSegment>) ReflectionTestUtils.getField(store, "segments");
+        return segments.get((int) (location >>> 32)).payloadLength((int) location);
+    }
+
+    private long appendedPosition() {
+        return (long) ReflectionTestUtils.getField(store, "appendedPosition");
+    }
+
+    private long durablePosition() {
+        return (long) ReflectionTestUtils.getField(store, "durablePosition");
+    }
+
+    private static String tradeNo(long n) {
+        return String.valueOf(100000000000000000L + n);
+    }
+
+    private static Transaction leg(long n, TransactionType type, String transferRef) {
+        Transaction transaction = transaction(n, "transfer");
+        transaction.setType(type);
+        transaction.setDebitCredit(type == TransactionType.TRANSFER_OUT ? DebitCredit.DEBIT : DebitCredit.CREDIT);
+        transaction.setTransferRef(transferRef);
+        return transaction;
+    }
+
+    private static Transaction transaction(long n, String description) {
+        Transaction transaction = new Transaction();
+        transaction.setTradeNo(tradeNo(n));
+        transaction.setAccountNumber("1234567890123456");
+        transaction.setAccountName("david");
+        transaction.setPayeeAccount("9876543210987654");
+        transaction.setPayeeName("Tom");
+        transaction.setAmount(new BigDecimal("500.00"));
+        transaction.setCurrency("CNY");
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDebitCredit(DebitCredit.CREDIT);
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setDescription(description);
+        transaction.setCreatedAt(LocalDateTime.now());
+        return transaction;
+    }
+}
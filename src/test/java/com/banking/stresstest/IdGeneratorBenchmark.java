@@ -0,0 +1,103 @@
+package com.banking.stresstest;
+
+import com.banking.idgen.HiLoIdGenerator;
+import com.banking.idgen.IdGenerator;
+import com.banking.idgen.SnowflakeIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Microbenchmark of the id generators under contention, no server needed. </br>
+ * Every thread takes ids in a tight loop, the throughput is reported per generator and thread count.
+ * Each run also checks that the ids are unique and, per thread, increasing. </br>
+ * The hi/lo block source is an in-memory counter, so the numbers exclude the sequence round trip (one per block).
+ */
+public class IdGeneratorBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorBenchmark.class);
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+    private static final int IDS_PER_THREAD = 500_000;
+    private static final int WARMUP_ROUNDS = 2;
+
+    public static void main(String[] args) throws Exception {
+        AtomicLong blocks = new AtomicLong();
+        run("snowflake", () -> new SnowflakeIdGenerator(1, 0));
+        run("hilo", () -> new HiLoIdGenerator(blocks::incrementAndGet, 1000, 0));
+    }
+
+    private static void run(String name, Supplier<IdGenerator> factory) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            measure(factory.get(), 4, IDS_PER_THREAD / 4);
+        }
+        logger.info("=== {} ===", name);
+        for (int threadCount : THREAD_COUNTS) {
+            long nanos = measure(factory.get(), threadCount, IDS_PER_THREAD);
+            double idsPerSecond = (double) threadCount * IDS_PER_THREAD / (nanos / 1_000_000_000.0);
+            logger.info("Threads: {}, ids: {}, time: {} ms, throughput: {} ids/sec",
+                    threadCount, threadCount * IDS_PER_THREAD, nanos / 1_000_000, String.format("%.0f", idsPerSecond));
+        }
+    }
+
+    private static long measure(IdGenerator idGenerator, int threadCount, int idsPerThread) throws Exception {
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch endLatch = new CountDownLatch(threadCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        long[][] ids = new long[threadCount][idsPerThread];
+
+        for (int i = 0; i < threadCount; i++) {
+            final long[] threadIds = ids[i];
+            executor.submit(() -> {
+                try {
+                    startLatch.await();
+                    for (int j = 0; j < threadIds.length; j++) {
+                        threadIds[j] = idGenerator.nextId(0);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    endLatch.countDown();
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        startLatch.countDown();
+        endLatch.await();
+        long nanos = System.nanoTime() - start;
+        executor.shutdown();
+
+        verify(ids);
+        return nanos;
+    }
+
+    private static void verify(long[][] ids) {
+        int total = 0;
+        for (long[] threadIds : ids) {
+            for (int j = 1; j < threadIds.length; j++) {
+                if (threadIds[j] <= threadIds[j - 1]) {
+                    throw new IllegalStateException("Ids not increasing within a thread: " + threadIds[j - 1] + ", " + threadIds[j]);
+                }
+            }
+            total += threadIds.length;
+        }
+        long[] all = new long[total];
+        int position = 0;
+        for (long[] threadIds : ids) {
+            System.arraycopy(threadIds, 0, all, position, threadIds.length);
+            position += threadIds.length;
+        }
+        Arrays.sort(all);
+        for (int j = 1; j < all.length; j++) {
+            if (all[j] == all[j - 1]) {
+                throw new IllegalStateException("Duplicate id " + all[j]);
+            }
+        }
+    }
+}